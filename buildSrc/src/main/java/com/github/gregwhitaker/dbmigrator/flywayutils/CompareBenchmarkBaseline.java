@@ -0,0 +1,187 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Task that compares benchmark results in JMH JSON format against a checked-in baseline and fails the build when any
+ * result has regressed by more than the tolerance.
+ *
+ * When run with <code>--update-baseline</code> the current results are written as the new baseline instead. A missing
+ * baseline, or a result that is not in the baseline, fails the build rather than passing unchecked, as the baseline must
+ * be recorded on the machine the benchmarks are compared on.
+ */
+public class CompareBenchmarkBaseline extends DefaultTask {
+
+    private final ConfigurableFileCollection resultFiles = getProject().files();
+    private File baselineFile;
+    private double tolerance = 0.2;
+    private boolean updateBaseline = false;
+
+    public CompareBenchmarkBaseline() {
+        // Compares against whatever the benchmarks just measured, so never skip it
+        getOutputs().upToDateWhen(task -> false);
+    }
+
+    @TaskAction
+    public void run() {
+        final Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (File resultFile : resultFiles) {
+            if (resultFile.exists()) {
+                results.putAll(read(resultFile));
+            }
+        }
+
+        if (results.isEmpty()) {
+            throw new GradleException("No benchmark results found to compare. Run the benchmarks first.");
+        }
+
+        if (updateBaseline) {
+            writeBaseline(results);
+            return;
+        }
+
+        if (!baselineFile.exists()) {
+            throw new GradleException(String.format("No benchmark baseline found at %s. " +
+                    "Run with --update-baseline to record the current results as the baseline and commit it.", baselineFile));
+        }
+
+        final Map<String, Map<String, Object>> baseline = read(baselineFile);
+        final List<String> regressions = new ArrayList<>();
+        final List<String> missing = new ArrayList<>();
+
+        results.forEach((key, result) -> {
+            final Map<String, Object> expected = baseline.get(key);
+            if (expected == null) {
+                missing.add(key);
+                getLogger().error("NO BASELINE {}", key);
+                return;
+            }
+
+            final double score = score(result);
+            final double baselineScore = score(expected);
+            final boolean higherIsBetter = "thrpt".equals(result.get("mode"));
+            final double change = baselineScore == 0 ? 0 : (score - baselineScore) / baselineScore;
+            final boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+
+            final String line = String.format("%s: %.3f %s (baseline %.3f, %+.1f%%)", key, score, unit(result), baselineScore, change * 100);
+            if (regressed) {
+                regressions.add(line);
+                getLogger().error("REGRESSION {}", line);
+            } else {
+                getLogger().lifecycle("ok         {}", line);
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            throw new GradleException(String.format("%d benchmarks have no baseline in %s. " +
+                    "Run with --update-baseline to record them and commit the new baseline.", missing.size(), baselineFile));
+        }
+
+        if (!regressions.isEmpty()) {
+            throw new GradleException(String.format("%d benchmarks regressed by more than %.0f%% against %s. " +
+                    "Run with --update-baseline if the change is expected.", regressions.size(), tolerance * 100, baselineFile));
+        }
+    }
+
+    /**
+     * Reads a JMH JSON result file, keyed by benchmark name and parameters.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> read(File file) {
+        final Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        final List<Map<String, Object>> entries = (List<Map<String, Object>>) new JsonSlurper().parse(file, StandardCharsets.UTF_8.name());
+
+        for (Map<String, Object> entry : entries) {
+            final Map<String, Object> params = (Map<String, Object>) entry.get("params");
+            final String key = entry.get("benchmark") + (params != null && !params.isEmpty() ? new TreeMap<>(params).toString() : "");
+
+            results.put(key, entry);
+        }
+
+        return results;
+    }
+
+    private void writeBaseline(Map<String, Map<String, Object>> results) {
+        try {
+            Files.createDirectories(baselineFile.getParentFile().toPath());
+            Files.write(baselineFile.toPath(),
+                    JsonOutput.prettyPrint(JsonOutput.toJson(new ArrayList<>(results.values()))).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new GradleException("Error occurred while writing benchmark baseline", e);
+        }
+
+        getLogger().lifecycle("Wrote benchmark baseline with {} results to {}", results.size(), baselineFile);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double score(Map<String, Object> result) {
+        return ((Number) ((Map<String, Object>) result.get("primaryMetric")).get("score")).doubleValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String unit(Map<String, Object> result) {
+        return String.valueOf(((Map<String, Object>) result.get("primaryMetric")).get("scoreUnit"));
+    }
+
+    @Override
+    public String getGroup() {
+        return FlywayUtilsPlugin.GROUP_NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Compares benchmark results against the checked-in baseline.";
+    }
+
+    @InputFiles
+    public ConfigurableFileCollection getResultFiles() {
+        return resultFiles;
+    }
+
+    @Internal
+    public File getBaselineFile() {
+        return baselineFile;
+    }
+
+    public void setBaselineFile(File baselineFile) {
+        this.baselineFile = baselineFile;
+    }
+
+    @Input
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    @Input
+    public boolean isUpdateBaseline() {
+        return updateBaseline;
+    }
+
+    @Option(option = "update-baseline", description = "Replace the baseline with the current results")
+    public void setUpdateBaseline(boolean updateBaseline) {
+        this.updateBaseline = updateBaseline;
+    }
+}
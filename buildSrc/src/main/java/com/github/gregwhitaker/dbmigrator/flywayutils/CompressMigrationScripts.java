@@ -0,0 +1,145 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import com.github.gregwhitaker.dbmigrator.sql.ScriptDirectives;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Task that gzip compresses the Flyway migration scripts in the project that are larger than a threshold, such as
+ * vendor data loads, so they take less space in the distribution and are streamed by the migrator rather than read
+ * into memory by Flyway. Scripts that declare directives in their header are compressed whatever their size, as only
+ * the migrator, and not Flyway, runs scripts as their directives say.
+ *
+ * Each compressed script is written to the output directory with the same path and a <code>.gz</code> suffix, and the
+ * uncompressed script is left out of the processed resources.
+ */
+@CacheableTask
+public class CompressMigrationScripts extends DefaultTask {
+    private static final String SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File resourcesDir;
+    private final ConfigurableFileCollection scripts;
+    private long threshold = 64L * 1024 * 1024;
+    private File outputDir;
+
+    public CompressMigrationScripts() {
+        this.resourcesDir = getProject().file("src/main/resources");
+        this.scripts = getProject().files(
+                getProject().fileTree(resourcesDir, tree -> tree.include("db/migration/**/*.sql", "db/migration-env/**/*.sql")));
+        this.outputDir = new File(getProject().getBuildDir(), "generated/compressed-migrations");
+    }
+
+    @TaskAction
+    public void run() {
+        getProject().delete(outputDir);
+
+        for (File script : scripts) {
+            if (!isCompressed(script)) {
+                continue;
+            }
+
+            final Path source = script.toPath();
+            final Path target = outputDir.toPath().resolve(resourcesDir.toPath().relativize(source) + SUFFIX);
+
+            try {
+                Files.createDirectories(target.getParent());
+
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+                    Files.copy(source, out);
+                }
+            } catch (IOException e) {
+                throw new GradleException("Error occurred while compressing migration script: " + source, e);
+            }
+
+            getLogger().lifecycle("Compressed migration script [script: '{}', size: '{}', compressed: '{}']",
+                    resourcesDir.toPath().relativize(source), script.length(), target.toFile().length());
+        }
+    }
+
+    /**
+     * Checks whether a script is compressed by this task, and so must be left out of the processed resources.
+     *
+     * @param element resource being processed
+     * @return <code>true</code> if the resource is a migration script that is compressed; otherwise <code>false</code>
+     */
+    public boolean isCompressed(FileTreeElement element) {
+        final String path = element.getRelativePath().getPathString();
+
+        return !element.isDirectory()
+                && (path.startsWith("db/migration/") || path.startsWith("db/migration-env/"))
+                && path.endsWith(".sql")
+                && isCompressed(element.getFile());
+    }
+
+    private boolean isCompressed(File script) {
+        try {
+            return script.length() > threshold || hasDirectives(script.toPath());
+        } catch (IOException e) {
+            throw new GradleException("Error occurred while reading migration script: " + script, e);
+        } catch (IllegalArgumentException e) {
+            throw new GradleException(String.format("Invalid directives in migration script '%s': %s", script, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Checks whether a script declares directives in its header, reading only the header.
+     */
+    private static boolean hasDirectives(Path script) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            return ScriptDirectives.parse(reader).isDeclared();
+        }
+    }
+
+    @Override
+    public String getGroup() {
+        return FlywayUtilsPlugin.GROUP_NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Compresses Flyway migration scripts that are too large to read into memory or that declare directives.";
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getScripts() {
+        return scripts;
+    }
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @Input
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(long threshold) {
+        this.threshold = threshold;
+    }
+}
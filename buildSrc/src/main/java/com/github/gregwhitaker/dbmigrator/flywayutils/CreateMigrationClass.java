@@ -1,5 +1,6 @@
 package com.github.gregwhitaker.dbmigrator.flywayutils;
 
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
@@ -31,6 +32,9 @@ import java.util.List;
 public class CreateMigrationClass extends DefaultTask {
     private static final List<String> VALID_MIGRATION_TYPES = Arrays.asList("V", "U", "R");
 
+    // Referenced by name, as the build does not depend on the migrator
+    private static final ClassName UNDO_MIGRATION = ClassName.get("com.github.gregwhitaker.dbmigrator.undo", "UndoMigration");
+
     @Input
     private String type;
 
@@ -110,26 +114,38 @@ public class CreateMigrationClass extends DefaultTask {
     }
 
     private JavaFile createJavaMigrationClass(String className) {
-        MethodSpec methodSpec = MethodSpec.methodBuilder("migrate")
+        // Undo migrations are run by the migrator rather than Flyway, which only accepts classes named V or R
+        final boolean undo = "U".equalsIgnoreCase(type);
+
+        MethodSpec methodSpec = MethodSpec.methodBuilder(undo ? "undo" : "migrate")
                 .addException(Exception.class)
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(Override.class)
                 .addParameter(Context.class, "context")
-                .addComment("Implement the migration here")
+                .addComment(undo ? "Undo the changes of the migration with the same version here" : "Implement the migration here")
                 .build();
 
         FieldSpec loggerFieldSpec = FieldSpec.builder(Logger.class, "LOG", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
                 .initializer(String.format("$T.getLogger(%s.class)", className), ParameterizedTypeName.get(LoggerFactory.class))
                 .build();
 
-        TypeSpec typeSpec = TypeSpec.classBuilder(className)
+        TypeSpec.Builder typeBuilder = TypeSpec.classBuilder(className)
                 .addModifiers(Modifier.PUBLIC)
-                .superclass(BaseJavaMigration.class)
                 .addField(loggerFieldSpec)
-                .addMethod(methodSpec)
-                .build();
+                .addMethod(methodSpec);
+
+        if (undo) {
+            typeBuilder.addSuperinterface(UNDO_MIGRATION);
+        } else {
+            typeBuilder.superclass(BaseJavaMigration.class);
+        }
+
+        TypeSpec typeSpec = typeBuilder.build();
+
+        // Environment-specific Java migrations live in their own package, as migration-env is not a valid package name
+        final String packageName = StringUtils.isNotBlank(env) ? "db.env." + env.toLowerCase() : "db.migration";
 
-        return JavaFile.builder("db.migration", typeSpec)
+        return JavaFile.builder(packageName, typeSpec)
                 .build();
     }
 
@@ -1,5 +1,6 @@
 package com.github.gregwhitaker.dbmigrator.flywayutils;
 
+import com.github.gregwhitaker.dbmigrator.sql.ScriptDirectives;
 import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
@@ -12,11 +13,15 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Task that creates a new Flyway migration script in the project with standard naming convention.
@@ -37,12 +42,21 @@ public class CreateMigrationScript extends DefaultTask {
     @Input
     private String env;
 
+    @Optional
+    @Input
+    private String bodyFile;
+
+    @Input
+    private final Map<String, String> directives = new LinkedHashMap<>();
+
     @TaskAction
     public void run() {
         validateType(type);
         validateVersion(ver);
         validateDescription(desc);
         validateEnv(env);
+        validateBodyFile(bodyFile);
+        validateDirectives(directives);
 
         String scriptName = FlywayScriptName.generate(FlywayScriptName.Type.get(type), ver, desc);
 
@@ -57,6 +71,10 @@ public class CreateMigrationScript extends DefaultTask {
             if (!Files.exists(scriptPath)) {
                 scriptPath.toFile().createNewFile();
                 writeHeaderToScriptFile(scriptPath);
+
+                if (StringUtils.isNotBlank(bodyFile)) {
+                    writeBodyToScriptFile(scriptPath);
+                }
             }
         } catch (IOException e) {
             throw new GradleException("Error occurred while creating migration script", e);
@@ -107,11 +125,50 @@ public class CreateMigrationScript extends DefaultTask {
         }
     }
 
+    private void validateBodyFile(String bodyFile) {
+        // Optional argument that when supplied must be an existing file
+        if (StringUtils.isNotBlank(bodyFile) && !Files.isRegularFile(getProject().getRootProject().file(bodyFile).toPath())) {
+            throw new GradleException(String.format("Body file '%s' does not exist.", bodyFile));
+        }
+    }
+
+    private void validateDirectives(Map<String, String> directives) {
+        // Optional arguments that when supplied must be values the migrator accepts
+        if ("batch".equalsIgnoreCase(directives.get(ScriptDirectives.TRANSACTION)) && !directives.containsKey(ScriptDirectives.BATCH_SIZE)) {
+            throw new GradleException("Parameter 'batch-size' is required when 'transaction' is 'batch'.");
+        }
+
+        // Parsed the way the migrator parses the header, so a script is not created that fails on deploy
+        final StringBuilder header = new StringBuilder();
+        directives.forEach((directive, value) -> header.append(String.format("-- %s: %s%n", directive, value)));
+
+        try {
+            ScriptDirectives.parse(new StringReader(header.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            throw new GradleException(e.getMessage() + ".", e);
+        }
+    }
+
     private void writeHeaderToScriptFile(Path scriptPath) throws IOException {
         try (FileWriter fileWriter = new FileWriter(scriptPath.toFile());
              PrintWriter printWriter = new PrintWriter(fileWriter)) {
             printWriter.printf("-- Script: %s%n", scriptPath.toFile().getName());
             printWriter.printf("-- Description: %s%n", getDesc());
+
+            // Directives are written in a fixed order so headers read the same across scripts
+            ScriptDirectives.NAMES.stream()
+                    .filter(directives::containsKey)
+                    .forEach(directive -> printWriter.printf("-- %s: %s%n", directive, directives.get(directive)));
+        }
+    }
+
+    private void writeBodyToScriptFile(Path scriptPath) throws IOException {
+        try (FileWriter fileWriter = new FileWriter(scriptPath.toFile(), true);
+             PrintWriter printWriter = new PrintWriter(fileWriter)) {
+            printWriter.println();
+            Files.readAllLines(getProject().getRootProject().file(bodyFile).toPath()).forEach(printWriter::println);
         }
     }
 
@@ -160,4 +217,62 @@ public class CreateMigrationScript extends DefaultTask {
     public void setEnv(String env) {
         this.env = env;
     }
+
+    public String getBodyFile() {
+        return bodyFile;
+    }
+
+    @Option(option = "body-file", description = "File with the statements of the migration, such as an index advice script")
+    public void setBodyFile(String bodyFile) {
+        this.bodyFile = bodyFile;
+    }
+
+    public Map<String, String> getDirectives() {
+        return directives;
+    }
+
+    @Option(option = "transaction", description = "Transaction mode directive (single, batch, none)")
+    public void setTransaction(String transaction) {
+        directives.put("Transaction", transaction);
+    }
+
+    @Option(option = "lock-timeout", description = "Lock timeout directive, such as 5s")
+    public void setLockTimeout(String lockTimeout) {
+        directives.put("Lock-Timeout", lockTimeout);
+    }
+
+    @Option(option = "statement-timeout", description = "Statement timeout directive, such as 30min")
+    public void setStatementTimeout(String statementTimeout) {
+        directives.put("Statement-Timeout", statementTimeout);
+    }
+
+    @Option(option = "work-mem", description = "Work memory directive, such as 256MB")
+    public void setWorkMem(String workMem) {
+        directives.put("Work-Mem", workMem);
+    }
+
+    @Option(option = "maintenance-work-mem", description = "Maintenance work memory directive, such as 1GB")
+    public void setMaintenanceWorkMem(String maintenanceWorkMem) {
+        directives.put("Maintenance-Work-Mem", maintenanceWorkMem);
+    }
+
+    @Option(option = "max-parallel-maintenance-workers", description = "Parallel index build workers directive")
+    public void setMaxParallelMaintenanceWorkers(String maxParallelMaintenanceWorkers) {
+        directives.put("Max-Parallel-Maintenance-Workers", maxParallelMaintenanceWorkers);
+    }
+
+    @Option(option = "batch-size", description = "Batch size directive, the statements sent or committed together")
+    public void setBatchSize(String batchSize) {
+        directives.put("Batch-Size", batchSize);
+    }
+
+    @Option(option = "retry-attempts", description = "Retry attempts directive for lock timeouts, deadlocks and serialization failures")
+    public void setRetryAttempts(String retryAttempts) {
+        directives.put("Retry-Attempts", retryAttempts);
+    }
+
+    @Option(option = "retry-delay", description = "Retry delay directive, such as 10s, doubled on each further retry")
+    public void setRetryDelay(String retryDelay) {
+        directives.put("Retry-Delay", retryDelay);
+    }
 }
@@ -1,6 +1,9 @@
 package com.github.gregwhitaker.dbmigrator.flywayutils;
 
 import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaBasePlugin;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.Copy;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +16,10 @@ public class FlywayUtilsModule {
     // Task Names
     public static final String CREATE_MIGRATION_SCRIPT_TASK_NAME = "createMigrationScript";
     public static final String CREATE_MIGRATION_CLASS_TASK_NAME = "createMigrationClass";
+    public static final String LINT_MIGRATION_SCRIPTS_TASK_NAME = "lintMigrationScripts";
+    public static final String GENERATE_SYNTHETIC_HISTORY_TASK_NAME = "generateSyntheticHistory";
+    public static final String COMPARE_BENCHMARK_BASELINE_TASK_NAME = "compareBenchmarkBaseline";
+    public static final String COMPRESS_MIGRATION_SCRIPTS_TASK_NAME = "compressMigrationScripts";
 
     /**
      * Loads and configures tasks for the plugin.
@@ -23,10 +30,29 @@ public class FlywayUtilsModule {
         final Map<String, Class> tasks = new HashMap<>();
         tasks.put(CREATE_MIGRATION_SCRIPT_TASK_NAME, CreateMigrationScript.class);
         tasks.put(CREATE_MIGRATION_CLASS_TASK_NAME, CreateMigrationClass.class);
+        tasks.put(LINT_MIGRATION_SCRIPTS_TASK_NAME, LintMigrationScripts.class);
+        tasks.put(GENERATE_SYNTHETIC_HISTORY_TASK_NAME, GenerateSyntheticHistory.class);
+        tasks.put(COMPARE_BENCHMARK_BASELINE_TASK_NAME, CompareBenchmarkBaseline.class);
+        tasks.put(COMPRESS_MIGRATION_SCRIPTS_TASK_NAME, CompressMigrationScripts.class);
 
         tasks.forEach((name, clazz) -> {
             // Register the default tasks with the project
             project.getTasks().create(name, clazz);
         });
+
+        // Lint migration scripts as part of the standard verification lifecycle
+        project.getPluginManager().withPlugin("java", plugin -> project.getTasks()
+                .getByName(JavaBasePlugin.CHECK_TASK_NAME)
+                .dependsOn(LINT_MIGRATION_SCRIPTS_TASK_NAME));
+
+        // Package large migration scripts compressed in place of the scripts themselves
+        project.getPluginManager().withPlugin("java", plugin -> {
+            final CompressMigrationScripts compress = (CompressMigrationScripts) project.getTasks().getByName(COMPRESS_MIGRATION_SCRIPTS_TASK_NAME);
+            final Copy processResources = (Copy) project.getTasks().getByName(JavaPlugin.PROCESS_RESOURCES_TASK_NAME);
+
+            processResources.dependsOn(compress);
+            processResources.from(compress.getOutputDir());
+            processResources.exclude(compress::isCompressed);
+        });
     }
 }
@@ -0,0 +1,109 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Task that generates synthetic Flyway migration histories of different sizes for scalability benchmarks.
+ *
+ * Each history is written to <code>db/migration-env/synthetic-{size}</code> in the output directory, so it is picked
+ * up by running the migrator with <code>--env=synthetic-{size}</code>, and is made up of small scripts named with
+ * {@link FlywayScriptName}, so they sort and resolve exactly like real migrations.
+ */
+@CacheableTask
+public class GenerateSyntheticHistory extends DefaultTask {
+    // Synthetic versions start above any real platform version so they apply after the standard migrations
+    private static final String VERSION_PREFIX = "1000.0.";
+
+    private List<Integer> sizes = Arrays.asList(10, 1_000, 10_000);
+    private File outputDir = new File(getProject().getBuildDir(), "generated/synthetic-history");
+
+    @TaskAction
+    public void run() {
+        getProject().delete(outputDir);
+
+        for (int size : sizes) {
+            final Path historyDir = outputDir.toPath().resolve("db/migration-env/synthetic-" + size);
+
+            try {
+                Files.createDirectories(historyDir);
+
+                for (int i = 1; i <= size; i++) {
+                    final String scriptName = FlywayScriptName.generate(FlywayScriptName.Type.VERSIONED,
+                            VERSION_PREFIX + i,
+                            "synthetic migration " + i);
+
+                    writeScript(historyDir.resolve(scriptName), i);
+                }
+            } catch (IOException e) {
+                throw new GradleException("Error occurred while generating synthetic migration history", e);
+            }
+
+            getLogger().info("Generated synthetic migration history [size: '{}', dir: '{}']", size, historyDir);
+        }
+    }
+
+    /**
+     * Writes a script that does a small amount of catalog and data work, like a typical incremental migration.
+     */
+    private void writeScript(Path scriptPath, int index) throws IOException {
+        try (PrintWriter printWriter = new PrintWriter(Files.newBufferedWriter(scriptPath))) {
+            printWriter.printf("-- Script: %s%n", scriptPath.getFileName());
+            printWriter.printf("-- Description: Synthetic Migration %d%n%n", index);
+
+            if (index == 1) {
+                printWriter.println("CREATE TABLE synthetic_event (");
+                printWriter.println("  id            BIGSERIAL       PRIMARY KEY,");
+                printWriter.println("  migration     INT             NOT NULL,");
+                printWriter.println("  payload       VARCHAR(255)    NOT NULL");
+                printWriter.println(");");
+            }
+
+            printWriter.printf("INSERT INTO synthetic_event (migration, payload) VALUES (%d, 'synthetic migration %d');%n", index, index);
+
+            if (index % 10 == 0) {
+                printWriter.printf("COMMENT ON TABLE synthetic_event IS 'Last changed by synthetic migration %d';%n", index);
+            }
+        }
+    }
+
+    @Override
+    public String getGroup() {
+        return FlywayUtilsPlugin.GROUP_NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Generates synthetic Flyway migration histories for scalability benchmarks.";
+    }
+
+    @Input
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    public void setSizes(List<Integer> sizes) {
+        this.sizes = sizes;
+    }
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileType;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Task that checks the Flyway migration scripts in the project for statements that are dangerous to run against a
+ * database under load. Compressed scripts, ending in <code>.sql.gz</code>, are decompressed to lint them. Scripts are
+ * linted one statement at a time, so the large scripts that are compressed are not loaded into memory.
+ *
+ * The findings for each script are written to their own report file, so when the task runs incrementally only the
+ * scripts that changed since the last run are linted again.
+ */
+@CacheableTask
+public class LintMigrationScripts extends DefaultTask {
+    private static final String REPORT_EXTENSION = ".lint";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ConfigurableFileCollection scripts;
+    private File reportDir;
+    private int maxSingleRowInserts = 50;
+    private boolean ignoreFailures = false;
+
+    public LintMigrationScripts() {
+        final File resourcesDir = getProject().file("src/main/resources");
+
+        this.scripts = getProject().files(
+                getProject().fileTree(resourcesDir, tree -> tree.include("db/migration/**/*.sql", "db/migration-env/**/*.sql",
+                        "db/migration/**/*.sql.gz", "db/migration-env/**/*.sql.gz")));
+        this.reportDir = new File(getProject().getBuildDir(), "reports/migration-lint");
+    }
+
+    @TaskAction
+    public void run(InputChanges inputChanges) {
+        if (!inputChanges.isIncremental()) {
+            getProject().delete(getProject().fileTree(reportDir));
+        }
+
+        final MigrationLinter linter = new MigrationLinter(maxSingleRowInserts);
+
+        for (FileChange change : inputChanges.getFileChanges(scripts)) {
+            if (change.getFileType() == FileType.DIRECTORY) {
+                continue;
+            }
+
+            final Path reportPath = reportDir.toPath().resolve(change.getNormalizedPath() + REPORT_EXTENSION);
+
+            try {
+                if (change.getChangeType() == ChangeType.REMOVED) {
+                    Files.deleteIfExists(reportPath);
+                    continue;
+                }
+
+                final List<String> findings;
+                try (Reader reader = open(change.getFile().toPath())) {
+                    findings = linter.lint(reader).stream()
+                            .map(MigrationLinter.Finding::toString)
+                            .collect(Collectors.toList());
+                }
+
+                Files.createDirectories(reportPath.getParent());
+                Files.write(reportPath, findings, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new GradleException("Error occurred while linting migration script: " + change.getNormalizedPath(), e);
+            }
+        }
+
+        report();
+    }
+
+    /**
+     * Opens a script to be read as a stream, decompressing it when it is gzip compressed.
+     */
+    private static Reader open(Path script) throws IOException {
+        final InputStream in = script.toString().endsWith(GZIP_SUFFIX)
+                ? new GZIPInputStream(Files.newInputStream(script), BUFFER_SIZE)
+                : Files.newInputStream(script);
+
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Prints the findings of every script, including those that were not linted again on this run, and fails the
+     * build if any of them are errors.
+     */
+    private void report() {
+        int errors = 0;
+        int warnings = 0;
+
+        try (Stream<Path> reports = Files.walk(reportDir.toPath())) {
+            for (Path reportPath : reports.filter(path -> path.toString().endsWith(REPORT_EXTENSION)).sorted().collect(Collectors.toList())) {
+                final String script = reportDir.toPath().relativize(reportPath).toString();
+                final String scriptName = script.substring(0, script.length() - REPORT_EXTENSION.length());
+
+                for (String finding : Files.readAllLines(reportPath, StandardCharsets.UTF_8)) {
+                    getLogger().warn("{}: {}", scriptName, finding);
+
+                    if (finding.startsWith(MigrationLinter.Severity.ERROR.name())) {
+                        errors++;
+                    } else {
+                        warnings++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (errors > 0 && !ignoreFailures) {
+            throw new GradleException(String.format("Migration lint found %d errors and %d warnings. " +
+                    "Suppress a rule for a script with a '-- lint:ignore <rule>' comment.", errors, warnings));
+        }
+    }
+
+    @Override
+    public String getGroup() {
+        return FlywayUtilsPlugin.GROUP_NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Checks Flyway migration scripts for statements that are dangerous to run under load.";
+    }
+
+    @Incremental
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public ConfigurableFileCollection getScripts() {
+        return scripts;
+    }
+
+    @OutputDirectory
+    public File getReportDir() {
+        return reportDir;
+    }
+
+    public void setReportDir(File reportDir) {
+        this.reportDir = reportDir;
+    }
+
+    @Input
+    public int getMaxSingleRowInserts() {
+        return maxSingleRowInserts;
+    }
+
+    public void setMaxSingleRowInserts(int maxSingleRowInserts) {
+        this.maxSingleRowInserts = maxSingleRowInserts;
+    }
+
+    @Input
+    public boolean isIgnoreFailures() {
+        return ignoreFailures;
+    }
+
+    @Option(option = "ignore-failures", description = "Report lint errors without failing the build")
+    public void setIgnoreFailures(boolean ignoreFailures) {
+        this.ignoreFailures = ignoreFailures;
+    }
+}
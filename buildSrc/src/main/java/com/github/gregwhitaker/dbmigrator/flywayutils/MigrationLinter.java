@@ -0,0 +1,310 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import com.github.gregwhitaker.dbmigrator.sql.SqlStatementReader;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Statically analyzes Flyway migration scripts for statements that are slow or take heavy locks when run against a
+ * database under load.
+ *
+ * Statements against tables created earlier in the same script are not flagged, since nothing else can be using them
+ * yet. Rules can be suppressed for a whole script with a <code>-- lint:ignore rule-name[, rule-name]</code> comment.
+ */
+public class MigrationLinter {
+
+    public static final String CREATE_INDEX_CONCURRENTLY = "create-index-concurrently";
+    public static final String ALTER_COLUMN_TYPE = "alter-column-type";
+    public static final String VOLATILE_COLUMN_DEFAULT = "volatile-column-default";
+    public static final String FOREIGN_KEY_NOT_VALID = "foreign-key-not-valid";
+    public static final String UNBATCHED_UPDATE = "unbatched-update";
+    public static final String UNBATCHED_DELETE = "unbatched-delete";
+    public static final String SINGLE_ROW_INSERTS = "single-row-inserts";
+
+    private static final String NAME = "((?:\"[^\"]+\"|[\\w$]+)(?:\\.(?:\"[^\"]+\"|[\\w$]+))?)";
+
+    private static final Pattern IGNORE = Pattern.compile("--\\s*lint:ignore\\s+([\\w\\-, ]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "^CREATE\\s+(?:(?:GLOBAL|LOCAL)\\s+)?(?:(?:TEMP|TEMPORARY|UNLOGGED)\\s+)?TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME,
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "^CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(CONCURRENTLY\\s+)?.*?\\bON\\s+(?:ONLY\\s+)?" + NAME,
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ALTER_TABLE = Pattern.compile(
+            "^ALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?" + NAME + "\\s+(.*)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ALTER_COLUMN_TYPE_CLAUSE = Pattern.compile(
+            "\\bALTER\\s+(?:COLUMN\\s+)?" + NAME + "\\s+(?:SET\\s+DATA\\s+)?TYPE\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN_VOLATILE_DEFAULT = Pattern.compile(
+            "\\bADD\\s+(?:COLUMN\\s+)?(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME + "\\s+[^,]*?\\bDEFAULT\\s+[^,]*?" +
+            "\\b(random|clock_timestamp|timeofday|gen_random_uuid|uuid_generate_v1|uuid_generate_v4|nextval)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_FOREIGN_KEY = Pattern.compile(
+            "\\bADD\\s+(?:CONSTRAINT\\s+" + NAME + "\\s+)?FOREIGN\\s+KEY\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOT_VALID = Pattern.compile("\\bNOT\\s+VALID\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UPDATE = Pattern.compile(
+            "^UPDATE\\s+(?:ONLY\\s+)?" + NAME + "\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DELETE = Pattern.compile(
+            "^DELETE\\s+FROM\\s+(?:ONLY\\s+)?" + NAME + "\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SINGLE_ROW_INSERT = Pattern.compile(
+            "^INSERT\\s+INTO\\s+" + NAME + "(?:\\s*\\([^)]*\\))?\\s+VALUES\\s*\\((?:[^()']|'(?:[^']|'')*'|\\([^()]*\\))*\\)\\s*(?:ON\\s+CONFLICT\\b.*|RETURNING\\b.*)?$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final int maxSingleRowInserts;
+
+    /**
+     * Creates a new instance of {@link MigrationLinter}.
+     *
+     * @param maxSingleRowInserts maximum number of single row inserts allowed in a script
+     */
+    public MigrationLinter(int maxSingleRowInserts) {
+        this.maxSingleRowInserts = maxSingleRowInserts;
+    }
+
+    /**
+     * Lints a migration script.
+     *
+     * @param sql contents of the migration script
+     * @return findings in the order they appear in the script
+     */
+    public List<Finding> lint(String sql) {
+        try {
+            return lint(new StringReader(sql));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lints a migration script one statement at a time, so scripts of any size can be linted without loading them into
+     * memory.
+     *
+     * @param reader contents of the migration script
+     * @return findings in the order they appear in the script
+     * @throws IOException if the script cannot be read
+     */
+    public List<Finding> lint(Reader reader) throws IOException {
+        final Set<String> ignored = new HashSet<>();
+        final Set<String> createdTables = new HashSet<>();
+        final List<Finding> findings = new ArrayList<>();
+        int singleRowInserts = 0;
+        int firstSingleRowInsertLine = 0;
+
+        // Statements are read without their comments, so the ignore comments are picked out of the lines as they are read
+        try (SqlStatementReader statements = new SqlStatementReader(new IgnoreCommentReader(reader, ignored))) {
+            String text;
+            while ((text = statements.next()) != null) {
+                lint(text, statements.getLine(), createdTables, findings);
+
+                if (SINGLE_ROW_INSERT.matcher(text).find()) {
+                    if (singleRowInserts++ == 0) {
+                        firstSingleRowInsertLine = statements.getLine();
+                    }
+                }
+            }
+        }
+
+        if (singleRowInserts > maxSingleRowInserts) {
+            findings.add(new Finding(Severity.WARNING, SINGLE_ROW_INSERTS, firstSingleRowInsertLine,
+                    singleRowInserts + " single row INSERT statements each pay a round trip; use multi-row VALUES or COPY"));
+        }
+
+        findings.removeIf(finding -> ignored.contains(finding.getRule()));
+        findings.sort((a, b) -> Integer.compare(a.getLine(), b.getLine()));
+
+        return findings;
+    }
+
+    private void lint(String text, int line, Set<String> createdTables, List<Finding> findings) {
+        Matcher matcher = CREATE_TABLE.matcher(text);
+        if (matcher.find()) {
+            createdTables.add(normalize(matcher.group(1)));
+            return;
+        }
+
+        matcher = CREATE_INDEX.matcher(text);
+        if (matcher.find()) {
+            if (matcher.group(1) == null && !createdTables.contains(normalize(matcher.group(2)))) {
+                findings.add(new Finding(Severity.ERROR, CREATE_INDEX_CONCURRENTLY, line,
+                        "CREATE INDEX on " + matcher.group(2) + " blocks writes for the whole build; use CREATE INDEX CONCURRENTLY"));
+            }
+            return;
+        }
+
+        matcher = ALTER_TABLE.matcher(text);
+        if (matcher.find()) {
+            if (!createdTables.contains(normalize(matcher.group(1)))) {
+                lintAlterTable(matcher.group(1), matcher.group(2), line, findings);
+            }
+            return;
+        }
+
+        matcher = UPDATE.matcher(text);
+        if (matcher.find()) {
+            if (!WHERE.matcher(text).find() && !createdTables.contains(normalize(matcher.group(1)))) {
+                findings.add(new Finding(Severity.WARNING, UNBATCHED_UPDATE, line,
+                        "UPDATE of every row in " + matcher.group(1) + " runs as one long transaction; update in key range batches"));
+            }
+            return;
+        }
+
+        matcher = DELETE.matcher(text);
+        if (matcher.find()) {
+            if (!WHERE.matcher(text).find() && !createdTables.contains(normalize(matcher.group(1)))) {
+                findings.add(new Finding(Severity.WARNING, UNBATCHED_DELETE, line,
+                        "DELETE of every row in " + matcher.group(1) + " runs as one long transaction; delete in key range batches or TRUNCATE"));
+            }
+        }
+    }
+
+    private void lintAlterTable(String table, String actions, int line, List<Finding> findings) {
+        Matcher matcher = ALTER_COLUMN_TYPE_CLAUSE.matcher(actions);
+        while (matcher.find()) {
+            findings.add(new Finding(Severity.ERROR, ALTER_COLUMN_TYPE, line,
+                    "Changing the type of " + table + "." + matcher.group(1) + " can rewrite the table under an ACCESS EXCLUSIVE lock"));
+        }
+
+        matcher = ADD_COLUMN_VOLATILE_DEFAULT.matcher(actions);
+        while (matcher.find()) {
+            findings.add(new Finding(Severity.ERROR, VOLATILE_COLUMN_DEFAULT, line,
+                    "Adding " + table + "." + matcher.group(1) + " with volatile default " + matcher.group(2) +
+                    "() rewrites the table; add the column without a default and backfill in batches"));
+        }
+
+        if (ADD_FOREIGN_KEY.matcher(actions).find() && !NOT_VALID.matcher(actions).find()) {
+            findings.add(new Finding(Severity.ERROR, FOREIGN_KEY_NOT_VALID, line,
+                    "Foreign key on " + table + " is validated while holding the lock; add it NOT VALID and VALIDATE CONSTRAINT separately"));
+        }
+    }
+
+    /**
+     * Reader that adds the rules suppressed by each <code>-- lint:ignore</code> comment it reads to a set. Only the
+     * comment part of each line is kept, so a script of long single line statements is not held in memory.
+     */
+    private static class IgnoreCommentReader extends FilterReader {
+        private static final int MAX_COMMENT_LENGTH = 1000;
+
+        private final Set<String> ignored;
+        private final StringBuilder comment = new StringBuilder();
+        private int previous = -1;
+
+        IgnoreCommentReader(Reader reader, Set<String> ignored) {
+            super(reader);
+            this.ignored = ignored;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int c = super.read();
+            scan(c);
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            for (int i = 0; i < read; i++) {
+                scan(buffer[offset + i]);
+            }
+
+            if (read < 0) {
+                scan(-1);
+            }
+
+            return read;
+        }
+
+        private void scan(int c) {
+            if (c == -1 || c == '\n') {
+                final Matcher matcher = IGNORE.matcher(comment);
+                while (matcher.find()) {
+                    Arrays.stream(matcher.group(1).split("[,\\s]+"))
+                            .filter(rule -> !rule.isEmpty())
+                            .forEach(rule -> ignored.add(rule.toLowerCase(Locale.ROOT)));
+                }
+
+                comment.setLength(0);
+            } else if (c == '-' && previous == '-' && comment.length() == 0) {
+                comment.append("--");
+            } else if (comment.length() > 0 && comment.length() < MAX_COMMENT_LENGTH) {
+                comment.append((char) c);
+            }
+
+            previous = c;
+        }
+    }
+
+    /**
+     * Normalizes a table name so that quoted, unquoted and schema-qualified references to the same table are equal.
+     */
+    private static String normalize(String name) {
+        final String table = name.contains(".") && !name.startsWith("\"") ? name.substring(name.indexOf('.') + 1) : name;
+
+        if (table.startsWith("\"") && table.endsWith("\"")) {
+            return table.substring(1, table.length() - 1);
+        }
+
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Severity of a lint finding.
+     */
+    public enum Severity {
+        ERROR,
+        WARNING
+    }
+
+    /**
+     * A single problem found in a migration script.
+     */
+    public static class Finding {
+        private final Severity severity;
+        private final String rule;
+        private final int line;
+        private final String message;
+
+        public Finding(Severity severity, String rule, int line, String message) {
+            this.severity = severity;
+            this.rule = rule;
+            this.line = line;
+            this.message = message;
+        }
+
+        public Severity getSeverity() {
+            return severity;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s [%s] line %d: %s", severity, rule, line, message);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.gregwhitaker.dbmigrator.flywayutils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MigrationLinterTest {
+    private final MigrationLinter linter = new MigrationLinter(2);
+
+    @Test
+    public void shouldRequireConcurrentIndexOnExistingTable() {
+        final List<MigrationLinter.Finding> findings = linter.lint("CREATE INDEX idx_metadata_type ON metadata (metadata_type);");
+
+        assertEquals(rules(MigrationLinter.CREATE_INDEX_CONCURRENTLY), rules(findings));
+        assertEquals(MigrationLinter.Severity.ERROR, findings.get(0).getSeverity());
+        assertTrue(linter.lint("CREATE INDEX CONCURRENTLY idx_metadata_type ON metadata (metadata_type);").isEmpty());
+    }
+
+    @Test
+    public void shouldNotFlagTablesCreatedInTheSameScript() {
+        assertTrue(linter.lint("CREATE TABLE \"Vendor\" (id BIGINT, name TEXT);\n" +
+                "CREATE INDEX idx_vendor_name ON \"Vendor\" (name);\n" +
+                "ALTER TABLE \"Vendor\" ALTER COLUMN name TYPE VARCHAR(100);\n" +
+                "UPDATE \"Vendor\" SET name = 'x';\n").isEmpty());
+    }
+
+    @Test
+    public void shouldFlagColumnTypeChange() {
+        assertEquals(rules(MigrationLinter.ALTER_COLUMN_TYPE),
+                rules(linter.lint("ALTER TABLE metadata ALTER COLUMN metadata_value SET DATA TYPE TEXT;")));
+    }
+
+    @Test
+    public void shouldFlagVolatileColumnDefault() {
+        assertEquals(rules(MigrationLinter.VOLATILE_COLUMN_DEFAULT),
+                rules(linter.lint("ALTER TABLE metadata ADD COLUMN token UUID DEFAULT gen_random_uuid();")));
+        assertTrue(linter.lint("ALTER TABLE metadata ADD COLUMN active BOOLEAN DEFAULT true;").isEmpty());
+    }
+
+    @Test
+    public void shouldRequireForeignKeysToBeAddedNotValid() {
+        assertEquals(rules(MigrationLinter.FOREIGN_KEY_NOT_VALID), rules(linter.lint(
+                "ALTER TABLE metadata ADD CONSTRAINT fk_type FOREIGN KEY (metadata_type) REFERENCES metadata_type (id);")));
+        assertTrue(linter.lint(
+                "ALTER TABLE metadata ADD CONSTRAINT fk_type FOREIGN KEY (metadata_type) REFERENCES metadata_type (id) NOT VALID;").isEmpty());
+    }
+
+    @Test
+    public void shouldFlagUpdatesAndDeletesWithoutWhereClause() {
+        final List<MigrationLinter.Finding> findings = linter.lint("UPDATE metadata SET metadata_value = 'x';\n" +
+                "DELETE FROM ONLY metadata_type;\n" +
+                "UPDATE metadata SET metadata_value = 'y' WHERE id < 1000;\n");
+
+        assertEquals(rules(MigrationLinter.UNBATCHED_UPDATE, MigrationLinter.UNBATCHED_DELETE), rules(findings));
+        assertEquals(MigrationLinter.Severity.WARNING, findings.get(0).getSeverity());
+        assertEquals(2, findings.get(1).getLine());
+    }
+
+    @Test
+    public void shouldFlagTooManySingleRowInserts() {
+        final String insert = "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('a;b', 1);\n";
+
+        assertTrue(linter.lint(insert + insert).isEmpty());
+
+        final List<MigrationLinter.Finding> findings = linter.lint("SELECT 1;\n" + insert + insert + insert);
+        assertEquals(rules(MigrationLinter.SINGLE_ROW_INSERTS), rules(findings));
+        assertEquals(2, findings.get(0).getLine());
+        assertTrue(linter.lint("INSERT INTO metadata VALUES (1, 'a'), (2, 'b'), (3, 'c');").isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreStatementsInCommentsAndDollarQuotes() {
+        assertTrue(linter.lint("-- UPDATE metadata SET metadata_value = 'x';\n" +
+                "/* CREATE INDEX idx ON metadata (id); */\n" +
+                "DO $$ BEGIN UPDATE metadata SET metadata_value = 'x'; END $$;\n").isEmpty());
+    }
+
+    @Test
+    public void shouldSuppressIgnoredRules() {
+        assertTrue(linter.lint("-- lint:ignore create-index-concurrently, unbatched-update\n" +
+                "CREATE INDEX idx_metadata_type ON metadata (metadata_type);\n" +
+                "UPDATE metadata SET metadata_value = 'x';\n").isEmpty());
+    }
+
+    @Test
+    public void shouldReadIgnoreCommentsAfterStatementsAndSkipCopyRows() throws IOException {
+        final List<MigrationLinter.Finding> findings = linter.lint(new StringReader(
+                "COPY metadata (id, metadata_value) FROM STDIN;\n" +
+                "1\tDELETE FROM metadata;\n" +
+                "\\.\n" +
+                "UPDATE metadata SET metadata_value = 'x'; -- lint:ignore unbatched-update\n" +
+                "DELETE FROM metadata_type;\n"));
+
+        assertEquals(rules(MigrationLinter.UNBATCHED_DELETE), rules(findings));
+        assertEquals(5, findings.get(0).getLine());
+    }
+
+    private static List<String> rules(String... rules) {
+        return Arrays.asList(rules);
+    }
+
+    private static List<String> rules(List<MigrationLinter.Finding> findings) {
+        return findings.stream().map(MigrationLinter.Finding::getRule).collect(Collectors.toList());
+    }
+}
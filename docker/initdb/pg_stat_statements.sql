@@ -0,0 +1,3 @@
+-- Creates the extension behind the server statistics report (--stats-report) in the local database, the library is
+-- preloaded by the compose files. Only run when the data volume is first initialized.
+CREATE EXTENSION IF NOT EXISTS pg_stat_statements;
@@ -0,0 +1,155 @@
+package com.github.gregwhitaker.dbmigrator.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration for the migration load-impact benchmark, read from <code>benchmark.*</code> system properties.
+ */
+public final class BenchmarkConfig {
+
+    public static final String DEFAULT_JDBC_URL = "jdbc:postgresql://localhost:5432/postgres";
+    public static final String DEFAULT_USERNAME = "postgres";
+    public static final String DEFAULT_PASSWORD = "changeme";
+
+    /**
+     * Gets the benchmark configuration.
+     *
+     * @return benchmark configuration
+     */
+    public static BenchmarkConfig get() {
+        return new BenchmarkConfig();
+    }
+
+    private final String jdbcUrl = System.getProperty("benchmark.jdbcUrl", DEFAULT_JDBC_URL);
+    private final String username = System.getProperty("benchmark.username", DEFAULT_USERNAME);
+    private final String password = System.getProperty("benchmark.password", DEFAULT_PASSWORD);
+    private final String scenario = System.getProperty("benchmark.scenario", "create-index-concurrently");
+    private final String reportDir = System.getProperty("benchmark.reportDir");
+    private final long rows = Long.getLong("benchmark.rows", 1_000_000L);
+    private final int rate = Integer.getInteger("benchmark.rate", 200);
+    private final int threads = Integer.getInteger("benchmark.threads", 16);
+    private final double writeRatio = Double.parseDouble(System.getProperty("benchmark.writeRatio", "0.2"));
+    private final int warmupSeconds = Integer.getInteger("benchmark.warmupSeconds", 10);
+    private final int phaseSeconds = Integer.getInteger("benchmark.phaseSeconds", 30);
+    private final double p99BudgetMillis = Double.parseDouble(System.getProperty("benchmark.budget.p99Millis", "250"));
+    private final double p999BudgetMillis = Double.parseDouble(System.getProperty("benchmark.budget.p999Millis", "1000"));
+    private final double throughputRatioBudget = Double.parseDouble(System.getProperty("benchmark.budget.throughputRatio", "0.9"));
+    private final long maxErrorsBudget = Long.getLong("benchmark.budget.maxErrors", 0L);
+
+    private BenchmarkConfig() {
+        // Prevent direct instantiation
+    }
+
+    /**
+     * Creates a connection pool for the benchmark database.
+     *
+     * @param maximumPoolSize maximum number of connections in the pool
+     * @return datasource
+     */
+    public HikariDataSource createDataSource(int maximumPoolSize) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        hikariConfig.setUsername(username);
+        hikariConfig.setPassword(password);
+        hikariConfig.setConnectionTestQuery("SELECT 1");
+        hikariConfig.setInitializationFailTimeout(30_000);
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(maximumPoolSize);
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * @return name of the migration scenario under <code>db/benchmark</code> to apply while the workload runs
+     */
+    public String getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return directory to write the latency histograms to, or <code>null</code> to only log the summary
+     */
+    public String getReportDir() {
+        return reportDir;
+    }
+
+    /**
+     * @return number of <code>metadata</code> rows to seed before the benchmark
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return workload operations started per second
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * @return number of connections the workload runs operations on
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return fraction of workload operations that are writes
+     */
+    public double getWriteRatio() {
+        return writeRatio;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    /**
+     * @return length of the measured phases before and after the migration
+     */
+    public int getPhaseSeconds() {
+        return phaseSeconds;
+    }
+
+    /**
+     * @return maximum p99 latency allowed while the migration runs
+     */
+    public double getP99BudgetMillis() {
+        return p99BudgetMillis;
+    }
+
+    /**
+     * @return maximum p99.9 latency allowed while the migration runs
+     */
+    public double getP999BudgetMillis() {
+        return p999BudgetMillis;
+    }
+
+    /**
+     * @return minimum throughput while the migration runs, as a fraction of the throughput before it
+     */
+    public double getThroughputRatioBudget() {
+        return throughputRatioBudget;
+    }
+
+    /**
+     * @return maximum number of failed workload operations allowed while the migration runs
+     */
+    public long getMaxErrorsBudget() {
+        return maxErrorsBudget;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.gregwhitaker.dbmigrator.benchmark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Seeds the <code>metadata</code> table with generated rows spread across the existing metadata types.
+ */
+public final class DatasetSeeder {
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    private static final long BATCH_SIZE = 100_000;
+
+    private DatasetSeeder() {
+        // Utility class
+    }
+
+    /**
+     * Inserts generated rows into <code>metadata</code>, committing every {@value #BATCH_SIZE} rows.
+     *
+     * @param dataSource benchmark datasource
+     * @param rows number of rows to insert
+     * @return highest <code>metadata</code> id after seeding
+     * @throws SQLException if the rows cannot be inserted
+     */
+    public static long seed(DataSource dataSource, long rows) throws SQLException {
+        final String sql =
+                "WITH       types AS (SELECT array_agg(id ORDER BY id) AS ids FROM metadata_type) " +
+                "INSERT INTO metadata (metadata_value, metadata_type, modified_on) " +
+                "SELECT     'benchmark-' || i, " +
+                "           types.ids[1 + i % array_length(types.ids, 1)], " +
+                "           now() - (i || ' seconds')::interval " +
+                "FROM       generate_series(?::bigint, ?::bigint) AS i, types";
+
+        final long start = System.currentTimeMillis();
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (long lower = 1; lower <= rows; lower += BATCH_SIZE) {
+                    ps.setLong(1, lower);
+                    ps.setLong(2, Math.min(lower + BATCH_SIZE - 1, rows));
+                    ps.executeUpdate();
+                }
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE metadata");
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT max(id) FROM metadata")) {
+                rs.next();
+
+                LOG.info("Seeded benchmark dataset [rows: '{}', duration: '{}ms']", rows, System.currentTimeMillis() - start);
+
+                return rs.getLong(1);
+            }
+        }
+    }
+}
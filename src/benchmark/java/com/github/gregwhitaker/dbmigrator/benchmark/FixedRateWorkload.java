@@ -0,0 +1,186 @@
+package com.github.gregwhitaker.dbmigrator.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic read/write workload against the <code>metadata</code> tables that starts operations at a fixed rate.
+ *
+ * The workload is open loop: operations are started on schedule whether or not earlier ones have finished, and latency
+ * is measured from the time an operation was scheduled to start. When a migration blocks the tables, queued operations
+ * are therefore charged for the time they spent waiting, instead of the stall being hidden by fewer operations being
+ * issued.
+ */
+public class FixedRateWorkload implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(FixedRateWorkload.class);
+
+    private static final String[] TYPE_NAMES = { "type1", "type2", "type3" };
+
+    private final DataSource dataSource;
+    private final long intervalNanos;
+    private final double writeRatio;
+    private final long maxId;
+    private final ExecutorService workers;
+    private final Recorder recorder = new Recorder(3);
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean running;
+    private Thread dispatcher;
+    private long phaseStart;
+
+    /**
+     * Creates a new instance of {@link FixedRateWorkload}.
+     *
+     * @param dataSource benchmark datasource
+     * @param rate operations started per second
+     * @param threads number of operations run concurrently
+     * @param writeRatio fraction of operations that are writes
+     * @param maxId highest seeded <code>metadata</code> id
+     */
+    public FixedRateWorkload(DataSource dataSource, int rate, int threads, double writeRatio, long maxId) {
+        this.dataSource = dataSource;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        this.writeRatio = writeRatio;
+        this.maxId = maxId;
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Starts issuing operations.
+     */
+    public void start() {
+        running = true;
+        phaseStart = System.nanoTime();
+
+        dispatcher = new Thread(() -> {
+            long next = System.nanoTime();
+
+            while (running) {
+                next += intervalNanos;
+
+                final long delay = next - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+
+                final long scheduled = next;
+                workers.execute(() -> execute(scheduled));
+            }
+        }, "benchmark-dispatcher");
+
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Ends the current measurement phase and starts the next one.
+     *
+     * @param name name of the phase that just ended
+     * @return latency and throughput of the phase that just ended
+     */
+    public PhaseResult phase(String name) {
+        final long now = System.nanoTime();
+        final Histogram histogram = recorder.getIntervalHistogram();
+        final PhaseResult result = new PhaseResult(name, histogram, TimeUnit.NANOSECONDS.toMillis(now - phaseStart), errors.getAndSet(0));
+
+        phaseStart = now;
+
+        LOG.info("Completed benchmark phase: {}", result);
+
+        return result;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+
+        if (dispatcher != null) {
+            dispatcher.join();
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void execute(long scheduled) {
+        try (Connection conn = dataSource.getConnection()) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (random.nextDouble() < writeRatio) {
+                write(conn, random);
+            } else {
+                read(conn, random);
+            }
+
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+        } catch (SQLException e) {
+            errors.incrementAndGet();
+            LOG.debug("Benchmark operation failed", e);
+        }
+    }
+
+    private void read(Connection conn, ThreadLocalRandom random) throws SQLException {
+        if (random.nextBoolean()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT id, metadata_value, metadata_type, modified_on FROM metadata WHERE id = ?")) {
+                ps.setLong(1, 1 + random.nextLong(maxId));
+                drain(ps);
+            }
+        } else {
+            final String sql =
+                    "SELECT     m.id, m.metadata_value, m.modified_on " +
+                    "FROM       metadata m " +
+                    "JOIN       metadata_type t ON t.id = m.metadata_type " +
+                    "WHERE      t.type_name = ? " +
+                    "ORDER BY   m.modified_on DESC " +
+                    "LIMIT      20";
+
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, TYPE_NAMES[random.nextInt(TYPE_NAMES.length)]);
+                drain(ps);
+            }
+        }
+    }
+
+    /**
+     * Reads all results so the full query cost is measured.
+     */
+    private static void drain(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+    }
+
+    private void write(Connection conn, ThreadLocalRandom random) throws SQLException {
+        if (random.nextInt(10) < 7) {
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE metadata SET metadata_value = ?, modified_on = now() WHERE id = ?")) {
+                ps.setString(1, "benchmark-updated-" + random.nextInt());
+                ps.setLong(2, 1 + random.nextLong(maxId));
+                ps.executeUpdate();
+            }
+        } else {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO metadata (metadata_value, metadata_type) SELECT ?, id FROM metadata_type WHERE type_name = ?")) {
+                ps.setString(1, "benchmark-inserted-" + random.nextInt());
+                ps.setString(2, TYPE_NAMES[random.nextInt(TYPE_NAMES.length)]);
+                ps.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.gregwhitaker.dbmigrator.benchmark;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how much applying a set of migrations hurts live traffic.
+ *
+ * The database is migrated to the current schema and seeded, then a fixed rate workload runs while the migrations of
+ * the configured scenario in <code>db/benchmark</code> are applied. The workload's latency and throughput are recorded
+ * before, during and after the migration, and the benchmark fails if the migration phase exceeds the configured budgets.
+ */
+public class MigrationLoadBenchmark {
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationLoadBenchmark.class);
+
+    @Test
+    public void migrationShouldStayWithinLoadBudgets() throws Exception {
+        final BenchmarkConfig config = BenchmarkConfig.get();
+
+        LOG.info("Running migration load benchmark [scenario: '{}', rows: '{}', rate: '{}/s', writeRatio: '{}']",
+                config.getScenario(), config.getRows(), config.getRate(), config.getWriteRatio());
+
+        final List<PhaseResult> results = new ArrayList<>();
+
+        try (HikariDataSource migrationDataSource = config.createDataSource(4);
+             HikariDataSource workloadDataSource = config.createDataSource(config.getThreads())) {
+            // Start from the current schema with a production-sized dataset
+            new DatabaseMigrator(migrationDataSource).run(null, true);
+            final long maxId = DatasetSeeder.seed(migrationDataSource, config.getRows());
+
+            final DatabaseMigrator migrator = new DatabaseMigrator(migrationDataSource);
+            migrator.setAdditionalLocations("classpath:/db/benchmark/" + config.getScenario());
+
+            try (FixedRateWorkload workload = new FixedRateWorkload(workloadDataSource,
+                    config.getRate(),
+                    config.getThreads(),
+                    config.getWriteRatio(),
+                    maxId)) {
+                workload.start();
+
+                TimeUnit.SECONDS.sleep(config.getWarmupSeconds());
+                workload.phase("warmup");
+
+                TimeUnit.SECONDS.sleep(config.getPhaseSeconds());
+                results.add(workload.phase("before"));
+
+                migrator.run(null, false);
+                results.add(workload.phase("during"));
+
+                TimeUnit.SECONDS.sleep(config.getPhaseSeconds());
+                results.add(workload.phase("after"));
+            }
+        }
+
+        report(config, results);
+
+        final PhaseResult before = results.get(0);
+        final PhaseResult during = results.get(1);
+
+        assertTrue(String.format("p99 latency during migration %.2fms exceeds budget of %.2fms", during.getP99Millis(), config.getP99BudgetMillis()),
+                during.getP99Millis() <= config.getP99BudgetMillis());
+        assertTrue(String.format("p99.9 latency during migration %.2fms exceeds budget of %.2fms", during.getP999Millis(), config.getP999BudgetMillis()),
+                during.getP999Millis() <= config.getP999BudgetMillis());
+        assertTrue(String.format("Throughput during migration %.1f/s is below %.0f%% of %.1f/s before it",
+                during.getThroughput(), config.getThroughputRatioBudget() * 100, before.getThroughput()),
+                during.getThroughput() >= before.getThroughput() * config.getThroughputRatioBudget());
+        assertTrue(String.format("%d workload operations failed during migration, budget is %d", during.getErrors(), config.getMaxErrorsBudget()),
+                during.getErrors() <= config.getMaxErrorsBudget());
+    }
+
+    /**
+     * Logs the phase summaries and writes the full latency distribution of each phase to the report directory.
+     */
+    private static void report(BenchmarkConfig config, List<PhaseResult> results) throws Exception {
+        LOG.info("Migration load benchmark results [scenario: '{}']", config.getScenario());
+        results.forEach(result -> LOG.info("  {}", result));
+
+        if (config.getReportDir() == null) {
+            return;
+        }
+
+        final Path reportDir = Paths.get(config.getReportDir(), config.getScenario());
+        Files.createDirectories(reportDir);
+
+        for (PhaseResult result : results) {
+            try (PrintStream out = new PrintStream(reportDir.resolve(result.getName() + ".hgrm").toFile())) {
+                // Recorded in microseconds, reported in milliseconds
+                result.getHistogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        Files.write(reportDir.resolve("summary.txt"), results.stream()
+                .map(PhaseResult::toString)
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.gregwhitaker.dbmigrator.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency and throughput of the workload during one phase of the benchmark. Latencies are recorded in microseconds.
+ */
+public class PhaseResult {
+    private final String name;
+    private final Histogram histogram;
+    private final long durationMillis;
+    private final long errors;
+
+    public PhaseResult(String name, Histogram histogram, long durationMillis, long errors) {
+        this.name = name;
+        this.histogram = histogram;
+        this.durationMillis = durationMillis;
+        this.errors = errors;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return completed operations per second
+     */
+    public double getThroughput() {
+        return durationMillis > 0 ? histogram.getTotalCount() * 1000.0 / durationMillis : 0;
+    }
+
+    public double getP50Millis() {
+        return percentileMillis(50.0);
+    }
+
+    public double getP99Millis() {
+        return percentileMillis(99.0);
+    }
+
+    public double getP999Millis() {
+        return percentileMillis(99.9);
+    }
+
+    private double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s duration: %7dms, ops: %7d, throughput: %8.1f/s, p50: %8.2fms, p99: %8.2fms, p999: %8.2fms, errors: %d",
+                name, durationMillis, histogram.getTotalCount(), getThroughput(), getP50Millis(), getP99Millis(), getP999Millis(), errors);
+    }
+}
@@ -0,0 +1,4 @@
+-- Script: V1_0_1_20210601000000__create_metadata_modified_on_index.sql
+-- Description: Create Metadata Modified On Index
+
+CREATE INDEX idx_metadata_modified_on ON metadata (modified_on);
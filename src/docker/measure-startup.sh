@@ -0,0 +1,58 @@
+#!/usr/bin/env sh
+#
+# Measures the startup time and memory of Database Migrator images with a no-op migration against the local Docker
+# Compose database (run ./gradlew migrateDb first). Each image is measured with class-data sharing on and off.
+#
+# Usage: measure-startup.sh {image} [{image}...]
+#
+set -e
+
+RUNS=${RUNS:-10}
+JDBC_URL=${JDBC_URL:-jdbc:postgresql://localhost:5432/postgres}
+DB_USERNAME=${DB_USERNAME:-postgres}
+DB_PASSWORD=${DB_PASSWORD:-changeme}
+
+if [ $# -eq 0 ]; then
+    echo "Usage: measure-startup.sh {image} [{image}...]" >&2
+    exit 1
+fi
+
+run() {
+    docker run --rm --network host \
+        --env DB_JDBC_URL="$JDBC_URL" \
+        --env DB_USERNAME="$DB_USERNAME" \
+        --env DB_PASSWORD="$DB_PASSWORD" \
+        --env DB_ENV=local \
+        "$@"
+}
+
+measure() {
+    image=$1
+    label=$2
+    opts=$3
+
+    times=""
+    i=0
+    while [ $i -lt "$RUNS" ]; do
+        start=$(date +%s%N)
+        run --env DBMIGRATOR_EXAMPLE_OPTS="$opts" "$image" > /dev/null
+        end=$(date +%s%N)
+        times="$times $(( (end - start) / 1000000 ))"
+        i=$((i + 1))
+    done
+
+    median=$(echo "$times" | tr ' ' '\n' | sed '/^$/d' | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }')
+
+    # Native memory tracking reports what the JVM has committed, which is what the container is charged for
+    committed=$(run --env DBMIGRATOR_EXAMPLE_OPTS="$opts -XX:NativeMemoryTracking=summary -XX:+UnlockDiagnosticVMOptions -XX:+PrintNMTStatistics" "$image" \
+        | sed -n 's/^Total: reserved=[0-9]*KB, committed=\([0-9]*\)KB.*/\1/p')
+
+    size=$(docker image inspect --format '{{.Size}}' "$image")
+
+    printf '%-50s %-8s median: %6sms  committed: %6sKB  image: %5sMB\n' "$image" "$label" "$median" "$committed" "$((size / 1024 / 1024))"
+}
+
+for image in "$@"; do
+    measure "$image" "cds" "-XX:SharedArchiveFile=/opt/dbmigrator/cds/app.jsa -Xshare:auto"
+    measure "$image" "no-cds" "-Xshare:off"
+done
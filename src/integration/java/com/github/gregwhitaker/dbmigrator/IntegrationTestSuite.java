@@ -1,9 +1,18 @@
 package com.github.gregwhitaker.dbmigrator;
 
+import com.github.gregwhitaker.dbmigrator.baseline.HistorySquasherIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.coordination.StartupCoordinationIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.data.TableCopierIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.data.TableVerifierIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.drift.DriftScannerIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.index.IndexAdvisorIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.queryplan.MetadataQueryPlanIntegrationTest;
 import com.github.gregwhitaker.dbmigrator.schema.IntegrationSanityCheckTest;
 import com.github.gregwhitaker.dbmigrator.schema.SchemaIntegrationTest;
 import com.github.gregwhitaker.dbmigrator.table.MetadataTableIntegrationTest;
 import com.github.gregwhitaker.dbmigrator.table.MetadataTypeTableIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.tenant.TenantProvisioningIntegrationTest;
+import com.github.gregwhitaker.dbmigrator.undo.UndoMigrationIntegrationTest;
 import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -26,7 +35,20 @@ import org.slf4j.LoggerFactory;
 
         // Add new schema integration test classes here
         IntegrationSanityCheckTest.class,
-        SchemaIntegrationTest.class
+        SchemaIntegrationTest.class,
+
+        // Add new migrator integration test classes here, they run after the schema tests as they may migrate further
+        StartupCoordinationIntegrationTest.class,
+        DriftScannerIntegrationTest.class,
+        IndexAdvisorIntegrationTest.class,
+        TenantProvisioningIntegrationTest.class,
+        UndoMigrationIntegrationTest.class,
+        HistorySquasherIntegrationTest.class,
+        TableCopierIntegrationTest.class,
+        TableVerifierIntegrationTest.class,
+
+        // Add new query plan test classes here, they run last as they seed the database with synthetic data
+        MetadataQueryPlanIntegrationTest.class
 })
 public class IntegrationTestSuite {
     private static final Logger LOG = LoggerFactory.getLogger(IntegrationTestSuite.class);
@@ -0,0 +1,56 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import com.github.gregwhitaker.dbmigrator.config.DatabaseMigratorConfig;
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that squashing replays and verifies the whole history, including compressed scripts, which Flyway does not
+ * resolve itself.
+ *
+ * Runs <code>pg_dump</code> from the <code>squash.pgDump</code> system property, like the squash task, so the command
+ * can be pointed at a <code>pg_dump</code> that matches the server version.
+ */
+public class HistorySquasherIntegrationTest {
+    private static final String VERSION = "1.0.1.20210601120000";
+
+    @Test
+    public void shouldSquashHistoryWithCompressedScript() throws Exception {
+        final Path dir = Files.createTempDirectory("dbmigrator-squash");
+        gzip(dir.resolve("V1_0_1_20210601120000__squash_vendor_load.sql.gz"),
+                "CREATE TABLE squash_vendor (id INTEGER PRIMARY KEY, name VARCHAR(50) NOT NULL);\n" +
+                "INSERT INTO squash_vendor (id, name) VALUES (1, 'compressed vendor');\n");
+
+        final DatabaseMigratorConfig config = DatabaseMigratorConfig.get(
+                "--jdbc-url", DataSourceHelper.DEFAULT_JDBC_URL,
+                "--username", DataSourceHelper.DEFAULT_USERNAME,
+                "--password", DataSourceHelper.DEFAULT_PASSWORD);
+        final List<String> pgDump = Arrays.asList(System.getProperty("squash.pgDump", "pg_dump").trim().split("\\s+"));
+
+        final SquashedBaseline baseline = new HistorySquasher(config, pgDump, "classpath:/db/migration", "filesystem:" + dir)
+                .squash(null);
+
+        // The squash only succeeds if the baselined database has no pending migrations, so the compressed script must
+        // be in the baseline rather than left to be replayed
+        assertEquals(VERSION, baseline.getVersion());
+        assertTrue(baseline.getScript().contains("CREATE TABLE public.squash_vendor"));
+        assertTrue(baseline.getScript().contains("'compressed vendor'"));
+    }
+
+    private static void gzip(Path file, String contents) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.gregwhitaker.dbmigrator.coordination;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that many migrator instances started together elect a single instance to run the migration.
+ */
+public class StartupCoordinationIntegrationTest {
+    private static final int INSTANCES = 20;
+    private static final String APPLICATION_NAME = "dbmigrator-coordination-test";
+
+    // Connection pool size of the elected instance
+    private static final int LEADER_POOL_SIZE = 10;
+
+    @Test
+    public void shouldMigrateOnceWhenManyInstancesStartTogether() throws Exception {
+        final String[] args = {
+                "--jdbc-url", DataSourceHelper.DEFAULT_JDBC_URL + "?ApplicationName=" + APPLICATION_NAME,
+                "--username", DataSourceHelper.DEFAULT_USERNAME,
+                "--password", DataSourceHelper.DEFAULT_PASSWORD,
+                "--env", "coordination",
+                "--coordinate"
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(INSTANCES);
+        final CountDownLatch start = new CountDownLatch(1);
+        int peakConnections = 0;
+
+        try {
+            final List<Future<?>> instances = new ArrayList<>();
+            for (int i = 0; i < INSTANCES; i++) {
+                instances.add(executor.submit(() -> {
+                    start.await();
+                    DatabaseMigrator.main(args);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            while (instances.stream().anyMatch(instance -> !instance.isDone())) {
+                peakConnections = Math.max(peakConnections, countConnections());
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+
+            for (Future<?> instance : instances) {
+                instance.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, countSuccessfulMigrations("slow coordination migration"));
+        assertTrue(String.format("Expected waiting instances to hold a single connection each, but saw %d connections", peakConnections),
+                peakConnections <= INSTANCES + LEADER_POOL_SIZE);
+    }
+
+    private static int countConnections() throws SQLException {
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM pg_stat_activity WHERE application_name = ?")) {
+            ps.setString(1, APPLICATION_NAME);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int countSuccessfulMigrations(String description) throws SQLException {
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM flyway_schema_history WHERE description = ? AND success")) {
+            ps.setString(1, description);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a table is copied between two schemas standing in for the source and target databases, resuming from
+ * a checkpoint and moving the target's key sequence past the copied rows.
+ */
+public class TableCopierIntegrationTest {
+    private static final String SOURCE = "copy_test_source";
+    private static final String TARGET = "copy_test_target";
+
+    private HikariDataSource source;
+    private HikariDataSource target;
+
+    @Before
+    public void createSchemas() throws SQLException {
+        source = DataSourceHelper.createDataSource(SOURCE);
+        target = DataSourceHelper.createDataSource(TARGET);
+
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String schema : Arrays.asList(SOURCE, TARGET)) {
+                stmt.execute("CREATE SCHEMA " + schema);
+                stmt.execute("CREATE TABLE " + schema + ".\"CopyItem\" (id BIGSERIAL PRIMARY KEY, name TEXT NOT NULL)");
+                stmt.execute("CREATE TABLE " + schema + ".copy_plain (id SERIAL PRIMARY KEY, name TEXT NOT NULL)");
+            }
+
+            stmt.execute("INSERT INTO " + SOURCE + ".\"CopyItem\" (name) SELECT 'item ' || n FROM generate_series(1, 100) n");
+            stmt.execute("INSERT INTO " + SOURCE + ".copy_plain (name) SELECT 'plain ' || n FROM generate_series(1, 25) n");
+        }
+    }
+
+    @After
+    public void dropSchemas() throws SQLException {
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SOURCE + " CASCADE");
+            stmt.execute("DROP SCHEMA IF EXISTS " + TARGET + " CASCADE");
+            stmt.execute("DELETE FROM " + CopyCheckpointStore.TABLE_NAME + " WHERE table_name IN ('\"CopyItem\"', 'Copy_Plain')");
+        } finally {
+            source.close();
+            target.close();
+        }
+    }
+
+    @Test
+    public void shouldResumeFromCheckpointAndSyncSequence() throws Exception {
+        // A previous copy committed the keys below 41 before it was interrupted
+        try (Connection conn = target.getConnection();
+             Statement stmt = conn.createStatement()) {
+            new CopyCheckpointStore().init(conn);
+            stmt.execute("INSERT INTO \"CopyItem\" (id, name) SELECT n, 'item ' || n FROM generate_series(1, 40) n");
+            new CopyCheckpointStore().save(conn, "\"CopyItem\"", 41, 40);
+        }
+
+        final long copied = new TableCopier(source, target, 10, 4).copy("\"CopyItem\"");
+
+        assertEquals(60, copied);
+        assertEquals(100, count("\"CopyItem\""));
+        assertEquals(0, countDifferences("\"CopyItem\""));
+
+        try (Connection conn = target.getConnection()) {
+            assertEquals(101, new CopyCheckpointStore().read(conn, "\"CopyItem\""));
+        }
+
+        // The sequence continues after the copied keys, so new rows do not collide with them
+        assertEquals(101, insertName("\"CopyItem\""));
+    }
+
+    @Test
+    public void shouldCopyTableNamedWithUnquotedMixedCase() throws Exception {
+        final long copied = new TableCopier(source, target, 10, 4).copy("Copy_Plain");
+
+        assertEquals(25, copied);
+        assertEquals(0, countDifferences("copy_plain"));
+        assertEquals(26, insertName("copy_plain"));
+    }
+
+    private long count(String table) throws SQLException {
+        try (Connection conn = target.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM " + table);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private long countDifferences(String table) throws SQLException {
+        final String sql = String.format(
+                "SELECT count(*) FROM ((TABLE %1$s.%3$s EXCEPT TABLE %2$s.%3$s) UNION ALL (TABLE %2$s.%3$s EXCEPT TABLE %1$s.%3$s)) diff",
+                SOURCE, TARGET, table);
+
+        try (Connection conn = target.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private long insertName(String table) throws SQLException {
+        try (Connection conn = target.getConnection();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO " + table + " (name) VALUES ('new') RETURNING id");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a table is verified between two schemas standing in for the source and target databases, finding the
+ * exact keys of rows that were changed or deleted in the target.
+ */
+public class TableVerifierIntegrationTest {
+    private static final String SOURCE = "verify_test_source";
+    private static final String TARGET = "verify_test_target";
+
+    private HikariDataSource source;
+    private HikariDataSource target;
+
+    @Before
+    public void createSchemas() throws SQLException {
+        source = DataSourceHelper.createDataSource(SOURCE);
+        target = DataSourceHelper.createDataSource(TARGET);
+
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String schema : Arrays.asList(SOURCE, TARGET)) {
+                stmt.execute("CREATE SCHEMA " + schema);
+                stmt.execute("CREATE TABLE " + schema + ".verify_item (id BIGINT PRIMARY KEY, name TEXT NOT NULL, amount NUMERIC(10, 2))");
+                stmt.execute("INSERT INTO " + schema + ".verify_item (id, name, amount) SELECT n, 'item ' || n, n / 100.0 FROM generate_series(1, 5000) n");
+            }
+        }
+    }
+
+    @After
+    public void dropSchemas() throws SQLException {
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SOURCE + " CASCADE");
+            stmt.execute("DROP SCHEMA IF EXISTS " + TARGET + " CASCADE");
+        } finally {
+            source.close();
+            target.close();
+        }
+    }
+
+    @Test
+    public void shouldMatchIdenticalTables() throws Exception {
+        final VerificationResult result = verifier().verify("verify_item");
+
+        assertTrue(result.isMatch());
+        assertEquals(5, result.getChunksCompared());
+    }
+
+    @Test
+    public void shouldFindChangedAndDeletedRows() throws Exception {
+        try (Connection conn = target.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE verify_item SET amount = NULL WHERE id = 1234");
+            stmt.execute("DELETE FROM verify_item WHERE id = 4321");
+        }
+
+        final VerificationResult result = verifier().verify("verify_item");
+
+        final List<String> mismatches = result.getMismatches().stream()
+                .map(VerificationResult.Mismatch::toString)
+                .collect(Collectors.toList());
+
+        assertFalse(result.isMatch());
+        assertEquals(Arrays.asList("1234:DIFFERENT", "4321:MISSING_IN_TARGET"), mismatches);
+    }
+
+    private TableVerifier verifier() {
+        return new TableVerifier(source, target, 2, 1_000, 50, TableVerifier.DEFAULT_MAX_REPORTED_MISMATCHES);
+    }
+}
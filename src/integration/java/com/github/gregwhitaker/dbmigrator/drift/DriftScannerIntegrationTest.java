@@ -0,0 +1,87 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that schema drift between tenant-like schemas is found from the catalog of a live database.
+ */
+public class DriftScannerIntegrationTest {
+    private static final String REFERENCE = "drift_test_a";
+    private static final String DRIFTED = "drift_test_b";
+
+    private final DataSource dataSource = DataSourceHelper.getInstance().getDataSource();
+
+    @Before
+    public void createSchemas() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String schema : Arrays.asList(REFERENCE, DRIFTED)) {
+                stmt.execute("CREATE SCHEMA " + schema);
+                stmt.execute("CREATE TABLE " + schema + ".parent (id BIGSERIAL PRIMARY KEY, name TEXT NOT NULL)");
+                stmt.execute("CREATE TABLE " + schema + ".child (id BIGSERIAL PRIMARY KEY, parent_id BIGINT NOT NULL REFERENCES " + schema + ".parent (id))");
+                stmt.execute("CREATE FUNCTION " + schema + ".child_count(p BIGINT) RETURNS BIGINT LANGUAGE sql AS 'SELECT count(*) FROM " + schema + ".child WHERE parent_id = p'");
+            }
+        }
+    }
+
+    @After
+    public void dropSchemas() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + REFERENCE + " CASCADE");
+            stmt.execute("DROP SCHEMA IF EXISTS " + DRIFTED + " CASCADE");
+        }
+    }
+
+    @Test
+    public void shouldMatchSchemasThatDifferOnlyInName() throws Exception {
+        final DriftReport report = scanner().scan(Collections.singletonList("/drift\\_test\\_%"), "/" + REFERENCE);
+
+        assertTrue(report.isMatch());
+        assertEquals(1, report.getDrifts().size());
+    }
+
+    @Test
+    public void shouldFindHandAppliedChanges() throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + DRIFTED + ".parent ADD COLUMN hotfix BOOLEAN");
+            stmt.execute("ALTER TABLE " + DRIFTED + ".child ALTER COLUMN parent_id DROP NOT NULL");
+            stmt.execute("CREATE INDEX child_parent_id_idx ON " + DRIFTED + ".child (parent_id)");
+        }
+
+        final DriftReport report = scanner().scan(Collections.singletonList("/drift\\_test\\_%"), "/" + REFERENCE);
+
+        assertEquals(1, report.getDrifted().size());
+
+        final SchemaDrift drift = report.getDrifted().get(0);
+        assertTrue(drift.getTarget().endsWith("/" + DRIFTED));
+        assertEquals(Collections.emptyList(), drift.getMissing());
+        assertEquals(Arrays.asList("column parent.hotfix", "index child_parent_id_idx"), drift.getExtra());
+        assertEquals(Collections.singletonList("column child.parent_id"), drift.getChanged());
+    }
+
+    @Test
+    public void shouldReportTargetThatCannotBeScanned() throws Exception {
+        final DriftReport report = scanner().scan(Arrays.asList("/" + DRIFTED, "no_such_database/public"), "/" + REFERENCE);
+
+        assertEquals(1, report.getFailed().size());
+        assertEquals("no_such_database/public", report.getFailed().get(0).getTarget());
+    }
+
+    private static DriftScanner scanner() {
+        return new DriftScanner(DataSourceHelper.DEFAULT_JDBC_URL, DataSourceHelper.DEFAULT_USERNAME, DataSourceHelper.DEFAULT_PASSWORD, 2);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.gregwhitaker.dbmigrator.index;
+
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the index advisor finds index problems in a scratch schema from the catalog of a live database.
+ */
+public class IndexAdvisorIntegrationTest {
+    private static final String SCHEMA = "index_advisor_test";
+
+    private final DataSource dataSource = DataSourceHelper.getInstance().getDataSource();
+
+    @Before
+    public void createSchema() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA " + SCHEMA);
+            stmt.execute("CREATE TABLE " + SCHEMA + ".parent (id BIGINT PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+            stmt.execute("CREATE TABLE " + SCHEMA + ".child (id BIGINT PRIMARY KEY, parent_id BIGINT REFERENCES " + SCHEMA + ".parent (id), created TIMESTAMP)");
+            stmt.execute("CREATE INDEX parent_name_idx ON " + SCHEMA + ".parent (name)");
+            stmt.execute("CREATE INDEX child_created_idx ON " + SCHEMA + ".child (created)");
+            stmt.execute("CREATE INDEX child_created_id_idx ON " + SCHEMA + ".child (created, id)");
+        }
+    }
+
+    @After
+    public void dropSchema() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        }
+    }
+
+    @Test
+    public void shouldAdviseOnIndexesOfSchema() throws Exception {
+        final IndexAdvice advice = new IndexAdvisor(dataSource, SCHEMA, "flyway_schema_history").advise();
+
+        assertEquals("child_parent_id_fkey", names(advice.getFindings(IndexFinding.Type.UNINDEXED_FOREIGN_KEY)));
+        assertEquals("parent_name_idx", names(advice.getFindings(IndexFinding.Type.DUPLICATE_INDEX)));
+        assertEquals("child_created_idx", names(advice.getFindings(IndexFinding.Type.REDUNDANT_INDEX)));
+        assertEquals("child_created_id_idx", names(advice.getFindings(IndexFinding.Type.UNUSED_INDEX)));
+    }
+
+    @Test
+    public void shouldFixUnindexedForeignKeyConcurrently() throws Exception {
+        final IndexFinding finding = new IndexAdvisor(dataSource, SCHEMA, "flyway_schema_history").advise()
+                .getFindings(IndexFinding.Type.UNINDEXED_FOREIGN_KEY).get(0);
+
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SET search_path TO " + SCHEMA);
+            stmt.execute(finding.getFix());
+            stmt.execute("RESET search_path");
+        }
+
+        assertTrue(new IndexAdvisor(dataSource, SCHEMA, "flyway_schema_history").advise()
+                .getFindings(IndexFinding.Type.UNINDEXED_FOREIGN_KEY).isEmpty());
+    }
+
+    private static String names(List<IndexFinding> findings) {
+        return findings.stream().map(IndexFinding::getName).collect(Collectors.joining(","));
+    }
+}
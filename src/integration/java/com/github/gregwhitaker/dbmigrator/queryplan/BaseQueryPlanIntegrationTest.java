@@ -0,0 +1,161 @@
+package com.github.gregwhitaker.dbmigrator.queryplan;
+
+import com.github.gregwhitaker.dbmigrator.perf.SyntheticDataGenerator;
+import com.github.gregwhitaker.dbmigrator.perf.SyntheticDataSpec;
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Base class that all test classes that guard the query plans of application queries must extend.
+ *
+ * The integration database is seeded once with the synthetic dataset of the <code>perf</code> environment, sized with
+ * the <code>db.perf.*</code> system properties, and each query of the corpus is planned against it. The normalized plans
+ * are compared with the baselines committed under <code>queryPlan.baselineDir</code>, and the test fails when a query
+ * scans a relation differently, stops using an index, or costs more than <code>queryPlan.costThreshold</code> above its
+ * baseline. A query without a baseline fails the test, so a baseline missing from a checkout cannot pass unnoticed;
+ * baselines are only recorded, and all of them re-recorded, when <code>queryPlan.record</code> is <code>true</code>.
+ */
+public abstract class BaseQueryPlanIntegrationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(BaseQueryPlanIntegrationTest.class);
+
+    private static final SyntheticDataSpec DATASET = SyntheticDataSpec.fromSystemProperties();
+    private static boolean seeded;
+
+    private final String corpus;
+    private final List<NamedQuery> queries;
+
+    public BaseQueryPlanIntegrationTest(String corpus, List<NamedQuery> queries) {
+        this.corpus = corpus;
+        this.queries = queries;
+    }
+
+    /**
+     * Seeds the integration database with the synthetic dataset, once for all query plan tests, and refreshes the
+     * planner statistics so the plans reflect the data.
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static synchronized void seedDatabase() throws Exception {
+        if (seeded) {
+            return;
+        }
+
+        new SyntheticDataGenerator(DataSourceHelper.getInstance().getDataSource(), DATASET).generate();
+
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+
+        seeded = true;
+    }
+
+    //
+    // Base Tests
+    //
+
+    /**
+     * Verifies that no query of the corpus plans worse than its baseline.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void shouldNotRegressQueryPlans() throws Exception {
+        final boolean record = Boolean.getBoolean("queryPlan.record");
+        final double costThreshold = Double.parseDouble(System.getProperty("queryPlan.costThreshold", "0.2"));
+        final List<String> failures = new ArrayList<>();
+
+        try (Connection conn = DataSourceHelper.getInstance().getDataSource().getConnection()) {
+            for (NamedQuery query : queries) {
+                final QueryPlan plan = QueryPlan.explain(conn, getDatasetName(), query.getSql(), query.getParams());
+                final Path baselineFile = getBaselineDir().resolve(corpus).resolve(query.getName() + ".json");
+
+                if (record) {
+                    plan.write(baselineFile);
+                    LOG.warn("Recorded query plan baseline [query: '{}', file: '{}']", query.getName(), baselineFile);
+                    continue;
+                }
+
+                if (!Files.exists(baselineFile)) {
+                    failures.add(String.format("%s: no baseline at %s, record it with -PqueryPlan.record=true%nCurrent plan:%n%s",
+                            query.getName(), baselineFile, plan.describe()));
+                    continue;
+                }
+
+                final QueryPlan baseline = QueryPlan.read(conn, baselineFile);
+
+                if (!getDatasetName().equals(baseline.getDataset())) {
+                    failures.add(String.format("%s: baseline was recorded against dataset '%s' but the database was seeded with '%s'",
+                            query.getName(), baseline.getDataset(), getDatasetName()));
+                    continue;
+                }
+
+                final List<String> regressions = plan.regressionsSince(baseline, costThreshold);
+                if (!regressions.isEmpty()) {
+                    failures.add(String.format("%s: %s%nBaseline plan:%n%s%nCurrent plan:%n%s",
+                            query.getName(), String.join(", ", regressions), baseline.describe(), plan.describe()));
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            fail(String.format("Query plans regressed or have no baseline in corpus '%s', re-record the baselines with -PqueryPlan.record=true if the change is intended:%n%s",
+                    corpus, String.join(String.format("%n%n"), failures)));
+        }
+    }
+
+    /**
+     * Creates a query of the corpus.
+     *
+     * @param name name of the query, which names its baseline file
+     * @param sql query text with <code>?</code> parameter placeholders
+     * @param params query parameters
+     * @return named query
+     */
+    protected static NamedQuery query(String name, String sql, Object... params) {
+        return new NamedQuery(name, sql, params);
+    }
+
+    private static Path getBaselineDir() {
+        return Paths.get(System.getProperty("queryPlan.baselineDir", "src/integration/resources/queryplans"));
+    }
+
+    /**
+     * Describes the parts of the dataset that the plans depend on, so baselines are only compared at the same scale.
+     */
+    private static String getDatasetName() {
+        return String.format("rows: %d, seed: %d, typeCount: %d, typeSkew: %s",
+                DATASET.getRows(), DATASET.getSeed(), DATASET.getTypeCount(), DATASET.getTypeSkew());
+    }
+
+    //
+    // Domain
+    //
+
+    /**
+     * Named application query with its parameters.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class NamedQuery {
+        private String name;
+        private String sql;
+        private Object[] params;
+    }
+}
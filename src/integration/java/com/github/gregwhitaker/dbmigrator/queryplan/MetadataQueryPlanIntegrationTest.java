@@ -0,0 +1,35 @@
+package com.github.gregwhitaker.dbmigrator.queryplan;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Guards the query plans of the application queries on the "metadata" and "metadata_type" tables.
+ */
+public class MetadataQueryPlanIntegrationTest extends BaseQueryPlanIntegrationTest {
+    public static final String CORPUS = "metadata";
+
+    private static final List<NamedQuery> QUERIES = Arrays.asList(
+            query("metadata_by_id",
+                    "SELECT id, metadata_value, metadata_type, modified_on FROM metadata WHERE id = ?",
+                    1L),
+            query("metadata_by_type",
+                    "SELECT id, metadata_value, modified_on FROM metadata WHERE metadata_type = ? ORDER BY modified_on DESC LIMIT 50",
+                    2),
+            query("metadata_by_type_name",
+                    "SELECT m.id, m.metadata_value, t.type_value " +
+                    "FROM metadata m " +
+                    "JOIN metadata_type t ON t.id = m.metadata_type " +
+                    "WHERE t.type_name = ?",
+                    "type1"),
+            query("recently_modified_metadata",
+                    "SELECT id, metadata_value, metadata_type FROM metadata WHERE modified_on >= now() - interval '1 day' ORDER BY modified_on DESC LIMIT 100"),
+            query("metadata_type_by_name",
+                    "SELECT id, type_value FROM metadata_type WHERE type_name = ?",
+                    "type1")
+    );
+
+    public MetadataQueryPlanIntegrationTest() {
+        super(CORPUS, QUERIES);
+    }
+}
@@ -0,0 +1,250 @@
+package com.github.gregwhitaker.dbmigrator.queryplan;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Query plan normalized down to the parts that describe how the query runs: the type of each plan node, the relations
+ * and indexes it scans, its join type and strategy, and the total cost of the plan. Row estimates, widths, filters and
+ * the cost of each node are left out, as they change with the data without the plan changing.
+ *
+ * Plans are kept in a JSON format that is normalized and read back by the database, so the tests need no JSON library.
+ */
+@Data
+@AllArgsConstructor
+public class QueryPlan {
+
+    // Walks the EXPLAIN (FORMAT JSON) plan tree depth first and keeps only the stable attributes of each node
+    private static final String NORMALIZE_SQL =
+            "WITH RECURSIVE node(path, plan) AS ( " +
+                    "SELECT ARRAY[]::int[], (?::jsonb) -> 0 -> 'Plan' " +
+                    "UNION ALL " +
+                    "SELECT n.path || c.ord::int, c.plan " +
+                    "FROM node n, jsonb_array_elements(n.plan -> 'Plans') WITH ORDINALITY AS c(plan, ord) " +
+            ") " +
+            "SELECT jsonb_pretty(jsonb_build_object( " +
+                    "'dataset', ?::text, " +
+                    "'totalCost', (SELECT (plan ->> 'Total Cost')::numeric FROM node WHERE path = '{}'), " +
+                    "'nodes', (SELECT jsonb_agg(jsonb_strip_nulls(jsonb_build_object( " +
+                            "'depth', cardinality(path), " +
+                            "'nodeType', plan ->> 'Node Type', " +
+                            "'relation', plan ->> 'Relation Name', " +
+                            "'index', plan ->> 'Index Name', " +
+                            "'joinType', plan ->> 'Join Type', " +
+                            "'strategy', plan ->> 'Strategy')) ORDER BY path) FROM node) " +
+            "))";
+
+    private static final String PARSE_SQL =
+            "SELECT " +
+                    "p ->> 'dataset' AS dataset, " +
+                    "(p ->> 'totalCost')::float8 AS total_cost, " +
+                    "(n ->> 'depth')::int AS depth, " +
+                    "n ->> 'nodeType' AS node_type, " +
+                    "n ->> 'relation' AS relation, " +
+                    "n ->> 'index' AS index_name, " +
+                    "n ->> 'joinType' AS join_type, " +
+                    "n ->> 'strategy' AS strategy " +
+            "FROM (SELECT ?::jsonb AS p) AS plan " +
+            "CROSS JOIN jsonb_array_elements(p -> 'nodes') WITH ORDINALITY AS e(n, ord) " +
+            "ORDER BY ord";
+
+    private String dataset;
+    private double totalCost;
+    private List<PlanNode> nodes;
+    private String json;
+
+    /**
+     * Plans a query and normalizes its plan.
+     *
+     * @param conn database connection
+     * @param dataset description of the data the query was planned against
+     * @param sql query
+     * @param params query parameters
+     * @return normalized plan
+     * @throws SQLException if the query cannot be planned
+     */
+    public static QueryPlan explain(Connection conn, String dataset, String sql, Object... params) throws SQLException {
+        final String explain;
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                explain = rs.getString(1);
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(NORMALIZE_SQL)) {
+            ps.setString(1, explain);
+            ps.setString(2, dataset);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return parse(conn, rs.getString(1));
+            }
+        }
+    }
+
+    /**
+     * Reads a normalized plan from a baseline file.
+     *
+     * @param conn database connection
+     * @param file baseline file
+     * @return normalized plan
+     * @throws SQLException if the baseline cannot be parsed
+     * @throws IOException if the baseline cannot be read
+     */
+    public static QueryPlan read(Connection conn, Path file) throws SQLException, IOException {
+        return parse(conn, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    private static QueryPlan parse(Connection conn, String json) throws SQLException {
+        String dataset = null;
+        double totalCost = 0;
+        final List<PlanNode> nodes = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(PARSE_SQL)) {
+            ps.setString(1, json);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    dataset = rs.getString("dataset");
+                    totalCost = rs.getDouble("total_cost");
+                    nodes.add(new PlanNode(
+                            rs.getInt("depth"),
+                            rs.getString("node_type"),
+                            rs.getString("relation"),
+                            rs.getString("index_name"),
+                            rs.getString("join_type"),
+                            rs.getString("strategy")));
+                }
+            }
+        }
+
+        return new QueryPlan(dataset, totalCost, nodes, json);
+    }
+
+    /**
+     * Writes the normalized plan to a baseline file.
+     *
+     * @param file baseline file
+     * @throws IOException if the baseline cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, (json + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compares the plan with a baseline plan of the same query.
+     *
+     * @param baseline baseline plan
+     * @param costThreshold fraction the total cost may grow by before it is a regression
+     * @return regressions, empty if none
+     */
+    public List<String> regressionsSince(QueryPlan baseline, double costThreshold) {
+        final List<String> regressions = new ArrayList<>();
+
+        final Map<String, Set<String>> baselineScans = baseline.getScans();
+        final Map<String, Set<String>> scans = getScans();
+        final Set<String> relations = new TreeSet<>(baselineScans.keySet());
+        relations.addAll(scans.keySet());
+
+        for (String relation : relations) {
+            if (!Objects.equals(baselineScans.get(relation), scans.get(relation))) {
+                regressions.add(String.format("scan of %s changed from %s to %s",
+                        relation, baselineScans.getOrDefault(relation, new TreeSet<>()), scans.getOrDefault(relation, new TreeSet<>())));
+            }
+        }
+
+        final Set<String> indexes = getIndexes();
+        for (String index : baseline.getIndexes()) {
+            if (!indexes.contains(index)) {
+                regressions.add(String.format("no longer uses index %s", index));
+            }
+        }
+
+        if (totalCost > baseline.totalCost * (1 + costThreshold)) {
+            regressions.add(String.format("total cost increased from %.2f to %.2f, more than the %.0f%% threshold",
+                    baseline.totalCost, totalCost, costThreshold * 100));
+        }
+
+        return regressions;
+    }
+
+    /**
+     * @return scan node types of each relation scanned by the plan
+     */
+    private Map<String, Set<String>> getScans() {
+        return nodes.stream()
+                .filter(node -> node.getRelation() != null)
+                .collect(Collectors.groupingBy(PlanNode::getRelation, TreeMap::new,
+                        Collectors.mapping(PlanNode::getNodeType, Collectors.toCollection(TreeSet::new))));
+    }
+
+    /**
+     * @return indexes scanned by the plan
+     */
+    private Set<String> getIndexes() {
+        return nodes.stream()
+                .map(PlanNode::getIndex)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * @return plan tree, one indented node per line
+     */
+    public String describe() {
+        return nodes.stream().map(PlanNode::toString).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Normalized plan node.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class PlanNode {
+        private int depth;
+        private String nodeType;
+        private String relation;
+        private String index;
+        private String joinType;
+        private String strategy;
+
+        @Override
+        public String toString() {
+            final StringBuilder node = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                node.append("  ");
+            }
+
+            node.append(joinType != null ? joinType + " " : "")
+                    .append(strategy != null ? strategy + " " : "")
+                    .append(nodeType)
+                    .append(index != null ? " using " + index : "")
+                    .append(relation != null ? " on " + relation : "");
+
+            return node.toString();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.gregwhitaker.dbmigrator.tenant;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.MigrationException;
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that tenant schemas provisioned from spare schemas are fully migrated and have a consistent history.
+ */
+public class TenantProvisioningIntegrationTest {
+    private static final String ENV = "integration";
+    private static final String TENANT = "tenant_provisioning_test";
+    private static final String SCRATCH_TENANT = "tenant_provisioning_scratch_test";
+
+    private final DataSource dataSource = DataSourceHelper.getInstance().getDataSource();
+
+    @After
+    public void dropSchemas() throws SQLException {
+        final List<String> schemas = new ArrayList<>();
+        schemas.add(TENANT);
+        schemas.add(SCRATCH_TENANT);
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT nspname FROM pg_namespace WHERE nspname LIKE 'tenant\\_spare\\_%'");
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    schemas.add(rs.getString(1));
+                }
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                for (String schema : schemas) {
+                    stmt.execute(String.format("DROP SCHEMA IF EXISTS \"%s\" CASCADE", schema));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldProvisionTenantFromSpare() throws Exception {
+        final TenantProvisioner provisioner = new TenantProvisioner(dataSource, ENV, 2);
+        provisioner.replenish();
+
+        assertEquals(2, countSpares());
+        assertTrue(provisioner.provision(TENANT));
+        assertEquals(1, countSpares());
+
+        // The tenant has the schema and static data of a full migration
+        assertEquals(3, count("SELECT count(*) FROM " + TENANT + ".metadata_type"));
+        assertEquals(10, count("SELECT count(*) FROM " + TENANT + ".metadata"));
+
+        // Its history is its own and a later migration has nothing to apply
+        final DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+        migrator.setSchema(TENANT);
+        migrator.setAnalyzeModifiedTables(false);
+
+        final MigrationInfoService before = migrator.info(ENV);
+        assertTrue(migrator.isUpToDate(ENV));
+
+        migrator.run(ENV, false);
+        assertEquals(before.applied().length, migrator.info(ENV).applied().length);
+        assertEquals(1, count("SELECT count(*) FROM " + TENANT + ".flyway_schema_history WHERE type = 'SCHEMA' AND script = '\"" + TENANT + "\"'"));
+
+        provisioner.replenish();
+        assertEquals(2, countSpares());
+    }
+
+    @Test
+    public void shouldMigrateTenantFromScratchWithoutSpares() throws Exception {
+        final TenantProvisioner provisioner = new TenantProvisioner(dataSource, ENV, 0);
+
+        assertFalse(provisioner.provision(SCRATCH_TENANT));
+        assertEquals(10, count("SELECT count(*) FROM " + SCRATCH_TENANT + ".metadata"));
+    }
+
+    @Test
+    public void shouldNotClaimSpareWithFunctionNamingIt() throws Exception {
+        final TenantProvisioner provisioner = new TenantProvisioner(dataSource, ENV, 1);
+        provisioner.replenish();
+
+        final String spare = spares().get(0);
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(String.format("CREATE FUNCTION \"%1$s\".metadata_count() RETURNS BIGINT LANGUAGE sql AS 'SELECT count(*) FROM \"%1$s\".metadata'", spare));
+        }
+
+        // The function would still count the rows of the renamed spare, so the tenant is migrated from scratch instead
+        assertFalse(provisioner.provision(TENANT));
+        assertEquals(Collections.singletonList(spare), spares());
+        assertEquals(10, count("SELECT count(*) FROM " + TENANT + ".metadata"));
+    }
+
+    @Test(expected = MigrationException.class)
+    public void shouldNotProvisionExistingTenant() {
+        final TenantProvisioner provisioner = new TenantProvisioner(dataSource, ENV, 0);
+
+        provisioner.provision(SCRATCH_TENANT);
+        provisioner.provision(SCRATCH_TENANT);
+    }
+
+    private int countSpares() throws SQLException {
+        return count("SELECT count(*) FROM pg_namespace WHERE nspname LIKE 'tenant\\_spare\\_%'");
+    }
+
+    private List<String> spares() throws SQLException {
+        final List<String> spares = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT nspname FROM pg_namespace WHERE nspname LIKE 'tenant\\_spare\\_%'");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                spares.add(rs.getString(1));
+            }
+        }
+
+        return spares;
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
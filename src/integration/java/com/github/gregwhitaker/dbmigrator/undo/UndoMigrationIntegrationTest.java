@@ -0,0 +1,97 @@
+package com.github.gregwhitaker.dbmigrator.undo;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.util.DataSourceHelper;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that undoing a migration reverts its schema change and removes it from the schema history.
+ */
+public class UndoMigrationIntegrationTest {
+    private static final String ENV = "undo";
+    private static final String SCHEMA = "undo_migration_test";
+    private static final String UNDO_TO = "1.0.0.20210520091440";
+    private static final String UNDONE = "1.0.1.20210601130000";
+
+    private final DataSource dataSource = DataSourceHelper.getInstance().getDataSource();
+
+    @After
+    public void dropSchema() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        }
+    }
+
+    @Test
+    public void shouldUndoMigrationAndRemoveItFromHistory() throws Exception {
+        final DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+        migrator.setSchema(SCHEMA);
+        migrator.setAnalyzeModifiedTables(false);
+
+        migrator.run(ENV, false);
+        assertTrue(tableExists());
+        assertEquals(1, countHistory(UNDONE));
+
+        final List<MigrationInfo> undone = migrator.undo(ENV, UNDO_TO);
+
+        assertEquals(1, undone.size());
+        assertEquals(UNDONE, undone.get(0).getVersion().getVersion());
+        assertFalse(tableExists());
+        assertEquals(0, countHistory(UNDONE));
+        assertEquals(1, migrator.info(ENV).pending().length);
+
+        // The undone migration is pending again and is applied by the next migration
+        migrator.run(ENV, false);
+        assertTrue(tableExists());
+        assertEquals(1, countHistory(UNDONE));
+    }
+
+    @Test
+    public void shouldUndoNothingAtTargetVersion() {
+        final DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+        migrator.setSchema(SCHEMA);
+        migrator.setAnalyzeModifiedTables(false);
+
+        migrator.run(ENV, false);
+
+        assertTrue(migrator.undo(ENV, UNDONE).isEmpty());
+        assertTrue(migrator.isUpToDate(ENV));
+    }
+
+    private boolean tableExists() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, SCHEMA + ".undo_test");
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private int countHistory(String version) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM " + SCHEMA + ".flyway_schema_history WHERE version = ?")) {
+            ps.setString(1, version);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -46,4 +46,22 @@ public final class DataSourceHelper {
     public DataSource getDataSource() {
         return dataSource;
     }
+
+    /**
+     * Creates a {@link DataSource} for the integration test database whose connections use a schema as their search
+     * path, so that two schemas can stand in for two databases. The caller must close it.
+     *
+     * @param schema schema to connect to
+     * @return datasource
+     */
+    public static HikariDataSource createDataSource(String schema) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(DEFAULT_JDBC_URL);
+        hikariConfig.setUsername(DEFAULT_USERNAME);
+        hikariConfig.setPassword(DEFAULT_PASSWORD);
+        hikariConfig.setSchema(schema);
+        hikariConfig.setMaximumPoolSize(4);
+
+        return new HikariDataSource(hikariConfig);
+    }
 }
@@ -0,0 +1,5 @@
+-- Script: V1_0_1_20210601120000__slow_coordination_migration.sql
+-- Description: Slow Coordination Migration
+
+-- Keeps the elected instance busy long enough for every other instance to start waiting on it
+SELECT pg_sleep(3);
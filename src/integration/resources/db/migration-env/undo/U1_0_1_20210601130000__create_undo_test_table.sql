@@ -0,0 +1,4 @@
+-- Script: U1_0_1_20210601130000__create_undo_test_table.sql
+-- Description: Undo Create Undo Test Table
+
+DROP TABLE undo_test;
@@ -0,0 +1,7 @@
+-- Script: V1_0_1_20210601130000__create_undo_test_table.sql
+-- Description: Create Undo Test Table
+
+CREATE TABLE undo_test (
+  id            BIGSERIAL       PRIMARY KEY,
+  metadata_id   BIGINT          NOT NULL REFERENCES metadata(id)
+);
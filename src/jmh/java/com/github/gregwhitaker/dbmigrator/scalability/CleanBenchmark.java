@@ -0,0 +1,69 @@
+package com.github.gregwhitaker.dbmigrator.scalability;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.benchmark.BenchmarkConfig;
+import com.github.gregwhitaker.dbmigrator.benchmark.DatasetSeeder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cleaning a migrated database as both the migration history and the amount of data in it grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CleanBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int historySize;
+
+    @Param({"0", "100000", "1000000"})
+    public long rows;
+
+    private HikariDataSource dataSource;
+    private DatabaseMigrator migrator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = BenchmarkConfig.get().createDataSource(2);
+        migrator = new DatabaseMigrator(dataSource);
+        migrator.setAnalyzeModifiedTables(false);
+    }
+
+    @Setup(Level.Invocation)
+    public void migrateAndSeed() throws SQLException {
+        migrator.run(ScalabilityBenchmarks.historyEnv(historySize), true);
+
+        if (rows > 0) {
+            DatasetSeeder.seed(dataSource, rows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void clean() {
+        migrator.clean();
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.gregwhitaker.dbmigrator.scalability;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.benchmark.BenchmarkConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures applying the full migration history to an empty database, as when provisioning a new environment or
+ * running the integration tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FreshMigrationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int historySize;
+
+    private HikariDataSource dataSource;
+    private DatabaseMigrator migrator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = BenchmarkConfig.get().createDataSource(2);
+        migrator = new DatabaseMigrator(dataSource);
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanDatabase() {
+        migrator.clean();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void freshMigrate() {
+        migrator.run(ScalabilityBenchmarks.historyEnv(historySize), false);
+    }
+}
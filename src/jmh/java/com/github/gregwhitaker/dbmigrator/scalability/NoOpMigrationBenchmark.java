@@ -0,0 +1,56 @@
+package com.github.gregwhitaker.dbmigrator.scalability;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.benchmark.BenchmarkConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a migration run against a database that is already up to date, which is what every deployment pays when
+ * there are no new migrations. The cost is dominated by resolving and validating the migration history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class NoOpMigrationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int historySize;
+
+    private HikariDataSource dataSource;
+    private DatabaseMigrator migrator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = BenchmarkConfig.get().createDataSource(2);
+        migrator = new DatabaseMigrator(dataSource);
+        migrator.run(ScalabilityBenchmarks.historyEnv(historySize), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void noOpRun() {
+        migrator.run(ScalabilityBenchmarks.historyEnv(historySize), false);
+    }
+}
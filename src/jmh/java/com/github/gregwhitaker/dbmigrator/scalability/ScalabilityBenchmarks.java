@@ -0,0 +1,28 @@
+package com.github.gregwhitaker.dbmigrator.scalability;
+
+/**
+ * Shared settings for the scalability benchmarks.
+ */
+public final class ScalabilityBenchmarks {
+
+    /**
+     * Prefix of the environments holding the synthetic migration histories generated by the
+     * <code>generateSyntheticHistory</code> task.
+     */
+    public static final String HISTORY_ENV_PREFIX = "synthetic-";
+
+    private ScalabilityBenchmarks() {
+        // Utility class
+    }
+
+    /**
+     * Gets the environment that applies the synthetic migration history of the given size on top of the standard
+     * migrations.
+     *
+     * @param historySize number of synthetic migrations
+     * @return environment name
+     */
+    public static String historyEnv(int historySize) {
+        return HISTORY_ENV_PREFIX + historySize;
+    }
+}
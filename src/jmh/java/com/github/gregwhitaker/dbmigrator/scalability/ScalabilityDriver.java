@@ -0,0 +1,147 @@
+package com.github.gregwhitaker.dbmigrator.scalability;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.benchmark.BenchmarkConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures whole migrator runs, including JVM startup, by launching the application in a new process for each run.
+ *
+ * JMH measures the migrator in a warmed up JVM, but every real deployment starts cold. For each synthetic history
+ * size the driver repeatedly measures a fresh migration of an empty database, a no-op run against the migrated
+ * database and a clean. The median of each is written in the JMH JSON result format so it can be compared against
+ * the baseline with the JMH results.
+ *
+ * Usage: <code>ScalabilityDriver {results file}</code>
+ */
+public class ScalabilityDriver {
+    private static final Logger LOG = LoggerFactory.getLogger(ScalabilityDriver.class);
+
+    private static final String BENCHMARK_PREFIX = ScalabilityDriver.class.getName() + ".";
+
+    public static void main(String... args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ScalabilityDriver {results file}");
+        }
+
+        final BenchmarkConfig config = BenchmarkConfig.get();
+        final int runs = Integer.getInteger("benchmark.driver.runs", 5);
+        final List<Integer> historySizes = Arrays.stream(System.getProperty("benchmark.driver.historySizes", "10,1000,10000").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+
+        final Map<String, List<Long>> results = new LinkedHashMap<>();
+
+        try (HikariDataSource dataSource = config.createDataSource(2)) {
+            for (int historySize : historySizes) {
+                final String env = ScalabilityBenchmarks.historyEnv(historySize);
+                final List<Long> fresh = new ArrayList<>();
+                final List<Long> coldStart = new ArrayList<>();
+                final List<Long> clean = new ArrayList<>();
+
+                new DatabaseMigrator(dataSource).clean();
+
+                for (int i = 0; i < runs; i++) {
+                    fresh.add(launch(config, "--env", env));
+                    coldStart.add(launch(config, "--env", env));
+                    clean.add(launch(config, "--clean-no-migrate"));
+                }
+
+                results.put(key("freshMigrate", historySize), fresh);
+                results.put(key("coldStartNoOpRun", historySize), coldStart);
+                results.put(key("clean", historySize), clean);
+            }
+        }
+
+        write(Paths.get(args[0]), results);
+    }
+
+    /**
+     * Runs the migrator in a new JVM.
+     *
+     * @return wall clock time of the process in milliseconds
+     */
+    private static long launch(BenchmarkConfig config, String... migratorArgs) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DatabaseMigrator.class.getName());
+        command.add("--jdbc-url=" + config.getJdbcUrl());
+        command.add("--username=" + config.getUsername());
+        command.add("--password=" + config.getPassword());
+        command.addAll(Arrays.asList(migratorArgs));
+
+        final long start = System.nanoTime();
+        final Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        final int exitCode = process.waitFor();
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        if (exitCode != 0) {
+            throw new IllegalStateException(String.format("Migrator exited with code %d [args: '%s']", exitCode, Arrays.toString(migratorArgs)));
+        }
+
+        LOG.info("Completed migrator run [args: '{}', duration: '{}ms']", Arrays.toString(migratorArgs), elapsedMillis);
+
+        return elapsedMillis;
+    }
+
+    private static String key(String benchmark, int historySize) {
+        return BENCHMARK_PREFIX + benchmark + ":" + historySize;
+    }
+
+    /**
+     * Writes the median of each measurement in the JMH JSON result format.
+     */
+    private static void write(Path resultsFile, Map<String, List<Long>> results) throws IOException {
+        final List<String> entries = new ArrayList<>();
+
+        results.forEach((key, timings) -> {
+            final String benchmark = key.substring(0, key.indexOf(':'));
+            final String historySize = key.substring(key.indexOf(':') + 1);
+            final List<Long> sorted = timings.stream().sorted().collect(Collectors.toList());
+            final long median = sorted.get(sorted.size() / 2);
+
+            LOG.info("{} [historySize: '{}'] median: {}ms, min: {}ms, max: {}ms",
+                    benchmark, historySize, median, sorted.get(0), sorted.get(sorted.size() - 1));
+
+            entries.add(String.format("  {%n" +
+                    "    \"benchmark\" : \"%s\",%n" +
+                    "    \"mode\" : \"ss\",%n" +
+                    "    \"measurementIterations\" : %d,%n" +
+                    "    \"params\" : {%n" +
+                    "      \"historySize\" : \"%s\"%n" +
+                    "    },%n" +
+                    "    \"primaryMetric\" : {%n" +
+                    "      \"score\" : %d,%n" +
+                    "      \"scoreUnit\" : \"ms/op\",%n" +
+                    "      \"rawData\" : [ %s ]%n" +
+                    "    }%n" +
+                    "  }", benchmark, timings.size(), historySize, median, timings));
+        });
+
+        Files.createDirectories(resultsFile.toAbsolutePath().getParent());
+        Files.write(resultsFile, ("[\n" + String.join(",\n", entries) + "\n]\n").getBytes());
+
+        LOG.info("Wrote scalability driver results to {}", resultsFile);
+    }
+}
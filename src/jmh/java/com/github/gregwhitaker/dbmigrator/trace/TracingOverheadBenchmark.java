@@ -0,0 +1,78 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.benchmark.BenchmarkConfig;
+import com.github.gregwhitaker.dbmigrator.scalability.ScalabilityBenchmarks;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of tracing a migration run, by applying the same synthetic history to an empty database with
+ * and without a trace file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TracingOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean tracing;
+
+    @Param({"1000"})
+    public int historySize;
+
+    private HikariDataSource dataSource;
+    private DatabaseMigrator migrator;
+    private Path traceFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // One more connection than the other benchmarks for the trace's wait event sampler
+        dataSource = BenchmarkConfig.get().createDataSource(3);
+        migrator = new DatabaseMigrator(dataSource);
+
+        if (tracing) {
+            traceFile = Files.createTempFile("dbmigrator-trace", ".json");
+            migrator.setTraceFile(traceFile);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanDatabase() {
+        migrator.clean();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+
+        if (traceFile != null) {
+            Files.delete(traceFile);
+        }
+    }
+
+    @Benchmark
+    public void freshMigrate() {
+        migrator.run(ScalabilityBenchmarks.historyEnv(historySize), false);
+    }
+}
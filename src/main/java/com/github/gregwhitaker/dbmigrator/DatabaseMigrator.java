@@ -1,27 +1,97 @@
 package com.github.gregwhitaker.dbmigrator;
 
+import com.github.gregwhitaker.dbmigrator.baseline.SquashedBaseline;
 import com.github.gregwhitaker.dbmigrator.config.DatabaseMigratorConfig;
+import com.github.gregwhitaker.dbmigrator.coordination.StartupCoordinator;
+import com.github.gregwhitaker.dbmigrator.data.DataCopier;
+import com.github.gregwhitaker.dbmigrator.data.TableVerifier;
+import com.github.gregwhitaker.dbmigrator.data.VerificationResult;
+import com.github.gregwhitaker.dbmigrator.data.WalThrottle;
+import com.github.gregwhitaker.dbmigrator.drift.DriftReport;
+import com.github.gregwhitaker.dbmigrator.drift.DriftScanner;
+import com.github.gregwhitaker.dbmigrator.index.IndexAdvice;
+import com.github.gregwhitaker.dbmigrator.index.IndexAdvisor;
+import com.github.gregwhitaker.dbmigrator.jdbc.SchemaHistoryLock;
+import com.github.gregwhitaker.dbmigrator.jdbc.StatementListenerDataSource;
+import com.github.gregwhitaker.dbmigrator.jfr.FlightRecorderCallback;
+import com.github.gregwhitaker.dbmigrator.jfr.PoolInitializationEvent;
+import com.github.gregwhitaker.dbmigrator.jfr.StatementEventListener;
+import com.github.gregwhitaker.dbmigrator.plan.MigrationPlan;
+import com.github.gregwhitaker.dbmigrator.plan.MigrationPlanner;
+import com.github.gregwhitaker.dbmigrator.prewarm.BufferPrewarmer;
+import com.github.gregwhitaker.dbmigrator.prewarm.RelationFileSnapshot;
+import com.github.gregwhitaker.dbmigrator.server.MigrationServer;
+import com.github.gregwhitaker.dbmigrator.sql.StreamingSqlMigrationResolver;
+import com.github.gregwhitaker.dbmigrator.stats.ModifiedTableTracker;
+import com.github.gregwhitaker.dbmigrator.stats.ServerStatsCallback;
+import com.github.gregwhitaker.dbmigrator.stats.ServerStatsCollector;
+import com.github.gregwhitaker.dbmigrator.stats.TableAnalyzer;
+import com.github.gregwhitaker.dbmigrator.tenant.TenantProvisioner;
+import com.github.gregwhitaker.dbmigrator.trace.MigrationTrace;
+import com.github.gregwhitaker.dbmigrator.trace.TracingCallback;
+import com.github.gregwhitaker.dbmigrator.trace.TracingStatementListener;
+import com.github.gregwhitaker.dbmigrator.undo.UndoMigrator;
 import com.github.gregwhitaker.envopts.EnvOpts;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Manages the migration of database entities.
  */
 public class DatabaseMigrator {
     private static final Logger LOG = LoggerFactory.getLogger(DatabaseMigrator.class);
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int ANALYZE_THREADS = 4;
+    private static final int PREWARM_THREADS = 4;
+
+    /**
+     * Description of the schema history entry that records a fresh database was created from the squashed baseline.
+     */
+    public static final String BASELINE_DESCRIPTION = "<< Squashed Baseline >>";
+
+    /**
+     * Location of the migrations of every environment, which are the migrations squashed into the baseline.
+     */
+    public static final String MIGRATION_LOCATION = "classpath:/db/migration";
 
     /**
      * Runs a database migration from the command line.
      *
      * @param args command line arguments
      */
-    public static void main(String... args) {
+    public static void main(String... args) throws Exception {
         EnvOpts.parse();
 
         final DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
@@ -31,30 +101,247 @@ public class DatabaseMigrator {
                 config.getJdbcUrl(),
                 config.getUsername());
 
+        if (config.isServer()) {
+            // Keep the JVM, connection pools and Flyway configuration warm and migrate on request
+            new MigrationServer(config).start();
+            return;
+        }
+
+        if (!config.getDriftTargets().isEmpty()) {
+            // No migration, just compare the schemas of the targets, without a connection pool for the default database
+            scanDrift(config);
+            return;
+        }
+
+        if (config.isCoordinate()) {
+            if (config.isCleanNoMigrate() || config.isCleanMigrate() || config.isPlan() || config.getUndoTo() != null) {
+                LOG.warn("Startup coordination only applies to migrations without clean, plan or undo, ignoring it");
+            } else {
+                runCoordinated(config);
+                return;
+            }
+        }
+
+        execute(config);
+    }
+
+    /**
+     * Runs the migration on only one of the instances started together, while the others wait for it to finish.
+     *
+     * @param config database migrator configuration
+     */
+    private static void runCoordinated(DatabaseMigratorConfig config) throws Exception {
+        // Elect the leader before creating the connection pool, so waiting instances only ever hold a single connection
+        try (StartupCoordinator coordinator = new StartupCoordinator(
+                DriverManager.getConnection(config.getJdbcUrl(), config.getUsername(), config.getPassword()),
+                TimeUnit.SECONDS.toMillis(config.getCoordinateTimeoutSeconds()))) {
+            final DatabaseMigrator schemaCheck = new DatabaseMigrator(coordinator.getDataSource());
+
+            if (!coordinator.awaitLeadership(() -> schemaCheck.isUpToDate(config.getEnvironment()))) {
+                return;
+            }
+
+            try {
+                execute(config);
+            } catch (Exception e) {
+                coordinator.fail();
+                throw e;
+            }
+
+            coordinator.complete();
+        }
+    }
+
+    /**
+     * Runs the configured migration, clean, plan, undo, tenant provisioning, copy or verification.
+     *
+     * @param config database migrator configuration
+     */
+    private static void execute(DatabaseMigratorConfig config) throws Exception {
         // Configure Datasource
+        try (HikariDataSource dataSource = createDataSource(config.getJdbcUrl(),
+                config.getUsername(),
+                config.getPassword(),
+                Math.max(DEFAULT_POOL_SIZE, Math.max(config.getCopyThreads(), config.getVerifyThreads()) + 1))) {
+
+            // Start Migration
+            DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+            migrator.setAnalyzeModifiedTables(config.isAnalyze());
+            migrator.setPrewarm(config.isPrewarm(), config.getPrewarmRelations(), config.getPrewarmTimeoutSeconds());
+            migrator.setTraceFile(config.getTraceFile() != null ? Paths.get(config.getTraceFile()) : null);
+            migrator.setStatsReportFile(config.getStatsReport() != null ? Paths.get(config.getStatsReport()) : null);
+            migrator.setWalBytesPerSecond(config.getWalBytesPerSecond());
+            migrator.setIndexAdvice(config.getIndexAdvice() != null ? Paths.get(config.getIndexAdvice()) : null,
+                    config.getIndexAdviceScript() != null ? Paths.get(config.getIndexAdviceScript()) : null);
+
+            if (config.isCleanNoMigrate()) {
+                // No migration, just clean the database
+                migrator.clean();
+            } else if (config.isPlan()) {
+                // No migration, just report what the pending migrations will cost
+                migrator.plan(config.getEnvironment()).print(System.out);
+            } else if (config.getUndoTo() != null) {
+                // No migration, just undo the applied migrations above the version
+                migrator.undo(config.getEnvironment(), config.getUndoTo());
+            } else if (config.getTenant() != null) {
+                // No migration of the default schema, just provision the tenant and top up the spare schemas
+                final TenantProvisioner provisioner = new TenantProvisioner(dataSource, config.getEnvironment(), config.getTenantSpares());
+                provisioner.provision(config.getTenant());
+                provisioner.replenish();
+            } else if (config.getCopyTables().isEmpty() && !config.getVerifyTables().isEmpty()) {
+                // No migration, just verify the tables against the source database
+                verifyTables(config, dataSource);
+            } else {
+                // Run the migration
+                migrator.run(config.getEnvironment(), config.isCleanMigrate());
+
+                if (!config.getCopyTables().isEmpty()) {
+                    // Copy data from the source database into the migrated schema
+                    copyTables(config, dataSource);
+                }
+
+                if (!config.getVerifyTables().isEmpty()) {
+                    verifyTables(config, dataSource);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the schemas of the configured drift targets with the reference schema.
+     *
+     * @param config database migrator configuration
+     * @throws IllegalStateException if any schema differs from the reference or cannot be scanned
+     */
+    private static void scanDrift(DatabaseMigratorConfig config) throws Exception {
+        final DriftReport report = new DriftScanner(config.getJdbcUrl(), config.getUsername(), config.getPassword(), config.getDriftThreads())
+                .scan(config.getDriftTargets(), config.getDriftReference());
+
+        report.print(System.out);
+
+        if (!report.isMatch()) {
+            throw new IllegalStateException(String.format("Schemas differ from the reference schema [drifted: %d, failed: %d]",
+                    report.getDrifted().size(), report.getFailed().size()));
+        }
+    }
+
+    /**
+     * Copies the configured tables from the source database into the target database.
+     *
+     * @param config database migrator configuration
+     * @param dataSource target datasource
+     */
+    private static void copyTables(DatabaseMigratorConfig config, DataSource dataSource) throws Exception {
+        try (HikariDataSource sourceDataSource = createSourceDataSource(config, config.getCopyThreads())) {
+            new DataCopier(sourceDataSource, dataSource, config.getCopyThreads(), config.getWalBytesPerSecond()).copy(config.getCopyTables());
+        }
+    }
+
+    /**
+     * Verifies that the configured tables match between the source database and the target database.
+     *
+     * @param config database migrator configuration
+     * @param dataSource target datasource
+     * @throws IllegalStateException if any table does not match
+     */
+    private static void verifyTables(DatabaseMigratorConfig config, DataSource dataSource) throws Exception {
+        final List<String> mismatchedTables = new ArrayList<>();
+
+        try (HikariDataSource sourceDataSource = createSourceDataSource(config, config.getVerifyThreads())) {
+            final TableVerifier verifier = new TableVerifier(sourceDataSource, dataSource, config.getVerifyThreads());
+
+            for (String tableName : config.getVerifyTables()) {
+                final VerificationResult result = verifier.verify(tableName);
+
+                if (!result.isMatch()) {
+                    mismatchedTables.add(String.format("%s (%d mismatched keys)", tableName, result.getMismatchCount()));
+                }
+            }
+        }
+
+        if (!mismatchedTables.isEmpty()) {
+            throw new IllegalStateException("Tables do not match the source database: " + String.join(", ", mismatchedTables));
+        }
+    }
+
+    private static HikariDataSource createSourceDataSource(DatabaseMigratorConfig config, int maximumPoolSize) {
+        LOG.info("Connecting to source database [jdbcUrl: '{}', username: '{}']",
+                config.getSourceJdbcUrl(),
+                config.getSourceUsername());
+
+        return createDataSource(config.getSourceJdbcUrl(),
+                config.getSourceUsername(),
+                config.getSourcePassword(),
+                maximumPoolSize);
+    }
+
+    /**
+     * Creates a connection pool for a database.
+     *
+     * @param jdbcUrl database jdbc connection url
+     * @param username database username
+     * @param password database password or <code>null</code> if no password is required
+     * @param maximumPoolSize maximum number of connections in the pool
+     * @return datasource
+     */
+    public static HikariDataSource createDataSource(String jdbcUrl, String username, String password, int maximumPoolSize) {
+        final PoolInitializationEvent event = new PoolInitializationEvent();
+        event.begin();
+        event.jdbcUrl = jdbcUrl;
+        event.maximumPoolSize = maximumPoolSize;
+
         final HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(config.getJdbcUrl());
-        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        hikariConfig.setUsername(username);
         hikariConfig.setConnectionTestQuery("SELECT 1");
         hikariConfig.setInitializationFailTimeout(30_000);
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
 
-        if (config.getPassword() != null) {
-            hikariConfig.setPassword(config.getPassword());
+        if (password != null) {
+            hikariConfig.setPassword(password);
         }
 
-        // Start Migration
-        DatabaseMigrator migrator = new DatabaseMigrator(new HikariDataSource(hikariConfig));
+        final HikariDataSource dataSource = new HikariDataSource(hikariConfig);
+        event.commit();
 
-        if (config.isCleanNoMigrate()) {
-            // No migration, just clean the database
-            migrator.clean();
-        } else {
-            // Run the migration
-            migrator.run(config.getEnvironment(), config.isCleanMigrate());
-        }
+        return dataSource;
+    }
+
+    /**
+     * Creates the Flyway configuration that every migration run is built on, which resolves and runs the compressed
+     * SQL migrations that Flyway does not resolve itself, with no WAL throttle ceiling.
+     *
+     * @param dataSource datasource of the database to migrate
+     * @param locations migration locations
+     * @return Flyway configuration
+     */
+    public static FluentConfiguration configuration(DataSource dataSource, String... locations) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .resolvers(new StreamingSqlMigrationResolver())
+                .baselineOnMigrate(false)
+                .placeholders(Collections.singletonMap(WalThrottle.PLACEHOLDER, "0"))
+                .locations(locations);
     }
 
     private final DataSource dataSource;
+    private final DataSource statementListenerDataSource;
+    private final Map<String, Flyway> flyways = new ConcurrentHashMap<>();
+    private final FlightRecorderCallback flightRecorderCallback;
+    private final TracingCallback tracingCallback = new TracingCallback();
+    private final ServerStatsCallback serverStatsCallback = new ServerStatsCallback();
+    private boolean analyzeModifiedTables = true;
+    private boolean prewarm = false;
+    private List<String> prewarmRelations = Collections.emptyList();
+    private long prewarmTimeoutMillis;
+    private List<String> additionalLocations = Collections.emptyList();
+    private String schema;
+    private boolean useBaseline = true;
+    private Path traceFile;
+    private Path statsReportFile;
+    private long walBytesPerSecond;
+    private Path indexAdviceFile;
+    private Path indexAdviceScriptFile;
 
     /**
      * Creates a new instance of {@link DatabaseMigrator}.
@@ -63,6 +350,9 @@ public class DatabaseMigrator {
      */
     public DatabaseMigrator(final DataSource dataSource) {
         this.dataSource = dataSource;
+        this.statementListenerDataSource = new StatementListenerDataSource(dataSource,
+                Arrays.asList(new StatementEventListener(), new TracingStatementListener()));
+        this.flightRecorderCallback = new FlightRecorderCallback(dataSource);
     }
 
     /**
@@ -72,28 +362,503 @@ public class DatabaseMigrator {
      * @param cleanMigration flag indicating whether or not to clean the database before running the migration
      */
     public void run(final String env, boolean cleanMigration) {
-        String[] locations;
-        if (env == null || env.isEmpty()) {
-            // No environment specified so just run the standard migration
-            locations = new String[]{"classpath:/db/migration"};
-        } else {
-            locations = new String[]{"classpath:/db/migration", "classpath:/db/migration-env/" + env.toLowerCase()};
-        }
+        final Flyway flyway = configure(env);
 
         LOG.info("Running database migrator... [env: '{}', cleanMigration: '{}', locations: '{}']",
-                env, cleanMigration, String.join(",", locations));
+                env, cleanMigration, String.join(",", locations(env)));
 
-        Flyway flyway = Flyway.configure()
-                .dataSource(dataSource)
-                .baselineOnMigrate(false)
-                .locations(locations)
-                .load();
+        try (MigrationTrace trace = traceFile != null ? MigrationTrace.start(traceFile, dataSource, env, locations(env), cleanMigration) : null) {
+            try {
+                migrate(flyway, env, cleanMigration, trace);
+            } catch (RuntimeException e) {
+                if (trace != null) {
+                    trace.fail(e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void migrate(Flyway flyway, String env, boolean cleanMigration, MigrationTrace trace) {
+        if (trace != null) {
+            trace.startTarget();
+        }
 
         if (cleanMigration) {
             flyway.clean();
         }
 
-        flyway.migrate();
+        try {
+            if (useBaseline && schema == null) {
+                applyBaseline(flyway);
+            }
+
+            final ModifiedTableTracker tracker = analyzeModifiedTables ? new ModifiedTableTracker(dataSource, flyway.getConfiguration()) : null;
+            if (tracker != null) {
+                tracker.before(flyway.info());
+            }
+
+            final RelationFileSnapshot beforeFiles = prewarm ? captureRelationFiles() : null;
+
+            final ServerStatsCollector serverStats = statsReportFile != null ? startServerStats() : null;
+
+            flightRecorderCallback.beginScan(env, locations(env));
+            try {
+                flyway.migrate();
+            } finally {
+                flightRecorderCallback.endScan();
+
+                if (serverStats != null) {
+                    // Also reported when the migration fails, as that is often when the report is needed
+                    writeServerStatsReport(serverStats);
+                }
+            }
+
+            if (trace != null) {
+                trace.endTarget();
+            }
+
+            if (tracker != null) {
+                // Refresh planner statistics before reporting success so the first queries after deploy get good plans
+                analyzeModifiedTables(tracker, flyway);
+            }
+
+            if (prewarm) {
+                // Load rewritten and hot relations into shared buffers before traffic shifts to the new release
+                final Set<String> relations = new LinkedHashSet<>(prewarmRelations);
+                final RelationFileSnapshot afterFiles = beforeFiles != null ? captureRelationFiles() : null;
+                if (afterFiles != null) {
+                    relations.addAll(afterFiles.changedSince(beforeFiles));
+                }
+
+                new BufferPrewarmer(dataSource, PREWARM_THREADS, prewarmTimeoutMillis).prewarm(relations);
+            }
+
+            if (indexAdviceFile != null || indexAdviceScriptFile != null) {
+                writeIndexAdvice(flyway);
+            }
+        } catch (SQLException | IOException e) {
+            throw new MigrationException("Error occurred while preparing migrated tables", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationException("Interrupted while preparing migrated tables", e);
+        }
+    }
+
+    /**
+     * Starts collecting server statistics. The report is optional, so failing to read the statistics does not fail the
+     * migration.
+     *
+     * @return collector or <code>null</code> if the statistics cannot be read
+     */
+    private ServerStatsCollector startServerStats() {
+        try {
+            return ServerStatsCollector.start(dataSource);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to collect server statistics, migrating without a report [file: '{}']", statsReportFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Analyzes the tables changed by the applied migrations. The migrations are already committed and autovacuum
+     * analyzes the tables eventually anyway, so failing to analyze them does not fail the migration.
+     */
+    private void analyzeModifiedTables(ModifiedTableTracker tracker, Flyway flyway) throws InterruptedException {
+        Set<String> tables = null;
+        try {
+            tables = tracker.after(flyway.info());
+            new TableAnalyzer(dataSource, ANALYZE_THREADS).analyze(tables);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to analyze tables modified by migration, leaving them to autovacuum [tables: '{}']", tables, e);
+        }
+    }
+
+    private void writeServerStatsReport(ServerStatsCollector serverStats) {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(statsReportFile), false, StandardCharsets.UTF_8.name())) {
+            serverStats.finish().print(out);
+
+            LOG.info("Wrote server statistics report [file: '{}']", statsReportFile);
+        } catch (SQLException | IOException e) {
+            LOG.warn("Unable to write server statistics report [file: '{}']", statsReportFile, e);
+        }
+    }
+
+    private void writeIndexAdvice(Flyway flyway) {
+        final IndexAdvice advice;
+        try {
+            advice = new IndexAdvisor(dataSource, schema, flyway.getConfiguration().getTable()).advise();
+        } catch (SQLException e) {
+            LOG.warn("Unable to inspect indexes for index advice", e);
+            return;
+        }
+
+        advice.getFindings().forEach(finding -> LOG.warn("Index advice: {}", finding));
+
+        writeIndexAdvice(indexAdviceFile, "index advice", advice::print);
+        writeIndexAdvice(indexAdviceScriptFile, "index advice script", advice::printScript);
+    }
+
+    private static void writeIndexAdvice(Path file, String name, Consumer<PrintStream> printer) {
+        if (file == null) {
+            return;
+        }
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8.name())) {
+            printer.accept(out);
+
+            LOG.info("Wrote {} [file: '{}']", name, file);
+        } catch (IOException e) {
+            LOG.warn("Unable to write {} [file: '{}']", name, file, e);
+        }
+    }
+
+    /**
+     * Creates a fresh database from the squashed baseline, if there is one, and records the baseline in the schema
+     * history, so that only the migrations after the baseline are replayed. Databases with any history or objects keep
+     * migrating from their full history.
+     *
+     * Both steps run under Flyway's schema history lock, so only one of several fresh starts applies the baseline. The
+     * baseline is recorded first and then applied in a single transaction. A start that stops between the two leaves a
+     * history with only the baseline and an otherwise empty schema, and the next start applies the baseline to it.
+     */
+    private void applyBaseline(Flyway flyway) throws SQLException, IOException {
+        final SquashedBaseline baseline = SquashedBaseline.load();
+        if (baseline == null) {
+            return;
+        }
+
+        // Databases with a history are left alone without waiting for the lock, unless the history is only the baseline
+        final MigrationInfo[] history = flyway.info().applied();
+        if (history.length != 0 && !isBaselineOnly(history)) {
+            return;
+        }
+
+        final String table = flyway.getConfiguration().getTable();
+
+        try (Connection conn = dataSource.getConnection();
+             SchemaHistoryLock lock = SchemaHistoryLock.acquire(conn, flyway.getConfiguration())) {
+            // Checked under the lock, as a concurrent start may have applied the baseline while this one waited
+            final Flyway locked = Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(lock.getDataSource())
+                    .baselineVersion(baseline.getVersion())
+                    .baselineDescription(BASELINE_DESCRIPTION)
+                    .load();
+
+            final MigrationInfo[] applied = locked.info().applied();
+
+            if (applied.length == 0) {
+                if (!isEmptySchema(conn, table) || !isSquashed(locked, baseline)) {
+                    return;
+                }
+
+                LOG.info("Creating fresh database from squashed baseline [version: '{}']", baseline.getVersion());
+
+                locked.baseline();
+            } else if (isBaselineOnly(applied) && isEmptySchema(conn, table)) {
+                LOG.warn("Applying squashed baseline that was recorded but not applied [version: '{}']", baseline.getVersion());
+            } else {
+                return;
+            }
+
+            baseline.apply(conn);
+        }
+    }
+
+    /**
+     * Checks that the baseline squashes every versioned migration at or below its version. Versioned migrations in the
+     * environment and additional locations are not in the baseline, and would never be applied to a database baselined
+     * after them, so such a database is migrated from its full history instead.
+     */
+    private static boolean isSquashed(Flyway flyway, SquashedBaseline baseline) {
+        final MigrationVersion version = MigrationVersion.fromVersion(baseline.getVersion());
+
+        final Set<MigrationVersion> squashed = Arrays.stream(Flyway.configure()
+                .configuration(flyway.getConfiguration())
+                .locations(MIGRATION_LOCATION)
+                .load()
+                .info()
+                .all())
+                .map(MigrationInfo::getVersion)
+                .collect(Collectors.toSet());
+
+        final List<String> unsquashed = Arrays.stream(flyway.info().all())
+                .filter(info -> info.getVersion() != null && info.getVersion().compareTo(version) <= 0)
+                .filter(info -> !squashed.contains(info.getVersion()))
+                .map(MigrationInfo::getScript)
+                .collect(Collectors.toList());
+
+        if (!unsquashed.isEmpty()) {
+            LOG.warn("Not using squashed baseline, as it leaves out migrations at or below its version, squash to a version after them [version: '{}', migrations: '{}']",
+                    baseline.getVersion(), unsquashed);
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isBaselineOnly(MigrationInfo[] applied) {
+        return applied.length == 1
+                && applied[0].getType() == MigrationType.BASELINE
+                && BASELINE_DESCRIPTION.equals(applied[0].getDescription());
+    }
+
+    /**
+     * Checks whether the current schema has no relations other than the schema history table and its indexes.
+     */
+    private static boolean isEmptySchema(Connection conn, String table) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT NOT EXISTS (SELECT 1 FROM pg_class c WHERE c.relnamespace = current_schema()::regnamespace " +
+                        "AND c.relname <> ? " +
+                        "AND NOT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class t ON t.oid = i.indrelid " +
+                        "WHERE i.indexrelid = c.oid AND t.relname = ? AND t.relnamespace = c.relnamespace))")) {
+            ps.setString(1, table);
+            ps.setString(2, table);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Gets the state of every applied and pending migration.
+     *
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @return migration info
+     */
+    public MigrationInfoService info(final String env) {
+        return configure(env).info();
+    }
+
+    /**
+     * Checks whether every migration for the environment has already been applied successfully.
+     *
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @return <code>true</code> if there are no pending or failed migrations; otherwise <code>false</code>
+     */
+    public boolean isUpToDate(final String env) {
+        final MigrationInfoService info = info(env);
+
+        return info.pending().length == 0 && Arrays.stream(info.all()).noneMatch(migration -> migration.getState().isFailed());
+    }
+
+    /**
+     * Estimates the cost of the pending migrations without applying them.
+     *
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @return ranked estimate of the pending migration statements
+     */
+    public MigrationPlan plan(final String env) {
+        LOG.info("Planning database migration... [env: '{}', locations: '{}']", env, String.join(",", locations(env)));
+
+        try {
+            return new MigrationPlanner(dataSource, configure(env)).plan();
+        } catch (SQLException | IOException e) {
+            throw new MigrationException("Error occurred while planning migration", e);
+        }
+    }
+
+    /**
+     * Undoes the applied migrations above a version, newest first, by running their undo scripts and classes, and
+     * removes them from the schema history so they are pending again.
+     *
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @param version version to undo to, which itself stays applied
+     * @return migrations that were undone, newest first
+     */
+    public List<MigrationInfo> undo(final String env, final String version) {
+        final Flyway flyway = configure(env);
+
+        LOG.info("Undoing database migrations... [env: '{}', undoTo: '{}', locations: '{}']",
+                env, version, String.join(",", locations(env)));
+
+        try (MigrationTrace trace = traceFile != null ? MigrationTrace.start(traceFile, dataSource, env, locations(env), false) : null) {
+            try {
+                if (trace != null) {
+                    trace.startTarget();
+                }
+
+                final ServerStatsCollector serverStats = statsReportFile != null ? startServerStats() : null;
+
+                final List<MigrationInfo> undone;
+                try {
+                    undone = new UndoMigrator(flyway).undo(MigrationVersion.fromVersion(version));
+                } finally {
+                    if (serverStats != null) {
+                        writeServerStatsReport(serverStats);
+                    }
+                }
+
+                if (trace != null) {
+                    trace.endTarget();
+                }
+
+                return undone;
+            } catch (SQLException | IOException e) {
+                final MigrationException failure = new MigrationException("Error occurred while undoing migrations", e);
+                if (trace != null) {
+                    trace.fail(failure);
+                }
+                throw failure;
+            } catch (RuntimeException e) {
+                if (trace != null) {
+                    trace.fail(e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private Flyway configure(final String env) {
+        // Reuse the configured Flyway instance, so a long-lived migrator only configures it once per environment
+        return flyways.computeIfAbsent(env != null ? env.toLowerCase() : "", key -> {
+            final FluentConfiguration configuration = configuration(statementListenerDataSource, locations(env))
+                    .callbacks(flightRecorderCallback, tracingCallback, serverStatsCallback)
+                    .placeholders(Collections.singletonMap(WalThrottle.PLACEHOLDER, String.valueOf(walBytesPerSecond)));
+
+            if (schema != null) {
+                configuration.schemas(schema);
+            }
+
+            return configuration.load();
+        });
+    }
+
+    private String[] locations(final String env) {
+        final List<String> locations = new ArrayList<>();
+        locations.add(MIGRATION_LOCATION);
+
+        // Environment-specific migrations are only included when an environment is specified
+        if (env != null && !env.isEmpty()) {
+            locations.add("classpath:/db/migration-env/" + env.toLowerCase());
+
+            // Java migrations cannot live in migration-env as it is not a valid package name, so they have their own
+            // location, which most environments do not have
+            if (DatabaseMigrator.class.getClassLoader().getResource("db/env/" + env.toLowerCase()) != null) {
+                locations.add("classpath:/db/env/" + env.toLowerCase());
+            }
+        }
+
+        locations.addAll(additionalLocations);
+
+        return locations.toArray(new String[0]);
+    }
+
+    /**
+     * Captures the relation files for buffer prewarming, which is best effort, so a failure only leaves out the
+     * relations rewritten by the migration.
+     *
+     * @return snapshot or <code>null</code> if the relation files cannot be read
+     */
+    private RelationFileSnapshot captureRelationFiles() {
+        try (Connection conn = dataSource.getConnection()) {
+            return RelationFileSnapshot.capture(conn);
+        } catch (SQLException e) {
+            LOG.warn("Unable to read relation files for buffer prewarm", e);
+            return null;
+        }
+    }
+
+    /**
+     * Sets whether tables changed by the applied migrations are analyzed after migration. Enabled by default.
+     *
+     * @param analyzeModifiedTables <code>true</code> to analyze modified tables; otherwise <code>false</code>
+     */
+    public void setAnalyzeModifiedTables(boolean analyzeModifiedTables) {
+        this.analyzeModifiedTables = analyzeModifiedTables;
+    }
+
+    /**
+     * Sets additional Flyway locations to load migrations from, after the standard and environment locations.
+     *
+     * @param additionalLocations Flyway locations, such as <code>classpath:/db/benchmark/create-index</code>
+     */
+    public void setAdditionalLocations(String... additionalLocations) {
+        this.additionalLocations = Arrays.asList(additionalLocations);
+        this.flyways.clear();
+    }
+
+    /**
+     * Sets whether fresh databases are created from the squashed baseline in <code>db/baseline</code>, when there is
+     * one, instead of replaying the whole history. Enabled by default.
+     *
+     * @param useBaseline <code>true</code> to create fresh databases from the baseline; otherwise <code>false</code>
+     */
+    public void setUseBaseline(boolean useBaseline) {
+        this.useBaseline = useBaseline;
+    }
+
+    /**
+     * Sets the file that a trace of each migration run is appended to, in the OTLP/JSON format. Disabled by default.
+     *
+     * @param traceFile trace file or <code>null</code> to not trace migration runs
+     */
+    public void setTraceFile(Path traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * Sets the file that a report of the server-side cost of each migration run is written to, from
+     * <code>pg_stat_statements</code>, <code>pg_stat_user_tables</code> and the background writer statistics.
+     * Disabled by default.
+     *
+     * @param statsReportFile report file or <code>null</code> to not report server statistics
+     */
+    public void setStatsReportFile(Path statsReportFile) {
+        this.statsReportFile = statsReportFile;
+    }
+
+    /**
+     * Sets the WAL bytes per second ceiling that Java data migrations pace themselves against, using the
+     * {@link WalThrottle} passed to them in the <code>walBytesPerSecond</code> placeholder. Unlimited by default.
+     *
+     * @param walBytesPerSecond WAL bytes per second ceiling or <code>0</code> for no ceiling
+     */
+    public void setWalBytesPerSecond(long walBytesPerSecond) {
+        this.walBytesPerSecond = walBytesPerSecond;
+        this.flyways.clear();
+    }
+
+    /**
+     * Sets the files that advice on the indexes of the migrated schema is written to after each successful migration,
+     * covering foreign keys without a supporting index and duplicate, redundant or unused indexes. Disabled by
+     * default.
+     *
+     * @param indexAdviceFile report file or <code>null</code> to not report index advice
+     * @param indexAdviceScriptFile file to write a migration script body that fixes the advice to, or <code>null</code>
+     *                              to not write one
+     */
+    public void setIndexAdvice(Path indexAdviceFile, Path indexAdviceScriptFile) {
+        this.indexAdviceFile = indexAdviceFile;
+        this.indexAdviceScriptFile = indexAdviceScriptFile;
+    }
+
+    /**
+     * Sets the schema to migrate instead of the default schema of the connection. The schema is created if it does not
+     * exist and holds its own migration history.
+     *
+     * @param schema schema name or <code>null</code> to migrate the default schema
+     */
+    public void setSchema(String schema) {
+        this.schema = schema;
+        this.flyways.clear();
+    }
+
+    /**
+     * Sets whether relations created or rewritten by the applied migrations, along with a list of hot relations, are
+     * loaded into shared buffers after migration using the <code>pg_prewarm</code> extension. Disabled by default.
+     *
+     * @param prewarm <code>true</code> to prewarm relations; otherwise <code>false</code>
+     * @param prewarmRelations additional relations to prewarm after every migration
+     * @param timeoutSeconds time budget for prewarming, after which the remaining relations are skipped
+     */
+    public void setPrewarm(boolean prewarm, List<String> prewarmRelations, int timeoutSeconds) {
+        this.prewarm = prewarm;
+        this.prewarmRelations = prewarmRelations;
+        this.prewarmTimeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
     }
 
     /**
@@ -102,6 +867,7 @@ public class DatabaseMigrator {
     public void clean() {
         Flyway flyway = Flyway.configure()
                 .dataSource(dataSource)
+                .callbacks(flightRecorderCallback)
                 .outOfOrder(true)
                 .baselineOnMigrate(false)
                 .load();
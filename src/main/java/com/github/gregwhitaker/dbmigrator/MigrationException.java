@@ -0,0 +1,15 @@
+package com.github.gregwhitaker.dbmigrator;
+
+/**
+ * Exception thrown when a step of the database migration other than Flyway itself fails.
+ */
+public class MigrationException extends RuntimeException {
+
+    public MigrationException(String message) {
+        super(message);
+    }
+
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Description of the objects and data in the current schema of a database, used to check that a squashed baseline
+ * creates exactly the same schema as replaying the migration history.
+ *
+ * Each object is described by a single line built from the PostgreSQL catalog, such as a column's type, nullability
+ * and default or an index's definition, and each table by its row count and a hash of its rows. Flyway's schema
+ * history table is excluded, as it legitimately differs between a replayed and a baselined database.
+ */
+public class CatalogSnapshot {
+    private static final String HISTORY_TABLE = "flyway_schema_history";
+
+    private static final String[] CATALOG_QUERIES = {
+            // Column order rather than attribute number, which has gaps where columns were dropped
+            "SELECT 'column', table_name, column_name, " +
+            "       row_number() OVER (PARTITION BY table_name ORDER BY ordinal_position), " +
+            "       data_type, character_maximum_length, numeric_precision, numeric_scale, is_nullable, column_default " +
+            "FROM   information_schema.columns " +
+            "WHERE  table_schema = current_schema() AND table_name <> '" + HISTORY_TABLE + "'",
+
+            "SELECT 'constraint', conrelid::regclass::text, conname, pg_get_constraintdef(oid) " +
+            "FROM   pg_constraint " +
+            "WHERE  connamespace = current_schema()::regnamespace AND conrelid::regclass::text <> '" + HISTORY_TABLE + "'",
+
+            "SELECT 'index', tablename, indexname, indexdef " +
+            "FROM   pg_indexes " +
+            "WHERE  schemaname = current_schema() AND tablename <> '" + HISTORY_TABLE + "'",
+
+            "SELECT 'sequence', sequencename, data_type, start_value, increment_by, min_value, max_value, cycle, last_value " +
+            "FROM   pg_sequences " +
+            "WHERE  schemaname = current_schema()",
+
+            "SELECT 'view', viewname, definition " +
+            "FROM   pg_views " +
+            "WHERE  schemaname = current_schema()",
+
+            "SELECT 'function', proname, pg_get_function_identity_arguments(oid), md5(pg_get_functiondef(oid)) " +
+            "FROM   pg_proc " +
+            "WHERE  pronamespace = current_schema()::regnamespace AND prokind IN ('f', 'p')",
+
+            "SELECT 'trigger', tgrelid::regclass::text, tgname, pg_get_triggerdef(t.oid) " +
+            "FROM   pg_trigger t " +
+            "JOIN   pg_class c ON c.oid = t.tgrelid " +
+            "WHERE  c.relnamespace = current_schema()::regnamespace AND NOT t.tgisinternal"
+    };
+
+    private final SortedSet<String> entries;
+
+    CatalogSnapshot(SortedSet<String> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Captures the objects and data in the current schema of a database.
+     *
+     * @param conn connection to the database
+     * @return snapshot
+     * @throws SQLException if the catalog cannot be read
+     */
+    public static CatalogSnapshot capture(Connection conn) throws SQLException {
+        final SortedSet<String> entries = new TreeSet<>();
+
+        for (String sql : CATALOG_QUERIES) {
+            query(conn, sql, entries);
+        }
+
+        for (String table : tables(conn)) {
+            query(conn, String.format("SELECT 'data', '%s', count(*), md5(coalesce(string_agg(t::text, ',' ORDER BY t::text), '')) FROM \"%s\" t",
+                    table, table.replace("\"", "\"\"")), entries);
+        }
+
+        return new CatalogSnapshot(entries);
+    }
+
+    /**
+     * Lists the entries that differ from another snapshot.
+     *
+     * @param other snapshot to compare with
+     * @return entries only in this snapshot, prefixed with <code>-</code>, followed by entries only in the other
+     *         snapshot, prefixed with <code>+</code>; empty if the snapshots are equal
+     */
+    public List<String> diff(CatalogSnapshot other) {
+        final List<String> differences = new ArrayList<>();
+
+        entries.stream()
+                .filter(entry -> !other.entries.contains(entry))
+                .forEach(entry -> differences.add("- " + entry));
+
+        other.entries.stream()
+                .filter(entry -> !entries.contains(entry))
+                .forEach(entry -> differences.add("+ " + entry));
+
+        return differences;
+    }
+
+    public SortedSet<String> getEntries() {
+        return entries;
+    }
+
+    private static List<String> tables(Connection conn) throws SQLException {
+        final List<String> tables = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT tablename FROM pg_tables WHERE schemaname = current_schema() AND tablename <> ? ORDER BY tablename")) {
+            ps.setString(1, HISTORY_TABLE);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+
+        return tables;
+    }
+
+    /**
+     * Adds each row of a catalog query as a <code>|</code> separated entry.
+     */
+    private static void query(Connection conn, String sql, SortedSet<String> entries) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            final ResultSetMetaData metaData = rs.getMetaData();
+
+            while (rs.next()) {
+                final StringBuilder entry = new StringBuilder();
+
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    if (i > 1) {
+                        entry.append(" | ");
+                    }
+
+                    entry.append(rs.getString(i));
+                }
+
+                entries.add(entry.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.config.DatabaseMigratorConfig;
+import com.github.gregwhitaker.dbmigrator.server.MigrationServer;
+import com.github.gregwhitaker.dbmigrator.sql.SqlStatementReader;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Squashes the migration history in <code>db/migration</code> into a single baseline script for fresh installs.
+ *
+ * The history is replayed up to the chosen version into a scratch database, which is dumped with <code>pg_dump</code>
+ * into a baseline script. The baseline is then applied to a second scratch database the same way the migrator applies
+ * it to fresh databases, and the squash fails unless the catalog and data of both scratch databases are identical.
+ *
+ * Connection settings are read like the migrator's own, and the following system properties are supported:
+ * <ul>
+ *     <li><code>squash.version</code> - Version to squash up to, defaults to the latest migration</li>
+ *     <li><code>squash.output</code> - Baseline script to write, defaults to <code>src/main/resources/db/baseline/baseline.sql</code></li>
+ *     <li><code>squash.pgDump</code> - Command that runs <code>pg_dump</code>, defaults to <code>pg_dump</code></li>
+ * </ul>
+ */
+public class HistorySquasher {
+    private static final Logger LOG = LoggerFactory.getLogger(HistorySquasher.class);
+
+    private static final String REPLAY_DATABASE = "dbmigrator_squash_replay";
+    private static final String BASELINE_DATABASE = "dbmigrator_squash_baseline";
+    private static final Pattern POSTGRES_HOST = Pattern.compile("^jdbc:postgresql://([^/]+)/.*$");
+
+    // Dumped statements that would change the session or the schema itself rather than create its contents
+    private static final Pattern SKIPPED_STATEMENT = Pattern.compile(
+            "^(SET\\s|SELECT\\s+pg_catalog\\.set_config\\(|CREATE\\s+SCHEMA\\s|ALTER\\s+SCHEMA\\s|COMMENT\\s+ON\\s+SCHEMA\\s).*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    public static void main(String... args) throws Exception {
+        final DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+        final Path output = Paths.get(System.getProperty("squash.output", "src/main/resources/db/baseline/baseline.sql"));
+        final List<String> pgDump = Arrays.asList(System.getProperty("squash.pgDump", "pg_dump").trim().split("\\s+"));
+
+        final HistorySquasher squasher = new HistorySquasher(config, pgDump);
+        final SquashedBaseline baseline = squasher.squash(System.getProperty("squash.version"));
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.write(output, baseline.getScript().getBytes(StandardCharsets.UTF_8));
+
+        LOG.info("Wrote squashed baseline [version: '{}', file: '{}']", baseline.getVersion(), output);
+    }
+
+    private final DatabaseMigratorConfig config;
+    private final List<String> pgDump;
+    private final String[] locations;
+
+    /**
+     * Creates a new instance of {@link HistorySquasher}.
+     *
+     * @param config configuration of the database server to create the scratch databases on
+     * @param pgDump command that runs <code>pg_dump</code>
+     */
+    public HistorySquasher(DatabaseMigratorConfig config, List<String> pgDump) {
+        this(config, pgDump, DatabaseMigrator.MIGRATION_LOCATION);
+    }
+
+    /**
+     * Creates a new instance of {@link HistorySquasher}.
+     *
+     * @param config configuration of the database server to create the scratch databases on
+     * @param pgDump command that runs <code>pg_dump</code>
+     * @param locations migration locations holding the history to squash
+     */
+    public HistorySquasher(DatabaseMigratorConfig config, List<String> pgDump, String... locations) {
+        this.config = config;
+        this.pgDump = pgDump;
+        this.locations = locations;
+    }
+
+    /**
+     * Squashes the migration history into a verified baseline.
+     *
+     * @param version version to squash up to or <code>null</code> to squash the whole history
+     * @return baseline
+     * @throws IllegalStateException if the baseline does not create the same schema as the history
+     */
+    public SquashedBaseline squash(String version) throws Exception {
+        try (HikariDataSource admin = DatabaseMigrator.createDataSource(config.getJdbcUrl(), config.getUsername(), config.getPassword(), 1)) {
+            recreate(admin, REPLAY_DATABASE);
+            recreate(admin, BASELINE_DATABASE);
+
+            try {
+                final SquashedBaseline baseline;
+                final CatalogSnapshot replayed;
+
+                try (HikariDataSource replay = scratchDataSource(REPLAY_DATABASE)) {
+                    // Replayed with the migrator's own configuration, which also resolves the compressed scripts
+                    final Flyway flyway = DatabaseMigrator.configuration(replay, locations)
+                            .target(version != null ? version : "latest")
+                            .load();
+
+                    flyway.migrate();
+
+                    final MigrationInfo current = flyway.info().current();
+                    if (current == null) {
+                        throw new IllegalStateException("There are no migrations to squash");
+                    }
+
+                    LOG.info("Replayed migration history [version: '{}', migrations: '{}']",
+                            current.getVersion(), flyway.info().applied().length);
+
+                    baseline = new SquashedBaseline(current.getVersion().getVersion(), script(current, dump(REPLAY_DATABASE)));
+
+                    try (Connection conn = replay.getConnection()) {
+                        replayed = CatalogSnapshot.capture(conn);
+                    }
+                }
+
+                try (HikariDataSource squashed = scratchDataSource(BASELINE_DATABASE)) {
+                    try (Connection conn = squashed.getConnection()) {
+                        baseline.apply(conn);
+                    }
+
+                    final Flyway flyway = DatabaseMigrator.configuration(squashed, locations)
+                            .target(baseline.getVersion())
+                            .baselineVersion(baseline.getVersion())
+                            .baselineDescription(DatabaseMigrator.BASELINE_DESCRIPTION)
+                            .load();
+
+                    flyway.baseline();
+
+                    // Everything up to the baseline version must be treated as applied
+                    if (flyway.info().pending().length != 0) {
+                        throw new IllegalStateException("Baselined database still has pending migrations");
+                    }
+
+                    try (Connection conn = squashed.getConnection()) {
+                        final List<String> differences = replayed.diff(CatalogSnapshot.capture(conn));
+
+                        if (!differences.isEmpty()) {
+                            differences.forEach(difference -> LOG.error("Catalog difference: {}", difference));
+                            throw new IllegalStateException(String.format("Squashed baseline differs from the replayed history in %d catalog entries",
+                                    differences.size()));
+                        }
+
+                        LOG.info("Verified squashed baseline against replayed history [catalogEntries: '{}']", replayed.getEntries().size());
+                    }
+                }
+
+                return baseline;
+            } finally {
+                drop(admin, REPLAY_DATABASE);
+                drop(admin, BASELINE_DATABASE);
+            }
+        }
+    }
+
+    /**
+     * Dumps the schema and data of a scratch database, without Flyway's schema history.
+     */
+    private String dump(String database) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>(pgDump);
+        command.add("--dbname=" + connectionUri(database));
+        command.add("--schema=public");
+        command.add("--exclude-table=flyway_schema_history");
+        command.add("--no-owner");
+        command.add("--no-privileges");
+        command.add("--no-comments");
+        command.add("--column-inserts");
+
+        final ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        // Passed in the environment rather than the connection uri, which is visible in the process list
+        if (config.getPassword() != null) {
+            builder.environment().put("PGPASSWORD", config.getPassword());
+        }
+
+        final Process process = builder.start();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            in.transferTo(out);
+        }
+
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("pg_dump exited with code " + process.exitValue());
+        }
+
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the baseline script from a dump, keeping only the statements that create the schema's contents.
+     */
+    private static String script(MigrationInfo current, String dump) throws IOException {
+        final StringBuilder script = new StringBuilder();
+        script.append("-- Script: baseline.sql\n");
+        script.append("-- Description: Squashed baseline of db/migration, generated by HistorySquasher\n");
+        script.append("-- Baseline Version: ").append(current.getVersion().getVersion()).append('\n');
+        script.append("-- Squashed Through: ").append(current.getScript()).append("\n\n");
+
+        // Newer pg_dump versions emit psql meta-commands, which are not SQL
+        final String sql = Arrays.stream(dump.split("\n"))
+                .filter(line -> !line.startsWith("\\"))
+                .collect(Collectors.joining("\n"));
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql))) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                if (!SKIPPED_STATEMENT.matcher(statement).matches()) {
+                    script.append(statement).append(";\n\n");
+                }
+            }
+        }
+
+        return script.toString();
+    }
+
+    private HikariDataSource scratchDataSource(String database) {
+        return DatabaseMigrator.createDataSource(MigrationServer.withDatabase(config.getJdbcUrl(), database),
+                config.getUsername(),
+                config.getPassword(),
+                2);
+    }
+
+    private String connectionUri(String database) {
+        final Matcher matcher = POSTGRES_HOST.matcher(config.getJdbcUrl());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Squashing requires a jdbc:postgresql url");
+        }
+
+        return "postgresql://" + URLEncoder.encode(config.getUsername(), StandardCharsets.UTF_8) + '@' + matcher.group(1) + '/' + database;
+    }
+
+    private static void recreate(HikariDataSource admin, String database) throws SQLException {
+        drop(admin, database);
+        execute(admin, "CREATE DATABASE " + database);
+    }
+
+    private static void drop(HikariDataSource admin, String database) throws SQLException {
+        execute(admin, "DROP DATABASE IF EXISTS " + database);
+    }
+
+    private static void execute(HikariDataSource admin, String sql) throws SQLException {
+        try (Connection conn = admin.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import com.github.gregwhitaker.dbmigrator.sql.SqlStatementReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Consolidated baseline of the migration history, generated by {@link HistorySquasher}.
+ *
+ * The baseline is a single script that creates the schema and reference data of every migration in
+ * <code>db/migration</code> up to its version. Fresh databases apply it and are baselined at its version, so they only
+ * replay the migrations after it, while existing databases keep migrating from their full history.
+ */
+public class SquashedBaseline {
+
+    /**
+     * Classpath resource of the baseline.
+     */
+    public static final String RESOURCE = "db/baseline/baseline.sql";
+
+    private static final Pattern VERSION_HEADER = Pattern.compile("^-- Baseline Version: (\\S+)\\s*$", Pattern.MULTILINE);
+
+    private final String version;
+    private final String script;
+
+    /**
+     * Creates a new instance of {@link SquashedBaseline}.
+     *
+     * @param version migration version the baseline squashes the history up to
+     * @param script baseline script contents
+     */
+    public SquashedBaseline(String version, String script) {
+        this.version = version;
+        this.script = script;
+    }
+
+    /**
+     * Loads the baseline from the classpath.
+     *
+     * @return baseline or <code>null</code> if the history has not been squashed
+     * @throws IOException if the baseline cannot be read
+     */
+    public static SquashedBaseline load() throws IOException {
+        final URL url = SquashedBaseline.class.getClassLoader().getResource(RESOURCE);
+        if (url == null) {
+            return null;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            return parse(reader.lines().collect(Collectors.joining("\n")));
+        }
+    }
+
+    /**
+     * Parses a baseline script, which records its version in a <code>-- Baseline Version: {version}</code> header.
+     *
+     * @param script baseline script contents
+     * @return baseline
+     * @throws IllegalArgumentException if the script has no version header
+     */
+    public static SquashedBaseline parse(String script) {
+        final Matcher matcher = VERSION_HEADER.matcher(script);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Baseline script is missing its '-- Baseline Version:' header");
+        }
+
+        return new SquashedBaseline(matcher.group(1), script);
+    }
+
+    /**
+     * Runs the baseline script in a single transaction.
+     *
+     * @param conn connection to the database to apply the baseline to
+     * @throws SQLException if a statement fails, in which case nothing is applied
+     * @throws IOException if the script cannot be read
+     */
+    public void apply(Connection conn) throws SQLException, IOException {
+        final boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(script));
+             Statement stmt = conn.createStatement()) {
+            String sql;
+            while ((sql = reader.next()) != null) {
+                stmt.execute(sql);
+            }
+
+            conn.commit();
+        } catch (SQLException | IOException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getScript() {
+        return script;
+    }
+}
@@ -4,6 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
+import java.util.List;
+
 /**
  * Configuration source that retrieves configuration from command line parameters.
  */
@@ -43,6 +45,119 @@ public class CommandLineConfigSource implements ConfigSource {
             if (parsedConfig.cleanAndMigrateArgs != null) {
                 config.setCleanMigrate(parsedConfig.cleanAndMigrateArgs.cleanMigrate);
                 config.setCleanNoMigrate(parsedConfig.cleanAndMigrateArgs.cleanNoMigrate);
+                config.setPlan(parsedConfig.cleanAndMigrateArgs.plan);
+            }
+
+            if (parsedConfig.sourceJdbcUrl != null && !parsedConfig.sourceJdbcUrl.isEmpty()) {
+                config.setSourceJdbcUrl(parsedConfig.sourceJdbcUrl);
+            }
+
+            if (parsedConfig.sourceUsername != null && !parsedConfig.sourceUsername.isEmpty()) {
+                config.setSourceUsername(parsedConfig.sourceUsername);
+            }
+
+            if (parsedConfig.sourcePassword != null && !parsedConfig.sourcePassword.isEmpty()) {
+                config.setSourcePassword(parsedConfig.sourcePassword);
+            }
+
+            if (parsedConfig.copyTables != null && !parsedConfig.copyTables.isEmpty()) {
+                config.setCopyTables(parsedConfig.copyTables);
+            }
+
+            if (parsedConfig.copyThreads != null) {
+                config.setCopyThreads(parsedConfig.copyThreads);
+            }
+
+            if (parsedConfig.verifyTables != null && !parsedConfig.verifyTables.isEmpty()) {
+                config.setVerifyTables(parsedConfig.verifyTables);
+            }
+
+            if (parsedConfig.verifyThreads != null) {
+                config.setVerifyThreads(parsedConfig.verifyThreads);
+            }
+
+            if (parsedConfig.skipAnalyze) {
+                config.setAnalyze(false);
+            }
+
+            if (parsedConfig.prewarm) {
+                config.setPrewarm(true);
+            }
+
+            if (parsedConfig.prewarmRelations != null && !parsedConfig.prewarmRelations.isEmpty()) {
+                config.setPrewarmRelations(parsedConfig.prewarmRelations);
+            }
+
+            if (parsedConfig.prewarmTimeoutSeconds != null) {
+                config.setPrewarmTimeoutSeconds(parsedConfig.prewarmTimeoutSeconds);
+            }
+
+            if (parsedConfig.coordinate) {
+                config.setCoordinate(true);
+            }
+
+            if (parsedConfig.coordinateTimeoutSeconds != null) {
+                config.setCoordinateTimeoutSeconds(parsedConfig.coordinateTimeoutSeconds);
+            }
+
+            if (parsedConfig.server) {
+                config.setServer(true);
+            }
+
+            if (parsedConfig.serverAddress != null && !parsedConfig.serverAddress.isEmpty()) {
+                config.setServerAddress(parsedConfig.serverAddress);
+            }
+
+            if (parsedConfig.serverPort != null) {
+                config.setServerPort(parsedConfig.serverPort);
+            }
+
+            if (parsedConfig.tenant != null && !parsedConfig.tenant.isEmpty()) {
+                config.setTenant(parsedConfig.tenant);
+            }
+
+            if (parsedConfig.tenantSpares != null) {
+                config.setTenantSpares(parsedConfig.tenantSpares);
+            }
+
+            if (parsedConfig.traceFile != null && !parsedConfig.traceFile.isEmpty()) {
+                config.setTraceFile(parsedConfig.traceFile);
+            }
+
+            if (parsedConfig.statsReport != null && !parsedConfig.statsReport.isEmpty()) {
+                config.setStatsReport(parsedConfig.statsReport);
+            }
+
+            if (parsedConfig.walBytesPerSecond != null) {
+                config.setWalBytesPerSecond(parsedConfig.walBytesPerSecond);
+            }
+
+            if (parsedConfig.indexAdvice != null && !parsedConfig.indexAdvice.isEmpty()) {
+                config.setIndexAdvice(parsedConfig.indexAdvice);
+            }
+
+            if (parsedConfig.indexAdviceScript != null && !parsedConfig.indexAdviceScript.isEmpty()) {
+                config.setIndexAdviceScript(parsedConfig.indexAdviceScript);
+            }
+
+            if (parsedConfig.driftTargets != null && !parsedConfig.driftTargets.isEmpty()) {
+                config.setDriftTargets(parsedConfig.driftTargets);
+            }
+
+            if (parsedConfig.driftReference != null && !parsedConfig.driftReference.isEmpty()) {
+                config.setDriftReference(parsedConfig.driftReference);
+            }
+
+            if (parsedConfig.driftThreads != null) {
+                config.setDriftThreads(parsedConfig.driftThreads);
+            }
+
+            if (parsedConfig.undoTo != null && !parsedConfig.undoTo.isEmpty()) {
+                config.setUndoTo(parsedConfig.undoTo);
+            }
+
+            if (parsedConfig.serverAllowClean) {
+                config.setServerAllowClean(true);
             }
         }
     }
@@ -64,6 +179,90 @@ public class CommandLineConfigSource implements ConfigSource {
         @CommandLine.Option(names = { "--env" }, description = "Migration environment name")
         public String env;
 
+        @CommandLine.Option(names = { "--source-jdbc-url" }, description = "Source database jdbc connection url for data copies")
+        public String sourceJdbcUrl;
+
+        @CommandLine.Option(names = { "--source-username" }, description = "Source database username")
+        public String sourceUsername;
+
+        @CommandLine.Option(names = { "--source-password" }, description = "Source database password")
+        public String sourcePassword;
+
+        @CommandLine.Option(names = { "--copy-tables" }, split = ",", description = "Tables to copy from the source database after migration")
+        public List<String> copyTables;
+
+        @CommandLine.Option(names = { "--copy-threads" }, description = "Maximum number of tables copied in parallel")
+        public Integer copyThreads;
+
+        @CommandLine.Option(names = { "--verify-tables" }, split = ",", description = "Tables to verify against the source database")
+        public List<String> verifyTables;
+
+        @CommandLine.Option(names = { "--verify-threads" }, description = "Number of chunks verified in parallel")
+        public Integer verifyThreads;
+
+        @CommandLine.Option(names = { "--skip-analyze" }, defaultValue = "false", description = "Skip analyzing tables modified by the migration")
+        public boolean skipAnalyze;
+
+        @CommandLine.Option(names = { "--prewarm" }, defaultValue = "false", description = "Load relations created or rewritten by the migration into shared buffers")
+        public boolean prewarm;
+
+        @CommandLine.Option(names = { "--prewarm-relations" }, split = ",", description = "Additional relations to load into shared buffers after migration")
+        public List<String> prewarmRelations;
+
+        @CommandLine.Option(names = { "--prewarm-timeout-seconds" }, description = "Time budget for loading relations into shared buffers")
+        public Integer prewarmTimeoutSeconds;
+
+        @CommandLine.Option(names = { "--coordinate" }, defaultValue = "false", description = "Elect a single instance to run the migration while the others wait for it")
+        public boolean coordinate;
+
+        @CommandLine.Option(names = { "--coordinate-timeout-seconds" }, description = "Maximum time to wait for the elected instance to finish migrating")
+        public Integer coordinateTimeoutSeconds;
+
+        @CommandLine.Option(names = { "--server" }, defaultValue = "false", description = "Run as a long-lived server that migrates on HTTP request")
+        public boolean server;
+
+        @CommandLine.Option(names = { "--server-address" }, description = "Address the migration server listens on")
+        public String serverAddress;
+
+        @CommandLine.Option(names = { "--server-port" }, description = "Port the migration server listens on")
+        public Integer serverPort;
+
+        @CommandLine.Option(names = { "--tenant" }, description = "Provision a new tenant schema from a pre-migrated spare schema")
+        public String tenant;
+
+        @CommandLine.Option(names = { "--tenant-spares" }, description = "Number of pre-migrated spare schemas kept ready for tenant provisioning")
+        public Integer tenantSpares;
+
+        @CommandLine.Option(names = { "--trace-file" }, description = "File to append an OTLP/JSON trace of each migration run to")
+        public String traceFile;
+
+        @CommandLine.Option(names = { "--stats-report" }, description = "File to write a pg_stat_statements report of each migration run to")
+        public String statsReport;
+
+        @CommandLine.Option(names = { "--wal-bytes-per-second" }, description = "WAL bytes per second ceiling that data migrations and copies pace themselves against, 0 for none")
+        public Long walBytesPerSecond;
+
+        @CommandLine.Option(names = { "--index-advice" }, description = "File to write a report of unindexed foreign keys and duplicate, redundant or unused indexes to after migrating")
+        public String indexAdvice;
+
+        @CommandLine.Option(names = { "--index-advice-script" }, description = "File to write a migration script body that fixes the index advice to, for createMigrationScript --body-file")
+        public String indexAdviceScript;
+
+        @CommandLine.Option(names = { "--drift-targets" }, split = ",", description = "Comma-separated database/schema targets to scan for schema drift, schema is a LIKE pattern, no migration is run")
+        public List<String> driftTargets;
+
+        @CommandLine.Option(names = { "--drift-reference" }, description = "Database/schema target that drift is measured from, defaults to the first schema of the first drift target")
+        public String driftReference;
+
+        @CommandLine.Option(names = { "--drift-threads" }, description = "Number of drift targets scanned in parallel, which bounds the connections used")
+        public Integer driftThreads;
+
+        @CommandLine.Option(names = { "--undo-to" }, description = "Undo the applied migrations above a version, newest first, using their U scripts and classes")
+        public String undoTo;
+
+        @CommandLine.Option(names = { "--server-allow-clean" }, defaultValue = "false", description = "Allow the migration server to clean databases on request")
+        public boolean serverAllowClean;
+
         @CommandLine.ArgGroup(exclusive = true, multiplicity = "0..1")
         CleanAndMigrateArgs cleanAndMigrateArgs;
 
@@ -73,6 +272,9 @@ public class CommandLineConfigSource implements ConfigSource {
 
             @CommandLine.Option(names = { "--clean-no-migrate" }, defaultValue = "false", description = "Run database clean without migration")
             public boolean cleanNoMigrate;
+
+            @CommandLine.Option(names = { "--plan" }, defaultValue = "false", description = "Estimate the cost of pending migrations without applying them")
+            public boolean plan;
         }
     }
 }
@@ -1,7 +1,12 @@
 package com.github.gregwhitaker.dbmigrator.config;
 
+import com.github.gregwhitaker.dbmigrator.jfr.ConfigResolutionEvent;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Configuration for the database migrator.
@@ -27,6 +32,9 @@ public final class DatabaseMigratorConfig {
      * @return database migrator configuration
      */
     public static DatabaseMigratorConfig get(String... args) {
+        final ConfigResolutionEvent event = new ConfigResolutionEvent();
+        event.begin();
+
         final DatabaseMigratorConfig config = new DatabaseMigratorConfig();
 
         // Define the config source hierarchy
@@ -41,6 +49,10 @@ public final class DatabaseMigratorConfig {
         // Validate that all required fields have been configured
         config.validate();
 
+        event.environment = config.getEnvironment();
+        event.server = config.isServer();
+        event.commit();
+
         return config;
     }
 
@@ -50,6 +62,35 @@ public final class DatabaseMigratorConfig {
     private String environment;
     private boolean cleanMigrate = false;
     private boolean cleanNoMigrate = false;
+    private boolean plan = false;
+    private String sourceJdbcUrl;
+    private String sourceUsername;
+    private String sourcePassword;
+    private List<String> copyTables = Collections.emptyList();
+    private int copyThreads = 4;
+    private List<String> verifyTables = Collections.emptyList();
+    private int verifyThreads = 8;
+    private boolean analyze = true;
+    private boolean prewarm = false;
+    private List<String> prewarmRelations = Collections.emptyList();
+    private int prewarmTimeoutSeconds = 60;
+    private boolean coordinate = false;
+    private int coordinateTimeoutSeconds = 600;
+    private boolean server = false;
+    private String serverAddress = "127.0.0.1";
+    private int serverPort = 8085;
+    private String tenant;
+    private int tenantSpares = 2;
+    private String traceFile;
+    private String statsReport;
+    private long walBytesPerSecond = 0;
+    private String indexAdvice;
+    private String indexAdviceScript;
+    private List<String> driftTargets = Collections.emptyList();
+    private String driftReference;
+    private int driftThreads = 8;
+    private String undoTo;
+    private boolean serverAllowClean = false;
 
     private DatabaseMigratorConfig() {
         // Prevent direct instantiation
@@ -62,6 +103,23 @@ public final class DatabaseMigratorConfig {
         if (getJdbcUrl() == null || getJdbcUrl().isEmpty()) {
             throw new MissingConfigurationException("jdbcUrl", getEnvironment());
         }
+
+        if ((!getCopyTables().isEmpty() || !getVerifyTables().isEmpty()) && (getSourceJdbcUrl() == null || getSourceJdbcUrl().isEmpty())) {
+            throw new MissingConfigurationException("sourceJdbcUrl", getEnvironment());
+        }
+    }
+
+    /**
+     * Parses a comma-separated configuration value into a list.
+     *
+     * @param value comma-separated value
+     * @return list of non-empty, trimmed values
+     */
+    static List<String> parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
     }
 
     public String getJdbcUrl() {
@@ -123,4 +181,294 @@ public final class DatabaseMigratorConfig {
     void setCleanNoMigrate(boolean cleanNoMigrate) {
         this.cleanNoMigrate = cleanNoMigrate;
     }
+
+    public boolean isPlan() {
+        return plan;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setPlan(boolean plan) {
+        this.plan = plan;
+    }
+
+    public String getSourceJdbcUrl() {
+        return sourceJdbcUrl;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setSourceJdbcUrl(String sourceJdbcUrl) {
+        this.sourceJdbcUrl = sourceJdbcUrl;
+    }
+
+    public String getSourceUsername() {
+        return sourceUsername;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setSourceUsername(String sourceUsername) {
+        this.sourceUsername = sourceUsername;
+    }
+
+    public String getSourcePassword() {
+        return sourcePassword;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setSourcePassword(String sourcePassword) {
+        this.sourcePassword = sourcePassword;
+    }
+
+    public List<String> getCopyTables() {
+        return copyTables;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setCopyTables(List<String> copyTables) {
+        this.copyTables = Collections.unmodifiableList(copyTables);
+    }
+
+    public int getCopyThreads() {
+        return copyThreads;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setCopyThreads(int copyThreads) {
+        this.copyThreads = copyThreads;
+    }
+
+    public List<String> getVerifyTables() {
+        return verifyTables;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setVerifyTables(List<String> verifyTables) {
+        this.verifyTables = Collections.unmodifiableList(verifyTables);
+    }
+
+    public int getVerifyThreads() {
+        return verifyThreads;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setVerifyThreads(int verifyThreads) {
+        this.verifyThreads = verifyThreads;
+    }
+
+    public boolean isAnalyze() {
+        return analyze;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setAnalyze(boolean analyze) {
+        this.analyze = analyze;
+    }
+
+    public boolean isPrewarm() {
+        return prewarm;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setPrewarm(boolean prewarm) {
+        this.prewarm = prewarm;
+    }
+
+    public List<String> getPrewarmRelations() {
+        return prewarmRelations;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setPrewarmRelations(List<String> prewarmRelations) {
+        this.prewarmRelations = Collections.unmodifiableList(prewarmRelations);
+    }
+
+    public int getPrewarmTimeoutSeconds() {
+        return prewarmTimeoutSeconds;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setPrewarmTimeoutSeconds(int prewarmTimeoutSeconds) {
+        this.prewarmTimeoutSeconds = prewarmTimeoutSeconds;
+    }
+
+    public boolean isCoordinate() {
+        return coordinate;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setCoordinate(boolean coordinate) {
+        this.coordinate = coordinate;
+    }
+
+    public int getCoordinateTimeoutSeconds() {
+        return coordinateTimeoutSeconds;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setCoordinateTimeoutSeconds(int coordinateTimeoutSeconds) {
+        this.coordinateTimeoutSeconds = coordinateTimeoutSeconds;
+    }
+
+    public boolean isServer() {
+        return server;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setServer(boolean server) {
+        this.server = server;
+    }
+
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setServerAddress(String serverAddress) {
+        this.serverAddress = serverAddress;
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setServerPort(int serverPort) {
+        this.serverPort = serverPort;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public int getTenantSpares() {
+        return tenantSpares;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setTenantSpares(int tenantSpares) {
+        this.tenantSpares = tenantSpares;
+    }
+
+    public String getTraceFile() {
+        return traceFile;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setTraceFile(String traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    public String getStatsReport() {
+        return statsReport;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setStatsReport(String statsReport) {
+        this.statsReport = statsReport;
+    }
+
+    public long getWalBytesPerSecond() {
+        return walBytesPerSecond;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setWalBytesPerSecond(long walBytesPerSecond) {
+        this.walBytesPerSecond = walBytesPerSecond;
+    }
+
+    public String getIndexAdvice() {
+        return indexAdvice;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setIndexAdvice(String indexAdvice) {
+        this.indexAdvice = indexAdvice;
+    }
+
+    public String getIndexAdviceScript() {
+        return indexAdviceScript;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setIndexAdviceScript(String indexAdviceScript) {
+        this.indexAdviceScript = indexAdviceScript;
+    }
+
+    public List<String> getDriftTargets() {
+        return driftTargets;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setDriftTargets(List<String> driftTargets) {
+        this.driftTargets = Collections.unmodifiableList(driftTargets);
+    }
+
+    public String getDriftReference() {
+        return driftReference;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setDriftReference(String driftReference) {
+        this.driftReference = driftReference;
+    }
+
+    public int getDriftThreads() {
+        return driftThreads;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setDriftThreads(int driftThreads) {
+        this.driftThreads = driftThreads;
+    }
+
+    public String getUndoTo() {
+        return undoTo;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setUndoTo(String undoTo) {
+        this.undoTo = undoTo;
+    }
+
+    public boolean isServerAllowClean() {
+        return serverAllowClean;
+    }
+
+    // Package scoped so config source implementations in chain have access, but
+    // object is immutable once returned from builder
+    void setServerAllowClean(boolean serverAllowClean) {
+        this.serverAllowClean = serverAllowClean;
+    }
 }
@@ -18,7 +18,36 @@ public class EnvironmentConfigSource implements ConfigSource {
         DB_PASSWORD("DB_PASSWORD"),
         DB_ENV("DB_ENV"),
         DB_CLEAN_MIGRATE("DB_CLEAN_MIGRATE"),
-        DB_CLEAN_NO_MIGRATE("DB_CLEAN_NO_MIGRATE");
+        DB_CLEAN_NO_MIGRATE("DB_CLEAN_NO_MIGRATE"),
+        DB_PLAN("DB_PLAN"),
+        DB_SOURCE_JDBC_URL("DB_SOURCE_JDBC_URL"),
+        DB_SOURCE_USERNAME("DB_SOURCE_USERNAME"),
+        DB_SOURCE_PASSWORD("DB_SOURCE_PASSWORD"),
+        DB_COPY_TABLES("DB_COPY_TABLES"),
+        DB_COPY_THREADS("DB_COPY_THREADS"),
+        DB_VERIFY_TABLES("DB_VERIFY_TABLES"),
+        DB_VERIFY_THREADS("DB_VERIFY_THREADS"),
+        DB_ANALYZE("DB_ANALYZE"),
+        DB_PREWARM("DB_PREWARM"),
+        DB_PREWARM_RELATIONS("DB_PREWARM_RELATIONS"),
+        DB_PREWARM_TIMEOUT_SECONDS("DB_PREWARM_TIMEOUT_SECONDS"),
+        DB_COORDINATE("DB_COORDINATE"),
+        DB_COORDINATE_TIMEOUT_SECONDS("DB_COORDINATE_TIMEOUT_SECONDS"),
+        DB_SERVER("DB_SERVER"),
+        DB_SERVER_ADDRESS("DB_SERVER_ADDRESS"),
+        DB_SERVER_PORT("DB_SERVER_PORT"),
+        DB_TENANT("DB_TENANT"),
+        DB_TENANT_SPARES("DB_TENANT_SPARES"),
+        DB_TRACE_FILE("DB_TRACE_FILE"),
+        DB_STATS_REPORT("DB_STATS_REPORT"),
+        DB_WAL_BYTES_PER_SECOND("DB_WAL_BYTES_PER_SECOND"),
+        DB_INDEX_ADVICE("DB_INDEX_ADVICE"),
+        DB_INDEX_ADVICE_SCRIPT("DB_INDEX_ADVICE_SCRIPT"),
+        DB_DRIFT_TARGETS("DB_DRIFT_TARGETS"),
+        DB_DRIFT_REFERENCE("DB_DRIFT_REFERENCE"),
+        DB_DRIFT_THREADS("DB_DRIFT_THREADS"),
+        DB_UNDO_TO("DB_UNDO_TO"),
+        DB_SERVER_ALLOW_CLEAN("DB_SERVER_ALLOW_CLEAN");
 
         private final String value;
 
@@ -58,5 +87,121 @@ public class EnvironmentConfigSource implements ConfigSource {
         if (System.getenv(EnvironmentVars.DB_CLEAN_NO_MIGRATE.getValue()) != null) {
             config.setCleanNoMigrate(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_CLEAN_NO_MIGRATE.getValue())));
         }
+
+        if (System.getenv(EnvironmentVars.DB_PLAN.getValue()) != null) {
+            config.setPlan(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_PLAN.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SOURCE_JDBC_URL.getValue()) != null) {
+            config.setSourceJdbcUrl(System.getenv(EnvironmentVars.DB_SOURCE_JDBC_URL.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SOURCE_USERNAME.getValue()) != null) {
+            config.setSourceUsername(System.getenv(EnvironmentVars.DB_SOURCE_USERNAME.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SOURCE_PASSWORD.getValue()) != null) {
+            config.setSourcePassword(System.getenv(EnvironmentVars.DB_SOURCE_PASSWORD.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_COPY_TABLES.getValue()) != null) {
+            config.setCopyTables(DatabaseMigratorConfig.parseList(System.getenv(EnvironmentVars.DB_COPY_TABLES.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_COPY_THREADS.getValue()) != null) {
+            config.setCopyThreads(Integer.parseInt(System.getenv(EnvironmentVars.DB_COPY_THREADS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_VERIFY_TABLES.getValue()) != null) {
+            config.setVerifyTables(DatabaseMigratorConfig.parseList(System.getenv(EnvironmentVars.DB_VERIFY_TABLES.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_VERIFY_THREADS.getValue()) != null) {
+            config.setVerifyThreads(Integer.parseInt(System.getenv(EnvironmentVars.DB_VERIFY_THREADS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_ANALYZE.getValue()) != null) {
+            config.setAnalyze(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_ANALYZE.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_PREWARM.getValue()) != null) {
+            config.setPrewarm(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_PREWARM.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_PREWARM_RELATIONS.getValue()) != null) {
+            config.setPrewarmRelations(DatabaseMigratorConfig.parseList(System.getenv(EnvironmentVars.DB_PREWARM_RELATIONS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_PREWARM_TIMEOUT_SECONDS.getValue()) != null) {
+            config.setPrewarmTimeoutSeconds(Integer.parseInt(System.getenv(EnvironmentVars.DB_PREWARM_TIMEOUT_SECONDS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_COORDINATE.getValue()) != null) {
+            config.setCoordinate(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_COORDINATE.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_COORDINATE_TIMEOUT_SECONDS.getValue()) != null) {
+            config.setCoordinateTimeoutSeconds(Integer.parseInt(System.getenv(EnvironmentVars.DB_COORDINATE_TIMEOUT_SECONDS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SERVER.getValue()) != null) {
+            config.setServer(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_SERVER.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SERVER_ADDRESS.getValue()) != null) {
+            config.setServerAddress(System.getenv(EnvironmentVars.DB_SERVER_ADDRESS.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SERVER_PORT.getValue()) != null) {
+            config.setServerPort(Integer.parseInt(System.getenv(EnvironmentVars.DB_SERVER_PORT.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_TENANT.getValue()) != null) {
+            config.setTenant(System.getenv(EnvironmentVars.DB_TENANT.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_TENANT_SPARES.getValue()) != null) {
+            config.setTenantSpares(Integer.parseInt(System.getenv(EnvironmentVars.DB_TENANT_SPARES.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_TRACE_FILE.getValue()) != null) {
+            config.setTraceFile(System.getenv(EnvironmentVars.DB_TRACE_FILE.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_STATS_REPORT.getValue()) != null) {
+            config.setStatsReport(System.getenv(EnvironmentVars.DB_STATS_REPORT.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_WAL_BYTES_PER_SECOND.getValue()) != null) {
+            config.setWalBytesPerSecond(Long.parseLong(System.getenv(EnvironmentVars.DB_WAL_BYTES_PER_SECOND.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_INDEX_ADVICE.getValue()) != null) {
+            config.setIndexAdvice(System.getenv(EnvironmentVars.DB_INDEX_ADVICE.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_INDEX_ADVICE_SCRIPT.getValue()) != null) {
+            config.setIndexAdviceScript(System.getenv(EnvironmentVars.DB_INDEX_ADVICE_SCRIPT.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_DRIFT_TARGETS.getValue()) != null) {
+            config.setDriftTargets(DatabaseMigratorConfig.parseList(System.getenv(EnvironmentVars.DB_DRIFT_TARGETS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_DRIFT_REFERENCE.getValue()) != null) {
+            config.setDriftReference(System.getenv(EnvironmentVars.DB_DRIFT_REFERENCE.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_DRIFT_THREADS.getValue()) != null) {
+            config.setDriftThreads(Integer.parseInt(System.getenv(EnvironmentVars.DB_DRIFT_THREADS.getValue())));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_UNDO_TO.getValue()) != null) {
+            config.setUndoTo(System.getenv(EnvironmentVars.DB_UNDO_TO.getValue()));
+        }
+
+        if (System.getenv(EnvironmentVars.DB_SERVER_ALLOW_CLEAN.getValue()) != null) {
+            config.setServerAllowClean(Boolean.parseBoolean(System.getenv(EnvironmentVars.DB_SERVER_ALLOW_CLEAN.getValue())));
+        }
     }
 }
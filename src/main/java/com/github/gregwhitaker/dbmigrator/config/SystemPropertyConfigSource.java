@@ -22,7 +22,36 @@ public class SystemPropertyConfigSource implements ConfigSource {
         DB_ENV("db.env"),
         DB_ENV_SPRINGBOOT("spring.profiles.active"),
         DB_CLEAN_MIGRATE("db.cleanMigrate"),
-        DB_CLEAN_NO_MIGRATE("db.cleanNoMigrate");
+        DB_CLEAN_NO_MIGRATE("db.cleanNoMigrate"),
+        DB_PLAN("db.plan"),
+        DB_SOURCE_JDBC_URL("db.source.jdbcUrl"),
+        DB_SOURCE_USERNAME("db.source.username"),
+        DB_SOURCE_PASSWORD("db.source.password"),
+        DB_COPY_TABLES("db.copyTables"),
+        DB_COPY_THREADS("db.copyThreads"),
+        DB_VERIFY_TABLES("db.verifyTables"),
+        DB_VERIFY_THREADS("db.verifyThreads"),
+        DB_ANALYZE("db.analyze"),
+        DB_PREWARM("db.prewarm"),
+        DB_PREWARM_RELATIONS("db.prewarmRelations"),
+        DB_PREWARM_TIMEOUT_SECONDS("db.prewarmTimeoutSeconds"),
+        DB_COORDINATE("db.coordinate"),
+        DB_COORDINATE_TIMEOUT_SECONDS("db.coordinateTimeoutSeconds"),
+        DB_SERVER("db.server"),
+        DB_SERVER_ADDRESS("db.serverAddress"),
+        DB_SERVER_PORT("db.serverPort"),
+        DB_TENANT("db.tenant"),
+        DB_TENANT_SPARES("db.tenantSpares"),
+        DB_TRACE_FILE("db.traceFile"),
+        DB_STATS_REPORT("db.statsReport"),
+        DB_WAL_BYTES_PER_SECOND("db.walBytesPerSecond"),
+        DB_INDEX_ADVICE("db.indexAdvice"),
+        DB_INDEX_ADVICE_SCRIPT("db.indexAdviceScript"),
+        DB_DRIFT_TARGETS("db.driftTargets"),
+        DB_DRIFT_REFERENCE("db.driftReference"),
+        DB_DRIFT_THREADS("db.driftThreads"),
+        DB_UNDO_TO("db.undoTo"),
+        DB_SERVER_ALLOW_CLEAN("db.serverAllowClean");
 
         private final String value;
 
@@ -67,6 +96,122 @@ public class SystemPropertyConfigSource implements ConfigSource {
         if (System.getProperty(SystemProps.DB_CLEAN_NO_MIGRATE.getValue()) != null) {
             config.setCleanNoMigrate(Boolean.parseBoolean(System.getProperty(SystemProps.DB_CLEAN_NO_MIGRATE.getValue())));
         }
+
+        if (System.getProperty(SystemProps.DB_PLAN.getValue()) != null) {
+            config.setPlan(Boolean.parseBoolean(System.getProperty(SystemProps.DB_PLAN.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_SOURCE_JDBC_URL.getValue()) != null) {
+            config.setSourceJdbcUrl(System.getProperty(SystemProps.DB_SOURCE_JDBC_URL.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_SOURCE_USERNAME.getValue()) != null) {
+            config.setSourceUsername(System.getProperty(SystemProps.DB_SOURCE_USERNAME.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_SOURCE_PASSWORD.getValue()) != null) {
+            config.setSourcePassword(System.getProperty(SystemProps.DB_SOURCE_PASSWORD.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_COPY_TABLES.getValue()) != null) {
+            config.setCopyTables(DatabaseMigratorConfig.parseList(System.getProperty(SystemProps.DB_COPY_TABLES.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_COPY_THREADS.getValue()) != null) {
+            config.setCopyThreads(Integer.parseInt(System.getProperty(SystemProps.DB_COPY_THREADS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_VERIFY_TABLES.getValue()) != null) {
+            config.setVerifyTables(DatabaseMigratorConfig.parseList(System.getProperty(SystemProps.DB_VERIFY_TABLES.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_VERIFY_THREADS.getValue()) != null) {
+            config.setVerifyThreads(Integer.parseInt(System.getProperty(SystemProps.DB_VERIFY_THREADS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_ANALYZE.getValue()) != null) {
+            config.setAnalyze(Boolean.parseBoolean(System.getProperty(SystemProps.DB_ANALYZE.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_PREWARM.getValue()) != null) {
+            config.setPrewarm(Boolean.parseBoolean(System.getProperty(SystemProps.DB_PREWARM.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_PREWARM_RELATIONS.getValue()) != null) {
+            config.setPrewarmRelations(DatabaseMigratorConfig.parseList(System.getProperty(SystemProps.DB_PREWARM_RELATIONS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_PREWARM_TIMEOUT_SECONDS.getValue()) != null) {
+            config.setPrewarmTimeoutSeconds(Integer.parseInt(System.getProperty(SystemProps.DB_PREWARM_TIMEOUT_SECONDS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_COORDINATE.getValue()) != null) {
+            config.setCoordinate(Boolean.parseBoolean(System.getProperty(SystemProps.DB_COORDINATE.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_COORDINATE_TIMEOUT_SECONDS.getValue()) != null) {
+            config.setCoordinateTimeoutSeconds(Integer.parseInt(System.getProperty(SystemProps.DB_COORDINATE_TIMEOUT_SECONDS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_SERVER.getValue()) != null) {
+            config.setServer(Boolean.parseBoolean(System.getProperty(SystemProps.DB_SERVER.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_SERVER_ADDRESS.getValue()) != null) {
+            config.setServerAddress(System.getProperty(SystemProps.DB_SERVER_ADDRESS.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_SERVER_PORT.getValue()) != null) {
+            config.setServerPort(Integer.parseInt(System.getProperty(SystemProps.DB_SERVER_PORT.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_TENANT.getValue()) != null) {
+            config.setTenant(System.getProperty(SystemProps.DB_TENANT.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_TENANT_SPARES.getValue()) != null) {
+            config.setTenantSpares(Integer.parseInt(System.getProperty(SystemProps.DB_TENANT_SPARES.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_TRACE_FILE.getValue()) != null) {
+            config.setTraceFile(System.getProperty(SystemProps.DB_TRACE_FILE.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_STATS_REPORT.getValue()) != null) {
+            config.setStatsReport(System.getProperty(SystemProps.DB_STATS_REPORT.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_WAL_BYTES_PER_SECOND.getValue()) != null) {
+            config.setWalBytesPerSecond(Long.parseLong(System.getProperty(SystemProps.DB_WAL_BYTES_PER_SECOND.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_INDEX_ADVICE.getValue()) != null) {
+            config.setIndexAdvice(System.getProperty(SystemProps.DB_INDEX_ADVICE.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_INDEX_ADVICE_SCRIPT.getValue()) != null) {
+            config.setIndexAdviceScript(System.getProperty(SystemProps.DB_INDEX_ADVICE_SCRIPT.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_DRIFT_TARGETS.getValue()) != null) {
+            config.setDriftTargets(DatabaseMigratorConfig.parseList(System.getProperty(SystemProps.DB_DRIFT_TARGETS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_DRIFT_REFERENCE.getValue()) != null) {
+            config.setDriftReference(System.getProperty(SystemProps.DB_DRIFT_REFERENCE.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_DRIFT_THREADS.getValue()) != null) {
+            config.setDriftThreads(Integer.parseInt(System.getProperty(SystemProps.DB_DRIFT_THREADS.getValue())));
+        }
+
+        if (System.getProperty(SystemProps.DB_UNDO_TO.getValue()) != null) {
+            config.setUndoTo(System.getProperty(SystemProps.DB_UNDO_TO.getValue()));
+        }
+
+        if (System.getProperty(SystemProps.DB_SERVER_ALLOW_CLEAN.getValue()) != null) {
+            config.setServerAllowClean(Boolean.parseBoolean(System.getProperty(SystemProps.DB_SERVER_ALLOW_CLEAN.getValue())));
+        }
     }
 
     /**
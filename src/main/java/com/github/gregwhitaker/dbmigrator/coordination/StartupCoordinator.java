@@ -0,0 +1,224 @@
+package com.github.gregwhitaker.dbmigrator.coordination;
+
+import com.github.gregwhitaker.dbmigrator.MigrationException;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Elects a single instance to run the migration when many instances of the migrator start at once, such as the init
+ * containers of every pod in a deployment.
+ *
+ * Instances race for a session level advisory lock. The instance that gets it runs the migration while the others
+ * wait on <code>LISTEN</code> for it to announce the outcome. Waiting instances hold a single connection each with no
+ * open transaction, so they put no load on the database and do not queue on Flyway's own lock. Once the leader
+ * finishes, each waiting instance checks that the schema is up to date for its own migrations and exits. If the leader
+ * dies, its lock is released with its session and one of the waiting instances takes over.
+ */
+public class StartupCoordinator implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(StartupCoordinator.class);
+
+    /**
+     * Channel on which the leader announces the outcome of its migration.
+     */
+    public static final String CHANNEL = "dbmigrator_startup";
+
+    // Advisory locks are scoped to the current database, so a fixed application specific key is enough
+    private static final long LOCK_KEY = 0x64626d6967726174L;
+
+    private static final String MIGRATED = "migrated";
+    private static final String FAILED = "failed";
+
+    // How often waiting instances retry the lock, in case the leader died without announcing anything
+    private static final int POLL_INTERVAL_MILLIS = 5_000;
+
+    private final Connection connection;
+    private final long timeoutMillis;
+    private boolean leader = false;
+
+    /**
+     * Creates a new instance of {@link StartupCoordinator}.
+     *
+     * @param connection connection dedicated to the coordinator, closed with the coordinator
+     * @param timeoutMillis maximum time to wait for another instance to finish migrating
+     * @throws SQLException if the connection cannot be configured
+     */
+    public StartupCoordinator(Connection connection, long timeoutMillis) throws SQLException {
+        this.connection = connection;
+        this.timeoutMillis = timeoutMillis;
+
+        // Never hold a transaction open while waiting
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Gets a datasource over the coordinator's connection, so that the schema can be checked without opening any
+     * further connections.
+     *
+     * @return datasource
+     */
+    public DataSource getDataSource() {
+        return new SingleConnectionDataSource(connection);
+    }
+
+    /**
+     * Waits until this instance is either elected to run the migration or the schema is up to date.
+     *
+     * @param upToDate checks whether the schema already has all of this instance's migrations applied, using the
+     *                 coordinator's {@link #getDataSource()}
+     * @return <code>true</code> if this instance was elected and must run the migration, followed by
+     *         {@link #complete()} or {@link #fail()}; <code>false</code> if the schema is up to date
+     * @throws SQLException if the coordination queries fail
+     * @throws MigrationException if the elected instance fails or does not finish in time
+     */
+    public boolean awaitLeadership(BooleanSupplier upToDate) throws SQLException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        // Listen before trying the lock, so a leader that finishes in between is not missed
+        execute("LISTEN " + CHANNEL);
+
+        try {
+            while (true) {
+                if (tryLock()) {
+                    if (upToDate.getAsBoolean()) {
+                        LOG.info("Database schema is already up to date, no migration required");
+                        unlock();
+                        return false;
+                    }
+
+                    LOG.info("Elected to run the database migration");
+                    leader = true;
+                    return true;
+                }
+
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new MigrationException(String.format("Timed out after %dms waiting for another instance to migrate the database", timeoutMillis));
+                }
+
+                LOG.debug("Waiting for another instance to migrate the database");
+
+                final String outcome = awaitOutcome((int) Math.min(POLL_INTERVAL_MILLIS, remaining));
+                if (FAILED.equals(outcome)) {
+                    throw new MigrationException("Database migration failed on the instance elected to run it");
+                }
+
+                if (MIGRATED.equals(outcome)) {
+                    if (upToDate.getAsBoolean()) {
+                        LOG.info("Database migrated by another instance, schema is up to date");
+                        return false;
+                    }
+
+                    // The leader ran different migrations, such as those of an older release, so compete for the lock again
+                    LOG.info("Database migrated by another instance, but this instance has pending migrations");
+                }
+            }
+        } finally {
+            execute("UNLISTEN " + CHANNEL);
+        }
+    }
+
+    /**
+     * Announces that the migration succeeded and releases leadership.
+     *
+     * @throws SQLException if the announcement fails
+     */
+    public void complete() throws SQLException {
+        release(MIGRATED);
+    }
+
+    /**
+     * Announces that the migration failed and releases leadership, so waiting instances fail rather than each
+     * retrying the same migration.
+     *
+     * @throws SQLException if the announcement fails
+     */
+    public void fail() throws SQLException {
+        release(FAILED);
+    }
+
+    /**
+     * Releases leadership if still held and closes the coordinator's connection.
+     *
+     * @throws SQLException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (leader) {
+                unlock();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void release(String outcome) throws SQLException {
+        if (!leader) {
+            throw new IllegalStateException("Instance was not elected to run the migration");
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, outcome);
+            ps.execute();
+        }
+
+        unlock();
+    }
+
+    private boolean tryLock() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, LOCK_KEY);
+            ps.execute();
+        }
+
+        leader = false;
+    }
+
+    /**
+     * Waits for the leader to announce the outcome of its migration.
+     *
+     * @return announced outcome or <code>null</code> if nothing was announced in time
+     */
+    private String awaitOutcome(int timeoutMillis) throws SQLException {
+        final PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(timeoutMillis);
+
+        String outcome = null;
+        if (notifications != null) {
+            for (PGNotification notification : notifications) {
+                if (CHANNEL.equals(notification.getName())) {
+                    outcome = notification.getParameter();
+                }
+            }
+        }
+
+        return outcome;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
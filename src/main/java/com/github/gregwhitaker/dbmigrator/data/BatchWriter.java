@@ -0,0 +1,156 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Writes items through a single {@link PreparedStatement} using JDBC batches of a bounded size, so that only
+ * one batch of items is held in memory at a time.
+ *
+ * Combined with a {@link CursorReader} this allows a Java migration to transform a table of any size with a
+ * constant heap:
+ * <pre>
+ * try (CursorReader&lt;Row&gt; reader = CursorReader.open(conn, "SELECT ...", Row::from);
+ *      BatchWriter&lt;Row&gt; writer = new BatchWriter&lt;&gt;(conn, "UPDATE ... WHERE id = ?", 1_000, Row::bind)) {
+ *     reader.transferTo(writer);
+ * }
+ * </pre>
+ *
+ * Data migrations that rewrite large tables can pass a {@link WalThrottle}, which measures the WAL of each batch and
+ * paces the batches against the configured WAL bytes per second ceiling.
+ *
+ * @param <T> type of the written items
+ */
+public class BatchWriter<T> implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchWriter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    private final PreparedStatement statement;
+    private final StatementBinder<? super T> binder;
+    private final int batchSize;
+    private final WalThrottle walThrottle;
+    private int pending = 0;
+    private long written = 0;
+
+    /**
+     * Creates a new instance of {@link BatchWriter} using the {@link #DEFAULT_BATCH_SIZE}.
+     *
+     * @param connection database connection
+     * @param sql insert, update or delete statement
+     * @param binder binds an item to the statement parameters
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public BatchWriter(Connection connection, String sql, StatementBinder<? super T> binder) throws SQLException {
+        this(connection, sql, DEFAULT_BATCH_SIZE, binder);
+    }
+
+    /**
+     * Creates a new instance of {@link BatchWriter}.
+     *
+     * @param connection database connection
+     * @param sql insert, update or delete statement
+     * @param batchSize maximum number of items sent to the database in a single batch
+     * @param binder binds an item to the statement parameters
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public BatchWriter(Connection connection, String sql, int batchSize, StatementBinder<? super T> binder) throws SQLException {
+        this(connection, sql, batchSize, binder, null);
+    }
+
+    /**
+     * Creates a new instance of {@link BatchWriter} that paces its batches against a WAL ceiling.
+     *
+     * @param connection database connection
+     * @param sql insert, update or delete statement
+     * @param batchSize maximum number of items sent to the database in a single batch
+     * @param binder binds an item to the statement parameters
+     * @param walThrottle throttle that each batch is measured and paced by or <code>null</code> to not pace batches
+     * @throws SQLException if the statement cannot be prepared or the WAL position cannot be read
+     */
+    public BatchWriter(Connection connection, String sql, int batchSize, StatementBinder<? super T> binder, WalThrottle walThrottle) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero: " + batchSize);
+        }
+
+        this.statement = connection.prepareStatement(sql);
+        this.binder = binder;
+        this.batchSize = batchSize;
+        this.walThrottle = walThrottle;
+
+        if (walThrottle != null) {
+            walThrottle.start(connection);
+        }
+    }
+
+    /**
+     * Adds an item to the current batch, executing the batch once it is full.
+     *
+     * @param item item to write
+     * @throws SQLException if the batch cannot be executed
+     */
+    public void write(T item) throws SQLException {
+        binder.bind(statement, item);
+        statement.addBatch();
+        pending++;
+
+        if (pending >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Executes any items in the current batch.
+     *
+     * @throws SQLException if the batch cannot be executed
+     */
+    public void flush() throws SQLException {
+        if (pending > 0) {
+            statement.executeBatch();
+            written += pending;
+
+            final int flushed = pending;
+            pending = 0;
+
+            final long walBytes = walThrottle != null ? pace() : -1;
+
+            LOG.debug("Flushed batch [size: '{}', written: '{}', walBytes: '{}']", flushed, written, walBytes);
+        }
+    }
+
+    private long pace() throws SQLException {
+        try {
+            return walThrottle.afterChunk(statement.getConnection());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while pacing WAL generation", e);
+        }
+    }
+
+    /**
+     * Gets the number of items that have been sent to the database.
+     *
+     * @return number of written items
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Flushes the current batch and closes the underlying statement.
+     *
+     * @throws SQLException if the batch cannot be executed
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Stores the progress of table copies in the target database so that an interrupted copy can resume from
+ * the last committed chunk.
+ *
+ * Checkpoints are kept in the migrator's own schema rather than the application schema, as they are not part of the
+ * migrated schema, so schema drift scans, squashed baselines and index advice leave them out.
+ */
+class CopyCheckpointStore {
+    static final String SCHEMA = "dbmigrator";
+    static final String TABLE_NAME = SCHEMA + ".copy_checkpoint";
+
+    /**
+     * Creates the checkpoint schema and table if they do not exist.
+     *
+     * @param conn target database connection
+     * @throws SQLException if the table cannot be created
+     */
+    void init(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
+                    "table_name     VARCHAR(255)    PRIMARY KEY, " +
+                    "next_key       BIGINT          NOT NULL, " +
+                    "rows_copied    BIGINT          NOT NULL, " +
+                    "updated_on     TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP" +
+                    ")");
+        }
+    }
+
+    /**
+     * Reads the key from which the copy of a table should resume.
+     *
+     * @param conn target database connection
+     * @param tableName name of the table
+     * @return first key that has not been copied, or {@link Long#MIN_VALUE} if the table has no checkpoint
+     * @throws SQLException if the checkpoint cannot be read
+     */
+    long read(Connection conn, String tableName) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT next_key FROM " + TABLE_NAME + " WHERE table_name = ?")) {
+            ps.setString(1, tableName);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("next_key") : Long.MIN_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Records that every key below <code>nextKey</code> has been copied. Must be called in the same transaction
+     * as the copied chunk.
+     *
+     * @param conn target database connection
+     * @param tableName name of the table
+     * @param nextKey first key that has not been copied
+     * @param rows number of rows copied in the chunk
+     * @throws SQLException if the checkpoint cannot be written
+     */
+    void save(Connection conn, String tableName, long nextKey, long rows) throws SQLException {
+        final String sql = "INSERT INTO " + TABLE_NAME + " AS checkpoint (table_name, next_key, rows_copied) VALUES (?, ?, ?) " +
+                "ON CONFLICT (table_name) DO UPDATE " +
+                "SET next_key = EXCLUDED.next_key, " +
+                "    rows_copied = checkpoint.rows_copied + EXCLUDED.rows_copied, " +
+                "    updated_on = CURRENT_TIMESTAMP";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, tableName);
+            ps.setLong(2, nextKey);
+            ps.setLong(3, rows);
+            ps.executeUpdate();
+        }
+    }
+}
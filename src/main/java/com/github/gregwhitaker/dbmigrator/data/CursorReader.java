@@ -0,0 +1,249 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the rows of a query through a server-side cursor so that only a bounded number of rows are held
+ * in memory at a time, regardless of the size of the result.
+ *
+ * The PostgreSQL driver only uses a cursor when the connection is not in autocommit mode and a fetch size is
+ * set. If the supplied connection is in autocommit mode it is switched to manual commit for the lifetime of the
+ * reader and restored when the reader is closed. The transaction is committed on close, or rolled back if reading,
+ * mapping or transferring the rows failed, so a failed transfer does not leave partial writes behind. Connections
+ * handed to Java migrations by Flyway are already inside a transaction, so in that case the connection is left
+ * untouched.
+ *
+ * Example usage in a Java migration:
+ * <pre>
+ * try (CursorReader&lt;Long&gt; reader = CursorReader.open(context.getConnection(),
+ *         "SELECT id FROM metadata ORDER BY id", 5_000, rs -&gt; rs.getLong("id"))) {
+ *     reader.stream().forEach(id -&gt; ...);
+ * }
+ * </pre>
+ *
+ * @param <T> type of the mapped rows
+ */
+public class CursorReader<T> implements Iterable<T>, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(CursorReader.class);
+
+    public static final int DEFAULT_FETCH_SIZE = 5_000;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final boolean restoreAutoCommit;
+    private boolean iteratorCreated = false;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    /**
+     * Opens a reader for the query using the {@link #DEFAULT_FETCH_SIZE}.
+     *
+     * @param connection database connection
+     * @param sql query to execute
+     * @param rowMapper mapper applied to each row
+     * @param params query parameters
+     * @param <T> type of the mapped rows
+     * @return open cursor reader
+     * @throws SQLException if the query cannot be executed
+     */
+    public static <T> CursorReader<T> open(Connection connection, String sql, RowMapper<T> rowMapper, Object... params) throws SQLException {
+        return open(connection, sql, DEFAULT_FETCH_SIZE, rowMapper, params);
+    }
+
+    /**
+     * Opens a reader for the query.
+     *
+     * @param connection database connection
+     * @param sql query to execute
+     * @param fetchSize number of rows fetched from the server per round-trip
+     * @param rowMapper mapper applied to each row
+     * @param params query parameters
+     * @param <T> type of the mapped rows
+     * @return open cursor reader
+     * @throws SQLException if the query cannot be executed
+     */
+    public static <T> CursorReader<T> open(Connection connection, String sql, int fetchSize, RowMapper<T> rowMapper, Object... params) throws SQLException {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be greater than zero: " + fetchSize);
+        }
+
+        final boolean restoreAutoCommit = connection.getAutoCommit();
+        if (restoreAutoCommit) {
+            // Cursor-based fetching is only used by the driver outside of autocommit mode
+            connection.setAutoCommit(false);
+        }
+
+        PreparedStatement ps = null;
+        try {
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+
+            LOG.debug("Opening cursor [fetchSize: '{}', sql: '{}']", fetchSize, sql);
+
+            return new CursorReader<>(connection, ps, ps.executeQuery(), rowMapper, restoreAutoCommit);
+        } catch (SQLException e) {
+            if (ps != null) {
+                ps.close();
+            }
+
+            if (restoreAutoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            throw e;
+        }
+    }
+
+    private CursorReader(Connection connection,
+                         PreparedStatement statement,
+                         ResultSet resultSet,
+                         RowMapper<T> rowMapper,
+                         boolean restoreAutoCommit) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.restoreAutoCommit = restoreAutoCommit;
+    }
+
+    /**
+     * Gets a lazy iterator over the rows. The rows can only be iterated once.
+     *
+     * @return row iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorCreated) {
+            throw new IllegalStateException("CursorReader can only be iterated once");
+        }
+
+        iteratorCreated = true;
+
+        return new Iterator<T>() {
+            private T next;
+            private boolean fetched = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!fetched) {
+                    try {
+                        next = resultSet.next() ? rowMapper.map(resultSet) : null;
+                        fetched = true;
+                    } catch (SQLException e) {
+                        failed = true;
+                        throw new UncheckedSQLException("Error occurred while reading from cursor", e);
+                    } catch (RuntimeException e) {
+                        failed = true;
+                        throw e;
+                    }
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                fetched = false;
+                return next;
+            }
+        };
+    }
+
+    /**
+     * Gets a lazy, sequential stream over the rows. Closing the stream closes the reader.
+     *
+     * @return row stream
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closeQuietly);
+    }
+
+    /**
+     * Writes every remaining row to the supplied writer and flushes it.
+     *
+     * @param writer batched writer
+     * @return number of rows transferred
+     * @throws SQLException if a row cannot be read or written
+     */
+    public long transferTo(BatchWriter<? super T> writer) throws SQLException {
+        long count = 0;
+
+        try {
+            for (T row : this) {
+                writer.write(row);
+                count++;
+            }
+
+            writer.flush();
+        } catch (UncheckedSQLException e) {
+            failed = true;
+            throw e.getCause();
+        } catch (SQLException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        boolean released = false;
+        try {
+            resultSet.close();
+            statement.close();
+            released = true;
+        } finally {
+            if (restoreAutoCommit) {
+                try {
+                    // Finish the transaction that was started to enable the cursor, keeping writes only on success
+                    if (failed || !released) {
+                        connection.rollback();
+                    } else {
+                        connection.commit();
+                    }
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (SQLException e) {
+            throw new UncheckedSQLException("Error occurred while closing cursor", e);
+        }
+    }
+}
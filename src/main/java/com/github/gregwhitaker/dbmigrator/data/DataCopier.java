@@ -0,0 +1,166 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies a set of tables from a source database to a target database, copying independent tables in parallel.
+ *
+ * Tables are grouped into levels by the foreign keys between them in the target database. Every table in a
+ * level is copied in parallel, and a level is only started once all tables it references have been copied. Tables
+ * that reference each other cannot be ordered this way, and are refused rather than copied into a target that enforces
+ * the foreign keys between them.
+ */
+public class DataCopier {
+    private static final Logger LOG = LoggerFactory.getLogger(DataCopier.class);
+
+    private final DataSource target;
+    private final TableCopier tableCopier;
+    private final WalThrottle walThrottle;
+    private final int threads;
+
+    /**
+     * Creates a new instance of {@link DataCopier}.
+     *
+     * @param source datasource to copy from
+     * @param target datasource to copy to
+     * @param threads maximum number of tables copied in parallel
+     */
+    public DataCopier(DataSource source, DataSource target, int threads) {
+        this(source, target, threads, 0);
+    }
+
+    /**
+     * Creates a new instance of {@link DataCopier} that paces the copy against a WAL ceiling. Tables copied in
+     * parallel share the ceiling.
+     *
+     * @param source datasource to copy from
+     * @param target datasource to copy to
+     * @param threads maximum number of tables copied in parallel
+     * @param walBytesPerSecond WAL bytes per second ceiling or <code>0</code> to only measure WAL
+     */
+    public DataCopier(DataSource source, DataSource target, int threads, long walBytesPerSecond) {
+        this.target = target;
+        this.walThrottle = new WalThrottle(walBytesPerSecond);
+        this.tableCopier = new TableCopier(source, target, TableCopier.DEFAULT_CHUNK_SIZE, TableCopier.DEFAULT_BUFFER_SEGMENTS, walThrottle);
+        this.threads = threads;
+    }
+
+    /**
+     * Copies the tables.
+     *
+     * @param tableNames names of the tables to copy
+     * @return number of rows copied per table
+     * @throws SQLException if a table cannot be copied
+     * @throws InterruptedException if the copy is interrupted
+     * @throws IllegalStateException if the tables have circular foreign keys between them
+     */
+    public Map<String, Long> copy(List<String> tableNames) throws SQLException, InterruptedException {
+        final Map<String, Long> copied = new LinkedHashMap<>();
+        final List<List<String>> levels = resolveLevels(new ArrayList<>(new LinkedHashSet<>(tableNames)));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (List<String> level : levels) {
+                final Map<String, Future<Long>> futures = new LinkedHashMap<>();
+                level.forEach(tableName -> futures.put(tableName, executor.submit(() -> tableCopier.copy(tableName))));
+
+                for (Map.Entry<String, Future<Long>> entry : futures.entrySet()) {
+                    try {
+                        copied.put(entry.getKey(), entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        futures.values().forEach(future -> future.cancel(true));
+
+                        if (e.getCause() instanceof SQLException) {
+                            throw (SQLException) e.getCause();
+                        }
+
+                        throw new IllegalStateException("Error occurred while copying table: " + entry.getKey(), e.getCause());
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Copied tables [tables: '{}', walBytes: '{}', maxWalBytesPerSecond: '{}']",
+                copied.size(), walThrottle.getTotalBytes(), walThrottle.getMaxBytesPerSecond());
+
+        return copied;
+    }
+
+    /**
+     * Orders the tables into levels so that every table comes after the tables it references.
+     *
+     * @param tableNames names of the tables to copy, without duplicates
+     */
+    private List<List<String>> resolveLevels(List<String> tableNames) throws SQLException {
+        final Map<String, Set<String>> dependencies = new HashMap<>();
+        tableNames.forEach(tableName -> dependencies.put(tableName, new HashSet<>()));
+
+        final String sql =
+                "SELECT conrelid::regclass::text AS child_table, confrelid::regclass::text AS parent_table " +
+                "FROM   pg_constraint " +
+                "WHERE  contype = 'f' " +
+                "AND    conrelid <> confrelid";
+
+        try (Connection conn = target.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                final String child = rs.getString("child_table");
+                final String parent = rs.getString("parent_table");
+
+                if (dependencies.containsKey(child) && dependencies.containsKey(parent)) {
+                    dependencies.get(child).add(parent);
+                }
+            }
+        }
+
+        final List<List<String>> levels = new ArrayList<>();
+        final Set<String> resolved = new HashSet<>();
+
+        while (resolved.size() < tableNames.size()) {
+            final List<String> level = new ArrayList<>();
+            tableNames.stream()
+                    .filter(tableName -> !resolved.contains(tableName))
+                    .filter(tableName -> resolved.containsAll(dependencies.get(tableName)))
+                    .forEach(level::add);
+
+            if (level.isEmpty()) {
+                // Each table is copied in its own transactions, so rows referencing a table that is not copied yet fail
+                final List<String> circular = new ArrayList<>();
+                tableNames.stream()
+                        .filter(tableName -> !resolved.contains(tableName))
+                        .forEach(circular::add);
+
+                throw new IllegalStateException(String.format(
+                        "Cannot copy tables with circular foreign keys between them, drop or disable the constraints first [tables: %s]",
+                        String.join(", ", circular)));
+            }
+
+            resolved.addAll(level);
+            levels.add(level);
+        }
+
+        return levels;
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Half-open range of integer primary key values, <code>[lower, upper)</code>.
+ */
+public final class KeyRange {
+
+    private final long lower;
+    private final long upper;
+
+    /**
+     * Creates a new instance of {@link KeyRange}.
+     *
+     * @param lower inclusive lower bound
+     * @param upper exclusive upper bound
+     */
+    public KeyRange(long lower, long upper) {
+        if (upper < lower) {
+            throw new IllegalArgumentException(String.format("Invalid key range [lower: '%s', upper: '%s']", lower, upper));
+        }
+
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Splits the range into consecutive chunks that each span at most <code>chunkSize</code> keys.
+     *
+     * @param chunkSize maximum number of keys in each chunk
+     * @return list of chunks covering this range
+     */
+    public List<KeyRange> chunks(long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+
+        final List<KeyRange> chunks = new ArrayList<>();
+        for (long start = lower; start < upper; ) {
+            final long end = upper - start > chunkSize ? start + chunkSize : upper;
+            chunks.add(new KeyRange(start, end));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Splits the range into at most <code>parts</code> consecutive chunks of roughly equal span.
+     *
+     * @param parts number of chunks
+     * @return list of chunks covering this range
+     */
+    public List<KeyRange> split(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Number of parts must be greater than zero: " + parts);
+        }
+
+        final long span = size();
+        return chunks(Math.max(1, span / parts + (span % parts == 0 ? 0 : 1)));
+    }
+
+    /**
+     * Gets the inclusive lower bound.
+     *
+     * @return lower bound
+     */
+    public long getLower() {
+        return lower;
+    }
+
+    /**
+     * Gets the exclusive upper bound.
+     *
+     * @return upper bound
+     */
+    public long getUpper() {
+        return upper;
+    }
+
+    /**
+     * Gets the number of key values spanned by this range.
+     *
+     * @return range size
+     */
+    public long size() {
+        return upper - lower;
+    }
+
+    /**
+     * Checks whether the range spans no key values.
+     *
+     * @return <code>true</code> if the range is empty; otherwise <code>false</code>
+     */
+    public boolean isEmpty() {
+        return upper == lower;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KeyRange keyRange = (KeyRange) o;
+        return lower == keyRange.lower && upper == keyRange.upper;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lower, upper);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + ")";
+    }
+}
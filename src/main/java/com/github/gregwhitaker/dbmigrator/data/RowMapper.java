@@ -0,0 +1,23 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ *
+ * @param <T> type of the mapped object
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row of the result set. Implementations must not advance the result set and must not
+     * return <code>null</code>.
+     *
+     * @param rs result set positioned at the row to map
+     * @return mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T map(ResultSet rs) throws SQLException;
+}
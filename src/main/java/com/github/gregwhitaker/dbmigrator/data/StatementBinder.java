@@ -0,0 +1,22 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds the values of an object to the parameters of a {@link PreparedStatement}.
+ *
+ * @param <T> type of the bound object
+ */
+@FunctionalInterface
+public interface StatementBinder<T> {
+
+    /**
+     * Binds the item to the statement parameters.
+     *
+     * @param ps prepared statement
+     * @param item item to bind
+     * @throws SQLException if a parameter cannot be set
+     */
+    void bind(PreparedStatement ps, T item) throws SQLException;
+}
@@ -0,0 +1,309 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies the rows of a single table from a source database to a target database by streaming binary
+ * <code>COPY</code> data between the two.
+ *
+ * The table is copied in primary key chunks. A reader thread streams each chunk out of the source with
+ * <code>COPY ... TO STDOUT</code> into a bounded buffer, and the calling thread streams the buffer into the
+ * target with <code>COPY ... FROM STDIN</code>. Each chunk is committed on the target together with a checkpoint
+ * row, so an interrupted copy resumes after the last committed chunk and never duplicates rows. When a
+ * {@link WalThrottle} is given, the WAL of each committed chunk is measured and the chunks are paced against its
+ * ceiling.
+ */
+public class TableCopier {
+    private static final Logger LOG = LoggerFactory.getLogger(TableCopier.class);
+
+    public static final long DEFAULT_CHUNK_SIZE = 100_000;
+    public static final int DEFAULT_BUFFER_SEGMENTS = 64;
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    private final DataSource source;
+    private final DataSource target;
+    private final long chunkSize;
+    private final int bufferSegments;
+    private final WalThrottle walThrottle;
+    private final CopyCheckpointStore checkpoints = new CopyCheckpointStore();
+
+    /**
+     * Creates a new instance of {@link TableCopier} with the default chunk and buffer sizes.
+     *
+     * @param source datasource to copy from
+     * @param target datasource to copy to
+     */
+    public TableCopier(DataSource source, DataSource target) {
+        this(source, target, DEFAULT_CHUNK_SIZE, DEFAULT_BUFFER_SEGMENTS);
+    }
+
+    /**
+     * Creates a new instance of {@link TableCopier}.
+     *
+     * @param source datasource to copy from
+     * @param target datasource to copy to
+     * @param chunkSize number of primary key values copied and committed per chunk
+     * @param bufferSegments number of 64KB segments buffered between the reader and the writer
+     */
+    public TableCopier(DataSource source, DataSource target, long chunkSize, int bufferSegments) {
+        this(source, target, chunkSize, bufferSegments, null);
+    }
+
+    /**
+     * Creates a new instance of {@link TableCopier} that paces its chunks against a WAL ceiling.
+     *
+     * @param source datasource to copy from
+     * @param target datasource to copy to
+     * @param chunkSize number of primary key values copied and committed per chunk
+     * @param bufferSegments number of 64KB segments buffered between the reader and the writer
+     * @param walThrottle throttle that each chunk is measured and paced by or <code>null</code> to not pace chunks
+     */
+    public TableCopier(DataSource source, DataSource target, long chunkSize, int bufferSegments, WalThrottle walThrottle) {
+        this.source = source;
+        this.target = target;
+        this.chunkSize = chunkSize;
+        this.bufferSegments = bufferSegments;
+        this.walThrottle = walThrottle;
+    }
+
+    /**
+     * Copies the table, resuming from the last checkpoint if a previous copy was interrupted.
+     *
+     * @param tableName name of the table, which must exist with the same columns in both databases
+     * @return number of rows copied by this invocation
+     * @throws SQLException if the copy fails
+     * @throws InterruptedException if the copying thread is interrupted
+     */
+    public long copy(String tableName) throws SQLException, InterruptedException {
+        final ExecutorService readerExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "copy-reader-" + tableName));
+
+        try (Connection sourceConn = source.getConnection();
+             Connection targetConn = target.getConnection()) {
+            final TableInfo tableInfo = TableInfo.load(targetConn, tableName);
+
+            checkpoints.init(targetConn);
+
+            final long resumeFrom = checkpoints.read(targetConn, tableName);
+            final KeyRange sourceRange = tableInfo.readKeyRange(sourceConn);
+            final KeyRange remaining = new KeyRange(Math.max(sourceRange.getLower(), Math.min(resumeFrom, sourceRange.getUpper())), sourceRange.getUpper());
+            final List<KeyRange> chunks = remaining.chunks(chunkSize);
+
+            LOG.info("Copying table [table: '{}', key: '{}', range: '{}', chunks: '{}', resumed: '{}']",
+                    tableName, tableInfo.getKeyColumn(), remaining, chunks.size(), resumeFrom > sourceRange.getLower());
+
+            final BlockingQueue<Segment> buffer = new ArrayBlockingQueue<>(bufferSegments);
+            final Future<?> reader = readerExecutor.submit(() -> readChunks(sourceConn, tableInfo, chunks, buffer));
+
+            try {
+                final long rows = writeChunks(targetConn, tableInfo, buffer);
+                syncSequence(targetConn, tableInfo);
+
+                LOG.info("Copied table [table: '{}', rows: '{}']", tableName, rows);
+
+                return rows;
+            } finally {
+                reader.cancel(true);
+            }
+        } finally {
+            readerExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Streams each chunk out of the source database into the buffer. Runs on the reader thread.
+     */
+    private void readChunks(Connection conn, TableInfo tableInfo, List<KeyRange> chunks, BlockingQueue<Segment> buffer) {
+        try {
+            final CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            final ByteArrayOutputStream segment = new ByteArrayOutputStream(SEGMENT_BYTES);
+
+            for (KeyRange chunk : chunks) {
+                final String sql = String.format("COPY (SELECT %s FROM %s WHERE %s >= %d AND %s < %d) TO STDOUT (FORMAT binary)",
+                        tableInfo.getQuotedColumnList(),
+                        tableInfo.getQuotedTableName(),
+                        tableInfo.getQuotedKeyColumn(), chunk.getLower(),
+                        tableInfo.getQuotedKeyColumn(), chunk.getUpper());
+
+                final CopyOut copyOut = copyManager.copyOut(sql);
+                try {
+                    byte[] data;
+                    while ((data = copyOut.readFromCopy()) != null) {
+                        segment.write(data, 0, data.length);
+
+                        if (segment.size() >= SEGMENT_BYTES) {
+                            buffer.put(Segment.data(segment.toByteArray()));
+                            segment.reset();
+                        }
+                    }
+                } finally {
+                    if (copyOut.isActive()) {
+                        copyOut.cancelCopy();
+                    }
+                }
+
+                if (segment.size() > 0) {
+                    buffer.put(Segment.data(segment.toByteArray()));
+                    segment.reset();
+                }
+
+                buffer.put(Segment.endOfChunk(chunk, copyOut.getHandledRowCount()));
+            }
+
+            buffer.put(Segment.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Any failure must reach the writer, which otherwise waits for the next segment forever
+            try {
+                buffer.put(Segment.error(e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Streams the buffer into the target database, committing each chunk with its checkpoint.
+     */
+    private long writeChunks(Connection conn, TableInfo tableInfo, BlockingQueue<Segment> buffer) throws SQLException, InterruptedException {
+        final CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+        final String sql = String.format("COPY %s (%s) FROM STDIN (FORMAT binary)",
+                tableInfo.getQuotedTableName(),
+                tableInfo.getQuotedColumnList());
+
+        if (walThrottle != null) {
+            walThrottle.start(conn);
+        }
+
+        final boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        CopyIn copyIn = null;
+        long rows = 0;
+
+        try {
+            while (true) {
+                final Segment segment = buffer.take();
+
+                if (segment.error instanceof SQLException) {
+                    throw (SQLException) segment.error;
+                }
+
+                if (segment.error != null) {
+                    throw new SQLException("Error occurred while reading table from source database: " + tableInfo.getTableName(), segment.error);
+                }
+
+                if (segment == Segment.END) {
+                    return rows;
+                }
+
+                if (copyIn == null) {
+                    copyIn = copyManager.copyIn(sql);
+                }
+
+                if (segment.data != null) {
+                    copyIn.writeToCopy(segment.data, 0, segment.data.length);
+                } else {
+                    copyIn.endCopy();
+                    copyIn = null;
+
+                    checkpoints.save(conn, tableInfo.getTableName(), segment.chunk.getUpper(), segment.rows);
+                    conn.commit();
+
+                    rows += segment.rows;
+
+                    final long walBytes = walThrottle != null ? walThrottle.afterChunk(conn) : -1;
+
+                    LOG.debug("Committed chunk [table: '{}', chunk: '{}', rows: '{}', walBytes: '{}']",
+                            tableInfo.getTableName(), segment.chunk, segment.rows, walBytes);
+                }
+            }
+        } catch (SQLException | InterruptedException e) {
+            if (copyIn != null && copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Moves the sequence backing the key column, if any, past the copied keys.
+     */
+    private void syncSequence(Connection conn, TableInfo tableInfo) throws SQLException {
+        String sequence = null;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_get_serial_sequence(?, ?)")) {
+            ps.setString(1, tableInfo.getQuotedTableName());
+            ps.setString(2, tableInfo.getKeyColumn());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    sequence = rs.getString(1);
+                }
+            }
+        }
+
+        if (sequence != null) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(String.format("SELECT setval('%s', GREATEST((SELECT max(%s) FROM %s), 1))",
+                        sequence.replace("'", "''"),
+                        tableInfo.getQuotedKeyColumn(),
+                        tableInfo.getQuotedTableName()));
+            }
+        }
+    }
+
+    /**
+     * Unit of data passed from the reader thread to the writer thread.
+     */
+    private static final class Segment {
+        static final Segment END = new Segment(null, null, 0, null);
+
+        final byte[] data;
+        final KeyRange chunk;
+        final long rows;
+        final Exception error;
+
+        static Segment data(byte[] data) {
+            return new Segment(data, null, 0, null);
+        }
+
+        static Segment endOfChunk(KeyRange chunk, long rows) {
+            return new Segment(null, chunk, rows, null);
+        }
+
+        static Segment error(Exception error) {
+            return new Segment(null, null, 0, error);
+        }
+
+        private Segment(byte[] data, KeyRange chunk, long rows, Exception error) {
+            this.data = data;
+            this.chunk = chunk;
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+}
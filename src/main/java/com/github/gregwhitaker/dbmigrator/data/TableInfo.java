@@ -0,0 +1,158 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog information about a table that is keyed by a single integer primary key column, which is what the
+ * chunked data operations in this package require.
+ */
+public final class TableInfo {
+    private static final List<String> INTEGER_KEY_TYPES = Arrays.asList("smallint", "integer", "bigint");
+
+    private final String tableName;
+    private final String quotedTableName;
+    private final String keyColumn;
+    private final List<String> columns;
+
+    /**
+     * Loads the table information from the database catalog.
+     *
+     * @param conn database connection
+     * @param tableName name of the table, resolved against the connection's search path
+     * @return table information
+     * @throws SQLException if the table does not exist or is not keyed by a single integer column
+     */
+    public static TableInfo load(Connection conn, String tableName) throws SQLException {
+        final String keySql =
+                "SELECT     i.indrelid::regclass::text AS quoted_table_name, a.attname AS key_column, " +
+                "           format_type(a.atttypid, a.atttypmod) AS key_type " +
+                "FROM       pg_index i " +
+                "JOIN       pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0] " +
+                "WHERE      i.indrelid = to_regclass(?) " +
+                "AND        i.indisprimary " +
+                "AND        i.indnatts = 1";
+
+        String quotedTableName = null;
+        String keyColumn = null;
+        try (PreparedStatement ps = conn.prepareStatement(keySql)) {
+            ps.setString(1, tableName);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    if (!INTEGER_KEY_TYPES.contains(rs.getString("key_type"))) {
+                        throw new SQLException(String.format("Table primary key must be an integer column [table: '%s', key: '%s', type: '%s']",
+                                tableName, rs.getString("key_column"), rs.getString("key_type")));
+                    }
+
+                    quotedTableName = rs.getString("quoted_table_name");
+                    keyColumn = rs.getString("key_column");
+                }
+            }
+        }
+
+        if (keyColumn == null) {
+            throw new SQLException(String.format("Table does not exist or has no single-column primary key [table: '%s']", tableName));
+        }
+
+        final String columnSql =
+                "SELECT     attname " +
+                "FROM       pg_attribute " +
+                "WHERE      attrelid = to_regclass(?) " +
+                "AND        attnum > 0 " +
+                "AND        NOT attisdropped " +
+                "ORDER BY   attnum";
+
+        final List<String> columns = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(columnSql)) {
+            ps.setString(1, tableName);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    columns.add(rs.getString("attname"));
+                }
+            }
+        }
+
+        return new TableInfo(tableName, quotedTableName, keyColumn, columns);
+    }
+
+    /**
+     * Quotes a SQL identifier.
+     *
+     * @param identifier identifier to quote
+     * @return quoted identifier
+     */
+    public static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private TableInfo(String tableName, String quotedTableName, String keyColumn, List<String> columns) {
+        this.tableName = tableName;
+        this.quotedTableName = quotedTableName;
+        this.keyColumn = keyColumn;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Reads the range of primary key values currently in the table.
+     *
+     * @param conn database connection
+     * @return key range covering every row, or an empty range if the table has no rows
+     * @throws SQLException if the range cannot be read
+     */
+    public KeyRange readKeyRange(Connection conn) throws SQLException {
+        final String sql = String.format("SELECT min(%1$s) AS min_key, max(%1$s) AS max_key FROM %2$s", getQuotedKeyColumn(), getQuotedTableName());
+
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+
+            final long min = rs.getLong("min_key");
+            if (rs.wasNull()) {
+                return new KeyRange(0, 0);
+            }
+
+            return new KeyRange(min, rs.getLong("max_key") + 1);
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the name of the table as the database prints it, which is quoted where needed and schema qualified where
+     * the table is not on the search path, so it names the same table as the name it was loaded by.
+     *
+     * @return quoted table name
+     */
+    public String getQuotedTableName() {
+        return quotedTableName;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    public String getQuotedKeyColumn() {
+        return quote(keyColumn);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public String getQuotedColumnList() {
+        return columns.stream()
+                .map(TableInfo::quote)
+                .collect(Collectors.joining(", "));
+    }
+}
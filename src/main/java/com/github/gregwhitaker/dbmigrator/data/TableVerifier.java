@@ -0,0 +1,256 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies that a table has identical rows in a source and a target database.
+ *
+ * The primary key range is split into chunks and, for each chunk, both databases compute the row count and an
+ * MD5 hash over the hashes of the rows in key order. Chunks are compared in parallel across connections. Only
+ * chunks whose digests differ are split further, down to small ranges whose row hashes are streamed from both
+ * sides and merged to find the exact mismatching keys.
+ */
+public class TableVerifier {
+    private static final Logger LOG = LoggerFactory.getLogger(TableVerifier.class);
+
+    public static final long DEFAULT_CHUNK_SIZE = 100_000;
+    public static final long DEFAULT_LEAF_SIZE = 1_000;
+    public static final int DEFAULT_MAX_REPORTED_MISMATCHES = 1_000;
+
+    private static final int DRILL_DOWN_FACTOR = 16;
+
+    private final DataSource source;
+    private final DataSource target;
+    private final int threads;
+    private final long chunkSize;
+    private final long leafSize;
+    private final int maxReportedMismatches;
+
+    /**
+     * Creates a new instance of {@link TableVerifier} with the default chunk sizes.
+     *
+     * @param source source datasource
+     * @param target target datasource
+     * @param threads number of chunks compared in parallel, which is also the number of connections used on each side
+     */
+    public TableVerifier(DataSource source, DataSource target, int threads) {
+        this(source, target, threads, DEFAULT_CHUNK_SIZE, DEFAULT_LEAF_SIZE, DEFAULT_MAX_REPORTED_MISMATCHES);
+    }
+
+    /**
+     * Creates a new instance of {@link TableVerifier}.
+     *
+     * @param source source datasource
+     * @param target target datasource
+     * @param threads number of chunks compared in parallel, which is also the number of connections used on each side
+     * @param chunkSize number of key values in each top-level chunk
+     * @param leafSize number of key values below which differing chunks are compared row by row
+     * @param maxReportedMismatches maximum number of mismatching keys kept in the result
+     */
+    public TableVerifier(DataSource source, DataSource target, int threads, long chunkSize, long leafSize, int maxReportedMismatches) {
+        this.source = source;
+        this.target = target;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.leafSize = leafSize;
+        this.maxReportedMismatches = maxReportedMismatches;
+    }
+
+    /**
+     * Verifies the table.
+     *
+     * @param tableName name of the table, which must exist with the same columns in both databases
+     * @return verification result
+     * @throws SQLException if the table cannot be read
+     * @throws InterruptedException if the verification is interrupted
+     */
+    public VerificationResult verify(String tableName) throws SQLException, InterruptedException {
+        final TableInfo tableInfo;
+        final KeyRange range;
+
+        try (Connection sourceConn = source.getConnection();
+             Connection targetConn = target.getConnection()) {
+            tableInfo = TableInfo.load(targetConn, tableName);
+            range = union(tableInfo.readKeyRange(sourceConn), tableInfo.readKeyRange(targetConn));
+        }
+
+        LOG.info("Verifying table [table: '{}', key: '{}', range: '{}', threads: '{}']", tableName, tableInfo.getKeyColumn(), range, threads);
+
+        final Verification verification = new Verification(tableInfo);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            CompletableFuture.allOf(range.chunks(chunkSize).stream()
+                    .map(chunk -> verification.verifyRange(chunk, executor))
+                    .toArray(CompletableFuture[]::new))
+                    .get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+
+            throw new IllegalStateException("Error occurred while verifying table: " + tableName, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final VerificationResult result = new VerificationResult(tableName,
+                verification.chunksCompared.get(),
+                verification.mismatchCount.get(),
+                new ArrayList<>(verification.mismatches));
+
+        if (result.isMatch()) {
+            LOG.info("Table matches [table: '{}', chunks: '{}']", tableName, result.getChunksCompared());
+        } else {
+            LOG.warn("Table does not match [table: '{}', chunks: '{}', mismatches: '{}', keys: '{}']",
+                    tableName, result.getChunksCompared(), result.getMismatchCount(), result.getMismatches());
+        }
+
+        return result;
+    }
+
+    private static KeyRange union(KeyRange a, KeyRange b) {
+        if (a.isEmpty()) {
+            return b;
+        } else if (b.isEmpty()) {
+            return a;
+        }
+
+        return new KeyRange(Math.min(a.getLower(), b.getLower()), Math.max(a.getUpper(), b.getUpper()));
+    }
+
+    /**
+     * State of the verification of a single table.
+     */
+    private final class Verification {
+        private final String digestSql;
+        private final String rowsSql;
+        private final AtomicLong chunksCompared = new AtomicLong();
+        private final AtomicLong mismatchCount = new AtomicLong();
+        private final Queue<VerificationResult.Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+
+        Verification(TableInfo tableInfo) {
+            final String rangeSql = String.format("SELECT %s FROM %s WHERE %s >= ? AND %s < ?",
+                    tableInfo.getQuotedColumnList(),
+                    tableInfo.getQuotedTableName(),
+                    tableInfo.getQuotedKeyColumn(),
+                    tableInfo.getQuotedKeyColumn());
+
+            this.digestSql = String.format("SELECT count(*) AS row_count, coalesce(md5(string_agg(md5(t::text), '' ORDER BY t.%s)), '') AS digest FROM (%s) t",
+                    tableInfo.getQuotedKeyColumn(), rangeSql);
+            this.rowsSql = String.format("SELECT t.%1$s AS row_key, md5(t::text) AS row_hash FROM (%2$s) t ORDER BY t.%1$s",
+                    tableInfo.getQuotedKeyColumn(), rangeSql);
+        }
+
+        CompletableFuture<Void> verifyRange(KeyRange range, ExecutorService executor) {
+            return CompletableFuture.supplyAsync(() -> digestsMatch(range), executor)
+                    .thenCompose(match -> {
+                        if (match) {
+                            return CompletableFuture.completedFuture(null);
+                        } else if (range.size() <= leafSize) {
+                            return CompletableFuture.runAsync(() -> compareRows(range), executor);
+                        } else {
+                            return CompletableFuture.allOf(range.split(DRILL_DOWN_FACTOR).stream()
+                                    .map(subRange -> verifyRange(subRange, executor))
+                                    .toArray(CompletableFuture[]::new));
+                        }
+                    });
+        }
+
+        private boolean digestsMatch(KeyRange range) {
+            try (Connection sourceConn = source.getConnection();
+                 Connection targetConn = target.getConnection()) {
+                chunksCompared.incrementAndGet();
+                return digest(sourceConn, range).equals(digest(targetConn, range));
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Error occurred while comparing chunk: " + range, e);
+            }
+        }
+
+        private String digest(Connection conn, KeyRange range) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement(digestSql)) {
+                ps.setLong(1, range.getLower());
+                ps.setLong(2, range.getUpper());
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getLong("row_count") + ":" + rs.getString("digest");
+                }
+            }
+        }
+
+        private void compareRows(KeyRange range) {
+            try (Connection sourceConn = source.getConnection();
+                 Connection targetConn = target.getConnection();
+                 CursorReader<RowHash> sourceRows = CursorReader.open(sourceConn, rowsSql, RowHash::map, range.getLower(), range.getUpper());
+                 CursorReader<RowHash> targetRows = CursorReader.open(targetConn, rowsSql, RowHash::map, range.getLower(), range.getUpper())) {
+                final Iterator<RowHash> sourceIt = sourceRows.iterator();
+                final Iterator<RowHash> targetIt = targetRows.iterator();
+
+                RowHash s = sourceIt.hasNext() ? sourceIt.next() : null;
+                RowHash t = targetIt.hasNext() ? targetIt.next() : null;
+
+                while (s != null || t != null) {
+                    if (t == null || (s != null && s.key < t.key)) {
+                        mismatch(s.key, VerificationResult.MismatchType.MISSING_IN_TARGET);
+                        s = sourceIt.hasNext() ? sourceIt.next() : null;
+                    } else if (s == null || t.key < s.key) {
+                        mismatch(t.key, VerificationResult.MismatchType.MISSING_IN_SOURCE);
+                        t = targetIt.hasNext() ? targetIt.next() : null;
+                    } else {
+                        if (!Objects.equals(s.hash, t.hash)) {
+                            mismatch(s.key, VerificationResult.MismatchType.DIFFERENT);
+                        }
+
+                        s = sourceIt.hasNext() ? sourceIt.next() : null;
+                        t = targetIt.hasNext() ? targetIt.next() : null;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new UncheckedSQLException("Error occurred while comparing rows: " + range, e);
+            }
+        }
+
+        private void mismatch(long key, VerificationResult.MismatchType type) {
+            if (mismatchCount.incrementAndGet() <= maxReportedMismatches) {
+                mismatches.add(new VerificationResult.Mismatch(key, type));
+            }
+        }
+    }
+
+    /**
+     * Primary key and hash of a single row.
+     */
+    private static final class RowHash {
+        final long key;
+        final String hash;
+
+        static RowHash map(ResultSet rs) throws SQLException {
+            return new RowHash(rs.getLong("row_key"), rs.getString("row_hash"));
+        }
+
+        RowHash(long key, String hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.sql.SQLException;
+
+/**
+ * Exception that wraps a {@link SQLException} thrown while iterating or writing rows in a context that
+ * does not allow checked exceptions, such as a {@link java.util.stream.Stream} pipeline.
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
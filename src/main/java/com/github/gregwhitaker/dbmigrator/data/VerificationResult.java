@@ -0,0 +1,96 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of comparing a table between a source and a target database.
+ */
+public final class VerificationResult {
+
+    /**
+     * Kind of difference found for a key.
+     */
+    public enum MismatchType {
+        MISSING_IN_TARGET,
+        MISSING_IN_SOURCE,
+        DIFFERENT
+    }
+
+    /**
+     * Key whose row differs between the source and the target.
+     */
+    public static final class Mismatch {
+        private final long key;
+        private final MismatchType type;
+
+        public Mismatch(long key, MismatchType type) {
+            this.key = key;
+            this.type = type;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public MismatchType getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return key + ":" + type;
+        }
+    }
+
+    private final String tableName;
+    private final long chunksCompared;
+    private final long mismatchCount;
+    private final List<Mismatch> mismatches;
+
+    public VerificationResult(String tableName, long chunksCompared, long mismatchCount, List<Mismatch> mismatches) {
+        this.tableName = tableName;
+        this.chunksCompared = chunksCompared;
+        this.mismatchCount = mismatchCount;
+
+        final List<Mismatch> sorted = new ArrayList<>(mismatches);
+        sorted.sort((a, b) -> Long.compare(a.getKey(), b.getKey()));
+        this.mismatches = Collections.unmodifiableList(sorted);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the number of chunk digests that were compared, including drill-down chunks.
+     *
+     * @return number of compared chunks
+     */
+    public long getChunksCompared() {
+        return chunksCompared;
+    }
+
+    /**
+     * Gets the total number of mismatching keys, which may be larger than the number of reported mismatches.
+     *
+     * @return number of mismatching keys
+     */
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    /**
+     * Gets the reported mismatching keys in key order.
+     *
+     * @return mismatching keys
+     */
+    public List<Mismatch> getMismatches() {
+        return mismatches;
+    }
+
+    public boolean isMatch() {
+        return mismatchCount == 0;
+    }
+}
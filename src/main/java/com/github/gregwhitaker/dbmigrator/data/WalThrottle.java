@@ -0,0 +1,155 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the WAL generated by each chunk of a data migration and paces the chunks against a WAL bytes per second
+ * ceiling, so that rewriting a large table does not lag the replicas or flood the WAL archive.
+ *
+ * WAL is measured as the change in <code>pg_current_wal_insert_lsn()</code> between chunks, which includes WAL that
+ * has not been written out yet, so the chunks of a single transaction are counted as they run. The position is server
+ * wide, so WAL generated by other sessions counts towards the ceiling too, which is what the replicas receive. Bursts
+ * after a slow chunk are limited to one second's worth of WAL.
+ *
+ * A throttle may be shared by several threads, such as the tables of a parallel copy, which are then paced together.
+ */
+public class WalThrottle {
+    private static final Logger LOG = LoggerFactory.getLogger(WalThrottle.class);
+
+    /**
+     * Flyway placeholder that the migrator passes the configured WAL bytes per second ceiling to Java migrations in.
+     */
+    public static final String PLACEHOLDER = "walBytesPerSecond";
+
+    private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxBytesPerSecond;
+    private String lastLsn;
+    private long nextChunkNanos;
+    private long totalBytes;
+
+    /**
+     * Creates a throttle for a Java migration from the ceiling configured for the migrator.
+     *
+     * @param context Flyway migration context
+     * @return throttle, which only measures WAL when no ceiling is configured
+     */
+    public static WalThrottle forMigration(Context context) {
+        final String maxBytesPerSecond = context.getConfiguration().getPlaceholders().get(PLACEHOLDER);
+
+        return new WalThrottle(maxBytesPerSecond != null ? Long.parseLong(maxBytesPerSecond) : 0);
+    }
+
+    /**
+     * Creates a new instance of {@link WalThrottle}.
+     *
+     * @param maxBytesPerSecond WAL bytes per second ceiling or <code>0</code> to only measure WAL
+     */
+    public WalThrottle(long maxBytesPerSecond) {
+        if (maxBytesPerSecond < 0) {
+            throw new IllegalArgumentException("WAL bytes per second must not be negative: " + maxBytesPerSecond);
+        }
+
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Starts measuring from the current WAL position, unless already started by another user of the throttle.
+     *
+     * @param conn database connection
+     * @throws SQLException if the WAL position cannot be read
+     */
+    public synchronized void start(Connection conn) throws SQLException {
+        if (lastLsn != null) {
+            return;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_current_wal_insert_lsn()::text");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            lastLsn = rs.getString(1);
+        }
+
+        nextChunkNanos = System.nanoTime();
+    }
+
+    /**
+     * Measures the WAL generated since the previous chunk and waits until the next chunk may start.
+     *
+     * @param conn database connection
+     * @return WAL bytes generated since the previous chunk
+     * @throws SQLException if the WAL position cannot be read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized long afterChunk(Connection conn) throws SQLException, InterruptedException {
+        if (lastLsn == null) {
+            start(conn);
+            return 0;
+        }
+
+        final long bytes;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT pg_current_wal_insert_lsn()::text, pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint")) {
+            ps.setString(1, lastLsn);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                lastLsn = rs.getString(1);
+                bytes = Math.max(0, rs.getLong(2));
+            }
+        }
+
+        totalBytes += bytes;
+
+        final long pauseNanos = pause(bytes, System.nanoTime());
+        if (pauseNanos > 0) {
+            LOG.debug("Pacing WAL generation [chunkBytes: '{}', maxBytesPerSecond: '{}', pause: '{}ms']",
+                    bytes, maxBytesPerSecond, TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+
+            // Waits while holding the lock, so every thread sharing the throttle is paced
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Works out how long to wait after a chunk, by moving the earliest start of the next chunk on by the time the
+     * chunk's WAL takes at the ceiling.
+     *
+     * @param bytes WAL bytes of the chunk
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return nanoseconds to wait
+     */
+    long pause(long bytes, long nowNanos) {
+        if (maxBytesPerSecond == 0) {
+            return 0;
+        }
+
+        nextChunkNanos = Math.max(nextChunkNanos, nowNanos - MAX_BURST_NANOS)
+                + (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / maxBytesPerSecond);
+
+        return Math.max(0, nextChunkNanos - nowNanos);
+    }
+
+    /**
+     * Gets the WAL bytes measured since the throttle started.
+     *
+     * @return WAL bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+}
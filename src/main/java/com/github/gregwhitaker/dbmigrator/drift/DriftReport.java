@@ -0,0 +1,103 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Drift of each scanned schema from the reference schema, printed as a compact diff of only the schemas that differ or
+ * could not be scanned.
+ */
+public class DriftReport {
+    private static final int MAX_OBJECTS_PER_TARGET = 20;
+
+    private final String reference;
+    private final int referenceObjects;
+    private final List<SchemaDrift> drifts;
+
+    /**
+     * Creates a new instance of {@link DriftReport}.
+     *
+     * @param reference name of the reference schema
+     * @param referenceObjects number of objects in the reference schema
+     * @param drifts drift of each scanned schema
+     */
+    public DriftReport(String reference, int referenceObjects, List<SchemaDrift> drifts) {
+        this.reference = reference;
+        this.referenceObjects = referenceObjects;
+        this.drifts = Collections.unmodifiableList(new ArrayList<>(drifts));
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public List<SchemaDrift> getDrifts() {
+        return drifts;
+    }
+
+    /**
+     * @return schemas that were scanned and differ from the reference
+     */
+    public List<SchemaDrift> getDrifted() {
+        return drifts.stream()
+                .filter(drift -> !drift.isFailed() && !drift.isMatch())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return targets that could not be scanned
+     */
+    public List<SchemaDrift> getFailed() {
+        return drifts.stream()
+                .filter(SchemaDrift::isFailed)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return <code>true</code> if every schema was scanned and matches the reference; otherwise <code>false</code>
+     */
+    public boolean isMatch() {
+        return drifts.stream().allMatch(SchemaDrift::isMatch);
+    }
+
+    /**
+     * Prints the report, with objects missing from a schema marked <code>-</code>, extra objects marked <code>+</code>
+     * and changed objects marked <code>~</code>.
+     *
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("Schema drift [reference: %s, objects: %d, schemas: %d, drifted: %d, failed: %d]%n",
+                reference, referenceObjects, drifts.size(), getDrifted().size(), getFailed().size());
+
+        for (SchemaDrift drift : drifts) {
+            if (drift.isMatch()) {
+                continue;
+            }
+
+            out.println();
+
+            if (drift.isFailed()) {
+                out.printf("%s: failed: %s%n", drift.getTarget(), drift.getError());
+                continue;
+            }
+
+            out.printf("%s: %d missing, %d extra, %d changed%n",
+                    drift.getTarget(), drift.getMissing().size(), drift.getExtra().size(), drift.getChanged().size());
+
+            final List<String> objects = new ArrayList<>();
+            drift.getMissing().forEach(object -> objects.add("- " + object));
+            drift.getExtra().forEach(object -> objects.add("+ " + object));
+            drift.getChanged().forEach(object -> objects.add("~ " + object));
+
+            objects.stream().limit(MAX_OBJECTS_PER_TARGET).forEach(object -> out.printf("  %s%n", object));
+
+            if (objects.size() > MAX_OBJECTS_PER_TARGET) {
+                out.printf("  ... and %d more%n", objects.size() - MAX_OBJECTS_PER_TARGET);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import com.github.gregwhitaker.dbmigrator.server.MigrationServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Scans many databases and tenant schemas for drift from a reference schema, such as hotfixes applied by hand.
+ *
+ * Targets are written as <code>database/schema</code>, where the database defaults to the database of the jdbc url and
+ * the schema is a <code>LIKE</code> pattern that defaults to the default schema of the connection, so
+ * <code>orders/tenant\_%</code> scans every tenant schema of the <code>orders</code> database. Each target is
+ * fingerprinted over a single short-lived connection, at most one per thread, so hundreds of databases are scanned with
+ * a bounded number of connections, and a target that cannot be scanned is reported without failing the others.
+ */
+public class DriftScanner {
+    private static final Logger LOG = LoggerFactory.getLogger(DriftScanner.class);
+
+    private static final int CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long STATEMENT_TIMEOUT_MILLIS = 60_000;
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final int threads;
+
+    /**
+     * Creates a new instance of {@link DriftScanner}.
+     *
+     * @param jdbcUrl PostgreSQL jdbc url of the server, whose database is scanned by targets that do not name one
+     * @param username database username
+     * @param password database password or <code>null</code> if no password is required
+     * @param threads number of targets scanned in parallel, which is also the maximum number of connections
+     */
+    public DriftScanner(String jdbcUrl, String username, String password, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be greater than zero: " + threads);
+        }
+
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.threads = threads;
+    }
+
+    /**
+     * Scans the targets and compares them with the reference schema.
+     *
+     * @param targets targets to scan
+     * @param reference target of the reference schema, which must match a single schema, or <code>null</code> to use
+     *                  the first schema of the first target
+     * @return drift of each target schema other than the reference
+     * @throws SQLException if the reference schema cannot be scanned
+     * @throws InterruptedException if interrupted while scanning
+     */
+    public DriftReport scan(List<String> targets, String reference) throws SQLException, InterruptedException {
+        final long start = System.currentTimeMillis();
+
+        final SchemaFingerprint referenceFingerprint = scanReference(reference != null ? reference : targets.get(0), reference != null);
+
+        LOG.info("Scanning targets for schema drift [reference: '{}', objects: '{}', targets: '{}', threads: '{}']",
+                referenceFingerprint.getTarget(), referenceFingerprint.getHashes().size(), targets.size(), threads);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, targets.size()));
+
+        try {
+            final List<CompletableFuture<List<SchemaDrift>>> futures = targets.stream()
+                    .map(target -> CompletableFuture.supplyAsync(() -> scanTarget(target, referenceFingerprint), executor))
+                    .collect(Collectors.toList());
+
+            final List<SchemaDrift> drifts = new ArrayList<>();
+            for (CompletableFuture<List<SchemaDrift>> future : futures) {
+                drifts.addAll(future.join());
+            }
+
+            final DriftReport report = new DriftReport(referenceFingerprint.getTarget(), referenceFingerprint.getHashes().size(), drifts);
+
+            LOG.info("Scanned targets for schema drift [schemas: '{}', drifted: '{}', failed: '{}', duration: '{}ms']",
+                    drifts.size(), report.getDrifted().size(), report.getFailed().size(), System.currentTimeMillis() - start);
+
+            return report;
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private SchemaFingerprint scanReference(String reference, boolean exact) throws SQLException {
+        final List<SchemaFingerprint> fingerprints = capture(reference);
+
+        if (fingerprints.isEmpty() || (exact && fingerprints.size() > 1)) {
+            throw new IllegalArgumentException(String.format("Reference '%s' must match a single schema, but matches %d", reference, fingerprints.size()));
+        }
+
+        return fingerprints.get(0);
+    }
+
+    /**
+     * Scans the schemas of a target, reporting a target that cannot be scanned rather than failing the scan.
+     */
+    private List<SchemaDrift> scanTarget(String target, SchemaFingerprint reference) {
+        try {
+            final List<SchemaFingerprint> fingerprints = capture(target);
+
+            if (fingerprints.isEmpty()) {
+                return Collections.singletonList(SchemaDrift.failed(target, "no schema matches"));
+            }
+
+            return fingerprints.stream()
+                    .filter(fingerprint -> !fingerprint.getTarget().equals(reference.getTarget()))
+                    .map(fingerprint -> fingerprint.diff(reference))
+                    .collect(Collectors.toList());
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to scan target for schema drift [target: '{}']", target, e);
+            return Collections.singletonList(SchemaDrift.failed(target, e.getMessage()));
+        }
+    }
+
+    private List<SchemaFingerprint> capture(String target) throws SQLException {
+        final int separator = target.indexOf('/');
+        final String database = separator >= 0 ? target.substring(0, separator) : target;
+        final String schemaPattern = separator >= 0 ? target.substring(separator + 1) : "";
+
+        final Properties props = new Properties();
+        props.setProperty("user", username);
+        if (password != null) {
+            props.setProperty("password", password);
+        }
+        props.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_SECONDS));
+        props.setProperty("ApplicationName", "dbmigrator-drift");
+
+        try (Connection conn = DriverManager.getConnection(
+                database.isEmpty() ? jdbcUrl : MigrationServer.withDatabase(jdbcUrl, database), props)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET statement_timeout = " + STATEMENT_TIMEOUT_MILLIS);
+            }
+
+            return SchemaFingerprint.capture(conn, schemaPattern.isEmpty() ? null : schemaPattern);
+        }
+    }
+}
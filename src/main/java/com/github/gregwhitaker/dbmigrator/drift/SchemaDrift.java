@@ -0,0 +1,78 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Objects of a target schema that differ from the reference schema, or the reason the target could not be scanned.
+ */
+public final class SchemaDrift {
+    private final String target;
+    private final List<String> missing;
+    private final List<String> extra;
+    private final List<String> changed;
+    private final String error;
+
+    /**
+     * Creates a new instance of {@link SchemaDrift}.
+     *
+     * @param target name of the target schema, as <code>database/schema</code>
+     * @param missing objects of the reference that the target does not have
+     * @param extra objects of the target that the reference does not have
+     * @param changed objects whose definition differs from the reference
+     * @param error reason the target could not be scanned or <code>null</code> if it was scanned
+     */
+    public SchemaDrift(String target, List<String> missing, List<String> extra, List<String> changed, String error) {
+        this.target = target;
+        this.missing = Collections.unmodifiableList(new ArrayList<>(missing));
+        this.extra = Collections.unmodifiableList(new ArrayList<>(extra));
+        this.changed = Collections.unmodifiableList(new ArrayList<>(changed));
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a target that could not be scanned.
+     *
+     * @param target name of the target
+     * @param error reason the target could not be scanned
+     * @return drift
+     */
+    public static SchemaDrift failed(String target, String error) {
+        return new SchemaDrift(target, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), error);
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public List<String> getExtra() {
+        return extra;
+    }
+
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return reason the target could not be scanned or <code>null</code> if it was scanned
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    /**
+     * @return <code>true</code> if the target was scanned and matches the reference; otherwise <code>false</code>
+     */
+    public boolean isMatch() {
+        return error == null && missing.isEmpty() && extra.isEmpty() && changed.isEmpty();
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hash of the definition of each table, column, index, constraint and function in a schema, so schemas can be compared
+ * object by object without transferring their definitions.
+ *
+ * Definitions are hashed by the database from its own catalog functions. References to the schema itself are removed
+ * before hashing, so tenant schemas that differ only in name have the same fingerprint. Objects that belong to an
+ * extension are left out, as extension versions are managed separately from migrations, as is the migrator's own
+ * <code>dbmigrator</code> schema.
+ */
+public final class SchemaFingerprint {
+
+    // Each object's definition with qualification by its own schema removed, hashed per schema matching the pattern
+    private static final String CAPTURE_SQL =
+            "WITH ns AS ( " +
+                    "SELECT oid, nspname, quote_ident(nspname) || '.' AS prefix " +
+                    "FROM pg_namespace " +
+                    "WHERE nspname LIKE coalesce(?, current_schema()) " +
+                    "AND nspname NOT LIKE 'pg\\_%' AND nspname NOT IN ('information_schema', 'dbmigrator') " +
+            "), rel AS ( " +
+                    "SELECT cl.oid, cl.relname, cl.relkind, cl.relpersistence, cl.reloptions, ns.nspname, ns.prefix " +
+                    "FROM pg_class cl " +
+                    "JOIN ns ON ns.oid = cl.relnamespace " +
+                    "WHERE cl.relkind IN ('r', 'p', 'f') " +
+                    "AND NOT EXISTS (SELECT 1 FROM pg_depend d WHERE d.classid = 'pg_class'::regclass AND d.objid = cl.oid AND d.deptype = 'e') " +
+            ") " +
+            "SELECT nspname, 'table' AS kind, quote_ident(relname) AS name, " +
+                    "md5(relkind || ' ' || relpersistence || ' ' || coalesce(reloptions::text, '')) AS hash " +
+            "FROM rel " +
+            "UNION ALL " +
+            "SELECT rel.nspname, 'column', quote_ident(rel.relname) || '.' || quote_ident(att.attname), " +
+                    "md5(replace(format_type(att.atttypid, att.atttypmod) || ' ' || att.attnotnull || ' ' || att.attidentity || ' ' || " +
+                    "coalesce(pg_get_expr(def.adbin, def.adrelid), '') || ' ' || coalesce(coll.collname, ''), rel.prefix, '')) " +
+            "FROM rel " +
+            "JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attnum > 0 AND NOT att.attisdropped " +
+            "LEFT JOIN pg_attrdef def ON def.adrelid = att.attrelid AND def.adnum = att.attnum " +
+            "LEFT JOIN pg_collation coll ON coll.oid = att.attcollation AND att.attcollation <> 0 " +
+            "UNION ALL " +
+            "SELECT rel.nspname, 'index', quote_ident(i.relname), " +
+                    "md5(replace(pg_get_indexdef(idx.indexrelid), rel.prefix, '') || ' ' || idx.indisvalid) " +
+            "FROM rel " +
+            "JOIN pg_index idx ON idx.indrelid = rel.oid " +
+            "JOIN pg_class i ON i.oid = idx.indexrelid " +
+            "UNION ALL " +
+            "SELECT rel.nspname, 'constraint', quote_ident(rel.relname) || '.' || quote_ident(con.conname), " +
+                    "md5(replace(con.contype || ' ' || pg_get_constraintdef(con.oid) || ' ' || con.convalidated, rel.prefix, '')) " +
+            "FROM rel " +
+            // Not null constraints, recorded as constraints since PostgreSQL 18, are part of the column definition
+            "JOIN pg_constraint con ON con.conrelid = rel.oid AND con.contype <> 'n' " +
+            "UNION ALL " +
+            "SELECT ns.nspname, 'function', quote_ident(p.proname) || '(' || pg_get_function_identity_arguments(p.oid) || ')', " +
+                    "md5(replace(pg_get_functiondef(p.oid), ns.prefix, '')) " +
+            "FROM pg_proc p " +
+            "JOIN ns ON ns.oid = p.pronamespace " +
+            "WHERE p.prokind IN ('f', 'p') " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_depend d WHERE d.classid = 'pg_proc'::regclass AND d.objid = p.oid AND d.deptype = 'e')";
+
+    private final String target;
+    private final Map<String, String> hashes;
+
+    /**
+     * Creates a new instance of {@link SchemaFingerprint}.
+     *
+     * @param target name of the schema, as <code>database/schema</code>
+     * @param hashes hash of each object's definition by kind and name, such as <code>column metadata.id</code>
+     */
+    public SchemaFingerprint(String target, Map<String, String> hashes) {
+        this.target = target;
+        this.hashes = Collections.unmodifiableMap(new TreeMap<>(hashes));
+    }
+
+    /**
+     * Captures the fingerprints of the schemas of the connection's database that match a pattern.
+     *
+     * @param conn database connection
+     * @param schemaPattern <code>LIKE</code> pattern of the schemas or <code>null</code> for the connection's default
+     *                      schema
+     * @return fingerprint of each matching schema, in schema name order
+     * @throws SQLException if the catalog cannot be read
+     */
+    public static List<SchemaFingerprint> capture(Connection conn, String schemaPattern) throws SQLException {
+        final String database;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT current_database()");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            database = rs.getString(1);
+        }
+
+        final Map<String, Map<String, String>> schemas = new TreeMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(CAPTURE_SQL)) {
+            ps.setString(1, schemaPattern);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    schemas.computeIfAbsent(rs.getString(1), schema -> new LinkedHashMap<>())
+                            .put(rs.getString(2) + " " + rs.getString(3), rs.getString(4));
+                }
+            }
+        }
+
+        final List<SchemaFingerprint> fingerprints = new ArrayList<>();
+        schemas.forEach((schema, hashes) -> fingerprints.add(new SchemaFingerprint(database + "/" + schema, hashes)));
+
+        return fingerprints;
+    }
+
+    /**
+     * Compares the schema with a reference schema.
+     *
+     * @param reference reference schema
+     * @return objects that are missing, extra or changed compared to the reference
+     */
+    public SchemaDrift diff(SchemaFingerprint reference) {
+        final List<String> missing = new ArrayList<>();
+        final List<String> changed = new ArrayList<>();
+        final List<String> extra = new ArrayList<>();
+
+        reference.hashes.forEach((object, hash) -> {
+            final String actual = hashes.get(object);
+
+            if (actual == null) {
+                missing.add(object);
+            } else if (!actual.equals(hash)) {
+                changed.add(object);
+            }
+        });
+
+        hashes.keySet().stream()
+                .filter(object -> !reference.hashes.containsKey(object))
+                .forEach(extra::add);
+
+        return new SchemaDrift(target, missing, extra, changed, null);
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * @return hash of each object's definition by kind and name, such as <code>column metadata.id</code>
+     */
+    public Map<String, String> getHashes() {
+        return hashes;
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.gregwhitaker.dbmigrator.index;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Index problems found by the {@link IndexAdvisor}, which can be printed as a report or as the body of a migration
+ * script that fixes them.
+ */
+public class IndexAdvice {
+    private final List<IndexFinding> findings;
+    private final String statsReset;
+
+    /**
+     * Creates a new instance of {@link IndexAdvice}.
+     *
+     * @param findings problems found
+     * @param statsReset time the database statistics were last reset or <code>null</code> if never
+     */
+    public IndexAdvice(List<IndexFinding> findings, String statsReset) {
+        this.findings = Collections.unmodifiableList(new ArrayList<>(findings));
+        this.statsReset = statsReset;
+    }
+
+    public List<IndexFinding> getFindings() {
+        return findings;
+    }
+
+    /**
+     * Gets the problems of a kind.
+     *
+     * @param type kind of problem
+     * @return problems of the kind
+     */
+    public List<IndexFinding> getFindings(IndexFinding.Type type) {
+        return findings.stream()
+                .filter(finding -> finding.getType() == type)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return time the database statistics were last reset or <code>null</code> if never
+     */
+    public String getStatsReset() {
+        return statsReset;
+    }
+
+    public boolean isEmpty() {
+        return findings.isEmpty();
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("Index advice [unindexed foreign keys: %d, duplicate indexes: %d, redundant indexes: %d, unused indexes: %d]%n",
+                getFindings(IndexFinding.Type.UNINDEXED_FOREIGN_KEY).size(),
+                getFindings(IndexFinding.Type.DUPLICATE_INDEX).size(),
+                getFindings(IndexFinding.Type.REDUNDANT_INDEX).size(),
+                getFindings(IndexFinding.Type.UNUSED_INDEX).size());
+
+        for (IndexFinding.Type type : IndexFinding.Type.values()) {
+            final List<IndexFinding> ofType = getFindings(type);
+            if (ofType.isEmpty()) {
+                continue;
+            }
+
+            out.println();
+            out.println(type.getTitle());
+            out.printf("%-30s  %-40s  %s%n", "Table", "Name", "Detail");
+
+            for (IndexFinding finding : ofType) {
+                out.printf("%-30s  %-40s  %s%n", finding.getTable(), finding.getName(), finding.getDetail());
+            }
+        }
+
+        out.println();
+        out.printf("Index scans are counted since the statistics were last reset [statsReset: %s], so an index may be used on other servers or by infrequent jobs.%n",
+                statsReset != null ? statsReset : "never");
+    }
+
+    /**
+     * Prints the body of a migration script that fixes the problems. Every statement runs concurrently, so Flyway applies
+     * the migration outside a transaction. Unused indexes are only dropped by uncommenting their statements after
+     * review.
+     *
+     * @param out stream to print to
+     */
+    public void printScript(PrintStream out) {
+        out.println("-- Generated by the index advisor. Every statement runs CONCURRENTLY, so Flyway applies this migration");
+        out.println("-- outside a transaction. A CREATE INDEX CONCURRENTLY that fails leaves an invalid index behind, which must be");
+        out.println("-- dropped before the migration is retried.");
+
+        for (IndexFinding.Type type : IndexFinding.Type.values()) {
+            final List<IndexFinding> fixable = getFindings(type).stream()
+                    .filter(finding -> finding.getFix() != null)
+                    .collect(Collectors.toList());
+
+            if (fixable.isEmpty()) {
+                continue;
+            }
+
+            out.println();
+            out.printf("-- %s%n", type.getTitle());
+
+            if (type == IndexFinding.Type.UNUSED_INDEX) {
+                out.printf("-- Not scanned since the statistics were last reset [statsReset: %s], review before uncommenting%n",
+                        statsReset != null ? statsReset : "never");
+            }
+
+            for (IndexFinding finding : fixable) {
+                out.printf("-- %s on %s: %s%n", finding.getName(), finding.getTable(), finding.getDetail());
+                out.printf("%s%s%n", type == IndexFinding.Type.UNUSED_INDEX ? "-- " : "", finding.getFix());
+            }
+        }
+    }
+}
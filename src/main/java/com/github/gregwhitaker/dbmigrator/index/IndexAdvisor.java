@@ -0,0 +1,353 @@
+package com.github.gregwhitaker.dbmigrator.index;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Inspects the indexes of a migrated schema for foreign keys without a supporting index, duplicate indexes, indexes
+ * made redundant by a wider index and indexes that are never scanned.
+ *
+ * Foreign keys and indexes are read from the catalog in the same way as the table integration tests, for every table
+ * in the schema except the schema history table. Only B-tree indexes without a predicate are considered to support a
+ * foreign key or to make a narrower index redundant. Indexes that enforce a primary key, unique or exclusion constraint
+ * are never advised to be dropped, nor are unused indexes that are the only support of a foreign key.
+ *
+ * Names in the fixes are not schema qualified, so a fix migration applies to whichever schema Flyway migrates.
+ */
+public class IndexAdvisor {
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT " +
+                    "quote_ident(cl.relname) AS table_name, " +
+                    "con.conname AS constraint_name, " +
+                    "con.confrelid::regclass::text AS referenced_table_name, " +
+                    "ARRAY( " +
+                            "SELECT quote_ident(att.attname) " +
+                            "FROM unnest(con.conkey) WITH ORDINALITY AS k(attnum, ord) " +
+                            "JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = k.attnum " +
+                            "ORDER BY k.ord " +
+                    ") AS column_names " +
+            "FROM pg_constraint con " +
+            "JOIN pg_class cl ON cl.oid = con.conrelid " +
+            "JOIN pg_namespace ns ON cl.relnamespace = ns.oid " +
+            "WHERE con.contype = 'f' " +
+            "AND ns.nspname = coalesce(?, current_schema()) " +
+            "AND cl.relname <> ? " +
+            "ORDER BY cl.relname, con.conname";
+
+    private static final String INDEXES_SQL =
+            "SELECT " +
+                    "quote_ident(cl.relname) AS table_name, " +
+                    "quote_ident(i.relname) AS index_name, " +
+                    "am.amname AS method, " +
+                    "idx.indisunique AS is_unique, " +
+                    "EXISTS (SELECT 1 FROM pg_constraint con WHERE con.conindid = idx.indexrelid AND con.contype IN ('p', 'u', 'x')) AS is_constraint, " +
+                    "ARRAY( " +
+                            "SELECT pg_get_indexdef(idx.indexrelid, k, TRUE) " +
+                            "FROM generate_series(1, idx.indnkeyatts) AS k " +
+                            "ORDER BY k " +
+                    ") AS column_names, " +
+                    "pg_get_expr(idx.indpred, idx.indrelid, TRUE) AS predicate, " +
+                    "coalesce(s.idx_scan, 0) AS scans, " +
+                    "pg_relation_size(idx.indexrelid) AS size_bytes " +
+            "FROM pg_index AS idx " +
+            "JOIN pg_class AS i ON i.oid = idx.indexrelid " +
+            "JOIN pg_class AS cl ON cl.oid = idx.indrelid " +
+            "JOIN pg_am AS am ON i.relam = am.oid " +
+            "JOIN pg_namespace AS ns ON cl.relnamespace = ns.oid " +
+            "LEFT JOIN pg_stat_user_indexes AS s ON s.indexrelid = idx.indexrelid " +
+            "WHERE ns.nspname = coalesce(?, current_schema()) " +
+            "AND cl.relname <> ? " +
+            "AND idx.indisvalid " +
+            "ORDER BY cl.relname, i.relname";
+
+    private final DataSource dataSource;
+    private final String schema;
+    private final String historyTable;
+
+    /**
+     * Creates a new instance of {@link IndexAdvisor}.
+     *
+     * @param dataSource datasource of the migrated database
+     * @param schema schema to inspect or <code>null</code> for the default schema of the connection
+     * @param historyTable name of the schema history table, which is left out
+     */
+    public IndexAdvisor(DataSource dataSource, String schema, String historyTable) {
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.historyTable = historyTable;
+    }
+
+    /**
+     * Inspects the indexes of the schema.
+     *
+     * @return advice
+     * @throws SQLException if the catalog cannot be read
+     */
+    public IndexAdvice advise() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return new IndexAdvice(analyze(getForeignKeys(conn), getIndexes(conn)), getStatsReset(conn));
+        }
+    }
+
+    private List<ForeignKey> getForeignKeys(Connection conn) throws SQLException {
+        final List<ForeignKey> foreignKeys = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(FOREIGN_KEYS_SQL)) {
+            ps.setString(1, schema);
+            ps.setString(2, historyTable);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    foreignKeys.add(new ForeignKey(
+                            rs.getString("table_name"),
+                            rs.getString("constraint_name"),
+                            rs.getString("referenced_table_name"),
+                            Arrays.asList((String[]) rs.getArray("column_names").getArray())));
+                }
+            }
+        }
+
+        return foreignKeys;
+    }
+
+    private List<Index> getIndexes(Connection conn) throws SQLException {
+        final List<Index> indexes = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(INDEXES_SQL)) {
+            ps.setString(1, schema);
+            ps.setString(2, historyTable);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(new Index(
+                            rs.getString("table_name"),
+                            rs.getString("index_name"),
+                            rs.getString("method"),
+                            rs.getBoolean("is_unique"),
+                            rs.getBoolean("is_constraint"),
+                            Arrays.asList((String[]) rs.getArray("column_names").getArray()),
+                            rs.getString("predicate"),
+                            rs.getLong("scans"),
+                            rs.getLong("size_bytes")));
+                }
+            }
+        }
+
+        return indexes;
+    }
+
+    private static String getStatsReset(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT stats_reset::text FROM pg_stat_database WHERE datname = current_database()");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    /**
+     * Finds the index problems of a schema.
+     *
+     * @param foreignKeys foreign keys of the schema
+     * @param indexes valid indexes of the schema
+     * @return problems found, in the order of their {@link IndexFinding.Type}
+     */
+    static List<IndexFinding> analyze(List<ForeignKey> foreignKeys, List<Index> indexes) {
+        final List<IndexFinding> findings = new ArrayList<>();
+        final Set<Index> dropped = new HashSet<>();
+
+        // Foreign keys without a supporting index
+        final Set<String> created = new HashSet<>();
+        for (ForeignKey foreignKey : foreignKeys) {
+            if (indexes.stream().noneMatch(index -> index.supports(foreignKey))) {
+                final String name = indexName(foreignKey.table, foreignKey.columns);
+
+                findings.add(new IndexFinding(IndexFinding.Type.UNINDEXED_FOREIGN_KEY, foreignKey.table, foreignKey.name,
+                        String.format("(%s) references %s", String.join(", ", foreignKey.columns), foreignKey.referencedTable),
+                        created.add(name)
+                                ? String.format("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s (%s);", name, foreignKey.table, String.join(", ", foreignKey.columns))
+                                : null));
+            }
+        }
+
+        // Indexes with the same columns and predicate, keeping the one that is most needed
+        final Map<List<Object>, List<Index>> sameDefinition = indexes.stream()
+                .collect(Collectors.groupingBy(index -> Arrays.asList(index.table, index.method, index.columns, index.predicate),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        for (List<Index> group : sameDefinition.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+
+            final Index kept = Collections.min(group, Comparator
+                    .comparing((Index index) -> !index.constraint)
+                    .thenComparing(index -> !index.unique)
+                    .thenComparing(index -> -index.scans)
+                    .thenComparing(index -> index.name));
+
+            for (Index index : group) {
+                if (index != kept && !index.constraint) {
+                    dropped.add(index);
+                    findings.add(new IndexFinding(IndexFinding.Type.DUPLICATE_INDEX, index.table, index.name,
+                            String.format("same as %s (%s)", kept.name, String.join(", ", index.columns)),
+                            drop(index)));
+                }
+            }
+        }
+
+        // Indexes whose columns lead a wider index
+        for (Index index : indexes) {
+            if (dropped.contains(index) || index.unique || index.constraint) {
+                continue;
+            }
+
+            indexes.stream()
+                    .filter(wider -> !dropped.contains(wider) && index.isPrefixOf(wider))
+                    .findFirst()
+                    .ifPresent(wider -> {
+                        dropped.add(index);
+                        findings.add(new IndexFinding(IndexFinding.Type.REDUNDANT_INDEX, index.table, index.name,
+                                String.format("(%s) leads %s (%s)", String.join(", ", index.columns), wider.name, String.join(", ", wider.columns)),
+                                drop(index)));
+                    });
+        }
+
+        // Indexes that are never scanned
+        for (Index index : indexes) {
+            if (dropped.contains(index) || index.scans > 0 || index.unique || index.constraint) {
+                continue;
+            }
+
+            final boolean onlySupport = foreignKeys.stream()
+                    .anyMatch(foreignKey -> index.supports(foreignKey) && indexes.stream()
+                            .filter(other -> other != index && !dropped.contains(other))
+                            .noneMatch(other -> other.supports(foreignKey)));
+
+            if (!onlySupport) {
+                findings.add(new IndexFinding(IndexFinding.Type.UNUSED_INDEX, index.table, index.name,
+                        String.format("(%s) never scanned, %d bytes", String.join(", ", index.columns), index.sizeBytes),
+                        drop(index)));
+            }
+        }
+
+        findings.sort(Comparator.comparing(IndexFinding::getType));
+
+        return findings;
+    }
+
+    private static String drop(Index index) {
+        return String.format("DROP INDEX CONCURRENTLY IF EXISTS %s;", index.name);
+    }
+
+    /**
+     * Names an index after its table and columns, in the way PostgreSQL names indexes created without a name.
+     */
+    static String indexName(String table, List<String> columns) {
+        final String name = (unquote(table) + "_" + columns.stream().map(IndexAdvisor::unquote).collect(Collectors.joining("_")))
+                .replaceAll("[^A-Za-z0-9_]", "");
+        final String truncated = name.length() > MAX_IDENTIFIER_LENGTH - 4 ? name.substring(0, MAX_IDENTIFIER_LENGTH - 4) : name;
+
+        return (truncated + "_idx").toLowerCase();
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.startsWith("\"") ? identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"") : identifier;
+    }
+
+    /**
+     * Foreign key constraint of a table.
+     */
+    static final class ForeignKey {
+        private final String table;
+        private final String name;
+        private final String referencedTable;
+        private final List<String> columns;
+
+        ForeignKey(String table, String name, String referencedTable, List<String> columns) {
+            this.table = table;
+            this.name = name;
+            this.referencedTable = referencedTable;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Valid index of a table, with the definition of each key column.
+     */
+    static final class Index {
+        private final String table;
+        private final String name;
+        private final String method;
+        private final boolean unique;
+        private final boolean constraint;
+        private final List<String> columns;
+        private final String predicate;
+        private final long scans;
+        private final long sizeBytes;
+
+        Index(String table, String name, String method, boolean unique, boolean constraint, List<String> columns,
+              String predicate, long scans, long sizeBytes) {
+            this.table = table;
+            this.name = name;
+            this.method = method;
+            this.unique = unique;
+            this.constraint = constraint;
+            this.columns = columns;
+            this.predicate = predicate;
+            this.scans = scans;
+            this.sizeBytes = sizeBytes;
+        }
+
+        private boolean isBtree() {
+            return "btree".equals(method) && predicate == null;
+        }
+
+        /**
+         * Whether the foreign key's columns, in any order, are the leading columns of this index.
+         */
+        boolean supports(ForeignKey foreignKey) {
+            return isBtree()
+                    && table.equals(foreignKey.table)
+                    && columns.size() >= foreignKey.columns.size()
+                    && new HashSet<>(columns.subList(0, foreignKey.columns.size())).equals(new HashSet<>(foreignKey.columns));
+        }
+
+        /**
+         * Whether this index's columns are the leading columns of a wider index.
+         */
+        boolean isPrefixOf(Index wider) {
+            return isBtree() && wider.isBtree()
+                    && table.equals(wider.table)
+                    && columns.size() < wider.columns.size()
+                    && columns.equals(wider.columns.subList(0, columns.size()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Index index = (Index) o;
+            return table.equals(index.table) && name.equals(index.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(table, name);
+        }
+    }
+}
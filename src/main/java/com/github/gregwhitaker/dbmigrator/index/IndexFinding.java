@@ -0,0 +1,94 @@
+package com.github.gregwhitaker.dbmigrator.index;
+
+/**
+ * Problem found by the {@link IndexAdvisor}, with the statement that fixes it.
+ */
+public final class IndexFinding {
+
+    /**
+     * Kind of index problem.
+     */
+    public enum Type {
+        /**
+         * Foreign key whose columns are not the leading columns of any index, so updates and deletes on the
+         * referenced table scan the referencing table.
+         */
+        UNINDEXED_FOREIGN_KEY("Unindexed foreign keys"),
+
+        /**
+         * Index with the same columns and predicate as another index on the table.
+         */
+        DUPLICATE_INDEX("Duplicate indexes"),
+
+        /**
+         * Index whose columns are the leading columns of another index on the table.
+         */
+        REDUNDANT_INDEX("Redundant indexes"),
+
+        /**
+         * Index that has not been scanned since the statistics were last reset.
+         */
+        UNUSED_INDEX("Unused indexes");
+
+        private final String title;
+
+        Type(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final Type type;
+    private final String table;
+    private final String name;
+    private final String detail;
+    private final String fix;
+
+    /**
+     * Creates a new instance of {@link IndexFinding}.
+     *
+     * @param type kind of problem
+     * @param table table the problem is on
+     * @param name name of the foreign key or index with the problem
+     * @param detail description of the problem
+     * @param fix statement that fixes the problem or <code>null</code> if the statement of another finding fixes it
+     */
+    public IndexFinding(Type type, String table, String name, String detail, String fix) {
+        this.type = type;
+        this.table = table;
+        this.name = name;
+        this.detail = detail;
+        this.fix = fix;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * @return statement that fixes the problem or <code>null</code> if the statement of another finding fixes it
+     */
+    public String getFix() {
+        return fix;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [table: '%s', name: '%s', detail: '%s']", type, table, name, detail);
+    }
+}
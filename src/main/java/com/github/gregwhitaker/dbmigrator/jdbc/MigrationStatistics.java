@@ -0,0 +1,84 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+import org.flywaydb.core.api.callback.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Statistics of the migration connection at a Flyway callback event, shared by the callbacks that handle the event so
+ * each statistic is queried at most once per event however many of them read it.
+ *
+ * Flyway gives every callback of an event the same context, so the statistics of the last context seen on the current
+ * thread are reused until the next event.
+ */
+public final class MigrationStatistics {
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationStatistics.class);
+
+    private static final ThreadLocal<MigrationStatistics> LAST = new ThreadLocal<>();
+
+    private final Context context;
+    private Long backendPid;
+    private Long rowsChanged;
+
+    private MigrationStatistics(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Gets the statistics of the connection of a callback event.
+     *
+     * @param context callback context
+     * @return statistics
+     */
+    public static MigrationStatistics of(Context context) {
+        final MigrationStatistics last = LAST.get();
+
+        if (last != null && last.context == context) {
+            return last;
+        }
+
+        final MigrationStatistics statistics = new MigrationStatistics(context);
+        LAST.set(statistics);
+
+        return statistics;
+    }
+
+    /**
+     * @return process id of the backend serving the migration connection or <code>0</code> if it cannot be queried
+     */
+    public int backendPid() {
+        if (backendPid == null) {
+            backendPid = queryLong(context.getConnection(), "SELECT pg_backend_pid()");
+        }
+
+        return backendPid.intValue();
+    }
+
+    /**
+     * @return rows changed by the migration's transaction, or by its last statement when it is not transactional, or
+     *         <code>0</code> if they cannot be queried
+     */
+    public long rowsChanged() {
+        if (rowsChanged == null) {
+            rowsChanged = queryLong(context.getConnection(),
+                    "SELECT coalesce(sum(n_tup_ins + n_tup_upd + n_tup_del), 0) FROM pg_stat_xact_user_tables");
+        }
+
+        return rowsChanged;
+    }
+
+    private static long queryLong(Connection conn, String sql) {
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            LOG.debug("Unable to query migration statistics", e);
+            return 0;
+        }
+    }
+}
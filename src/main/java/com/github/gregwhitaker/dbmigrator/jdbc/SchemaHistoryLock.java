@@ -0,0 +1,135 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+import com.github.gregwhitaker.dbmigrator.data.TableInfo;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Flyway's own schema history lock, held on a connection outside of Flyway, so that work Flyway does not do itself
+ * cannot interleave with a migration.
+ *
+ * Flyway locks the schema history on PostgreSQL with a session level advisory lock, which is reentrant, so Flyway can
+ * still take the lock itself on the connection that holds it, but waits for it on any other connection.
+ */
+public class SchemaHistoryLock implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaHistoryLock.class);
+
+    // Flyway keys the lock by "Flyway" in ASCII plus the hash of the quoted history table name
+    private static final long FLYWAY_LOCK_MAGIC_NUM = 0x466C79776179L;
+
+    private final Connection conn;
+    private final long key;
+
+    private SchemaHistoryLock(Connection conn, long key) {
+        this.conn = conn;
+        this.key = key;
+    }
+
+    /**
+     * Waits for and takes the schema history lock of a Flyway configuration.
+     *
+     * @param conn connection to hold the lock on, which must stay open until the lock is released
+     * @param configuration Flyway configuration of the schema history
+     * @return lock, which is released when closed
+     * @throws SQLException if the lock cannot be taken
+     */
+    public static SchemaHistoryLock acquire(Connection conn, Configuration configuration) throws SQLException {
+        final long key = key(schema(conn, configuration), configuration.getTable());
+
+        LOG.debug("Waiting for the schema history lock [key: '{}']", key);
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            ps.setLong(1, key);
+            ps.execute();
+        }
+
+        return new SchemaHistoryLock(conn, key);
+    }
+
+    /**
+     * Gets a datasource that hands out the connection holding the lock and ignores attempts to close it, so that Flyway
+     * can be run under the lock.
+     *
+     * @return datasource of the locked connection
+     */
+    public DataSource getDataSource() {
+        final Connection unclosable = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class },
+                (proxy, method, args) -> "close".equals(method.getName()) ? null : invoke(conn, method, args));
+
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{ DataSource.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return unclosable;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SchemaHistoryLock[key: " + key + "]";
+                default:
+                    throw new SQLFeatureNotSupportedException(method.getName());
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gets the key of the advisory lock Flyway takes on a schema history table.
+     *
+     * @param schema schema of the schema history table
+     * @param table name of the schema history table
+     * @return advisory lock key
+     */
+    static long key(String schema, String table) {
+        return FLYWAY_LOCK_MAGIC_NUM + (TableInfo.quote(schema) + "." + TableInfo.quote(table)).hashCode();
+    }
+
+    /**
+     * Gets the schema of the schema history, the first configured schema or else the current schema of the connection,
+     * as Flyway does.
+     */
+    private static String schema(Connection conn, Configuration configuration) throws SQLException {
+        final String[] schemas = configuration.getSchemas();
+
+        if (schemas.length > 0) {
+            return schemas[0];
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT current_schema()");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * Releases the lock, which only logs a failure, as the lock is released with the session anyway.
+     */
+    @Override
+    public void close() {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, key);
+            ps.execute();
+        } catch (SQLException e) {
+            LOG.warn("Unable to release the schema history lock [key: '{}']", key, e);
+        }
+    }
+}
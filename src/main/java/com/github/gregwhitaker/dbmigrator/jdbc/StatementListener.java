@@ -0,0 +1,31 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+/**
+ * Listener told of the statements executed over the connections of a {@link StatementListenerDataSource}.
+ */
+public interface StatementListener {
+
+    /**
+     * @return <code>true</code> if the listener wants the statements of connections got by the current thread
+     */
+    boolean isEnabled();
+
+    /**
+     * Called before a statement is executed.
+     *
+     * @param sql statement text or <code>null</code> if unknown
+     * @return state handed back to {@link #afterExecute} or <code>null</code> to ignore the statement
+     */
+    Object beforeExecute(String sql);
+
+    /**
+     * Called after a statement the listener did not ignore was executed, whether it succeeded or not.
+     *
+     * @param state state returned by {@link #beforeExecute}
+     * @param sql statement text or <code>null</code> if unknown
+     * @param startNanoTime {@link System#nanoTime()} when the statement started
+     * @param rows rows affected or <code>-1</code> if unknown
+     * @param error failure of the statement or <code>null</code> if it succeeded
+     */
+    void afterExecute(Object state, String sql, long startNanoTime, long rows, Throwable error);
+}
@@ -0,0 +1,161 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * {@link DataSource} that tells its {@link StatementListener}s of each statement executed over its connections, which
+ * is how the statements of each migration show up in flight recordings and migration traces, as Flyway has no per
+ * statement callbacks.
+ *
+ * Connections are only wrapped while a listener is enabled on the thread getting them, so there is no overhead
+ * otherwise, and a statement executed by a wrapped connection is only timed once however many listeners see it.
+ */
+public class StatementListenerDataSource implements DataSource {
+    private final DataSource dataSource;
+    private final StatementListener[] listeners;
+
+    /**
+     * Creates a new instance of {@link StatementListenerDataSource}.
+     *
+     * @param dataSource datasource to wrap
+     * @param listeners listeners to tell of each statement
+     */
+    public StatementListenerDataSource(DataSource dataSource, List<StatementListener> listeners) {
+        this.dataSource = dataSource;
+        this.listeners = listeners.toArray(new StatementListener[0]);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(dataSource.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        if (!isEnabled()) {
+            return connection;
+        }
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+            final Object result = invoke(connection, method, args);
+
+            if (result instanceof Statement) {
+                // Prepared statements carry their sql, plain statements are given it when executed
+                final String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return wrap((Statement) result, method.getReturnType(), sql);
+            }
+
+            return result;
+        });
+    }
+
+    private Object wrap(Statement statement, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{ type }, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            final String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+
+            final Object[] states = new Object[listeners.length];
+            boolean listening = false;
+            for (int i = 0; i < listeners.length; i++) {
+                states[i] = listeners[i].beforeExecute(sql);
+                listening |= states[i] != null;
+            }
+
+            if (!listening) {
+                return invoke(statement, method, args);
+            }
+
+            final long start = System.nanoTime();
+
+            final Object result;
+            try {
+                result = invoke(statement, method, args);
+            } catch (Throwable e) {
+                afterExecute(states, sql, start, -1, e);
+                throw e;
+            }
+
+            afterExecute(states, sql, start, result instanceof Number ? ((Number) result).longValue() : result instanceof Boolean ? statement.getUpdateCount() : -1, null);
+
+            return result;
+        });
+    }
+
+    private boolean isEnabled() {
+        for (StatementListener listener : listeners) {
+            if (listener.isEnabled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void afterExecute(Object[] states, String sql, long startNanoTime, long rows, Throwable error) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (states[i] != null) {
+                listeners[i].afterExecute(states[i], sql, startNanoTime, rows, error);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
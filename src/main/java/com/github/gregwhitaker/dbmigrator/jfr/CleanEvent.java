@@ -0,0 +1,21 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Dropping every object in the database.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.Clean")
+@Label("Clean")
+@Category("Database Migrator")
+@Description("Dropping every object in the database.")
+@StackTrace(false)
+public class CleanEvent extends Event {
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,24 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of the migrator configuration from the environment, system properties and command line.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.ConfigResolution")
+@Label("Config Resolution")
+@Category("Database Migrator")
+@Description("Resolution of the migrator configuration from the environment, system properties and command line.")
+@StackTrace(false)
+public class ConfigResolutionEvent extends Event {
+    @Label("Environment")
+    public String environment;
+
+    @Label("Server Mode")
+    public boolean server;
+}
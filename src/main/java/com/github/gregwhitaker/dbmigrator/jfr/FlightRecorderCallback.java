@@ -0,0 +1,329 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import com.github.gregwhitaker.dbmigrator.jdbc.MigrationStatistics;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flyway callback that emits Java Flight Recorder events for the phases of a Flyway command, so that a recording of a
+ * slow migration shows the location scan, validation, clean and each migration or undo next to GC, I/O and thread activity.
+ *
+ * Events that are not enabled in any running recording cost a flag check. The extra queries for the rows changed by a
+ * migration and the lock wait samples are only run while their events are enabled. Lock waits are sampled from a
+ * separate connection, as the migrating connection is blocked while it waits, by the periodic
+ * {@link LockWaitSampleEvent}, and the number of samples taken during each migration is added to its event.
+ */
+public class FlightRecorderCallback implements Callback {
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderCallback.class);
+
+    private static final ThreadLocal<String> CURRENT_MIGRATION = new ThreadLocal<>();
+    private static final Set<LockWaitSampler> SAMPLERS = ConcurrentHashMap.newKeySet();
+
+    static {
+        // Registered once the recorder starts, so the migrator does not initialize it when nothing is being recorded
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightRecorder.addPeriodicEvent(LockWaitSampleEvent.class, () -> SAMPLERS.forEach(LockWaitSampler::sample));
+            }
+        });
+    }
+
+    private final DataSource dataSource;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    /**
+     * Creates a new instance of {@link FlightRecorderCallback}.
+     *
+     * @param dataSource datasource for the lock wait sampling connection
+     */
+    public FlightRecorderCallback(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Gets the migration being applied by the current thread.
+     *
+     * @return migration version, or description for repeatable migrations, or <code>null</code> outside a migration
+     */
+    static String currentMigration() {
+        return CURRENT_MIGRATION.get();
+    }
+
+    /**
+     * Starts the location scan event of a Flyway command. Call before the command, which ends the event when it starts
+     * its first phase, and call {@link #endScan()} after it in case it failed before doing so.
+     *
+     * @param env migration environment name
+     * @param locations migration locations
+     */
+    public void beginScan(String env, String[] locations) {
+        final LocationScanEvent event = new LocationScanEvent();
+        event.begin();
+        event.environment = env;
+        event.locations = String.join(",", locations);
+
+        state.get().scan = event;
+    }
+
+    /**
+     * Ends the location scan event if the Flyway command did not.
+     */
+    public void endScan() {
+        final State current = state.get();
+
+        if (current.scan != null) {
+            current.scan.commit();
+            current.scan = null;
+        }
+    }
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        switch (event) {
+            case BEFORE_VALIDATE:
+            case AFTER_VALIDATE:
+            case AFTER_VALIDATE_ERROR:
+            case BEFORE_MIGRATE:
+            case AFTER_MIGRATE:
+            case AFTER_MIGRATE_ERROR:
+            case BEFORE_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE_ERROR:
+            case BEFORE_UNDO:
+            case AFTER_UNDO:
+            case AFTER_UNDO_ERROR:
+            case BEFORE_EACH_UNDO:
+            case AFTER_EACH_UNDO:
+            case AFTER_EACH_UNDO_ERROR:
+            case BEFORE_CLEAN:
+            case AFTER_CLEAN:
+            case AFTER_CLEAN_ERROR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        // Only reads statistics, so it is safe inside the migration's transaction
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        final State current = state.get();
+
+        switch (event) {
+            case BEFORE_VALIDATE:
+                endScan();
+                current.validation = new ValidationEvent();
+                current.validation.begin();
+                break;
+            case AFTER_VALIDATE:
+            case AFTER_VALIDATE_ERROR:
+                if (current.validation != null) {
+                    current.validation.success = event == Event.AFTER_VALIDATE;
+                    current.validation.commit();
+                    current.validation = null;
+                }
+                break;
+            case BEFORE_MIGRATE:
+                endScan();
+                startSampling(current);
+                break;
+            case BEFORE_UNDO:
+                startSampling(current);
+                break;
+            case AFTER_MIGRATE:
+            case AFTER_MIGRATE_ERROR:
+            case AFTER_UNDO:
+            case AFTER_UNDO_ERROR:
+                stopSampling(current);
+                break;
+            case BEFORE_EACH_MIGRATE:
+            case BEFORE_EACH_UNDO:
+                beginMigration(current, context, event == Event.BEFORE_EACH_UNDO);
+                break;
+            case AFTER_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE_ERROR:
+            case AFTER_EACH_UNDO:
+            case AFTER_EACH_UNDO_ERROR:
+                endMigration(current, context, event == Event.AFTER_EACH_MIGRATE || event == Event.AFTER_EACH_UNDO);
+                break;
+            case BEFORE_CLEAN:
+                endScan();
+                current.clean = new CleanEvent();
+                current.clean.begin();
+                break;
+            case AFTER_CLEAN:
+            case AFTER_CLEAN_ERROR:
+                if (current.clean != null) {
+                    current.clean.success = event == Event.AFTER_CLEAN;
+                    current.clean.commit();
+                    current.clean = null;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void beginMigration(State current, Context context, boolean undo) {
+        final MigrationInfo info = context.getMigrationInfo();
+        final String migration = info.getVersion() != null ? info.getVersion().getVersion() : info.getDescription();
+        CURRENT_MIGRATION.set(migration);
+
+        current.migration = new MigrationEvent();
+        current.migration.begin();
+        current.migration.version = info.getVersion() != null ? info.getVersion().getVersion() : null;
+        current.migration.description = info.getDescription();
+        current.migration.script = info.getScript();
+        current.migration.type = info.getType().name();
+        current.migration.undo = undo;
+
+        if (current.sampler != null) {
+            current.sampler.start(MigrationStatistics.of(context).backendPid(), migration);
+        }
+    }
+
+    private void endMigration(State current, Context context, boolean success) {
+        CURRENT_MIGRATION.remove();
+
+        final MigrationEvent migration = current.migration;
+        current.migration = null;
+
+        if (current.sampler != null) {
+            final int samples = current.sampler.stop();
+
+            if (migration != null) {
+                migration.lockWaitSamples = samples;
+            }
+        }
+
+        if (migration == null) {
+            return;
+        }
+
+        migration.end();
+        if (!migration.shouldCommit()) {
+            return;
+        }
+
+        migration.success = success;
+
+        if (success) {
+            migration.rows = MigrationStatistics.of(context).rowsChanged();
+        }
+
+        migration.commit();
+    }
+
+    private void startSampling(State current) {
+        if (!new LockWaitSampleEvent().isEnabled()) {
+            return;
+        }
+
+        try {
+            current.sampler = new LockWaitSampler(dataSource.getConnection());
+            SAMPLERS.add(current.sampler);
+        } catch (SQLException e) {
+            LOG.debug("Unable to open lock wait sampling connection", e);
+        }
+    }
+
+    private void stopSampling(State current) {
+        if (current.sampler != null) {
+            SAMPLERS.remove(current.sampler);
+            current.sampler.close();
+            current.sampler = null;
+        }
+    }
+
+    /**
+     * Events in progress on the thread running a Flyway command.
+     */
+    private static class State {
+        private LocationScanEvent scan;
+        private ValidationEvent validation;
+        private MigrationEvent migration;
+        private CleanEvent clean;
+        private LockWaitSampler sampler;
+    }
+
+    /**
+     * Samples what the backend applying the current migration is waiting on, over its own connection.
+     */
+    private static class LockWaitSampler {
+        private final Connection connection;
+        private int pid;
+        private String migration;
+        private int samples;
+
+        LockWaitSampler(Connection connection) {
+            this.connection = connection;
+        }
+
+        synchronized void start(int pid, String migration) {
+            this.pid = pid;
+            this.migration = migration;
+            this.samples = 0;
+        }
+
+        synchronized int stop() {
+            this.pid = 0;
+            this.migration = null;
+
+            return samples;
+        }
+
+        synchronized void sample() {
+            if (pid == 0) {
+                return;
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT wait_event, pg_blocking_pids(pid)::text FROM pg_stat_activity WHERE pid = ? AND wait_event_type = 'Lock'")) {
+                ps.setInt(1, pid);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        final LockWaitSampleEvent event = new LockWaitSampleEvent();
+                        event.migration = migration;
+                        event.pid = pid;
+                        event.waitEvent = rs.getString(1);
+                        event.blockingPids = rs.getString(2);
+                        event.commit();
+
+                        samples++;
+                    }
+                }
+            } catch (SQLException e) {
+                LOG.debug("Unable to sample lock waits", e);
+            }
+        }
+
+        synchronized void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.debug("Unable to close lock wait sampling connection", e);
+            }
+        }
+    }
+}
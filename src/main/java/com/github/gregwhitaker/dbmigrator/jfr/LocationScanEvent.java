@@ -0,0 +1,24 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Scanning the migration locations and reading the schema history before a Flyway command starts.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.LocationScan")
+@Label("Location Scan")
+@Category("Database Migrator")
+@Description("Scanning the migration locations and reading the schema history before a Flyway command starts.")
+@StackTrace(false)
+public class LocationScanEvent extends Event {
+    @Label("Environment")
+    public String environment;
+
+    @Label("Locations")
+    public String locations;
+}
@@ -0,0 +1,32 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Sample of what a backend applying a migration is waiting on, taken while it waits for a lock.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.LockWaitSample")
+@Label("Lock Wait Sample")
+@Category("Database Migrator")
+@Description("Sample of what a backend applying a migration is waiting on, taken while it waits for a lock.")
+@Period("200 ms")
+@StackTrace(false)
+public class LockWaitSampleEvent extends Event {
+    @Label("Migration Version")
+    public String migration;
+
+    @Label("Backend PID")
+    public int pid;
+
+    @Label("Wait Event")
+    public String waitEvent;
+
+    @Label("Blocking Backend PIDs")
+    public String blockingPids;
+}
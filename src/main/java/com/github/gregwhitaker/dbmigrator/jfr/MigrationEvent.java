@@ -0,0 +1,42 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Application of a single migration.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.Migration")
+@Label("Migration")
+@Category("Database Migrator")
+@Description("Application of a single migration.")
+@StackTrace(false)
+public class MigrationEvent extends Event {
+    @Label("Version")
+    public String version;
+
+    @Label("Migration Description")
+    public String description;
+
+    @Label("Script")
+    public String script;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Undo")
+    public boolean undo;
+
+    @Label("Rows Changed")
+    public long rows;
+
+    @Label("Lock Wait Samples")
+    public int lockWaitSamples;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,24 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Creation of a connection pool, including opening its first connection.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.PoolInitialization")
+@Label("Pool Initialization")
+@Category("Database Migrator")
+@Description("Creation of a connection pool, including opening its first connection.")
+@StackTrace(false)
+public class PoolInitializationEvent extends Event {
+    @Label("JDBC URL")
+    public String jdbcUrl;
+
+    @Label("Maximum Pool Size")
+    public int maximumPoolSize;
+}
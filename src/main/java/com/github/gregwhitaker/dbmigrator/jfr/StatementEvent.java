@@ -0,0 +1,29 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Execution of a single statement by Flyway, such as a statement of a migration script.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.Statement")
+@Label("Statement")
+@Category("Database Migrator")
+@Description("Execution of a single statement by Flyway, such as a statement of a migration script.")
+@StackTrace(false)
+@Threshold("10 ms")
+public class StatementEvent extends Event {
+    @Label("Migration Version")
+    public String migration;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows Affected")
+    public long rows;
+}
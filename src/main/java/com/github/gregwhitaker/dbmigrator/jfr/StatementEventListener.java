@@ -0,0 +1,41 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import com.github.gregwhitaker.dbmigrator.jdbc.StatementListener;
+
+/**
+ * {@link StatementListener} that emits a {@link StatementEvent} for each statement, and only listens while the event is
+ * enabled in a running recording.
+ */
+public class StatementEventListener implements StatementListener {
+    private static final int MAX_SQL_LENGTH = 1000;
+
+    @Override
+    public boolean isEnabled() {
+        return new StatementEvent().isEnabled();
+    }
+
+    @Override
+    public Object beforeExecute(String sql) {
+        final StatementEvent event = new StatementEvent();
+
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void afterExecute(Object state, String sql, long startNanoTime, long rows, Throwable error) {
+        final StatementEvent event = (StatementEvent) state;
+
+        event.end();
+        if (error == null && event.shouldCommit()) {
+            event.migration = FlightRecorderCallback.currentMigration();
+            event.sql = sql != null && sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+}
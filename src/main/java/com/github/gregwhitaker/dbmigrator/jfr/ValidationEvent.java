@@ -0,0 +1,21 @@
+package com.github.gregwhitaker.dbmigrator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Validation of the applied migrations against the resolved migrations.
+ */
+@Name("com.github.gregwhitaker.dbmigrator.Validation")
+@Label("Validation")
+@Category("Database Migrator")
+@Description("Validation of the applied migrations against the resolved migrations.")
+@StackTrace(false)
+public class ValidationEvent extends Event {
+    @Label("Success")
+    public boolean success;
+}
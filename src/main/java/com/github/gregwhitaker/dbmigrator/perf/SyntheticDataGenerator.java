@@ -0,0 +1,190 @@
+package com.github.gregwhitaker.dbmigrator.perf;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a synthetic <code>metadata</code> dataset into a performance test database.
+ *
+ * The <code>metadata_type</code> rows are inserted first, then the <code>metadata</code> rows are generated by
+ * {@link SyntheticMetadataRows} and streamed into the database with <code>COPY</code> from several connections in
+ * parallel, each committing one chunk at a time.
+ */
+public class SyntheticDataGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    static final String TYPE_NAME_PREFIX = "perf-type-";
+
+    private static final String COPY_SQL = "COPY metadata (metadata_value, metadata_type, modified_on) FROM STDIN";
+    private static final int COPY_BUFFER_SIZE = 1 << 20;
+
+    private final DataSource dataSource;
+    private final SyntheticDataSpec spec;
+
+    /**
+     * Creates a new instance of {@link SyntheticDataGenerator}.
+     *
+     * @param dataSource datasource of the performance test database
+     * @param spec dataset specification
+     */
+    public SyntheticDataGenerator(DataSource dataSource, SyntheticDataSpec spec) {
+        this.dataSource = dataSource;
+        this.spec = spec;
+    }
+
+    /**
+     * Replaces any previously generated data with a new dataset and waits for it to be loaded.
+     *
+     * @throws SQLException if the data cannot be loaded
+     * @throws InterruptedException if loading is interrupted
+     */
+    public void generate() throws SQLException, InterruptedException {
+        LOG.info("Generating synthetic data [{}]", spec);
+
+        final long start = System.currentTimeMillis();
+
+        removeGeneratedData();
+
+        final SyntheticMetadataRows rows = new SyntheticMetadataRows(spec, insertTypes(), Instant.now().getEpochSecond());
+        final AtomicLong nextChunk = new AtomicLong();
+        final AtomicLong loaded = new AtomicLong();
+        final int threads = (int) Math.max(1, Math.min(spec.getThreads(), rows.getChunkCount()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection conn = dataSource.getConnection()) {
+                        for (long chunk = nextChunk.getAndIncrement(); chunk < rows.getChunkCount(); chunk = nextChunk.getAndIncrement()) {
+                            final long total = loaded.addAndGet(copy(conn, rows, chunk));
+
+                            LOG.debug("Loaded synthetic data chunk [chunk: '{}', loaded: '{}']", chunk, total);
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SQLException) {
+                        throw (SQLException) e.getCause();
+                    }
+
+                    throw new IllegalStateException("Error occurred while loading synthetic data", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final long duration = Math.max(1, System.currentTimeMillis() - start);
+
+        LOG.info("Generated synthetic data [rows: '{}', duration: '{}ms', rowsPerSecond: '{}']",
+                loaded.get(), duration, loaded.get() * 1000 / duration);
+    }
+
+    /**
+     * Streams one chunk of rows into the database with <code>COPY</code>.
+     */
+    private static long copy(Connection conn, SyntheticMetadataRows rows, long chunk) throws SQLException, IOException {
+        final PGConnection pgConn = conn.unwrap(PGConnection.class);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pgConn, COPY_SQL, COPY_BUFFER_SIZE), StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+            return rows.write(chunk, out);
+        }
+    }
+
+    /**
+     * Removes the data of an earlier run, so that changing the dataset specification replaces the data rather than
+     * adding to it.
+     */
+    private void removeGeneratedData() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT count(*) FROM metadata_type WHERE type_name LIKE ?")) {
+            ps.setString(1, TYPE_NAME_PREFIX + "%");
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+
+                if (rs.getLong(1) == 0) {
+                    return;
+                }
+            }
+
+            // Deleting hundreds of millions of rows would take far longer than loading them, so start again from empty
+            LOG.warn("Removing previously generated synthetic data, all rows in metadata are truncated");
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("TRUNCATE metadata");
+            }
+
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM metadata_type WHERE type_name LIKE ?")) {
+                delete.setString(1, TYPE_NAME_PREFIX + "%");
+                delete.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Inserts the generated metadata types after any existing ones.
+     *
+     * @return ids of all metadata types
+     */
+    private long[] insertTypes() throws SQLException {
+        final String sql =
+                "INSERT INTO metadata_type (id, type_name, type_value) " +
+                "SELECT     (SELECT COALESCE(max(id), 0) FROM metadata_type) + i, ? || i, 'perfTypeValue' || i " +
+                "FROM       generate_series(1, ?) AS i";
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setString(1, TYPE_NAME_PREFIX);
+                ps.setInt(2, spec.getTypeCount());
+                ps.executeUpdate();
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                // The ids are assigned explicitly, so move the sequence past them
+                stmt.execute("SELECT setval(pg_get_serial_sequence('metadata_type', 'id'), (SELECT max(id) FROM metadata_type))");
+            }
+
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM metadata_type ORDER BY id")) {
+                final List<Long> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+
+                return ids.stream().mapToLong(Long::longValue).toArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.gregwhitaker.dbmigrator.perf;
+
+import java.util.Objects;
+
+/**
+ * Shape of the synthetic <code>metadata</code> dataset loaded into performance test databases.
+ *
+ * Every value is read from a <code>db.perf.*</code> system property so the dataset can be sized when running the
+ * migrator, for example <code>-Ddb.perf.rows=100000000</code>.
+ */
+public final class SyntheticDataSpec {
+
+    /**
+     * Gets the dataset specification from system properties, using the defaults for any that are not set.
+     *
+     * @return dataset specification
+     */
+    public static SyntheticDataSpec fromSystemProperties() {
+        return new SyntheticDataSpec(
+                Long.getLong("db.perf.rows", 1_000_000L),
+                Long.getLong("db.perf.seed", 42L),
+                Integer.getInteger("db.perf.threads", 4),
+                Integer.getInteger("db.perf.typeCount", 100),
+                Double.parseDouble(System.getProperty("db.perf.typeSkew", "1.1")),
+                Integer.getInteger("db.perf.valueLengthMedian", 24),
+                Double.parseDouble(System.getProperty("db.perf.valueLengthSigma", "0.5")),
+                Integer.getInteger("db.perf.modifiedMeanAgeDays", 30),
+                Integer.getInteger("db.perf.modifiedMaxAgeDays", 730));
+    }
+
+    private final long rows;
+    private final long seed;
+    private final int threads;
+    private final int typeCount;
+    private final double typeSkew;
+    private final int valueLengthMedian;
+    private final double valueLengthSigma;
+    private final int modifiedMeanAgeDays;
+    private final int modifiedMaxAgeDays;
+
+    /**
+     * Creates a new instance of {@link SyntheticDataSpec}.
+     *
+     * @param rows number of <code>metadata</code> rows to generate
+     * @param seed random seed, the same seed and shape always generate the same rows
+     * @param threads number of row streams loaded in parallel
+     * @param typeCount number of <code>metadata_type</code> rows to generate
+     * @param typeSkew Zipf exponent of how rows are spread across types, <code>0</code> for uniform
+     * @param valueLengthMedian median length of <code>metadata_value</code>
+     * @param valueLengthSigma log-normal spread of <code>metadata_value</code> lengths
+     * @param modifiedMeanAgeDays mean age of <code>modified_on</code>, most rows are recently modified
+     * @param modifiedMaxAgeDays maximum age of <code>modified_on</code>
+     */
+    public SyntheticDataSpec(long rows,
+                             long seed,
+                             int threads,
+                             int typeCount,
+                             double typeSkew,
+                             int valueLengthMedian,
+                             double valueLengthSigma,
+                             int modifiedMeanAgeDays,
+                             int modifiedMaxAgeDays) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Rows must not be negative: " + rows);
+        }
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be greater than zero: " + threads);
+        }
+
+        if (typeCount <= 0) {
+            throw new IllegalArgumentException("Type count must be greater than zero: " + typeCount);
+        }
+
+        if (valueLengthMedian <= 0 || valueLengthMedian > SyntheticMetadataRows.MAX_VALUE_LENGTH) {
+            throw new IllegalArgumentException("Value length median must be between 1 and " + SyntheticMetadataRows.MAX_VALUE_LENGTH + ": " + valueLengthMedian);
+        }
+
+        if (modifiedMeanAgeDays <= 0 || modifiedMaxAgeDays < modifiedMeanAgeDays) {
+            throw new IllegalArgumentException(String.format("Invalid modified age [mean: '%d', max: '%d']", modifiedMeanAgeDays, modifiedMaxAgeDays));
+        }
+
+        this.rows = rows;
+        this.seed = seed;
+        this.threads = threads;
+        this.typeCount = typeCount;
+        this.typeSkew = typeSkew;
+        this.valueLengthMedian = valueLengthMedian;
+        this.valueLengthSigma = valueLengthSigma;
+        this.modifiedMeanAgeDays = modifiedMeanAgeDays;
+        this.modifiedMaxAgeDays = modifiedMaxAgeDays;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getTypeCount() {
+        return typeCount;
+    }
+
+    public double getTypeSkew() {
+        return typeSkew;
+    }
+
+    public int getValueLengthMedian() {
+        return valueLengthMedian;
+    }
+
+    public double getValueLengthSigma() {
+        return valueLengthSigma;
+    }
+
+    public int getModifiedMeanAgeDays() {
+        return modifiedMeanAgeDays;
+    }
+
+    public int getModifiedMaxAgeDays() {
+        return modifiedMaxAgeDays;
+    }
+
+    /**
+     * Gets a checksum of the properties that change the generated data. The number of threads only changes how fast
+     * the data is loaded, so it is not included.
+     *
+     * @return dataset checksum
+     */
+    public int checksum() {
+        return Objects.hash(rows, seed, typeCount, typeSkew, valueLengthMedian, valueLengthSigma, modifiedMeanAgeDays, modifiedMaxAgeDays);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows: '%d', seed: '%d', threads: '%d', typeCount: '%d', typeSkew: '%s', valueLengthMedian: '%d', " +
+                        "valueLengthSigma: '%s', modifiedMeanAgeDays: '%d', modifiedMaxAgeDays: '%d'",
+                rows, seed, threads, typeCount, typeSkew, valueLengthMedian, valueLengthSigma, modifiedMeanAgeDays, modifiedMaxAgeDays);
+    }
+}
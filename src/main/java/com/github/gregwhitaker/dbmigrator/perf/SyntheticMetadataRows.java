@@ -0,0 +1,161 @@
+package com.github.gregwhitaker.dbmigrator.perf;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates synthetic <code>metadata</code> rows in <code>COPY</code> text format.
+ *
+ * Rows are generated in fixed size chunks that each have their own random stream derived from the seed, so chunks can
+ * be generated in any order and on any number of threads and still produce exactly the same dataset.
+ *
+ * The distributions follow what production metadata tends to look like:
+ * <ul>
+ *     <li><code>metadata_type</code> - Zipf distributed, so a few types hold most of the rows</li>
+ *     <li><code>metadata_value</code> - log-normal lengths around the median, capped at the column length</li>
+ *     <li><code>modified_on</code> - exponentially distributed age, so most rows were modified recently</li>
+ * </ul>
+ */
+public class SyntheticMetadataRows {
+
+    public static final int CHUNK_ROWS = 250_000;
+
+    static final int MAX_VALUE_LENGTH = 255;
+
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SyntheticDataSpec spec;
+    private final long[] typeIds;
+    private final double[] typeCdf;
+    private final long referenceEpochSecond;
+    private final double meanAgeSeconds;
+    private final long maxAgeSeconds;
+
+    /**
+     * Creates a new instance of {@link SyntheticMetadataRows}.
+     *
+     * @param spec dataset specification
+     * @param typeIds ids of the <code>metadata_type</code> rows to reference
+     * @param referenceEpochSecond time that <code>modified_on</code> ages are measured back from
+     */
+    public SyntheticMetadataRows(SyntheticDataSpec spec, long[] typeIds, long referenceEpochSecond) {
+        if (typeIds.length == 0) {
+            throw new IllegalArgumentException("At least one metadata type id is required");
+        }
+
+        this.spec = spec;
+        this.typeIds = shuffle(typeIds, spec.getSeed());
+        this.typeCdf = zipfCdf(typeIds.length, spec.getTypeSkew());
+        this.referenceEpochSecond = referenceEpochSecond;
+        this.meanAgeSeconds = TimeUnit.DAYS.toSeconds(spec.getModifiedMeanAgeDays());
+        this.maxAgeSeconds = TimeUnit.DAYS.toSeconds(spec.getModifiedMaxAgeDays());
+    }
+
+    /**
+     * @return number of chunks in the dataset
+     */
+    public long getChunkCount() {
+        return (spec.getRows() + CHUNK_ROWS - 1) / CHUNK_ROWS;
+    }
+
+    /**
+     * Writes the rows of a chunk as <code>COPY metadata (metadata_value, metadata_type, modified_on)</code> text.
+     *
+     * @param chunk chunk number, from zero to {@link #getChunkCount()} exclusive
+     * @param out destination of the rows
+     * @return number of rows written
+     * @throws IOException if the rows cannot be written
+     */
+    public long write(long chunk, Writer out) throws IOException {
+        final long first = chunk * CHUNK_ROWS;
+        final long rows = Math.min(CHUNK_ROWS, spec.getRows() - first);
+        final SplittableRandom random = new SplittableRandom(spec.getSeed() + (chunk + 1) * GOLDEN_GAMMA);
+        final char[] value = new char[MAX_VALUE_LENGTH];
+
+        for (long i = 0; i < rows; i++) {
+            final int length = valueLength(random);
+            for (int c = 0; c < length; c++) {
+                value[c] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+
+            out.write(value, 0, length);
+            out.write('\t');
+            out.write(Long.toString(typeId(random)));
+            out.write('\t');
+            out.write(modifiedOn(random).toString());
+            out.write('\n');
+        }
+
+        return Math.max(rows, 0);
+    }
+
+    private int valueLength(SplittableRandom random) {
+        // Box-Muller transform, SplittableRandom has no gaussian of its own
+        final double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        final long length = Math.round(spec.getValueLengthMedian() * Math.exp(spec.getValueLengthSigma() * gaussian));
+
+        return (int) Math.max(1, Math.min(MAX_VALUE_LENGTH, length));
+    }
+
+    private long typeId(SplittableRandom random) {
+        final double p = random.nextDouble();
+
+        int low = 0;
+        int high = typeCdf.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (typeCdf[mid] < p) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return typeIds[low];
+    }
+
+    private LocalDateTime modifiedOn(SplittableRandom random) {
+        // Wrap rather than clamp ages beyond the maximum, so they do not pile up on the oldest timestamp
+        final long ageSeconds = (long) (-Math.log(1 - random.nextDouble()) * meanAgeSeconds) % maxAgeSeconds;
+
+        return LocalDateTime.ofEpochSecond(referenceEpochSecond - ageSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Shuffles the type ids so the most frequent types are not simply the lowest ids.
+     */
+    private static long[] shuffle(long[] typeIds, long seed) {
+        final long[] shuffled = typeIds.clone();
+        final SplittableRandom random = new SplittableRandom(seed);
+
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final long tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+
+        return shuffled;
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        final double[] cdf = new double[size];
+
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = total;
+        }
+
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+
+        return cdf;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+/**
+ * Table lock levels taken by PostgreSQL statements, from weakest to strongest.
+ */
+public enum LockLevel {
+    NONE("none"),
+    ACCESS_SHARE("ACCESS SHARE"),
+    ROW_EXCLUSIVE("ROW EXCLUSIVE"),
+    SHARE_UPDATE_EXCLUSIVE("SHARE UPDATE EXCLUSIVE"),
+    SHARE("SHARE"),
+    SHARE_ROW_EXCLUSIVE("SHARE ROW EXCLUSIVE"),
+    EXCLUSIVE("EXCLUSIVE"),
+    ACCESS_EXCLUSIVE("ACCESS EXCLUSIVE");
+
+    private final String value;
+
+    LockLevel(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return <code>true</code> if the lock blocks concurrent inserts, updates and deletes
+     */
+    public boolean blocksWrites() {
+        return compareTo(SHARE) >= 0;
+    }
+
+    /**
+     * @return <code>true</code> if the lock also blocks concurrent reads
+     */
+    public boolean blocksReads() {
+        return this == ACCESS_EXCLUSIVE;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
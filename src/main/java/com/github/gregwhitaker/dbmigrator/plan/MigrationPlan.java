@@ -0,0 +1,102 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Estimated cost of the pending migrations of a database, ranked from most to least expensive statement.
+ */
+public class MigrationPlan {
+    private static final int MAX_SQL_LENGTH = 60;
+
+    private final List<String> pendingMigrations;
+    private final List<PlannedStatement> statements;
+
+    /**
+     * Creates a new instance of {@link MigrationPlan}.
+     *
+     * @param pendingMigrations scripts of the pending migrations in the order they will be applied
+     * @param statements estimated statements of the pending migrations
+     */
+    public MigrationPlan(List<String> pendingMigrations, List<PlannedStatement> statements) {
+        final List<PlannedStatement> ranked = new ArrayList<>(statements);
+        ranked.sort(Comparator.comparingLong(PlannedStatement::getEstimatedMillis)
+                .thenComparing(statement -> statement.getLockLevel() != null ? statement.getLockLevel() : LockLevel.ACCESS_EXCLUSIVE)
+                .reversed());
+
+        this.pendingMigrations = Collections.unmodifiableList(new ArrayList<>(pendingMigrations));
+        this.statements = Collections.unmodifiableList(ranked);
+    }
+
+    public List<String> getPendingMigrations() {
+        return pendingMigrations;
+    }
+
+    /**
+     * @return statements ranked from longest to shortest estimated duration
+     */
+    public List<PlannedStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return estimated duration of all pending migrations in milliseconds
+     */
+    public long getEstimatedMillis() {
+        return statements.stream().mapToLong(PlannedStatement::getEstimatedMillis).sum();
+    }
+
+    /**
+     * Prints the ranked report.
+     *
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("Migration plan [pending migrations: %d, statements: %d, estimated duration: %s]%n",
+                pendingMigrations.size(), statements.size(), formatDuration(getEstimatedMillis()));
+
+        if (pendingMigrations.isEmpty()) {
+            out.println("Database is up to date.");
+            return;
+        }
+
+        out.println();
+        out.printf("%4s  %10s  %-22s  %s%n", "Rank", "Duration", "Lock", "Statement");
+
+        for (int i = 0; i < statements.size(); i++) {
+            final PlannedStatement statement = statements.get(i);
+
+            out.printf("%4d  %10s  %-22s  %s%s%n",
+                    i + 1,
+                    formatDuration(statement.getEstimatedMillis()),
+                    statement.getLockLevel() != null ? statement.getLockLevel().getValue() : "unknown",
+                    statement.getScript(),
+                    statement.getLine() > 0 ? ":" + statement.getLine() : "");
+            out.printf("%4s  %10s  %-22s  %s%n", "", "", "", abbreviate(statement.getSql()));
+            out.printf("%4s  %10s  %-22s  %s%n", "", "", "", statement.getDetail());
+        }
+
+        out.println();
+        out.println("Durations are estimates from planner costs and relation sizes. Nothing has been applied.");
+    }
+
+    private static String abbreviate(String sql) {
+        final String oneLine = sql.replaceAll("\\s+", " ").trim();
+        return oneLine.length() > MAX_SQL_LENGTH ? oneLine.substring(0, MAX_SQL_LENGTH - 3) + "..." : oneLine;
+    }
+
+    static String formatDuration(long millis) {
+        if (millis < 1_000) {
+            return millis + "ms";
+        } else if (millis < 60_000) {
+            return String.format("%.1fs", millis / 1_000.0);
+        } else if (millis < 3_600_000) {
+            return String.format("%.1fm", millis / 60_000.0);
+        }
+
+        return String.format("%.1fh", millis / 3_600_000.0);
+    }
+}
@@ -0,0 +1,289 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+import com.github.gregwhitaker.dbmigrator.sql.ScriptResources;
+import com.github.gregwhitaker.dbmigrator.sql.SqlStatementReader;
+import org.apache.commons.lang3.StringUtils;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Estimates how expensive the pending migrations of a database will be without applying them.
+ *
+ * Queries and DML statements are costed with <code>EXPLAIN</code>, which plans but does not execute them. DDL statements
+ * are costed from the size of the table they rewrite, scan or index. Everything runs in a read-only transaction that is
+ * rolled back, and statements that depend on objects created by earlier pending migrations are reported as such rather
+ * than estimated.
+ */
+public class MigrationPlanner {
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationPlanner.class);
+
+    /**
+     * Assumed sequential throughput, used to turn relation sizes into durations.
+     */
+    public static final long DEFAULT_BYTES_PER_SECOND = 64L * 1024 * 1024;
+
+    // Planner costs are measured in sequential page fetches of 8kB by default
+    private static final long PAGE_SIZE = 8192;
+
+    // Per-row cost of writing heap tuples, index entries and WAL, which planner costs do not include
+    private static final double ROW_WRITE_MICROS = 10.0;
+
+    private static final Pattern TOTAL_COST = Pattern.compile("\"Total Cost\"\\s*:\\s*([0-9.]+)");
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*([0-9.]+)");
+
+    private final DataSource dataSource;
+    private final Flyway flyway;
+    private final long bytesPerSecond;
+
+    /**
+     * Creates a new instance of {@link MigrationPlanner}.
+     *
+     * @param dataSource datasource being migrated
+     * @param flyway Flyway instance configured for the migration
+     */
+    public MigrationPlanner(DataSource dataSource, Flyway flyway) {
+        this(dataSource, flyway, DEFAULT_BYTES_PER_SECOND);
+    }
+
+    /**
+     * Creates a new instance of {@link MigrationPlanner}.
+     *
+     * @param dataSource datasource being migrated
+     * @param flyway Flyway instance configured for the migration
+     * @param bytesPerSecond assumed sequential read and write throughput of the database
+     */
+    public MigrationPlanner(DataSource dataSource, Flyway flyway, long bytesPerSecond) {
+        this.dataSource = dataSource;
+        this.flyway = flyway;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Estimates the cost of the pending migrations.
+     *
+     * @return migration plan
+     * @throws SQLException if the database cannot be queried
+     * @throws IOException if a migration script cannot be read
+     */
+    public MigrationPlan plan() throws SQLException, IOException {
+        final MigrationInfo[] pending = flyway.info().pending();
+        final String[] locations = Arrays.stream(flyway.getConfiguration().getLocations())
+                .map(Location::getDescriptor)
+                .toArray(String[]::new);
+
+        LOG.info("Planning pending migrations [count: '{}']", pending.length);
+
+        final List<String> pendingMigrations = new ArrayList<>();
+        final List<PlannedStatement> statements = new ArrayList<>();
+
+        try (Connection conn = dataSource.getConnection()) {
+            final boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+
+            try {
+                for (MigrationInfo migrationInfo : pending) {
+                    pendingMigrations.add(migrationInfo.getScript());
+
+                    if (migrationInfo.getType() == MigrationType.SQL) {
+                        planScript(conn, locations, migrationInfo.getScript(), statements);
+                    } else {
+                        statements.add(new PlannedStatement(migrationInfo.getScript(), 0, migrationInfo.getDescription(),
+                                null, 0, "Java migration, cannot be estimated without running it"));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        return new MigrationPlan(pendingMigrations, statements);
+    }
+
+    private void planScript(Connection conn, String[] locations, String script, List<PlannedStatement> statements) throws SQLException, IOException {
+        final URL url = ScriptResources.find(locations, script);
+        if (url == null) {
+            throw new IOException("Unable to locate migration script: " + script);
+        }
+
+        try (SqlStatementReader statementReader = new SqlStatementReader(ScriptResources.open(url))) {
+            String sql;
+            while ((sql = statementReader.next()) != null) {
+                statements.add(planStatement(conn, script, statementReader.getLine(), sql));
+            }
+        }
+    }
+
+    private PlannedStatement planStatement(Connection conn, String script, int line, String sql) throws SQLException {
+        final StatementClassifier.Classification classification = StatementClassifier.classify(sql);
+
+        if (classification.isExplainable()) {
+            return explain(conn, script, line, sql, classification);
+        }
+
+        if (classification.getWork() == StatementClassifier.Work.NONE) {
+            return new PlannedStatement(script, line, sql, classification.getLockLevel(), 0, "Catalog change only");
+        }
+
+        final RelationSize size = relationSize(conn, classification.getTable());
+        if (size == null) {
+            return new PlannedStatement(script, line, sql, classification.getLockLevel(), 0,
+                    String.format("%s does not exist yet, so it will be empty", classification.getTable()));
+        }
+
+        final long bytes;
+        final String work;
+        switch (classification.getWork()) {
+            case SCAN:
+                bytes = size.tableBytes;
+                work = "Scans";
+                break;
+            case REWRITE:
+                // Reads the old copy and writes the new one, including indexes
+                bytes = 2 * size.totalBytes;
+                work = "Rewrites";
+                break;
+            case INDEX_BUILD:
+                // Reads the table and writes the sorted index
+                bytes = 2 * size.tableBytes;
+                work = "Indexes";
+                break;
+            case CONCURRENT_INDEX_BUILD:
+                bytes = 3 * size.tableBytes;
+                work = "Indexes (two passes)";
+                break;
+            case INDEX_REBUILD:
+                bytes = size.tableBytes + 2 * size.indexBytes;
+                work = "Rebuilds indexes of";
+                break;
+            default:
+                throw new IllegalStateException("Unexpected work: " + classification.getWork());
+        }
+
+        return new PlannedStatement(script, line, sql, classification.getLockLevel(), bytes * 1000 / bytesPerSecond,
+                String.format("%s %s (%s, ~%d rows)", work, classification.getTable(), formatBytes(size.totalBytes), size.rows));
+    }
+
+    private PlannedStatement explain(Connection conn, String script, int line, String sql,
+                                     StatementClassifier.Classification classification) throws SQLException {
+        final Savepoint savepoint = conn.setSavepoint();
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+            final StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1));
+            }
+
+            final double cost = parse(TOTAL_COST, plan, 0);
+
+            // The ModifyTable node of DML without RETURNING reports no rows, so use the rows of its input instead
+            final double rows = classification.getLockLevel() == LockLevel.ROW_EXCLUSIVE
+                    ? Math.max(parse(PLAN_ROWS, plan, 0), parse(PLAN_ROWS, plan, 1))
+                    : parse(PLAN_ROWS, plan, 0);
+
+            // Planner cost units are roughly one sequential page read each
+            double millis = cost * PAGE_SIZE * 1000 / bytesPerSecond;
+            if (classification.getLockLevel() == LockLevel.ROW_EXCLUSIVE) {
+                millis += rows * ROW_WRITE_MICROS / 1000;
+            }
+
+            return new PlannedStatement(script, line, sql, classification.getLockLevel(), Math.round(millis),
+                    String.format("EXPLAIN cost %.0f, ~%.0f rows", cost, rows));
+        } catch (SQLException e) {
+            // Usually refers to objects created by earlier statements that have not been applied
+            conn.rollback(savepoint);
+            return new PlannedStatement(script, line, sql, classification.getLockLevel(), 0,
+                    "Cannot be explained until earlier migrations are applied: " + StringUtils.abbreviate(e.getMessage(), 100));
+        } finally {
+            conn.releaseSavepoint(savepoint);
+        }
+    }
+
+    private RelationSize relationSize(Connection conn, String table) throws SQLException {
+        if (table == null) {
+            return null;
+        }
+
+        final String sql =
+                "SELECT     c.reltuples::bigint AS row_estimate, " +
+                "           pg_relation_size(c.oid) AS table_bytes, " +
+                "           pg_total_relation_size(c.oid) AS total_bytes, " +
+                "           pg_indexes_size(c.oid) AS index_bytes " +
+                "FROM       pg_class c " +
+                "WHERE      c.oid = to_regclass(?)";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+
+                return new RelationSize(Math.max(rs.getLong("row_estimate"), 0),
+                        rs.getLong("table_bytes"),
+                        rs.getLong("total_bytes"),
+                        rs.getLong("index_bytes"));
+            }
+        }
+    }
+
+    /**
+     * Parses a numeric property of the plan, where index 0 is the top plan node and 1 is its first child.
+     */
+    private static double parse(Pattern pattern, CharSequence plan, int index) {
+        final Matcher matcher = pattern.matcher(plan);
+        for (int i = 0; i < index; i++) {
+            if (!matcher.find()) {
+                return 0;
+            }
+        }
+
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+
+        final int exponent = (int) (Math.log(bytes) / Math.log(1024));
+        return String.format("%.1f %sB", bytes / Math.pow(1024, exponent), "KMGTPE".charAt(exponent - 1));
+    }
+
+    private static class RelationSize {
+        private final long rows;
+        private final long tableBytes;
+        private final long totalBytes;
+        private final long indexBytes;
+
+        RelationSize(long rows, long tableBytes, long totalBytes, long indexBytes) {
+            this.rows = rows;
+            this.tableBytes = tableBytes;
+            this.totalBytes = totalBytes;
+            this.indexBytes = indexBytes;
+        }
+    }
+}
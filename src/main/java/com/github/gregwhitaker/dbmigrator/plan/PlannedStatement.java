@@ -0,0 +1,56 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+/**
+ * Cost estimate for a single statement of a pending migration.
+ */
+public class PlannedStatement {
+    private final String script;
+    private final int line;
+    private final String sql;
+    private final LockLevel lockLevel;
+    private final long estimatedMillis;
+    private final String detail;
+
+    /**
+     * Creates a new instance of {@link PlannedStatement}.
+     *
+     * @param script migration script or class the statement belongs to
+     * @param line line number of the statement within the script, or <code>0</code> for Java migrations
+     * @param sql statement text
+     * @param lockLevel strongest table lock taken by the statement, or <code>null</code> if unknown
+     * @param estimatedMillis estimated duration in milliseconds
+     * @param detail description of how the estimate was made
+     */
+    public PlannedStatement(String script, int line, String sql, LockLevel lockLevel, long estimatedMillis, String detail) {
+        this.script = script;
+        this.line = line;
+        this.sql = sql;
+        this.lockLevel = lockLevel;
+        this.estimatedMillis = estimatedMillis;
+        this.detail = detail;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public LockLevel getLockLevel() {
+        return lockLevel;
+    }
+
+    public long getEstimatedMillis() {
+        return estimatedMillis;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
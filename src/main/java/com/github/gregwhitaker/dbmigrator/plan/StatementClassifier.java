@@ -0,0 +1,213 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies SQL statements by the table lock they take and the work they do against existing data.
+ */
+public final class StatementClassifier {
+
+    private static final String NAME = "((?:\"[^\"]+\"|[\\w$]+)(?:\\.(?:\"[^\"]+\"|[\\w$]+))?)";
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+    private static final Pattern QUERY = Pattern.compile("^(SELECT|VALUES|TABLE|WITH)\\b", FLAGS);
+    private static final Pattern WRITE = Pattern.compile("\\b(INSERT|UPDATE|DELETE)\\b", FLAGS);
+    private static final Pattern INSERT = Pattern.compile("^INSERT\\s+INTO\\s+" + NAME, FLAGS);
+    private static final Pattern UPDATE = Pattern.compile("^UPDATE\\s+(?:ONLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern DELETE = Pattern.compile("^DELETE\\s+FROM\\s+(?:ONLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern CREATE_TABLE_AS = Pattern.compile(
+            "^CREATE\\s+(?:(?:TEMP|TEMPORARY|UNLOGGED)\\s+)?TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME + "(?:\\s*\\([^)]*\\))?\\s+AS\\b", FLAGS);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "^CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(CONCURRENTLY\\s+)?.*?\\bON\\s+(?:ONLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern ALTER_TABLE = Pattern.compile(
+            "^ALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?" + NAME + "\\s+(.*)$", FLAGS);
+    private static final Pattern ALTER_COLUMN_TYPE = Pattern.compile(
+            "\\bALTER\\s+(?:COLUMN\\s+)?" + NAME + "\\s+(?:SET\\s+DATA\\s+)?TYPE\\b", FLAGS);
+    private static final Pattern VOLATILE_DEFAULT = Pattern.compile(
+            "\\bADD\\s+(?:COLUMN\\s+)?[^,]*?\\bDEFAULT\\s+[^,]*?\\b(random|clock_timestamp|timeofday|gen_random_uuid|uuid_generate_v1|uuid_generate_v4|nextval)\\s*\\(", FLAGS);
+    private static final Pattern SET_LOGGED = Pattern.compile("\\bSET\\s+(?:UN)?LOGGED\\b", FLAGS);
+    private static final Pattern SET_NOT_NULL = Pattern.compile("\\bSET\\s+NOT\\s+NULL\\b", FLAGS);
+    private static final Pattern ADD_INDEXED_CONSTRAINT = Pattern.compile(
+            "\\bADD\\s+(?:CONSTRAINT\\s+" + NAME + "\\s+)?(PRIMARY\\s+KEY|UNIQUE)\\b(?!.*\\bUSING\\s+INDEX\\b)", FLAGS);
+    private static final Pattern ADD_FOREIGN_KEY = Pattern.compile(
+            "\\bADD\\s+(?:CONSTRAINT\\s+" + NAME + "\\s+)?FOREIGN\\s+KEY\\b", FLAGS);
+    private static final Pattern ADD_CHECK = Pattern.compile(
+            "\\bADD\\s+(?:CONSTRAINT\\s+" + NAME + "\\s+)?CHECK\\b", FLAGS);
+    private static final Pattern NOT_VALID = Pattern.compile("\\bNOT\\s+VALID\\b", FLAGS);
+    private static final Pattern VALIDATE_CONSTRAINT = Pattern.compile("\\bVALIDATE\\s+CONSTRAINT\\b", FLAGS);
+    private static final Pattern VACUUM_FULL = Pattern.compile("^VACUUM\\s+(?:\\(\\s*)?FULL\\b.*?" + NAME + "\\s*$", FLAGS);
+    private static final Pattern CLUSTER = Pattern.compile("^CLUSTER\\s+(?:VERBOSE\\s+)?" + NAME, FLAGS);
+    private static final Pattern REINDEX = Pattern.compile(
+            "^REINDEX\\s+(?:\\([^)]*\\)\\s+)?(INDEX|TABLE)\\s+(CONCURRENTLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern REFRESH_MATERIALIZED_VIEW = Pattern.compile(
+            "^REFRESH\\s+MATERIALIZED\\s+VIEW\\s+(CONCURRENTLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern TRUNCATE = Pattern.compile("^TRUNCATE\\s+(?:TABLE\\s+)?(?:ONLY\\s+)?" + NAME, FLAGS);
+    private static final Pattern DROP_INDEX_CONCURRENTLY = Pattern.compile("^DROP\\s+INDEX\\s+CONCURRENTLY\\b", FLAGS);
+    private static final Pattern DROP = Pattern.compile("^DROP\\s+(?:TABLE|INDEX|MATERIALIZED\\s+VIEW)\\s+(?:IF\\s+EXISTS\\s+)?" + NAME, FLAGS);
+
+    private StatementClassifier() {
+        // Utility class
+    }
+
+    /**
+     * Classifies a statement.
+     *
+     * @param sql statement text without comments
+     * @return statement classification
+     */
+    public static Classification classify(String sql) {
+        final String statement = sql.trim();
+        Matcher matcher;
+
+        if ((matcher = INSERT.matcher(statement)).find()
+                || (matcher = UPDATE.matcher(statement)).find()
+                || (matcher = DELETE.matcher(statement)).find()) {
+            return new Classification(true, LockLevel.ROW_EXCLUSIVE, matcher.group(1), Work.NONE);
+        }
+
+        if (QUERY.matcher(statement).find()) {
+            final LockLevel lockLevel = WRITE.matcher(statement).find() ? LockLevel.ROW_EXCLUSIVE : LockLevel.ACCESS_SHARE;
+            return new Classification(true, lockLevel, null, Work.NONE);
+        }
+
+        if (CREATE_TABLE_AS.matcher(statement).find()) {
+            return new Classification(true, LockLevel.ACCESS_SHARE, null, Work.NONE);
+        }
+
+        if ((matcher = CREATE_INDEX.matcher(statement)).find()) {
+            return matcher.group(1) != null
+                    ? new Classification(false, LockLevel.SHARE_UPDATE_EXCLUSIVE, matcher.group(2), Work.CONCURRENT_INDEX_BUILD)
+                    : new Classification(false, LockLevel.SHARE, matcher.group(2), Work.INDEX_BUILD);
+        }
+
+        if ((matcher = ALTER_TABLE.matcher(statement)).find()) {
+            return classifyAlterTable(matcher.group(1), matcher.group(2));
+        }
+
+        if ((matcher = VACUUM_FULL.matcher(statement)).find() || (matcher = CLUSTER.matcher(statement)).find()) {
+            return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, matcher.group(1), Work.REWRITE);
+        }
+
+        if ((matcher = REINDEX.matcher(statement)).find()) {
+            final LockLevel lockLevel = matcher.group(2) != null ? LockLevel.SHARE_UPDATE_EXCLUSIVE : LockLevel.SHARE;
+            return new Classification(false, lockLevel, matcher.group(3), Work.INDEX_REBUILD);
+        }
+
+        if ((matcher = REFRESH_MATERIALIZED_VIEW.matcher(statement)).find()) {
+            final LockLevel lockLevel = matcher.group(1) != null ? LockLevel.EXCLUSIVE : LockLevel.ACCESS_EXCLUSIVE;
+            return new Classification(false, lockLevel, matcher.group(2), Work.REWRITE);
+        }
+
+        if (DROP_INDEX_CONCURRENTLY.matcher(statement).find()) {
+            return new Classification(false, LockLevel.SHARE_UPDATE_EXCLUSIVE, null, Work.NONE);
+        }
+
+        if ((matcher = TRUNCATE.matcher(statement)).find() || (matcher = DROP.matcher(statement)).find()) {
+            return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, matcher.group(1), Work.NONE);
+        }
+
+        // Creates new objects or changes settings, neither of which touch existing data
+        return new Classification(false, LockLevel.NONE, null, Work.NONE);
+    }
+
+    private static Classification classifyAlterTable(String table, String actions) {
+        if (ALTER_COLUMN_TYPE.matcher(actions).find() || VOLATILE_DEFAULT.matcher(actions).find() || SET_LOGGED.matcher(actions).find()) {
+            return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, table, Work.REWRITE);
+        }
+
+        if (ADD_INDEXED_CONSTRAINT.matcher(actions).find()) {
+            return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, table, Work.INDEX_BUILD);
+        }
+
+        final boolean validated = !NOT_VALID.matcher(actions).find();
+
+        if (SET_NOT_NULL.matcher(actions).find() || (ADD_CHECK.matcher(actions).find() && validated)) {
+            return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, table, Work.SCAN);
+        }
+
+        if (ADD_FOREIGN_KEY.matcher(actions).find()) {
+            return new Classification(false, LockLevel.SHARE_ROW_EXCLUSIVE, table, validated ? Work.SCAN : Work.NONE);
+        }
+
+        if (VALIDATE_CONSTRAINT.matcher(actions).find()) {
+            return new Classification(false, LockLevel.SHARE_UPDATE_EXCLUSIVE, table, Work.SCAN);
+        }
+
+        return new Classification(false, LockLevel.ACCESS_EXCLUSIVE, table, Work.NONE);
+    }
+
+    /**
+     * Work a statement does against the existing data of its table.
+     */
+    public enum Work {
+        /**
+         * Catalog changes only, or work covered by the statement's query plan.
+         */
+        NONE,
+
+        /**
+         * Reads the whole table, for example to validate a constraint.
+         */
+        SCAN,
+
+        /**
+         * Writes a new copy of the table and its indexes.
+         */
+        REWRITE,
+
+        /**
+         * Reads the table to build a new index.
+         */
+        INDEX_BUILD,
+
+        /**
+         * Reads the table twice to build a new index without blocking writes.
+         */
+        CONCURRENT_INDEX_BUILD,
+
+        /**
+         * Rebuilds existing indexes.
+         */
+        INDEX_REBUILD
+    }
+
+    /**
+     * Classification of a single statement.
+     */
+    public static class Classification {
+        private final boolean explainable;
+        private final LockLevel lockLevel;
+        private final String table;
+        private final Work work;
+
+        Classification(boolean explainable, LockLevel lockLevel, String table, Work work) {
+            this.explainable = explainable;
+            this.lockLevel = lockLevel;
+            this.table = table;
+            this.work = work;
+        }
+
+        /**
+         * @return <code>true</code> if the cost of the statement can be estimated with <code>EXPLAIN</code>
+         */
+        public boolean isExplainable() {
+            return explainable;
+        }
+
+        public LockLevel getLockLevel() {
+            return lockLevel;
+        }
+
+        /**
+         * @return table or index the statement works on, or <code>null</code> if not applicable
+         */
+        public String getTable() {
+            return table;
+        }
+
+        public Work getWork() {
+            return work;
+        }
+    }
+}
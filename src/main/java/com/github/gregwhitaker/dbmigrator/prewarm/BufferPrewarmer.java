@@ -0,0 +1,207 @@
+package com.github.gregwhitaker.dbmigrator.prewarm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads relations into shared buffers with the <code>pg_prewarm</code> extension so that the first queries after a
+ * migration do not run against a cold buffer cache.
+ *
+ * Relations are loaded in parallel within a time budget. Prewarming is best effort: relations that are not
+ * loaded when the budget runs out are skipped and failures are logged rather than failing the migration.
+ */
+public class BufferPrewarmer {
+    private static final Logger LOG = LoggerFactory.getLogger(BufferPrewarmer.class);
+
+    private final DataSource dataSource;
+    private final int threads;
+    private final long timeoutMillis;
+
+    /**
+     * Creates a new instance of {@link BufferPrewarmer}.
+     *
+     * @param dataSource datasource containing the relations
+     * @param threads maximum number of relations loaded in parallel
+     * @param timeoutMillis time budget for loading all relations
+     */
+    public BufferPrewarmer(DataSource dataSource, int threads, long timeoutMillis) {
+        this.dataSource = dataSource;
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Loads the relations, and the indexes of any tables among them, into shared buffers.
+     *
+     * @param relationNames names of tables, indexes or materialized views to load
+     * @throws InterruptedException if prewarming is interrupted
+     */
+    public void prewarm(Collection<String> relationNames) throws InterruptedException {
+        if (relationNames.isEmpty()) {
+            return;
+        }
+
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        final List<String> relations;
+
+        try (Connection conn = dataSource.getConnection()) {
+            if (!isExtensionInstalled(conn)) {
+                LOG.warn("Skipping buffer prewarm because the pg_prewarm extension is not installed");
+                return;
+            }
+
+            relations = resolveRelations(conn, relationNames);
+        } catch (SQLException e) {
+            LOG.warn("Skipping buffer prewarm because the relations cannot be resolved", e);
+            return;
+        }
+
+        if (relations.isEmpty()) {
+            LOG.info("Skipping buffer prewarm because none of the relations exist [relations: '{}']", relationNames);
+            return;
+        }
+
+        LOG.info("Prewarming relations [relations: '{}', timeout: '{}ms']", relations, timeoutMillis);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, relations.size()));
+        final List<Future<Long>> futures = new ArrayList<>();
+        long blocks = 0;
+        int loaded = 0;
+
+        try {
+            relations.forEach(relation -> futures.add(executor.submit(() -> load(relation, deadline))));
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    final long remaining = deadline - System.currentTimeMillis();
+                    final Long relationBlocks = futures.get(i).get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+
+                    if (relationBlocks != null) {
+                        blocks += relationBlocks;
+                        loaded++;
+                    }
+                } catch (TimeoutException e) {
+                    LOG.warn("Buffer prewarm time budget exceeded [loaded: '{}', skipped: '{}']", loaded, relations.size() - loaded);
+                    break;
+                } catch (ExecutionException e) {
+                    LOG.warn("Unable to prewarm relation [relation: '{}']", relations.get(i), e.getCause());
+                } catch (CancellationException e) {
+                    LOG.warn("Prewarm of relation was cancelled [relation: '{}']", relations.get(i));
+                }
+            }
+        } finally {
+            // Cancels any loads still running once the budget has been spent
+            executor.shutdownNow();
+        }
+
+        LOG.info("Prewarmed relations [relations: '{}', blocks: '{}', duration: '{}ms']",
+                loaded, blocks, timeoutMillis - (deadline - System.currentTimeMillis()));
+    }
+
+    private boolean isExtensionInstalled(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM pg_extension WHERE extname = 'pg_prewarm'");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Resolves the relation names and adds the indexes of any tables, largest relations first. Names that cannot be
+     * resolved, such as malformed names, are skipped.
+     */
+    private List<String> resolveRelations(Connection conn, Collection<String> relationNames) throws SQLException {
+        final String sql =
+                "SELECT     c.oid::regclass::text AS relation_name " +
+                "FROM       pg_class c " +
+                "WHERE      c.oid = to_regclass(?) " +
+                "UNION " +
+                "SELECT     i.indexrelid::regclass::text " +
+                "FROM       pg_index i " +
+                "WHERE      i.indrelid = to_regclass(?)";
+
+        final Set<String> resolved = new LinkedHashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (String relationName : relationNames) {
+                ps.setString(1, relationName);
+                ps.setString(2, relationName);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        resolved.add(rs.getString("relation_name"));
+                    }
+                } catch (SQLException e) {
+                    LOG.warn("Skipping relation that cannot be resolved for buffer prewarm [relation: '{}']", relationName, e);
+                }
+            }
+        }
+
+        final List<String> relations = new ArrayList<>();
+        if (resolved.isEmpty()) {
+            return relations;
+        }
+
+        // Start the largest relations first so they are not the ones left over when the budget runs out
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT r AS relation_name FROM unnest(?::text[]) AS r ORDER BY pg_relation_size(r::regclass) DESC")) {
+            ps.setArray(1, conn.createArrayOf("text", resolved.toArray()));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    relations.add(rs.getString("relation_name"));
+                }
+            }
+        }
+
+        return relations;
+    }
+
+    /**
+     * Loads a single relation, limiting the statement to the time remaining in the budget.
+     *
+     * @return number of blocks loaded, or <code>null</code> if the budget was already spent
+     */
+    private Long load(String relation, long deadline) throws SQLException {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return null;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET statement_timeout = " + remaining);
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement("SELECT pg_prewarm(?::regclass) AS blocks")) {
+                ps.setString(1, relation);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getLong("blocks");
+                }
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("RESET statement_timeout");
+                }
+            }
+        }
+    }
+}
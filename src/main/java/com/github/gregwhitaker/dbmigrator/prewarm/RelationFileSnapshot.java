@@ -0,0 +1,70 @@
+package com.github.gregwhitaker.dbmigrator.prewarm;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Point-in-time copy of the storage file of every user table, index and materialized view.
+ *
+ * A relation whose file node changed between two snapshots was rewritten, for example by
+ * <code>ALTER TABLE ... ALTER COLUMN ... TYPE</code>, <code>VACUUM FULL</code> or <code>REINDEX</code>, and a relation
+ * that only appears in the later snapshot was created. Either way none of its pages are in the buffer cache.
+ */
+public final class RelationFileSnapshot {
+
+    private final Map<String, Long> fileNodes;
+
+    /**
+     * Captures a snapshot of the relation file nodes.
+     *
+     * @param conn database connection
+     * @return relation file snapshot
+     * @throws SQLException if the catalog cannot be read
+     */
+    public static RelationFileSnapshot capture(Connection conn) throws SQLException {
+        final String sql =
+                "SELECT     c.oid::regclass::text AS relation_name, c.relfilenode " +
+                "FROM       pg_class c " +
+                "JOIN       pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE      c.relkind IN ('r', 'i', 'm') " +
+                "AND        n.nspname NOT IN ('pg_catalog', 'information_schema') " +
+                "AND        n.nspname NOT LIKE 'pg_toast%'";
+
+        final Map<String, Long> fileNodes = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                fileNodes.put(rs.getString("relation_name"), rs.getLong("relfilenode"));
+            }
+        }
+
+        return new RelationFileSnapshot(fileNodes);
+    }
+
+    private RelationFileSnapshot(Map<String, Long> fileNodes) {
+        this.fileNodes = fileNodes;
+    }
+
+    /**
+     * Gets the relations that were created or rewritten between an earlier snapshot and this one.
+     *
+     * @param earlier earlier snapshot
+     * @return names of the created or rewritten relations
+     */
+    public Set<String> changedSince(RelationFileSnapshot earlier) {
+        final Set<String> relations = new LinkedHashSet<>();
+        fileNodes.forEach((relation, fileNode) -> {
+            if (!fileNode.equals(earlier.fileNodes.get(relation))) {
+                relations.add(relation);
+            }
+        });
+
+        return relations;
+    }
+}
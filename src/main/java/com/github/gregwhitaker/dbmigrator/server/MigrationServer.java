@@ -0,0 +1,403 @@
+package com.github.gregwhitaker.dbmigrator.server;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.config.DatabaseMigratorConfig;
+import com.github.gregwhitaker.dbmigrator.tenant.TenantProvisioner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Long-lived HTTP server that migrates databases on request.
+ *
+ * Running the migrator once per migration pays for JVM startup, Flyway configuration and connection pool creation
+ * every time. The server pays for them once and keeps a connection pool and configured migrator per target database,
+ * so repeated migrations in a development loop and on-demand tenant provisioning only pay for the migration itself.
+ *
+ * Endpoints, all of which take optional <code>database</code> and <code>env</code> query parameters:
+ * <ul>
+ *     <li><code>POST /migrate</code> - Runs the migration, first cleaning the database when <code>clean=true</code></li>
+ *     <li><code>GET /status</code> - Reports the current version and the number of pending and failed migrations</li>
+ *     <li><code>GET /plan</code> - Estimates the cost of the pending migrations without applying them</li>
+ *     <li><code>POST /provision</code> - Provisions the schema named by the <code>tenant</code> parameter from a
+ *     pre-migrated spare schema, then tops up the spares in the background</li>
+ * </ul>
+ *
+ * The <code>database</code> parameter selects another database on the same server as the configured jdbc url, such as
+ * a tenant database, using the configured credentials. Migrations of the same database are run one at a time.
+ *
+ * The server does not authenticate requests, so <code>clean=true</code> is refused unless cleaning is enabled with
+ * <code>--server-allow-clean</code>.
+ */
+public class MigrationServer {
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationServer.class);
+
+    private static final int HANDLER_THREADS = 4;
+    private static final int TARGET_POOL_SIZE = 5;
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+    private static final Pattern POSTGRES_JDBC_URL = Pattern.compile("^(jdbc:postgresql://[^/]+/)([^?]*)(.*)$");
+
+    private final DatabaseMigratorConfig config;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private ExecutorService replenisher;
+
+    /**
+     * Creates a new instance of {@link MigrationServer}.
+     *
+     * @param config database migrator configuration
+     */
+    public MigrationServer(DatabaseMigratorConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts the server and returns once it is accepting requests. The server runs until the JVM shuts down.
+     *
+     * @throws IOException if the server cannot listen on the configured address
+     */
+    public void start() throws IOException {
+        executor = Executors.newFixedThreadPool(HANDLER_THREADS);
+        replenisher = Executors.newSingleThreadExecutor();
+
+        server = HttpServer.create(new InetSocketAddress(config.getServerAddress(), config.getServerPort()), 0);
+        server.setExecutor(executor);
+        server.createContext("/migrate", exchange -> handle(exchange, "POST", this::migrate));
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/plan", exchange -> handle(exchange, "GET", this::plan));
+        server.createContext("/provision", exchange -> handle(exchange, "POST", this::provision));
+
+        // Warm up the default target so the first request does not pay for pool creation and Flyway configuration
+        target(null).migrator.info(config.getEnvironment());
+
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "migration-server-shutdown"));
+
+        LOG.info("Migration server started [address: '{}', env: '{}']", server.getAddress(), config.getEnvironment());
+    }
+
+    /**
+     * Stops accepting requests and closes the connection pools.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdownNow();
+            replenisher.shutdownNow();
+        }
+
+        targets.values().forEach(target -> target.dataSource.close());
+        targets.clear();
+    }
+
+    private Response migrate(Map<String, String> params) {
+        final boolean clean = Boolean.parseBoolean(params.get("clean"));
+
+        if (clean && !config.isServerAllowClean()) {
+            return Response.error(403, "Cleaning is disabled, start the server with --server-allow-clean to enable it");
+        }
+
+        final Target target = target(params.get("database"));
+        final String env = env(params);
+        final long start = System.currentTimeMillis();
+
+        synchronized (target) {
+            target.migrator.run(env, clean);
+        }
+
+        final Map<String, Object> body = status(target, env);
+        body.put("durationMillis", System.currentTimeMillis() - start);
+
+        return Response.json(200, body);
+    }
+
+    private Response status(Map<String, String> params) {
+        return Response.json(200, status(target(params.get("database")), env(params)));
+    }
+
+    private Response plan(Map<String, String> params) {
+        final Target target = target(params.get("database"));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (PrintStream printStream = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+            target.migrator.plan(env(params)).print(printStream);
+        }
+
+        return new Response(200, "text/plain", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private Response provision(Map<String, String> params) {
+        final Target target = target(params.get("database"));
+        final String tenant = params.get("tenant");
+        final String env = env(params);
+        final TenantProvisioner provisioner = new TenantProvisioner(target.dataSource, env, config.getTenantSpares());
+        final long start = System.currentTimeMillis();
+
+        final boolean fromSpare = provisioner.provision(tenant);
+        final long durationMillis = System.currentTimeMillis() - start;
+
+        // Respond as soon as the tenant is ready, the next signup only needs the spares back by the time it arrives
+        replenisher.execute(() -> {
+            try {
+                provisioner.replenish();
+            } catch (Exception e) {
+                LOG.error("Error occurred while replenishing spare tenant schemas [database: '{}']", target.name, e);
+            }
+        });
+
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("database", target.name);
+        body.put("tenant", tenant);
+        body.put("fromSpare", fromSpare);
+        body.put("durationMillis", durationMillis);
+
+        return Response.json(201, body);
+    }
+
+    private Map<String, Object> status(Target target, String env) {
+        final MigrationInfoService info = target.migrator.info(env);
+        final MigrationInfo current = info.current();
+
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("database", target.name);
+        status.put("env", env);
+        status.put("currentVersion", current != null && current.getVersion() != null ? current.getVersion().getVersion() : null);
+        status.put("pending", info.pending().length);
+        status.put("failed", Arrays.stream(info.all()).filter(migration -> migration.getState().isFailed()).count());
+        status.put("upToDate", target.migrator.isUpToDate(env));
+
+        return status;
+    }
+
+    /**
+     * Gets the environment of a request, which selects the classpath locations of its environment specific migrations
+     * and the cached Flyway configuration of the target.
+     *
+     * @param params query parameters
+     * @return environment name or the configured environment if the request does not name one
+     */
+    private String env(Map<String, String> params) {
+        final String env = params.get("env");
+
+        if (env == null) {
+            return config.getEnvironment();
+        }
+
+        if (!IDENTIFIER.matcher(env).matches()) {
+            throw new IllegalArgumentException("Invalid environment name: " + env);
+        }
+
+        return env;
+    }
+
+    /**
+     * Gets the target for a database, creating its connection pool on first use.
+     *
+     * @param database database name or <code>null</code> for the database of the configured jdbc url
+     * @return target
+     */
+    private Target target(String database) {
+        if (database != null && !IDENTIFIER.matcher(database).matches()) {
+            throw new IllegalArgumentException("Invalid database name: " + database);
+        }
+
+        return targets.computeIfAbsent(database != null ? database : "", key -> {
+            final String jdbcUrl = database != null ? withDatabase(config.getJdbcUrl(), database) : config.getJdbcUrl();
+
+            LOG.info("Connecting to migration target [jdbcUrl: '{}', username: '{}']", jdbcUrl, config.getUsername());
+
+            final HikariDataSource dataSource = DatabaseMigrator.createDataSource(jdbcUrl, config.getUsername(), config.getPassword(), TARGET_POOL_SIZE);
+            final DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+            migrator.setAnalyzeModifiedTables(config.isAnalyze());
+            migrator.setPrewarm(config.isPrewarm(), config.getPrewarmRelations(), config.getPrewarmTimeoutSeconds());
+            migrator.setTraceFile(config.getTraceFile() != null ? Paths.get(config.getTraceFile()) : null);
+            migrator.setStatsReportFile(config.getStatsReport() != null ? Paths.get(config.getStatsReport()) : null);
+            migrator.setWalBytesPerSecond(config.getWalBytesPerSecond());
+            migrator.setIndexAdvice(config.getIndexAdvice() != null ? Paths.get(config.getIndexAdvice()) : null,
+                    config.getIndexAdviceScript() != null ? Paths.get(config.getIndexAdviceScript()) : null);
+
+            return new Target(database, dataSource, migrator);
+        });
+    }
+
+    /**
+     * Replaces the database of a PostgreSQL jdbc url.
+     *
+     * @param jdbcUrl PostgreSQL jdbc url
+     * @param database database name
+     * @return jdbc url of the database on the same server with the same connection options
+     * @throws IllegalArgumentException if the url is not a PostgreSQL jdbc url
+     */
+    public static String withDatabase(String jdbcUrl, String database) {
+        final Matcher matcher = POSTGRES_JDBC_URL.matcher(jdbcUrl);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Selecting a database requires a jdbc:postgresql url");
+        }
+
+        return matcher.group(1) + database + matcher.group(3);
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        Response response;
+
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                response = Response.error(405, "Method not allowed, use " + method);
+            } else {
+                response = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (Exception e) {
+            LOG.error("Error occurred while handling request [uri: '{}']", exchange.getRequestURI(), e);
+            response = Response.error(500, e.getMessage());
+        }
+
+        final byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    static Map<String, String> parseQuery(String query) {
+        final Map<String, String> params = new HashMap<>();
+
+        if (query != null && !query.isEmpty()) {
+            for (String pair : query.split("&")) {
+                final int separator = pair.indexOf('=');
+                final String name = URLDecoder.decode(separator >= 0 ? pair.substring(0, separator) : pair, StandardCharsets.UTF_8);
+                final String value = separator >= 0 ? URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8) : "";
+
+                if (!value.isEmpty()) {
+                    params.put(name, value);
+                }
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * Connection pool and migrator of a target database.
+     */
+    private static class Target {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final DatabaseMigrator migrator;
+
+        Target(String name, HikariDataSource dataSource, DatabaseMigrator migrator) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.migrator = migrator;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Map<String, String> params) throws Exception;
+    }
+
+    /**
+     * Response to an HTTP request.
+     */
+    static class Response {
+        private final int status;
+        private final String contentType;
+        private final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(int status, Map<String, Object> fields) {
+            return new Response(status, "application/json", toJson(fields));
+        }
+
+        static Response error(int status, String message) {
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("error", message);
+
+            return json(status, fields);
+        }
+
+        static String toJson(Map<String, Object> fields) {
+            final StringBuilder json = new StringBuilder("{");
+
+            fields.forEach((name, value) -> {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+
+                json.append(quote(name)).append(':');
+
+                if (value == null || value instanceof Number || value instanceof Boolean) {
+                    json.append(value);
+                } else {
+                    json.append(quote(value.toString()));
+                }
+            });
+
+            return json.append('}').toString();
+        }
+
+        private static String quote(String value) {
+            final StringBuilder quoted = new StringBuilder("\"");
+
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"':
+                        quoted.append("\\\"");
+                        break;
+                    case '\\':
+                        quoted.append("\\\\");
+                        break;
+                    case '\n':
+                        quoted.append("\\n");
+                        break;
+                    case '\r':
+                        quoted.append("\\r");
+                        break;
+                    case '\t':
+                        quoted.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            quoted.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            quoted.append(c);
+                        }
+                }
+            }
+
+            return quoted.append('"').toString();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Execution directives declared in the header of a migration script, next to its <code>-- Script:</code> and
+ * <code>-- Description:</code> lines, such as:
+ *
+ * <pre>
+ * -- Transaction: batch
+ * -- Batch-Size: 1000
+ * -- Lock-Timeout: 5s
+ * -- Retry-Attempts: 3
+ * -- Retry-Delay: 10s
+ * </pre>
+ *
+ * The header is the comment and blank lines before the first statement; only it is read, so directives can be read
+ * from scripts of any size. Header comments that are not directives are ignored.
+ */
+public final class ScriptDirectives {
+    public static final String TRANSACTION = "Transaction";
+    public static final String BATCH_SIZE = "Batch-Size";
+    public static final String RETRY_ATTEMPTS = "Retry-Attempts";
+    public static final String RETRY_DELAY = "Retry-Delay";
+
+    /**
+     * Names of every directive, in the order they are written in a header.
+     */
+    public static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+            TRANSACTION,
+            "Lock-Timeout",
+            "Statement-Timeout",
+            "Work-Mem",
+            "Maintenance-Work-Mem",
+            "Max-Parallel-Maintenance-Workers",
+            BATCH_SIZE,
+            RETRY_ATTEMPTS,
+            RETRY_DELAY));
+
+    /**
+     * Session settings that can be set by a directive of the same name, such as <code>Lock-Timeout</code>.
+     */
+    private static final Map<String, Pattern> SETTINGS = new LinkedHashMap<>();
+
+    static {
+        final Pattern duration = Pattern.compile("\\d+\\s*(us|ms|s|min|h|d)?");
+        final Pattern memory = Pattern.compile("\\d+\\s*(B|kB|MB|GB|TB)?");
+
+        SETTINGS.put("lock_timeout", duration);
+        SETTINGS.put("statement_timeout", duration);
+        SETTINGS.put("work_mem", memory);
+        SETTINGS.put("maintenance_work_mem", memory);
+        SETTINGS.put("max_parallel_maintenance_workers", Pattern.compile("\\d+"));
+    }
+
+    private static final Pattern DIRECTIVE = Pattern.compile("--\\s*([A-Za-z][A-Za-z-]*)\\s*:\\s*(.*?)\\s*");
+    private static final Pattern DELAY = Pattern.compile("(\\d+)\\s*(ms|s|min)?");
+    private static final int MAX_HEADER_LINES = 100;
+
+    public static final ScriptDirectives DEFAULT = new ScriptDirectives(TransactionMode.SINGLE, Collections.emptyMap(), 0, 0, 0);
+
+    /**
+     * How the statements of a script are grouped into transactions.
+     */
+    public enum TransactionMode {
+        /**
+         * All statements run in a single transaction with the update of the schema history, the default.
+         */
+        SINGLE,
+
+        /**
+         * Statements are committed every <code>Batch-Size</code> statements, for loads too large for one transaction.
+         */
+        BATCH,
+
+        /**
+         * Each statement is committed on its own, for statements that cannot run in a transaction such as
+         * <code>CREATE INDEX CONCURRENTLY</code>.
+         */
+        NONE
+    }
+
+    private final TransactionMode transaction;
+    private final Map<String, String> settings;
+    private final int batchSize;
+    private final int retryAttempts;
+    private final long retryDelayMillis;
+
+    private ScriptDirectives(TransactionMode transaction, Map<String, String> settings, int batchSize, int retryAttempts, long retryDelayMillis) {
+        this.transaction = transaction;
+        this.settings = Collections.unmodifiableMap(settings);
+        this.batchSize = batchSize;
+        this.retryAttempts = retryAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Reads the directives from the header of a script.
+     *
+     * @param reader script contents, which is only read up to the end of the header
+     * @return directives of the script
+     * @throws IOException if the script cannot be read
+     * @throws IllegalArgumentException if a directive has an invalid value
+     */
+    public static ScriptDirectives parse(Reader reader) throws IOException {
+        final BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        TransactionMode transaction = TransactionMode.SINGLE;
+        final Map<String, String> settings = new LinkedHashMap<>();
+        int batchSize = 0;
+        int retryAttempts = 0;
+        long retryDelayMillis = 0;
+
+        String line;
+        int count = 0;
+        while ((line = lines.readLine()) != null && count++ < MAX_HEADER_LINES) {
+            line = line.trim();
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (!line.startsWith("--")) {
+                break;
+            }
+
+            final Matcher matcher = DIRECTIVE.matcher(line);
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            final String name = matcher.group(1);
+            final String value = matcher.group(2);
+            final String setting = name.toLowerCase(Locale.ROOT).replace('-', '_');
+
+            if (SETTINGS.containsKey(setting)) {
+                if (!SETTINGS.get(setting).matcher(value).matches()) {
+                    throw invalid(name, value);
+                }
+                settings.put(setting, value);
+            } else if (TRANSACTION.equalsIgnoreCase(name)) {
+                try {
+                    transaction = TransactionMode.valueOf(value.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw invalid(name, value);
+                }
+            } else if (BATCH_SIZE.equalsIgnoreCase(name)) {
+                batchSize = parsePositiveInt(name, value);
+            } else if (RETRY_ATTEMPTS.equalsIgnoreCase(name)) {
+                retryAttempts = parsePositiveInt(name, value);
+            } else if (RETRY_DELAY.equalsIgnoreCase(name)) {
+                retryDelayMillis = parseDelay(name, value);
+            }
+        }
+
+        if (transaction == TransactionMode.BATCH && batchSize == 0) {
+            throw new IllegalArgumentException(String.format("Directive '%s: batch' requires a '%s' directive", TRANSACTION, BATCH_SIZE));
+        }
+
+        return new ScriptDirectives(transaction, settings, batchSize, retryAttempts, retryDelayMillis);
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            final int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+
+        throw invalid(name, value);
+    }
+
+    private static long parseDelay(String name, String value) {
+        final Matcher matcher = DELAY.matcher(value);
+        if (!matcher.matches()) {
+            throw invalid(name, value);
+        }
+
+        final long amount = Long.parseLong(matcher.group(1));
+        if (matcher.group(2) == null || "ms".equals(matcher.group(2))) {
+            return amount;
+        }
+
+        return "s".equals(matcher.group(2)) ? amount * 1_000 : amount * 60_000;
+    }
+
+    private static IllegalArgumentException invalid(String name, String value) {
+        return new IllegalArgumentException(String.format("Invalid value for directive '%s': '%s'", name, value));
+    }
+
+    /**
+     * @return <code>true</code> if the script declares any directive; otherwise <code>false</code>
+     */
+    public boolean isDeclared() {
+        return transaction != TransactionMode.SINGLE || !settings.isEmpty() || batchSize > 0 || retryAttempts > 0 || retryDelayMillis > 0;
+    }
+
+    public TransactionMode getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @return values of the session settings to run the script with, by setting name such as <code>lock_timeout</code>
+     */
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return number of statements sent to the database together, and committed together in batch mode, or
+     *         <code>0</code> to send each statement on its own
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return number of times a statement failing on a lock timeout, deadlock or serialization failure is retried
+     */
+    public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    /**
+     * @return delay before the first retry, which doubles with each further retry
+     */
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Locates the resources of SQL migration scripts within the configured Flyway locations.
+ *
+ * Scripts ending in <code>.gz</code> are gzip compressed and are decompressed as they are read.
+ */
+public final class ScriptResources {
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FILESYSTEM_PREFIX = "filesystem:";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ScriptResources() {}
+
+    /**
+     * Finds the resource of a migration script.
+     *
+     * @param locations Flyway locations the script may be in
+     * @param script script path relative to its location, as reported by Flyway
+     * @return url of the script resource or <code>null</code> if it cannot be found
+     */
+    public static URL find(String[] locations, String script) {
+        for (String location : locations) {
+            try {
+                if (location.startsWith(FILESYSTEM_PREFIX)) {
+                    final Path path = Paths.get(location.substring(FILESYSTEM_PREFIX.length()), script);
+                    if (Files.exists(path)) {
+                        return path.toUri().toURL();
+                    }
+                } else {
+                    final URL url = Thread.currentThread().getContextClassLoader().getResource(classpath(location) + "/" + script);
+                    if (url != null) {
+                        return url;
+                    }
+                }
+            } catch (IOException e) {
+                // Malformed location, so keep looking in the remaining locations
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Lists the migration scripts with a suffix, such as <code>.sql.gz</code>, in the locations and their
+     * subdirectories, whether the locations are directories or are packaged in a jar.
+     *
+     * @param locations Flyway locations to list
+     * @param suffix script name suffix
+     * @return url of each script by its path relative to its location, as Flyway reports it, in location order; a
+     *         script that is in more than one location is listed from the first
+     * @throws IOException if a location cannot be listed
+     */
+    public static Map<String, URL> list(String[] locations, String suffix) throws IOException {
+        final Map<String, URL> scripts = new LinkedHashMap<>();
+
+        for (String location : locations) {
+            if (location.startsWith(FILESYSTEM_PREFIX)) {
+                listDirectory(Paths.get(location.substring(FILESYSTEM_PREFIX.length())), suffix, scripts);
+                continue;
+            }
+
+            final String path = classpath(location);
+            final Enumeration<URL> roots = Thread.currentThread().getContextClassLoader().getResources(path);
+
+            for (URL root : Collections.list(roots)) {
+                if ("file".equals(root.getProtocol())) {
+                    listDirectory(toPath(root), suffix, scripts);
+                    continue;
+                }
+
+                final URLConnection connection = root.openConnection();
+                if (!(connection instanceof JarURLConnection)) {
+                    continue;
+                }
+
+                // The jar file is cached by the url connection and shared with the class loader, so it is not closed
+                final JarFile jar = ((JarURLConnection) connection).getJarFile();
+                final String prefix = path + "/";
+
+                for (JarEntry entry : Collections.list(jar.entries())) {
+                    if (!entry.isDirectory() && entry.getName().startsWith(prefix) && entry.getName().endsWith(suffix)) {
+                        scripts.putIfAbsent(entry.getName().substring(prefix.length()), new URL(root, "/" + entry.getName()));
+                    }
+                }
+            }
+        }
+
+        return scripts;
+    }
+
+    private static void listDirectory(Path dir, String suffix, Map<String, URL> scripts) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            scripts.putIfAbsent(dir.relativize(file).toString().replace('\\', '/'), file.toUri().toURL());
+        }
+    }
+
+    /**
+     * Opens a migration script for reading, decompressing it if it is gzip compressed.
+     *
+     * @param url url of the script resource
+     * @return reader of the script contents
+     * @throws IOException if the script cannot be opened
+     */
+    public static Reader open(URL url) throws IOException {
+        InputStream is = url.openStream();
+
+        try {
+            if (url.getPath().endsWith(GZIP_SUFFIX)) {
+                is = new GZIPInputStream(is, BUFFER_SIZE);
+            }
+
+            return new InputStreamReader(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the contents of a migration script.
+     *
+     * @param locations Flyway locations the script may be in
+     * @param script script path relative to its location, as reported by Flyway
+     * @return script contents or <code>null</code> if the script cannot be found
+     * @throws IOException if the script cannot be read
+     */
+    public static String read(String[] locations, String script) throws IOException {
+        final URL url = find(locations, script);
+        if (url == null) {
+            return null;
+        }
+
+        try (Reader reader = open(url)) {
+            final StringWriter contents = new StringWriter();
+            reader.transferTo(contents);
+            return contents.toString();
+        }
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid resource url: " + url, e);
+        }
+    }
+
+    private static String classpath(String location) {
+        String path = location.startsWith(CLASSPATH_PREFIX) ? location.substring(CLASSPATH_PREFIX.length()) : location;
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+
+        return path;
+    }
+}
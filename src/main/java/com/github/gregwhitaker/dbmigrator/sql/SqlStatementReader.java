@@ -0,0 +1,280 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the statements of a PostgreSQL script one at a time, so scripts of any size can be processed without loading
+ * them into memory.
+ *
+ * Statements are split on semicolons outside of string literals, quoted identifiers, dollar-quoted bodies and comments.
+ * Comments are removed from the returned statements, as is the terminating semicolon.
+ *
+ * The rows of a <code>COPY ... FROM STDIN</code> statement follow it in the script up to a line containing only
+ * <code>\.</code>, as written by pg_dump. They can be read with {@link #readCopyData(Writer)} and are otherwise skipped.
+ */
+public class SqlStatementReader implements Closeable {
+    private static final int NONE = -2;
+    private static final Pattern COPY_FROM_STDIN = Pattern.compile("COPY\\s.*\\sFROM\\s+STDIN\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final String COPY_DATA_END = "\\.";
+
+    private final Reader reader;
+    private int peeked = NONE;
+    private int line = 1;
+    private int statementLine;
+    private boolean copyData;
+
+    /**
+     * Creates a new instance of {@link SqlStatementReader}.
+     *
+     * @param reader script contents
+     */
+    public SqlStatementReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next statement.
+     *
+     * @return statement text or <code>null</code> if there are no more statements
+     * @throws IOException if the script cannot be read
+     */
+    public String next() throws IOException {
+        if (copyData) {
+            readCopyData(null);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        statementLine = 0;
+
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '-' && peek() == '-') {
+                skipLineComment();
+                sb.append('\n');
+                continue;
+            }
+
+            if (c == '/' && peek() == '*') {
+                read();
+                skipBlockComment();
+                sb.append(' ');
+                continue;
+            }
+
+            if (c == ';') {
+                if (statementLine != 0) {
+                    final String statement = sb.toString().trim();
+                    copyData = isCopyFromStdin(statement);
+                    return statement;
+                }
+                continue;
+            }
+
+            if (statementLine == 0 && !Character.isWhitespace(c)) {
+                statementLine = line;
+            }
+
+            if (c == '\'' || c == '"') {
+                final boolean escapes = c == '\'' && isEscapeStringPrefix(sb);
+                sb.append((char) c);
+                readQuoted(sb, (char) c, escapes);
+            } else if (c == '$') {
+                sb.append('$');
+                readDollarQuoted(sb);
+            } else {
+                sb.append((char) c);
+            }
+        }
+
+        return statementLine != 0 ? sb.toString().trim() : null;
+    }
+
+    /**
+     * Gets the line number the statement last returned by {@link #next()} starts on.
+     *
+     * @return line number, starting at 1
+     */
+    public int getLine() {
+        return statementLine;
+    }
+
+    /**
+     * Checks whether a statement is a <code>COPY ... FROM STDIN</code> whose rows follow it in the script.
+     *
+     * @param statement statement text
+     * @return <code>true</code> if the statement copies rows from the script; otherwise <code>false</code>
+     */
+    public static boolean isCopyFromStdin(String statement) {
+        return COPY_FROM_STDIN.matcher(statement).matches();
+    }
+
+    /**
+     * Reads the rows that follow the <code>COPY ... FROM STDIN</code> statement last returned by {@link #next()}, one
+     * row at a time, up to the end of data marker.
+     *
+     * @param out writer the rows are written to, each ending in a newline, or <code>null</code> to skip them
+     * @return number of rows read, or zero if the last statement was not a <code>COPY ... FROM STDIN</code>
+     * @throws IOException if the script cannot be read or the rows cannot be written
+     */
+    public long readCopyData(Writer out) throws IOException {
+        if (!copyData) {
+            return 0;
+        }
+
+        copyData = false;
+
+        // The rows start on the line after the statement
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // Skip the rest of the statement's line
+        }
+
+        final StringBuilder row = new StringBuilder();
+        long rows = 0;
+
+        while (c != -1) {
+            row.setLength(0);
+            while ((c = read()) != -1 && c != '\n') {
+                row.append((char) c);
+            }
+
+            if (row.length() > 0 && row.charAt(row.length() - 1) == '\r') {
+                row.setLength(row.length() - 1);
+            }
+
+            if (COPY_DATA_END.contentEquals(row) || (c == -1 && row.length() == 0)) {
+                break;
+            }
+
+            if (out != null) {
+                out.append(row).append('\n');
+            }
+            rows++;
+        }
+
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        final int c;
+        if (peeked != NONE) {
+            c = peeked;
+            peeked = NONE;
+        } else {
+            c = reader.read();
+        }
+
+        if (c == '\n') {
+            line++;
+        }
+
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = reader.read();
+        }
+
+        return peeked;
+    }
+
+    private void skipLineComment() throws IOException {
+        while (peek() != -1 && peek() != '\n') {
+            read();
+        }
+    }
+
+    /**
+     * Skips a block comment after its opening delimiter. Block comments may be nested in PostgreSQL.
+     */
+    private void skipBlockComment() throws IOException {
+        int depth = 1;
+        int c;
+
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '/' && peek() == '*') {
+                read();
+                depth++;
+            } else if (c == '*' && peek() == '/') {
+                read();
+                depth--;
+            }
+        }
+    }
+
+    private void readQuoted(StringBuilder sb, char quote, boolean escapes) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            sb.append((char) c);
+
+            if (escapes && c == '\\') {
+                final int escaped = read();
+                if (escaped != -1) {
+                    sb.append((char) escaped);
+                }
+            } else if (c == quote) {
+                // A doubled quote is read as a closing quote followed by a new quoted section
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a dollar-quoted body, such as <code>$$ ... $$</code> or <code>$body$ ... $body$</code>, after its first
+     * dollar sign. Positional parameters such as <code>$1</code> are read as plain text.
+     */
+    private void readDollarQuoted(StringBuilder sb) throws IOException {
+        final StringBuilder tag = new StringBuilder("$");
+
+        while (peek() != -1 && (Character.isLetterOrDigit(peek()) || peek() == '_')) {
+            if (tag.length() == 1 && Character.isDigit(peek())) {
+                return;
+            }
+
+            tag.append((char) read());
+        }
+
+        if (peek() != '$') {
+            sb.append(tag, 1, tag.length());
+            return;
+        }
+
+        tag.append((char) read());
+        sb.append(tag, 1, tag.length());
+
+        final int bodyStart = sb.length();
+        int c;
+        while ((c = read()) != -1) {
+            sb.append((char) c);
+
+            if (c == '$' && sb.length() - bodyStart >= tag.length()
+                    && sb.substring(sb.length() - tag.length()).contentEquals(tag)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the quote about to be appended opens an escape string constant such as <code>E'it\'s'</code>.
+     */
+    private static boolean isEscapeStringPrefix(StringBuilder sb) {
+        final int length = sb.length();
+        if (length == 0 || Character.toUpperCase(sb.charAt(length - 1)) != 'E') {
+            return false;
+        }
+
+        return length == 1 || !(Character.isLetterOrDigit(sb.charAt(length - 2)) || sb.charAt(length - 2) == '_');
+    }
+}
@@ -0,0 +1,408 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.executor.Context;
+import org.flywaydb.core.api.executor.MigrationExecutor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs a SQL migration one statement at a time as it is read from its resource, so the memory used does not depend on
+ * the size of the script, only on the size of its largest statement and batch.
+ *
+ * The rows of <code>COPY ... FROM STDIN</code> statements, as written by pg_dump, are streamed to the database one row
+ * at a time. Placeholders are replaced in the statements as Flyway replaces them, but not in copied rows.
+ *
+ * The {@link ScriptDirectives} of the script decide how it runs. Its session settings are set before the first
+ * statement and put back afterwards. In <code>single</code> mode the script runs in Flyway's transaction, statements
+ * are sent <code>Batch-Size</code> at a time, and settings are local to the transaction; a retried script is rolled
+ * back to a savepoint and run again from the start. In <code>batch</code> mode each batch of statements is committed on
+ * its own and a failed batch is retried on its own, and in <code>none</code> mode the same is true of each statement.
+ * Copied rows are streamed rather than kept, so a copy is only retried in <code>single</code> mode.
+ */
+public class StreamingSqlMigrationExecutor implements MigrationExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingSqlMigrationExecutor.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Lock timeout, deadlock and serialization failure, which succeed when run again once the conflict has passed
+    private static final Set<String> RETRYABLE_STATES = new HashSet<>(Arrays.asList("55P03", "40P01", "40001"));
+
+    private final Configuration configuration;
+    private final String script;
+    private final URL url;
+    private final ScriptDirectives directives;
+
+    private long statements;
+    private long rows;
+
+    /**
+     * Creates a new instance of {@link StreamingSqlMigrationExecutor}.
+     *
+     * @param configuration Flyway configuration with the placeholders to replace
+     * @param script script path relative to its location
+     * @param url url of the script resource
+     * @param directives execution directives of the script
+     */
+    public StreamingSqlMigrationExecutor(Configuration configuration, String script, URL url, ScriptDirectives directives) {
+        this.configuration = configuration;
+        this.script = script;
+        this.url = url;
+        this.directives = directives;
+    }
+
+    @Override
+    public void execute(Context context) throws SQLException {
+        final Connection conn = context.getConnection();
+        final long start = System.currentTimeMillis();
+
+        LOG.info("Streaming migration script [script: '{}', transaction: '{}', batchSize: '{}', settings: '{}']",
+                script, directives.getTransaction(), directives.getBatchSize(), directives.getSettings());
+
+        try {
+            if (directives.getTransaction() == ScriptDirectives.TransactionMode.SINGLE) {
+                applySettings(conn, true);
+                executeInTransaction(conn);
+            } else {
+                final Map<String, String> previous = applySettings(conn, false);
+                try {
+                    executeInBatches(conn);
+                } finally {
+                    restoreSettings(conn, previous);
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error occurred while streaming migration script: " + script, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying migration script: " + script, e);
+        }
+
+        LOG.info("Streamed migration script [script: '{}', statements: '{}', copiedRows: '{}', duration: '{}ms']",
+                script, statements, rows, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return directives.getTransaction() == ScriptDirectives.TransactionMode.SINGLE;
+    }
+
+    /**
+     * Runs the whole script in the current transaction, running it again from a savepoint when it fails with a
+     * retryable error.
+     */
+    private void executeInTransaction(Connection conn) throws SQLException, IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            final Savepoint savepoint = directives.getRetryAttempts() > 0 ? conn.setSavepoint() : null;
+
+            try {
+                streamInTransaction(conn);
+                return;
+            } catch (SQLException e) {
+                if (savepoint == null || attempt >= directives.getRetryAttempts() || !isRetryable(e)) {
+                    throw e;
+                }
+
+                conn.rollback(savepoint);
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void streamInTransaction(Connection conn) throws SQLException, IOException {
+        statements = 0;
+        rows = 0;
+
+        final List<String> batch = new ArrayList<>();
+        int batchLine = 0;
+
+        try (SqlStatementReader reader = new SqlStatementReader(ScriptResources.open(url))) {
+            String sql;
+            while ((sql = reader.next()) != null) {
+                final String statement = configuration.isPlaceholderReplacement() ? replacePlaceholders(sql) : sql;
+
+                if (SqlStatementReader.isCopyFromStdin(statement)) {
+                    executeBatch(conn, batch, batchLine);
+                    batch.clear();
+                    copy(conn, statement, reader);
+                    continue;
+                }
+
+                if (batch.isEmpty()) {
+                    batchLine = reader.getLine();
+                }
+
+                batch.add(statement);
+
+                if (batch.size() >= Math.max(directives.getBatchSize(), 1)) {
+                    executeBatch(conn, batch, batchLine);
+                    batch.clear();
+                }
+            }
+
+            executeBatch(conn, batch, batchLine);
+        }
+    }
+
+    /**
+     * Runs the script with autocommit, committing each batch, or each statement in <code>none</code> mode, on its own.
+     */
+    private void executeInBatches(Connection conn) throws SQLException, IOException, InterruptedException {
+        final boolean batchMode = directives.getTransaction() == ScriptDirectives.TransactionMode.BATCH;
+        final int batchSize = batchMode ? directives.getBatchSize() : 1;
+        final boolean autoCommit = conn.getAutoCommit();
+
+        conn.setAutoCommit(!batchMode);
+
+        try (SqlStatementReader reader = new SqlStatementReader(ScriptResources.open(url))) {
+            final List<String> batch = new ArrayList<>();
+            int batchLine = 0;
+
+            String sql;
+            while ((sql = reader.next()) != null) {
+                final String statement = configuration.isPlaceholderReplacement() ? replacePlaceholders(sql) : sql;
+
+                if (SqlStatementReader.isCopyFromStdin(statement)) {
+                    commitBatch(conn, batch, batchLine, batchMode);
+                    batch.clear();
+
+                    copy(conn, statement, reader);
+                    if (batchMode) {
+                        conn.commit();
+                    }
+                    continue;
+                }
+
+                if (batch.isEmpty()) {
+                    batchLine = reader.getLine();
+                }
+
+                batch.add(statement);
+
+                if (batch.size() >= batchSize) {
+                    commitBatch(conn, batch, batchLine, batchMode);
+                    batch.clear();
+                }
+            }
+
+            commitBatch(conn, batch, batchLine, batchMode);
+        } catch (SQLException | IOException | RuntimeException e) {
+            if (batchMode) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void commitBatch(Connection conn, List<String> batch, int batchLine, boolean batchMode) throws SQLException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                executeBatch(conn, batch, batchLine);
+                if (batchMode && !batch.isEmpty()) {
+                    conn.commit();
+                }
+                return;
+            } catch (SQLException e) {
+                if (batchMode) {
+                    conn.rollback();
+                }
+
+                if (attempt >= directives.getRetryAttempts() || !isRetryable(e)) {
+                    throw e;
+                }
+
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void executeBatch(Connection conn, List<String> batch, int batchLine) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (batch.size() == 1) {
+                stmt.execute(batch.get(0));
+            } else {
+                for (String statement : batch) {
+                    stmt.addBatch(statement);
+                }
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new SQLException(String.format("Error at line %d of %s: %s", batchLine, script, e.getMessage()),
+                    state(e), e.getErrorCode(), e);
+        }
+
+        statements += batch.size();
+    }
+
+    /**
+     * Streams the rows that follow a <code>COPY ... FROM STDIN</code> statement into the database.
+     */
+    private void copy(Connection conn, String statement, SqlStatementReader reader) throws SQLException, IOException {
+        final int line = reader.getLine();
+
+        try {
+            final CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(statement);
+
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(copyIn, COPY_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+                rows += reader.readCopyData(out);
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException(String.format("Error at line %d of %s: %s", line, script, e.getMessage()), state(e), e.getErrorCode(), e);
+        } catch (IOException e) {
+            // Errors reported by the database while rows are copied are wrapped by the copy stream
+            if (e.getCause() instanceof SQLException) {
+                final SQLException cause = (SQLException) e.getCause();
+                throw new SQLException(String.format("Error at line %d of %s: %s", line, script, cause.getMessage()), state(cause), cause.getErrorCode(), cause);
+            }
+            throw e;
+        }
+
+        statements++;
+    }
+
+    /**
+     * Sets the session settings of the script, returning their previous values.
+     */
+    private Map<String, String> applySettings(Connection conn, boolean local) throws SQLException {
+        final Map<String, String> previous = new LinkedHashMap<>();
+
+        try (PreparedStatement current = conn.prepareStatement("SELECT current_setting(?)");
+             PreparedStatement set = conn.prepareStatement("SELECT set_config(?, ?, ?)")) {
+            for (Map.Entry<String, String> setting : directives.getSettings().entrySet()) {
+                if (!local) {
+                    current.setString(1, setting.getKey());
+                    try (ResultSet rs = current.executeQuery()) {
+                        rs.next();
+                        previous.put(setting.getKey(), rs.getString(1));
+                    }
+                }
+
+                set.setString(1, setting.getKey());
+                set.setString(2, setting.getValue());
+                set.setBoolean(3, local);
+                set.executeQuery().close();
+            }
+        }
+
+        return previous;
+    }
+
+    private void restoreSettings(Connection conn, Map<String, String> previous) throws SQLException {
+        try (PreparedStatement set = conn.prepareStatement("SELECT set_config(?, ?, false)")) {
+            for (Map.Entry<String, String> setting : previous.entrySet()) {
+                set.setString(1, setting.getKey());
+                set.setString(2, setting.getValue());
+                set.executeQuery().close();
+            }
+        }
+    }
+
+    private void backoff(int attempt, SQLException e) throws InterruptedException {
+        final long delay = directives.getRetryDelayMillis() << Math.min(attempt, 20);
+
+        LOG.warn("Retrying migration script after retryable error [script: '{}', attempt: '{}', delay: '{}ms', error: '{}']",
+                script, attempt + 1, delay, e.getMessage());
+
+        Thread.sleep(delay);
+    }
+
+    /**
+     * Checks whether an error, or the error of a statement in a batch, is a conflict with other sessions that may not
+     * happen again.
+     *
+     * @param e error
+     * @return <code>true</code> if the statements should be retried; otherwise <code>false</code>
+     */
+    static boolean isRetryable(SQLException e) {
+        return RETRYABLE_STATES.contains(state(e));
+    }
+
+    /**
+     * Gets the state of an error, which for a batch is the state of the statement that failed.
+     */
+    private static String state(SQLException e) {
+        if (e instanceof BatchUpdateException && e.getNextException() != null) {
+            return state(e.getNextException());
+        }
+
+        if (e.getSQLState() == null && e.getCause() instanceof SQLException) {
+            return state((SQLException) e.getCause());
+        }
+
+        return e.getSQLState();
+    }
+
+    /**
+     * Replaces the placeholders in a statement, failing on a placeholder without a value as Flyway does.
+     *
+     * @param sql statement text
+     * @return statement text with the placeholders replaced
+     */
+    String replacePlaceholders(String sql) {
+        final String prefix = configuration.getPlaceholderPrefix();
+        final String suffix = configuration.getPlaceholderSuffix();
+        final Map<String, String> placeholders = configuration.getPlaceholders();
+
+        int start = sql.indexOf(prefix);
+        if (start < 0) {
+            return sql;
+        }
+
+        final StringBuilder sb = new StringBuilder(sql.length());
+        int copied = 0;
+
+        while (start >= 0) {
+            final int end = sql.indexOf(suffix, start + prefix.length());
+            if (end < 0) {
+                break;
+            }
+
+            final String name = sql.substring(start + prefix.length(), end);
+            final String value = placeholders.get(name);
+            if (value == null) {
+                throw new FlywayException(String.format("No value provided for placeholder: %s%s%s in %s", prefix, name, suffix, script));
+            }
+
+            sb.append(sql, copied, start).append(value);
+            copied = end + suffix.length();
+            start = sql.indexOf(prefix, copied);
+        }
+
+        return sb.append(sql, copied, sql.length()).toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.executor.MigrationExecutor;
+import org.flywaydb.core.api.resolver.Context;
+import org.flywaydb.core.api.resolver.MigrationResolver;
+import org.flywaydb.core.api.resolver.ResolvedMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Resolves gzip compressed SQL migrations, such as <code>V1_0_0_20210601120000__vendor_data_load.sql.gz</code>, which
+ * Flyway does not resolve itself, and runs them with a {@link StreamingSqlMigrationExecutor}.
+ *
+ * Flyway reads a SQL migration fully into memory to parse it and cannot run it as its {@link ScriptDirectives} say.
+ * The build therefore compresses scripts above a size threshold or with directives, and this resolver only ever reads
+ * them as a stream. Resolving fails on an uncompressed script with directives, which Flyway would run without them.
+ *
+ * The checksum is calculated the same way Flyway calculates it from the decompressed script, so a script that crosses
+ * the threshold keeps the checksum it was applied with. It is calculated once per script, as the packaged scripts
+ * cannot change while the migrator runs.
+ */
+public class StreamingSqlMigrationResolver implements MigrationResolver {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingSqlMigrationResolver.class);
+
+    public static final String SUFFIX = ".sql" + ScriptResources.GZIP_SUFFIX;
+
+    private final Map<String, Integer> checksums = new ConcurrentHashMap<>();
+    private final Map<String, ScriptDirectives> directives = new ConcurrentHashMap<>();
+
+    @Override
+    public Collection<ResolvedMigration> resolveMigrations(Context context) {
+        final Configuration configuration = context.getConfiguration();
+        final String[] locations = Arrays.stream(configuration.getLocations())
+                .map(Location::getDescriptor)
+                .toArray(String[]::new);
+
+        final List<ResolvedMigration> migrations = new ArrayList<>();
+
+        try {
+            for (Map.Entry<String, URL> script : ScriptResources.list(locations, SUFFIX).entrySet()) {
+                final ResolvedMigration migration = resolve(configuration, script.getKey(), script.getValue());
+                if (migration != null) {
+                    migrations.add(migration);
+                }
+            }
+
+            checkDirectivesCompressed(locations, configuration.getUndoSqlMigrationPrefix());
+        } catch (IOException e) {
+            throw new FlywayException("Unable to resolve compressed SQL migrations", e);
+        }
+
+        return migrations;
+    }
+
+    /**
+     * Fails on uncompressed scripts with directives, which Flyway would run without their lock and statement timeouts,
+     * such as when the migrator is run against unprocessed resources. Undo scripts are left out, as they are always
+     * run with their directives.
+     */
+    private void checkDirectivesCompressed(String[] locations, String undoPrefix) throws IOException {
+        for (Map.Entry<String, URL> script : ScriptResources.list(locations, ".sql").entrySet()) {
+            if (script.getKey().substring(script.getKey().lastIndexOf('/') + 1).startsWith(undoPrefix)) {
+                continue;
+            }
+
+            final ScriptDirectives scriptDirectives = directives.computeIfAbsent(script.getValue().toString(), key -> read(script.getKey(), script.getValue()));
+
+            if (scriptDirectives.isDeclared()) {
+                throw new FlywayException("Migration script declares directives but was not compressed by the build, " +
+                        "run the migrator from the built resources: " + script.getKey());
+            }
+        }
+    }
+
+    private static ScriptDirectives read(String script, URL url) {
+        try (Reader reader = ScriptResources.open(url)) {
+            return ScriptDirectives.parse(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new FlywayException("Unable to read directives of migration script: " + script, e);
+        }
+    }
+
+    private ResolvedMigration resolve(Configuration configuration, String script, URL url) {
+        final String fileName = script.substring(script.lastIndexOf('/') + 1);
+        final String name = fileName.substring(0, fileName.length() - SUFFIX.length());
+        final String separator = configuration.getSqlMigrationSeparator();
+        final int separatorIndex = name.indexOf(separator);
+
+        if (separatorIndex < 0) {
+            LOG.warn("Skipping compressed script without a description [script: '{}']", script);
+            return null;
+        }
+
+        final String prefix = name.substring(0, separatorIndex);
+        final String description = name.substring(separatorIndex + separator.length()).replace('_', ' ');
+
+        // Undo scripts are only run by the undo migrator
+        if (prefix.startsWith(configuration.getUndoSqlMigrationPrefix())) {
+            return null;
+        }
+
+        final MigrationVersion version;
+        if (prefix.equals(configuration.getRepeatableSqlMigrationPrefix())) {
+            version = null;
+        } else if (prefix.startsWith(configuration.getSqlMigrationPrefix())) {
+            version = MigrationVersion.fromVersion(prefix.substring(configuration.getSqlMigrationPrefix().length()));
+        } else {
+            LOG.warn("Skipping compressed script that is not named as a migration [script: '{}']", script);
+            return null;
+        }
+
+        final Integer checksum = checksums.computeIfAbsent(url.toString(), key -> {
+            final long start = System.currentTimeMillis();
+
+            try (Reader reader = ScriptResources.open(url)) {
+                final int crc = checksum(reader);
+                LOG.debug("Calculated checksum of compressed script [script: '{}', duration: '{}ms']", script, System.currentTimeMillis() - start);
+                return crc;
+            } catch (IOException e) {
+                throw new FlywayException("Unable to calculate checksum of migration script: " + script, e);
+            }
+        });
+
+        final ScriptDirectives scriptDirectives = directives.computeIfAbsent(url.toString(), key -> read(script, url));
+
+        return new StreamingSqlMigration(version, description, script, checksum, url.toString(),
+                new StreamingSqlMigrationExecutor(configuration, script, url, scriptDirectives));
+    }
+
+    /**
+     * Calculates the checksum of a script as Flyway does, a CRC32 of its lines without line terminators or a leading
+     * byte order mark, one line at a time.
+     *
+     * @param reader script contents
+     * @return checksum
+     * @throws IOException if the script cannot be read
+     */
+    static int checksum(Reader reader) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        final BufferedReader lines = new BufferedReader(reader, 64 * 1024);
+
+        String line = lines.readLine();
+        if (line != null && line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+
+        while (line != null) {
+            crc32.update(line.getBytes(StandardCharsets.UTF_8));
+            line = lines.readLine();
+        }
+
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Compressed SQL migration resolved from the configured locations.
+     */
+    private static class StreamingSqlMigration implements ResolvedMigration {
+        private final MigrationVersion version;
+        private final String description;
+        private final String script;
+        private final Integer checksum;
+        private final String physicalLocation;
+        private final MigrationExecutor executor;
+
+        StreamingSqlMigration(MigrationVersion version, String description, String script, Integer checksum,
+                              String physicalLocation, MigrationExecutor executor) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+            this.physicalLocation = physicalLocation;
+            this.executor = executor;
+        }
+
+        @Override
+        public MigrationVersion getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String getScript() {
+            return script;
+        }
+
+        @Override
+        public Integer getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public MigrationType getType() {
+            return MigrationType.SQL;
+        }
+
+        @Override
+        public String getPhysicalLocation() {
+            return physicalLocation;
+        }
+
+        @Override
+        public MigrationExecutor getExecutor() {
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import com.github.gregwhitaker.dbmigrator.data.TableInfo;
+import com.github.gregwhitaker.dbmigrator.sql.ScriptResources;
+import com.github.gregwhitaker.dbmigrator.sql.SqlStatementReader;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks which tables were changed by the migrations applied during a run.
+ *
+ * The statements of each applied SQL migration are scanned for the tables they modify, and unqualified names are
+ * resolved against the schema being migrated. Only when a migration cannot be scanned, such as a Java migration, are
+ * the row modification counters in <code>pg_stat_user_tables</code> captured before and after the run compared as
+ * well, as they also count changes made by other sessions during the run.
+ */
+public class ModifiedTableTracker {
+    private static final Logger LOG = LoggerFactory.getLogger(ModifiedTableTracker.class);
+
+    // Backends report their table statistics asynchronously, at most every 500ms
+    private static final long STATS_SETTLE_INTERVAL_MS = 500;
+    private static final int STATS_SETTLE_ATTEMPTS = 4;
+
+    private final DataSource dataSource;
+    private final String[] locations;
+    private final String historyTable;
+    private final String schema;
+    private TableActivitySnapshot beforeSnapshot;
+    private int beforeInstalledRank;
+
+    /**
+     * Creates a new instance of {@link ModifiedTableTracker}.
+     *
+     * @param dataSource datasource being migrated
+     * @param configuration Flyway configuration of the run
+     */
+    public ModifiedTableTracker(DataSource dataSource, Configuration configuration) {
+        this.dataSource = dataSource;
+        this.locations = Arrays.stream(configuration.getLocations())
+                .map(Location::getDescriptor)
+                .toArray(String[]::new);
+        this.historyTable = configuration.getTable();
+        this.schema = configuration.getSchemas().length > 0 ? configuration.getSchemas()[0] : null;
+    }
+
+    /**
+     * Captures the state before the migration.
+     *
+     * @param info migration info before the migration
+     * @throws SQLException if the table statistics cannot be read
+     */
+    public void before(MigrationInfoService info) throws SQLException {
+        beforeInstalledRank = Arrays.stream(info.applied())
+                .mapToInt(MigrationInfo::getInstalledRank)
+                .max()
+                .orElse(0);
+
+        try (Connection conn = dataSource.getConnection()) {
+            beforeSnapshot = TableActivitySnapshot.capture(conn);
+        }
+    }
+
+    /**
+     * Gets the tables changed by the migrations applied since {@link #before(MigrationInfoService)}.
+     *
+     * @param info migration info after the migration
+     * @return names of the changed tables
+     * @throws SQLException if the table statistics cannot be read
+     */
+    public Set<String> after(MigrationInfoService info) throws SQLException {
+        if (beforeSnapshot == null) {
+            throw new IllegalStateException("before() must be called before after()");
+        }
+
+        final List<MigrationInfo> applied = Arrays.stream(info.applied())
+                .filter(migrationInfo -> migrationInfo.getInstalledRank() > beforeInstalledRank)
+                .collect(Collectors.toList());
+
+        final Set<String> tables = new LinkedHashSet<>();
+        if (applied.isEmpty()) {
+            return tables;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean allParsed = true;
+
+            for (MigrationInfo migrationInfo : applied) {
+                final Set<String> parsed = migrationInfo.getType() == MigrationType.SQL ? parse(migrationInfo) : null;
+
+                if (parsed != null) {
+                    tables.addAll(resolve(conn, parsed));
+                } else if (!migrationInfo.getType().isSynthetic()) {
+                    allParsed = false;
+                }
+            }
+
+            if (!allParsed) {
+                tables.addAll(modifiedTablesFromStats(conn));
+            }
+
+            tables.removeAll(resolve(conn, Collections.singleton(TableInfo.quote(historyTable))));
+        }
+
+        LOG.debug("Tables modified by migration [tables: '{}']", tables);
+
+        return tables;
+    }
+
+    /**
+     * Extracts the tables modified by a script one statement at a time, so scripts of any size are parsed without
+     * loading them into memory.
+     *
+     * @return names of the modified tables or <code>null</code> if the script cannot be read
+     */
+    private Set<String> parse(MigrationInfo migrationInfo) {
+        final Set<String> tables = new LinkedHashSet<>();
+        final URL url = ScriptResources.find(locations, migrationInfo.getScript());
+
+        if (url == null) {
+            LOG.warn("Unable to locate migration script for table tracking [script: '{}']", migrationInfo.getScript());
+            return null;
+        }
+
+        try (SqlStatementReader reader = new SqlStatementReader(ScriptResources.open(url))) {
+            String sql;
+            while ((sql = reader.next()) != null) {
+                tables.addAll(TableReferenceExtractor.extract(sql));
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to read migration script for table tracking [script: '{}']", migrationInfo.getScript(), e);
+            return null;
+        }
+
+        return tables;
+    }
+
+    /**
+     * Resolves table names against the migrated schema, or the search path when the default schema is migrated,
+     * dropping names that no longer exist.
+     */
+    private Set<String> resolve(Connection conn, Set<String> tableNames) throws SQLException {
+        final Set<String> resolved = new LinkedHashSet<>();
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT to_regclass(?)::text AS table_name")) {
+            for (String tableName : tableNames) {
+                ps.setString(1, schema != null && !isQualified(tableName) ? TableInfo.quote(schema) + "." + tableName : tableName);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getString("table_name") != null) {
+                        resolved.add(rs.getString("table_name"));
+                    }
+                }
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Checks whether a table name has a schema, outside of any quoted identifier.
+     */
+    static boolean isQualified(String tableName) {
+        boolean quoted = false;
+
+        for (char c : tableName.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Compares the statistics counters with those captured before the migration, read until they stop changing so
+     * that late statistics reports are included.
+     */
+    private Set<String> modifiedTablesFromStats(Connection conn) throws SQLException {
+        TableActivitySnapshot snapshot = TableActivitySnapshot.capture(conn);
+
+        for (int attempt = 0; attempt < STATS_SETTLE_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(STATS_SETTLE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            final TableActivitySnapshot next = TableActivitySnapshot.capture(conn);
+            if (next.equals(snapshot)) {
+                break;
+            }
+
+            snapshot = next;
+        }
+
+        return snapshot.modifiedSince(beforeSnapshot);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+
+/**
+ * Flyway callback that attributes the statements run by each migration to it in the {@link ServerStatsCollector} of
+ * the current thread, and does nothing when the migration run is not collecting server statistics.
+ */
+public class ServerStatsCallback implements Callback {
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        switch (event) {
+            case AFTER_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE_ERROR:
+            case AFTER_EACH_UNDO:
+            case AFTER_EACH_UNDO_ERROR:
+                return ServerStatsCollector.current() != null;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        // Statistics are read over the collector's own connection
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        final ServerStatsCollector collector = ServerStatsCollector.current();
+
+        if (collector != null) {
+            collector.afterMigration(context.getMigrationInfo());
+        }
+    }
+}
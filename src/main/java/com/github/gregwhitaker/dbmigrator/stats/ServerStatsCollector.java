@@ -0,0 +1,322 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects the server-side cost of a migration run from <code>pg_stat_statements</code>, <code>pg_stat_user_tables</code>
+ * and the background writer statistics, which show where the server spent its time when the client-side timings do
+ * not, such as sorts that spill to disk, sequential scans and trigger cost.
+ *
+ * The statement counters and WAL position are captured before the run and after each migration, by
+ * {@link ServerStatsCallback}, so the statements and WAL volume can be attributed to the migration that caused them.
+ * The WAL position is server wide, so WAL generated by other sessions during a migration is included. The table and
+ * background writer counters are only captured before and after the run. Statistics are read over a connection of the
+ * collector's own, which also works after a migration fails and aborts its transaction, and its own queries are left
+ * out of the report.
+ */
+public class ServerStatsCollector {
+    private static final Logger LOG = LoggerFactory.getLogger(ServerStatsCollector.class);
+
+    // Marks the collector's own queries, so they can be told apart in pg_stat_statements
+    private static final String MARKER = "/* dbmigrator:server-stats */ ";
+
+    private static final ThreadLocal<ServerStatsCollector> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final int serverVersion;
+    private final long blockSize;
+    private final Map<String, TableCounters> tablesBefore;
+    private final Map<String, Long> backgroundWriterBefore;
+    private final List<String> migrations = new ArrayList<>();
+    private final List<StatementStats> statements = new ArrayList<>();
+    private final Map<String, Long> walBytes = new LinkedHashMap<>();
+    private Map<String, StatementStats> lastStatements;
+    private String lastWalLsn;
+
+    private ServerStatsCollector(Connection connection) throws SQLException {
+        this.connection = connection;
+        this.serverVersion = connection.getMetaData().getDatabaseMajorVersion();
+        this.blockSize = Long.parseLong(queryString("SHOW block_size"));
+        this.lastStatements = captureStatements();
+        this.lastWalLsn = queryString("SELECT pg_current_wal_insert_lsn()::text");
+        this.tablesBefore = captureTables();
+        this.backgroundWriterBefore = captureBackgroundWriter();
+    }
+
+    /**
+     * Captures the statistics before a migration run and starts collecting the statistics of each migration applied
+     * by the current thread.
+     *
+     * @param dataSource datasource being migrated
+     * @return collector, which must be finished to end collection
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static ServerStatsCollector start(DataSource dataSource) throws SQLException {
+        final Connection conn = dataSource.getConnection();
+
+        try {
+            final ServerStatsCollector collector = new ServerStatsCollector(conn);
+            CURRENT.set(collector);
+
+            return collector;
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the collector of the migration running on the current thread.
+     *
+     * @return collector or <code>null</code> if the current thread is not collecting statistics
+     */
+    static ServerStatsCollector current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attributes the statements that ran since the previous migration to a migration that has just been applied.
+     *
+     * @param info migration that was applied, successfully or not
+     */
+    void afterMigration(MigrationInfo info) {
+        final String migration = info.getVersion() != null ? info.getVersion().getVersion() : info.getDescription();
+        migrations.add(migration);
+
+        try {
+            captureWal(migration);
+
+            if (lastStatements != null) {
+                lastStatements = changedStatements(captureStatements(), migration);
+            }
+        } catch (SQLException e) {
+            LOG.debug("Unable to capture statement statistics [migration: '{}']", migration, e);
+        }
+    }
+
+    /**
+     * Captures the statistics after the migration run and ends collection.
+     *
+     * @return report of the statistics that changed during the run
+     * @throws SQLException if the statistics cannot be read
+     */
+    public ServerStatsReport finish() throws SQLException {
+        CURRENT.remove();
+
+        try {
+            final boolean statementsAvailable = lastStatements != null;
+            if (statementsAvailable) {
+                // Statements outside any migration, such as validation and schema history updates
+                changedStatements(captureStatements(), null);
+            }
+
+            captureWal(null);
+
+            final List<ServerStatsReport.TableActivity> tables = new ArrayList<>();
+            captureTables().forEach((table, after) -> {
+                final TableCounters before = tablesBefore.getOrDefault(table, TableCounters.NONE);
+
+                if (!after.equals(before)) {
+                    tables.add(new ServerStatsReport.TableActivity(table,
+                            after.seqScans - before.seqScans,
+                            after.seqRowsRead - before.seqRowsRead,
+                            after.indexScans - before.indexScans,
+                            after.rowsModified - before.rowsModified));
+                }
+            });
+
+            final Map<String, Long> backgroundWriter = new LinkedHashMap<>();
+            captureBackgroundWriter().forEach((counter, after) ->
+                    backgroundWriter.put(counter, after - backgroundWriterBefore.getOrDefault(counter, 0L)));
+
+            return new ServerStatsReport(migrations, statementsAvailable ? statements : null, blockSize, walBytes, tables, backgroundWriter);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private Map<String, StatementStats> changedStatements(Map<String, StatementStats> current, String migration) {
+        current.forEach((id, stats) -> {
+            final StatementStats change = stats.since(lastStatements.get(id), migration);
+
+            if (change.getCalls() > 0) {
+                statements.add(change);
+            }
+        });
+
+        return current;
+    }
+
+    /**
+     * Attributes the WAL generated since the previous capture to a migration, or to no migration when
+     * <code>null</code>.
+     */
+    private void captureWal(String migration) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(MARKER +
+                "SELECT pg_current_wal_insert_lsn()::text, pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint")) {
+            ps.setString(1, lastWalLsn);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                lastWalLsn = rs.getString(1);
+                walBytes.merge(migration != null ? migration : "-", rs.getLong(2), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Captures the statement counters of the current database, or returns <code>null</code> if
+     * <code>pg_stat_statements</code> is not installed.
+     */
+    private Map<String, StatementStats> captureStatements() throws SQLException {
+        final String sql = MARKER +
+                "SELECT s.userid::text || ':' || coalesce(s.queryid, 0)::text AS id, s.query, s.calls, " +
+                (serverVersion >= 13 ? "s.total_exec_time" : "s.total_time") + " AS total_millis, s.rows, " +
+                "       s.shared_blks_read, s.shared_blks_written, s.temp_blks_written " +
+                "FROM   pg_stat_statements s " +
+                "JOIN   pg_database d ON d.oid = s.dbid " +
+                "WHERE  d.datname = current_database() " +
+                "AND    s.query NOT LIKE '%dbmigrator:server-stats%'";
+
+        final Map<String, StatementStats> captured = new HashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                // Top level and nested executions of a statement are separate entries since PostgreSQL 14
+                captured.merge(rs.getString("id"), new StatementStats(rs.getString("query"), null,
+                        rs.getLong("calls"),
+                        rs.getDouble("total_millis"),
+                        rs.getLong("rows"),
+                        rs.getLong("shared_blks_read"),
+                        rs.getLong("shared_blks_written"),
+                        rs.getLong("temp_blks_written")), StatementStats::plus);
+            }
+        } catch (SQLException e) {
+            if (lastStatements == null) {
+                LOG.warn("Server statistics report will not include statements because pg_stat_statements is not available: {}", e.getMessage());
+                return null;
+            }
+
+            throw e;
+        }
+
+        return captured;
+    }
+
+    private Map<String, TableCounters> captureTables() throws SQLException {
+        clearSnapshot();
+
+        final String sql = MARKER +
+                "SELECT relid::regclass::text AS table_name, coalesce(seq_scan, 0) AS seq_scan, " +
+                "       coalesce(seq_tup_read, 0) AS seq_tup_read, coalesce(idx_scan, 0) AS idx_scan, " +
+                "       n_tup_ins + n_tup_upd + n_tup_del AS modifications " +
+                "FROM   pg_stat_user_tables";
+
+        final Map<String, TableCounters> tables = new HashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                tables.put(rs.getString("table_name"), new TableCounters(
+                        rs.getLong("seq_scan"),
+                        rs.getLong("seq_tup_read"),
+                        rs.getLong("idx_scan"),
+                        rs.getLong("modifications")));
+            }
+        }
+
+        return tables;
+    }
+
+    private Map<String, Long> captureBackgroundWriter() throws SQLException {
+        clearSnapshot();
+
+        // The checkpointer statistics moved out of pg_stat_bgwriter in PostgreSQL 17
+        final String sql = MARKER + (serverVersion >= 17
+                ? "SELECT c.num_timed AS checkpoints_timed, c.num_requested AS checkpoints_requested, " +
+                  "       c.buffers_written AS buffers_checkpoint, b.buffers_clean, b.maxwritten_clean " +
+                  "FROM   pg_stat_checkpointer c CROSS JOIN pg_stat_bgwriter b"
+                : "SELECT checkpoints_timed, checkpoints_req AS checkpoints_requested, buffers_checkpoint, " +
+                  "       buffers_clean, maxwritten_clean, buffers_backend " +
+                  "FROM   pg_stat_bgwriter");
+
+        final Map<String, Long> counters = new LinkedHashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                final ResultSetMetaData metaData = rs.getMetaData();
+
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    counters.put(metaData.getColumnLabel(i), rs.getLong(i));
+                }
+            }
+        }
+
+        return counters;
+    }
+
+    private void clearSnapshot() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // Statistics are cached for the duration of a transaction, so make sure the latest values are read
+            stmt.execute(MARKER + "SELECT pg_stat_clear_snapshot()");
+        }
+    }
+
+    private String queryString(String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * Cumulative activity counters of a table.
+     */
+    private static final class TableCounters {
+        private static final TableCounters NONE = new TableCounters(0, 0, 0, 0);
+
+        private final long seqScans;
+        private final long seqRowsRead;
+        private final long indexScans;
+        private final long rowsModified;
+
+        TableCounters(long seqScans, long seqRowsRead, long indexScans, long rowsModified) {
+            this.seqScans = seqScans;
+            this.seqRowsRead = seqRowsRead;
+            this.indexScans = indexScans;
+            this.rowsModified = rowsModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final TableCounters that = (TableCounters) o;
+            return seqScans == that.seqScans && seqRowsRead == that.seqRowsRead && indexScans == that.indexScans && rowsModified == that.rowsModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(seqScans, seqRowsRead, indexScans, rowsModified);
+        }
+    }
+}
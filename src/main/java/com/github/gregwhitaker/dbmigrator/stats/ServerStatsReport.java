@@ -0,0 +1,277 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side cost of a migration run, with the most expensive statements ranked by total time, I/O and temporary
+ * file usage, the WAL generated by each migration, the tables that were scanned or modified, and the background writer
+ * activity.
+ */
+public class ServerStatsReport {
+    private static final int TOP_STATEMENTS = 10;
+    private static final int TOP_MIGRATIONS = 10;
+    private static final int TOP_TABLES = 10;
+    private static final int MAX_SQL_LENGTH = 60;
+
+    private final List<String> migrations;
+    private final List<StatementStats> statements;
+    private final long blockSize;
+    private final Map<String, Long> walBytes;
+    private final List<TableActivity> tables;
+    private final Map<String, Long> backgroundWriter;
+
+    /**
+     * Creates a new instance of {@link ServerStatsReport}.
+     *
+     * @param migrations migrations applied during the run, in the order they were applied
+     * @param statements change in the counters of each statement that ran, or <code>null</code> if
+     *                   <code>pg_stat_statements</code> is not available
+     * @param blockSize size of a database block in bytes
+     * @param walBytes WAL bytes generated during each migration, in the order they were applied, with WAL generated
+     *                 outside any migration under <code>-</code>
+     * @param tables change in the counters of each table that was scanned or modified
+     * @param backgroundWriter change in the background writer and checkpointer counters
+     */
+    public ServerStatsReport(List<String> migrations, List<StatementStats> statements, long blockSize,
+                             Map<String, Long> walBytes, List<TableActivity> tables, Map<String, Long> backgroundWriter) {
+        this.migrations = Collections.unmodifiableList(new ArrayList<>(migrations));
+        this.statements = statements != null ? Collections.unmodifiableList(new ArrayList<>(statements)) : null;
+        this.blockSize = blockSize;
+        this.walBytes = Collections.unmodifiableMap(new LinkedHashMap<>(walBytes));
+        this.tables = Collections.unmodifiableList(new ArrayList<>(tables));
+        this.backgroundWriter = Collections.unmodifiableMap(new LinkedHashMap<>(backgroundWriter));
+    }
+
+    public List<String> getMigrations() {
+        return migrations;
+    }
+
+    /**
+     * @return change in the counters of each statement that ran, or <code>null</code> if
+     *         <code>pg_stat_statements</code> is not available
+     */
+    public List<StatementStats> getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return WAL bytes generated during each migration, with WAL generated outside any migration under <code>-</code>
+     */
+    public Map<String, Long> getWalBytes() {
+        return walBytes;
+    }
+
+    /**
+     * @return WAL bytes generated during the run
+     */
+    public long getTotalWalBytes() {
+        return walBytes.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public List<TableActivity> getTables() {
+        return tables;
+    }
+
+    public Map<String, Long> getBackgroundWriter() {
+        return backgroundWriter;
+    }
+
+    /**
+     * @return statements ranked from longest to shortest total time
+     */
+    public List<StatementStats> getTopStatementsByTime() {
+        return top(StatementStats::getTotalMillis);
+    }
+
+    /**
+     * @return statements ranked from most to least shared blocks read and written
+     */
+    public List<StatementStats> getTopStatementsByIo() {
+        return top(statement -> statement.getSharedBlocksRead() + statement.getSharedBlocksWritten());
+    }
+
+    /**
+     * @return statements ranked from most to least temporary blocks written
+     */
+    public List<StatementStats> getTopStatementsByTemp() {
+        return top(StatementStats::getTempBlocksWritten);
+    }
+
+    private List<StatementStats> top(ToDoubleFunction<StatementStats> cost) {
+        if (statements == null) {
+            return Collections.emptyList();
+        }
+
+        return statements.stream()
+                .filter(statement -> cost.applyAsDouble(statement) > 0)
+                .sorted(Comparator.comparingDouble(cost).reversed())
+                .limit(TOP_STATEMENTS)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param out stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("Server statistics report [migrations: %d, WAL: %s, statements: %s, statement time: %s]%n",
+                migrations.size(),
+                formatBytes(getTotalWalBytes()),
+                statements != null ? String.valueOf(statements.size()) : "unavailable",
+                statements != null ? formatMillis(statements.stream().mapToDouble(StatementStats::getTotalMillis).sum()) : "unavailable");
+
+        if (statements == null) {
+            out.println();
+            out.println("pg_stat_statements is not available, install it to include statements in this report.");
+        } else {
+            printStatements(out, "Top statements by total time", getTopStatementsByTime());
+            printStatements(out, "Top statements by I/O", getTopStatementsByIo());
+            printStatements(out, "Top statements by temp bytes", getTopStatementsByTemp());
+        }
+
+        final List<Map.Entry<String, Long>> rankedWal = walBytes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_MIGRATIONS)
+                .collect(Collectors.toList());
+
+        if (!rankedWal.isEmpty()) {
+            out.println();
+            out.println("Migrations by WAL bytes");
+            out.printf("%4s  %-24s  %10s%n", "Rank", "Migration", "WAL");
+
+            for (int i = 0; i < rankedWal.size(); i++) {
+                out.printf("%4d  %-24s  %10s%n", i + 1, rankedWal.get(i).getKey(), formatBytes(rankedWal.get(i).getValue()));
+            }
+        }
+
+        final List<TableActivity> rankedTables = tables.stream()
+                .sorted(Comparator.comparingLong(TableActivity::getSeqRowsRead)
+                        .thenComparingLong(TableActivity::getRowsModified)
+                        .reversed())
+                .limit(TOP_TABLES)
+                .collect(Collectors.toList());
+
+        if (!rankedTables.isEmpty()) {
+            out.println();
+            out.println("Tables by sequential rows read");
+            out.printf("%-40s  %10s  %14s  %12s  %14s%n", "Table", "Seq scans", "Seq rows read", "Index scans", "Rows modified");
+
+            for (TableActivity table : rankedTables) {
+                out.printf("%-40s  %10d  %14d  %12d  %14d%n",
+                        table.getTable(), table.getSeqScans(), table.getSeqRowsRead(), table.getIndexScans(), table.getRowsModified());
+            }
+        }
+
+        if (!backgroundWriter.isEmpty()) {
+            out.println();
+            out.println("Background writer and checkpointer");
+            backgroundWriter.forEach((counter, value) -> out.printf("%-40s  %10d%n", counter, value));
+        }
+
+        out.println();
+        out.println("Statements are attributed to the migration after which their counters changed, or '-' when they ran outside a migration.");
+        out.println("Table counters are reported by backends asynchronously. WAL and background writer counters cover the whole server.");
+    }
+
+    private void printStatements(PrintStream out, String title, List<StatementStats> ranked) {
+        if (ranked.isEmpty()) {
+            return;
+        }
+
+        out.println();
+        out.println(title);
+        out.printf("%4s  %-24s  %8s  %10s  %10s  %10s  %10s  %s%n", "Rank", "Migration", "Calls", "Time", "Read", "Written", "Temp", "Statement");
+
+        for (int i = 0; i < ranked.size(); i++) {
+            final StatementStats statement = ranked.get(i);
+
+            out.printf("%4d  %-24s  %8d  %10s  %10s  %10s  %10s  %s%n",
+                    i + 1,
+                    statement.getMigration() != null ? statement.getMigration() : "-",
+                    statement.getCalls(),
+                    formatMillis(statement.getTotalMillis()),
+                    formatBytes(statement.getSharedBlocksRead() * blockSize),
+                    formatBytes(statement.getSharedBlocksWritten() * blockSize),
+                    formatBytes(statement.getTempBlocksWritten() * blockSize),
+                    abbreviate(statement.getQuery()));
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        final String oneLine = sql != null ? sql.replaceAll("\\s+", " ").trim() : "";
+        return oneLine.length() > MAX_SQL_LENGTH ? oneLine.substring(0, MAX_SQL_LENGTH - 3) + "..." : oneLine;
+    }
+
+    static String formatMillis(double millis) {
+        if (millis < 1_000) {
+            return String.format("%.1fms", millis);
+        } else if (millis < 60_000) {
+            return String.format("%.1fs", millis / 1_000.0);
+        } else if (millis < 3_600_000) {
+            return String.format("%.1fm", millis / 60_000.0);
+        }
+
+        return String.format("%.1fh", millis / 3_600_000.0);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1fkB", bytes / 1024.0);
+        } else if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1fMB", bytes / (1024.0 * 1024));
+        }
+
+        return String.format("%.1fGB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    /**
+     * Change in the activity counters of a table during a migration run.
+     */
+    public static final class TableActivity {
+        private final String table;
+        private final long seqScans;
+        private final long seqRowsRead;
+        private final long indexScans;
+        private final long rowsModified;
+
+        public TableActivity(String table, long seqScans, long seqRowsRead, long indexScans, long rowsModified) {
+            this.table = table;
+            this.seqScans = seqScans;
+            this.seqRowsRead = seqRowsRead;
+            this.indexScans = indexScans;
+            this.rowsModified = rowsModified;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getSeqScans() {
+            return seqScans;
+        }
+
+        public long getSeqRowsRead() {
+            return seqRowsRead;
+        }
+
+        public long getIndexScans() {
+            return indexScans;
+        }
+
+        public long getRowsModified() {
+            return rowsModified;
+        }
+    }
+}
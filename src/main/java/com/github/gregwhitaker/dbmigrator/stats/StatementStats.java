@@ -0,0 +1,110 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+/**
+ * Cumulative <code>pg_stat_statements</code> counters of a normalized statement, or the change in them during a
+ * migration.
+ */
+public final class StatementStats {
+    private final String query;
+    private final String migration;
+    private final long calls;
+    private final double totalMillis;
+    private final long rows;
+    private final long sharedBlocksRead;
+    private final long sharedBlocksWritten;
+    private final long tempBlocksWritten;
+
+    /**
+     * Creates a new instance of {@link StatementStats}.
+     *
+     * @param query normalized statement text
+     * @param migration version, or description for repeatable migrations, of the migration that ran the statement or
+     *                  <code>null</code> if unknown
+     * @param calls number of executions
+     * @param totalMillis total execution time
+     * @param rows rows returned or affected
+     * @param sharedBlocksRead shared blocks read from disk or the OS cache
+     * @param sharedBlocksWritten shared blocks written
+     * @param tempBlocksWritten temporary blocks written by sorts and hashes that spilled
+     */
+    public StatementStats(String query, String migration, long calls, double totalMillis, long rows,
+                          long sharedBlocksRead, long sharedBlocksWritten, long tempBlocksWritten) {
+        this.query = query;
+        this.migration = migration;
+        this.calls = calls;
+        this.totalMillis = totalMillis;
+        this.rows = rows;
+        this.sharedBlocksRead = sharedBlocksRead;
+        this.sharedBlocksWritten = sharedBlocksWritten;
+        this.tempBlocksWritten = tempBlocksWritten;
+    }
+
+    /**
+     * Gets the change in the counters since an earlier capture of the same statement.
+     *
+     * @param earlier earlier counters or <code>null</code> if the statement had not run yet
+     * @param migration migration the change is attributed to
+     * @return change in the counters
+     */
+    public StatementStats since(StatementStats earlier, String migration) {
+        if (earlier == null) {
+            return new StatementStats(query, migration, calls, totalMillis, rows, sharedBlocksRead, sharedBlocksWritten, tempBlocksWritten);
+        }
+
+        return new StatementStats(query, migration,
+                calls - earlier.calls,
+                totalMillis - earlier.totalMillis,
+                rows - earlier.rows,
+                sharedBlocksRead - earlier.sharedBlocksRead,
+                sharedBlocksWritten - earlier.sharedBlocksWritten,
+                tempBlocksWritten - earlier.tempBlocksWritten);
+    }
+
+    /**
+     * Combines the counters of two entries for the same statement, such as its top level and nested executions.
+     *
+     * @param other counters to add
+     * @return combined counters
+     */
+    StatementStats plus(StatementStats other) {
+        return new StatementStats(query, migration,
+                calls + other.calls,
+                totalMillis + other.totalMillis,
+                rows + other.rows,
+                sharedBlocksRead + other.sharedBlocksRead,
+                sharedBlocksWritten + other.sharedBlocksWritten,
+                tempBlocksWritten + other.tempBlocksWritten);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getMigration() {
+        return migration;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getSharedBlocksRead() {
+        return sharedBlocksRead;
+    }
+
+    public long getSharedBlocksWritten() {
+        return sharedBlocksWritten;
+    }
+
+    public long getTempBlocksWritten() {
+        return tempBlocksWritten;
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Point-in-time copy of the cumulative row modification counters in <code>pg_stat_user_tables</code>.
+ */
+public final class TableActivitySnapshot {
+
+    private final Map<String, Long> modifications;
+
+    /**
+     * Captures a snapshot of the table activity counters.
+     *
+     * @param conn database connection
+     * @return table activity snapshot
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static TableActivitySnapshot capture(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // Statistics are cached for the duration of a transaction, so make sure the latest values are read
+            stmt.execute("SELECT pg_stat_clear_snapshot()");
+        }
+
+        final String sql =
+                "SELECT relid::regclass::text AS table_name, n_tup_ins + n_tup_upd + n_tup_del AS modifications " +
+                "FROM   pg_stat_user_tables";
+
+        final Map<String, Long> modifications = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                modifications.put(rs.getString("table_name"), rs.getLong("modifications"));
+            }
+        }
+
+        return new TableActivitySnapshot(modifications);
+    }
+
+    private TableActivitySnapshot(Map<String, Long> modifications) {
+        this.modifications = modifications;
+    }
+
+    /**
+     * Gets the tables whose rows were modified between an earlier snapshot and this one.
+     *
+     * @param earlier earlier snapshot
+     * @return names of the modified tables
+     */
+    public Set<String> modifiedSince(TableActivitySnapshot earlier) {
+        final Set<String> tables = new LinkedHashSet<>();
+        modifications.forEach((table, count) -> {
+            if (count > earlier.modifications.getOrDefault(table, 0L)) {
+                tables.add(table);
+            }
+        });
+
+        return tables;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Objects.equals(modifications, ((TableActivitySnapshot) o).modifications);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(modifications);
+    }
+}
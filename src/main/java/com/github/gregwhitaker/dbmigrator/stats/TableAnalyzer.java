@@ -0,0 +1,89 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Refreshes the planner statistics of tables by running <code>ANALYZE</code> on them in parallel.
+ */
+public class TableAnalyzer {
+    private static final Logger LOG = LoggerFactory.getLogger(TableAnalyzer.class);
+
+    private final DataSource dataSource;
+    private final int threads;
+
+    /**
+     * Creates a new instance of {@link TableAnalyzer}.
+     *
+     * @param dataSource datasource containing the tables
+     * @param threads maximum number of tables analyzed in parallel
+     */
+    public TableAnalyzer(DataSource dataSource, int threads) {
+        this.dataSource = dataSource;
+        this.threads = threads;
+    }
+
+    /**
+     * Analyzes the tables and waits for all of them to finish.
+     *
+     * @param tableNames names of the tables as returned by <code>regclass::text</code>, so already quoted if required
+     * @throws SQLException if a table cannot be analyzed
+     * @throws InterruptedException if the analysis is interrupted
+     */
+    public void analyze(Collection<String> tableNames) throws SQLException, InterruptedException {
+        if (tableNames.isEmpty()) {
+            return;
+        }
+
+        LOG.info("Analyzing tables modified by migration [tables: '{}']", tableNames);
+
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tableNames.size()));
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            tableNames.forEach(tableName -> futures.add(executor.submit(() -> {
+                analyze(tableName);
+                return null;
+            })));
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SQLException) {
+                        throw (SQLException) e.getCause();
+                    }
+
+                    throw new IllegalStateException("Error occurred while analyzing tables", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Analyzed tables [count: '{}', duration: '{}ms']", tableNames.size(), System.currentTimeMillis() - start);
+    }
+
+    private void analyze(String tableName) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            final long start = System.currentTimeMillis();
+            stmt.execute("ANALYZE " + tableName);
+
+            LOG.debug("Analyzed table [table: '{}', duration: '{}ms']", tableName, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the names of tables whose data or structure is changed by the statements in a SQL migration script.
+ *
+ * This is a lightweight pattern match rather than a full SQL parser. It recognizes the statement forms used in
+ * migration scripts that leave a table's planner statistics stale: inserts, updates, deletes, copies, truncates,
+ * table alterations, index builds and <code>CREATE TABLE ... AS</code>.
+ */
+public final class TableReferenceExtractor {
+    private static final String NAME = "((?:\"[^\"]+\"|[A-Za-z_][\\w$]*)(?:\\s*\\.\\s*(?:\"[^\"]+\"|[A-Za-z_][\\w$]*))?)";
+
+    private static final List<Pattern> PATTERNS = Arrays.asList(
+            pattern("\\bINSERT\\s+INTO\\s+" + NAME),
+            pattern("\\bUPDATE\\s+(?:ONLY\\s+)?" + NAME + "(?:\\s+(?:AS\\s+)?\\w+)?\\s+SET\\b"),
+            pattern("\\bDELETE\\s+FROM\\s+(?:ONLY\\s+)?" + NAME),
+            pattern("\\bCOPY\\s+" + NAME + "\\s*(?:\\([^)]*\\))?\\s*FROM\\b"),
+            pattern("\\bTRUNCATE\\s+(?:TABLE\\s+)?(?:ONLY\\s+)?" + NAME),
+            pattern("\\bALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?" + NAME),
+            pattern("\\bCREATE\\s+(?:UNIQUE\\s+)?INDEX\\b[^;]*?\\bON\\s+(?:ONLY\\s+)?" + NAME),
+            pattern("\\bCREATE\\s+(?:(?:TEMP|TEMPORARY|UNLOGGED)\\s+)?TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME + "[^;]*?\\bAS\\s+(?:SELECT|WITH|VALUES|TABLE)\\b")
+    );
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LINE_COMMENT = Pattern.compile("--[^\\n]*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private TableReferenceExtractor() {}
+
+    /**
+     * Extracts the names of the tables modified by the SQL.
+     *
+     * @param sql one or more SQL statements
+     * @return table names as written in the SQL, with unquoted identifiers folded to lower case and quoted identifiers
+     *         kept quoted so they still name the same table, in order of first appearance
+     */
+    public static Set<String> extract(String sql) {
+        String stripped = BLOCK_COMMENT.matcher(sql).replaceAll(" ");
+        stripped = LINE_COMMENT.matcher(stripped).replaceAll(" ");
+        stripped = STRING_LITERAL.matcher(stripped).replaceAll("''");
+
+        final Set<String> tables = new LinkedHashSet<>();
+        for (Pattern pattern : PATTERNS) {
+            final Matcher matcher = pattern.matcher(stripped);
+
+            while (matcher.find()) {
+                tables.add(normalize(matcher.group(1)));
+            }
+        }
+
+        return tables;
+    }
+
+    private static Pattern pattern(String regex) {
+        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+
+    private static String normalize(String name) {
+        final StringBuilder sb = new StringBuilder();
+        for (String part : name.split("\\s*\\.\\s*")) {
+            if (sb.length() > 0) {
+                sb.append('.');
+            }
+
+            if (part.startsWith("\"")) {
+                sb.append(part);
+            } else {
+                sb.append(part.toLowerCase());
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,313 @@
+package com.github.gregwhitaker.dbmigrator.tenant;
+
+import com.github.gregwhitaker.dbmigrator.DatabaseMigrator;
+import com.github.gregwhitaker.dbmigrator.MigrationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Provisions tenant schemas without replaying the migration history for every new tenant.
+ *
+ * A number of spare schemas are kept fully migrated ahead of time. Provisioning a tenant claims a spare and renames it
+ * to the tenant's schema, which is a catalog update that takes milliseconds regardless of how long the history is. The
+ * spare carries its own <code>flyway_schema_history</code> table, so the history recorded while migrating the spare is
+ * exactly the history of the tenant and later migrations of the tenant schema treat it as up to date. Spares that are
+ * behind because migrations were added since they were created are migrated when claimed, and when there are no spares
+ * left the tenant is migrated from scratch.
+ *
+ * Spares are topped up again with {@link #replenish()}, which also migrates existing spares, so it is best run after
+ * provisioning and after deploying new migrations.
+ *
+ * Renaming a schema updates every reference the catalog keeps by OID, but not function bodies or function
+ * <code>SET search_path</code> settings, which are stored as text. A spare with a function that names the spare schema
+ * would leave the tenant calling into a schema that no longer exists, so such spares are not claimed and the tenant is
+ * migrated from scratch instead. Migrations for tenant schemas should leave the names in function bodies unqualified so
+ * that they resolve against the search path of the tenant.
+ */
+public class TenantProvisioner {
+    private static final Logger LOG = LoggerFactory.getLogger(TenantProvisioner.class);
+
+    /**
+     * Prefix of the names of spare schemas.
+     */
+    public static final String SPARE_PREFIX = "tenant_spare_";
+
+    // Spares are locked with two-key advisory locks, so they cannot collide with the single-key startup lock
+    private static final int LOCK_CLASS = 0x74656e74;
+
+    // Unquoted PostgreSQL identifiers, so schema names can be safely quoted in statements
+    private static final Pattern SCHEMA_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    private final DataSource dataSource;
+    private final String env;
+    private final int spares;
+
+    /**
+     * Creates a new instance of {@link TenantProvisioner}.
+     *
+     * @param dataSource datasource of the database holding the tenant schemas
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @param spares number of spare schemas to keep migrated ahead of time
+     */
+    public TenantProvisioner(DataSource dataSource, String env, int spares) {
+        this.dataSource = dataSource;
+        this.env = env;
+        this.spares = spares;
+    }
+
+    /**
+     * Provisions a new, fully migrated tenant schema.
+     *
+     * @param tenant name of the tenant schema
+     * @return <code>true</code> if the tenant was provisioned from a spare; <code>false</code> if it had to be migrated
+     *         from scratch
+     * @throws IllegalArgumentException if the name is not a valid tenant schema name
+     * @throws MigrationException if the schema already exists or provisioning fails
+     */
+    public boolean provision(String tenant) {
+        validate(tenant);
+
+        final long start = System.currentTimeMillis();
+        final boolean fromSpare;
+
+        try {
+            if (schemaExists(tenant)) {
+                throw new MigrationException("Tenant schema already exists: " + tenant);
+            }
+
+            fromSpare = claimSpare(tenant);
+        } catch (SQLException e) {
+            throw new MigrationException("Error occurred while provisioning tenant schema: " + tenant, e);
+        }
+
+        if (!fromSpare) {
+            LOG.warn("No spare schema available, migrating tenant schema from scratch [tenant: '{}']", tenant);
+        }
+
+        // A no-op for an up to date spare, otherwise applies whatever the spare or new schema is missing
+        final DatabaseMigrator migrator = migrator(tenant);
+        if (!migrator.isUpToDate(env)) {
+            migrator.run(env, false);
+        }
+
+        LOG.info("Provisioned tenant schema [tenant: '{}', fromSpare: '{}', duration: '{}ms']",
+                tenant, fromSpare, System.currentTimeMillis() - start);
+
+        return fromSpare;
+    }
+
+    /**
+     * Migrates the existing spare schemas and creates new ones until the configured number of spares is available.
+     */
+    public void replenish() {
+        try {
+            final List<String> existing = listSpares();
+
+            for (String spare : existing) {
+                prepareSpare(spare, true);
+            }
+
+            for (int i = existing.size(); i < spares; i++) {
+                prepareSpare(SPARE_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 16), false);
+            }
+        } catch (SQLException e) {
+            throw new MigrationException("Error occurred while replenishing spare tenant schemas", e);
+        }
+    }
+
+    /**
+     * Migrates a spare schema, creating it if it does not exist. The spare is locked while it is migrated so it cannot
+     * be claimed half migrated.
+     */
+    private void prepareSpare(String spare, boolean existing) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            if (!tryLock(conn, "pg_try_advisory_lock", spare)) {
+                // Being claimed or prepared by another migrator
+                return;
+            }
+
+            try {
+                // Claimed between listing the spares and taking the lock
+                if (existing && !schemaExists(conn, spare)) {
+                    return;
+                }
+
+                final DatabaseMigrator migrator = migrator(spare);
+                if (!migrator.isUpToDate(env)) {
+                    LOG.info("Migrating spare tenant schema [schema: '{}']", spare);
+                    migrator.run(env, false);
+                }
+            } finally {
+                try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_unlock(?, hashtext(?))")) {
+                    ps.setInt(1, LOCK_CLASS);
+                    ps.setString(2, spare);
+                    ps.execute();
+                }
+            }
+        }
+    }
+
+    /**
+     * Renames the first spare schema that is not locked by another migrator to the tenant's schema.
+     *
+     * @return <code>true</code> if a spare was claimed; otherwise <code>false</code>
+     */
+    private boolean claimSpare(String tenant) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                for (String spare : listSpares(conn)) {
+                    // Transaction level lock, so it is held until the rename is committed
+                    if (!tryLock(conn, "pg_try_advisory_xact_lock", spare) || !schemaExists(conn, spare)) {
+                        // Locked by another migrator or claimed since the spares were listed
+                        continue;
+                    }
+
+                    final List<String> functions = functionsNamingSchema(conn, spare);
+                    if (!functions.isEmpty()) {
+                        LOG.warn("Not claiming spare tenant schema, as functions name it and would not follow the rename [spare: '{}', functions: '{}']",
+                                spare, functions);
+                        continue;
+                    }
+
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(String.format("ALTER SCHEMA \"%s\" RENAME TO \"%s\"", spare, tenant));
+                    }
+
+                    // Flyway records the schemas it created, which it drops again on clean
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            String.format("UPDATE \"%s\".flyway_schema_history SET script = ? WHERE type = 'SCHEMA'", tenant))) {
+                        ps.setString(1, "\"" + tenant + "\"");
+                        ps.executeUpdate();
+                    }
+
+                    conn.commit();
+
+                    LOG.info("Claimed spare tenant schema [tenant: '{}', spare: '{}']", tenant, spare);
+                    return true;
+                }
+
+                conn.commit();
+                return false;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Finds the functions of a schema whose body or settings contain the schema name.
+     *
+     * @return signatures of the functions
+     */
+    private static List<String> functionsNamingSchema(Connection conn, String schema) throws SQLException {
+        final String sql =
+                "SELECT     p.oid::regprocedure::text AS function_name " +
+                "FROM       pg_proc p " +
+                "WHERE      p.pronamespace = to_regnamespace(?) " +
+                "AND        (position(? IN p.prosrc) > 0 OR position(? IN coalesce(array_to_string(p.proconfig, ','), '')) > 0) " +
+                "ORDER BY   1";
+
+        final List<String> result = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, "\"" + schema + "\"");
+            ps.setString(2, schema);
+            ps.setString(3, schema);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString("function_name"));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private DatabaseMigrator migrator(String schema) {
+        final DatabaseMigrator migrator = new DatabaseMigrator(dataSource);
+        migrator.setSchema(schema);
+
+        return migrator;
+    }
+
+    private static boolean tryLock(Connection conn, String function, String schema) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT " + function + "(?, hashtext(?))")) {
+            ps.setInt(1, LOCK_CLASS);
+            ps.setString(2, schema);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean schemaExists(String schema) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return schemaExists(conn, schema);
+        }
+    }
+
+    private static boolean schemaExists(Connection conn, String schema) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM pg_namespace WHERE nspname = ?")) {
+            ps.setString(1, schema);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private List<String> listSpares() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return listSpares(conn);
+        }
+    }
+
+    private static List<String> listSpares(Connection conn) throws SQLException {
+        final List<String> result = new ArrayList<>();
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT nspname FROM pg_namespace WHERE nspname LIKE ? ORDER BY nspname")) {
+            ps.setString(1, SPARE_PREFIX.replace("_", "\\_") + "%");
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString(1));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Validates a tenant schema name.
+     *
+     * @param tenant name of the tenant schema
+     * @throws IllegalArgumentException if the name is not a lowercase identifier or is reserved for spares
+     */
+    static void validate(String tenant) {
+        if (tenant == null || !SCHEMA_NAME.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Invalid tenant schema name, expected a lowercase identifier: " + tenant);
+        }
+
+        if (tenant.startsWith(SPARE_PREFIX) || tenant.startsWith("pg_") || tenant.equals("public") || tenant.equals("information_schema")) {
+            throw new IllegalArgumentException("Reserved tenant schema name: " + tenant);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import com.github.gregwhitaker.dbmigrator.jdbc.MigrationStatistics;
+import org.flywaydb.core.api.MigrationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace of a migration run, written as a span tree of run, target database, migration and statement to a local file in
+ * the OTLP/JSON format, so it can be imported into a tracing backend afterwards without running a collector.
+ *
+ * A trace belongs to the thread running the migration, which Flyway also runs its callbacks and statements on, so
+ * {@link TracingCallback} and {@link TracingStatementListener} find it with {@link #current()}.
+ *
+ * Tracing overhead is bounded: at most {@link #MAX_STATEMENT_SPANS} statement spans are recorded per run, after which
+ * statements are only counted on their migration's span, statement text is truncated, and wait events are sampled
+ * from a single connection at a fixed rate. The time spent tracing is measured and recorded on the run span.
+ */
+public class MigrationTrace implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(MigrationTrace.class);
+
+    static final int MAX_STATEMENT_SPANS = 10_000;
+    static final int MAX_STATEMENT_LENGTH = 1_000;
+    private static final long SAMPLE_PERIOD_MILLIS = 100;
+
+    private static final ThreadLocal<MigrationTrace> CURRENT = new ThreadLocal<>();
+
+    private final Path file;
+    private final String traceId = randomId(16);
+    private final long epochNanos;
+    private final long startNanoTime;
+    private final List<Span> spans = new ArrayList<>();
+    private final Map<String, Object> target = new LinkedHashMap<>();
+    private final Span runSpan;
+    private final WaitEventSampler sampler;
+    private Span targetSpan;
+    private Span migrationSpan;
+    private int statementSpans;
+    private int droppedStatementSpans;
+    private int totalDroppedStatementSpans;
+    private long overheadNanos;
+
+    MigrationTrace(Path file, WaitEventSampler sampler) {
+        final Instant now = Instant.now();
+        this.epochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        this.startNanoTime = System.nanoTime();
+        this.file = file;
+        this.sampler = sampler;
+        this.runSpan = new Span(randomId(8), null, "dbmigrator.run", Span.Kind.INTERNAL, epochNanos);
+    }
+
+    /**
+     * Starts tracing a migration run on the current thread.
+     *
+     * @param file file to append the trace to
+     * @param dataSource datasource being migrated, used to describe the target and sample wait events
+     * @param env migration environment name or <code>null</code> if no environment is desired
+     * @param locations migration locations
+     * @param clean whether the database is cleaned before migrating
+     * @return trace, which must be closed to write it
+     */
+    public static MigrationTrace start(Path file, DataSource dataSource, String env, String[] locations, boolean clean) {
+        WaitEventSampler sampler = null;
+        final Map<String, Object> target = new LinkedHashMap<>();
+
+        try {
+            final Connection conn = dataSource.getConnection();
+
+            try (PreparedStatement ps = conn.prepareStatement("SELECT current_database(), current_user, current_schema(), inet_server_addr()::text");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                target.put("db.name", rs.getString(1));
+                target.put("db.user", rs.getString(2));
+                target.put("dbmigrator.schema", rs.getString(3));
+                target.put("server.address", rs.getString(4));
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+
+            sampler = new WaitEventSampler(conn, SAMPLE_PERIOD_MILLIS);
+        } catch (SQLException e) {
+            LOG.warn("Unable to describe the trace target or sample wait events", e);
+        }
+
+        final MigrationTrace trace = new MigrationTrace(file, sampler);
+        trace.target.putAll(target);
+        trace.runSpan
+                .setAttribute("db.system", "postgresql")
+                .setAttribute("dbmigrator.env", env)
+                .setAttribute("dbmigrator.locations", String.join(",", locations))
+                .setAttribute("dbmigrator.clean", clean);
+
+        CURRENT.set(trace);
+
+        return trace;
+    }
+
+    /**
+     * Gets the trace of the migration running on the current thread.
+     *
+     * @return trace or <code>null</code> if the current thread is not tracing a migration
+     */
+    public static MigrationTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts the span of the target database, which covers cleaning and migrating it.
+     */
+    public void startTarget() {
+        targetSpan = new Span(randomId(8), runSpan.getSpanId(), "dbmigrator.target", Span.Kind.CLIENT, now());
+        target.forEach(targetSpan::setAttribute);
+    }
+
+    /**
+     * Ends the span of the target database.
+     */
+    public void endTarget() {
+        if (targetSpan != null) {
+            finish(targetSpan);
+            targetSpan = null;
+        }
+    }
+
+    /**
+     * Starts the span of a migration.
+     *
+     * @param info migration being applied, or undone
+     * @param statistics statistics of the connection applying the migration
+     * @param undo whether the migration is being undone rather than applied
+     */
+    void beginMigration(MigrationInfo info, MigrationStatistics statistics, boolean undo) {
+        final long start = System.nanoTime();
+
+        migrationSpan = new Span(randomId(8), parent().getSpanId(), "dbmigrator.migration", Span.Kind.INTERNAL, now())
+                .setAttribute("dbmigrator.migration.version", info.getVersion() != null ? info.getVersion().getVersion() : null)
+                .setAttribute("dbmigrator.migration.description", info.getDescription())
+                .setAttribute("dbmigrator.migration.script", info.getScript())
+                .setAttribute("dbmigrator.migration.type", info.getType().name())
+                .setAttribute("dbmigrator.migration.checksum", info.getChecksum())
+                .setAttribute("dbmigrator.migration.undo", undo);
+        droppedStatementSpans = 0;
+
+        if (sampler != null) {
+            sampler.track(statistics.backendPid());
+        }
+
+        overheadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Ends the span of the current migration.
+     *
+     * @param statistics statistics of the connection that applied the migration
+     * @param success whether the migration was applied
+     */
+    void endMigration(MigrationStatistics statistics, boolean success) {
+        if (migrationSpan == null) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+
+        if (success) {
+            migrationSpan.setAttribute("dbmigrator.migration.rows", statistics.rowsChanged());
+        } else {
+            migrationSpan.setError(new IllegalStateException("Migration failed"));
+        }
+
+        if (sampler != null) {
+            migrationSpan.setAttribute("dbmigrator.wait_events", sampler.untrack());
+        }
+
+        if (droppedStatementSpans > 0) {
+            migrationSpan.setAttribute("dbmigrator.dropped_statement_spans", droppedStatementSpans);
+        }
+
+        finish(migrationSpan);
+        migrationSpan = null;
+
+        overheadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Records a statement executed by Flyway.
+     *
+     * @param sql statement text or <code>null</code> if unknown
+     * @param startNanoTime {@link System#nanoTime()} when the statement started
+     * @param rows rows affected or <code>-1</code> if unknown
+     * @param error failure of the statement or <code>null</code> if it succeeded
+     */
+    void statement(String sql, long startNanoTime, long rows, Throwable error) {
+        final long start = System.nanoTime();
+
+        if (statementSpans >= MAX_STATEMENT_SPANS) {
+            droppedStatementSpans++;
+            totalDroppedStatementSpans++;
+        } else {
+            statementSpans++;
+
+            final Span span = new Span(randomId(8), parent().getSpanId(), "dbmigrator.statement", Span.Kind.CLIENT, toEpochNanos(startNanoTime))
+                    .setAttribute("db.statement", sql != null && sql.length() > MAX_STATEMENT_LENGTH ? sql.substring(0, MAX_STATEMENT_LENGTH) : sql)
+                    .setAttribute("dbmigrator.rows_affected", rows >= 0 ? rows : null);
+
+            if (error != null) {
+                span.setError(error);
+            }
+
+            span.end(toEpochNanos(start));
+            spans.add(span);
+        }
+
+        overheadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Marks the run as failed.
+     *
+     * @param error cause of the failure
+     */
+    public void fail(Throwable error) {
+        runSpan.setError(error);
+
+        if (targetSpan != null) {
+            targetSpan.setError(error);
+        }
+    }
+
+    /**
+     * Ends the trace and appends it to the trace file. Failing to write the trace is logged rather than failing the
+     * migration.
+     */
+    @Override
+    public void close() {
+        CURRENT.remove();
+
+        if (sampler != null) {
+            sampler.close();
+        }
+
+        endTarget();
+
+        runSpan.setAttribute("dbmigrator.trace.overhead_ms", TimeUnit.NANOSECONDS.toMillis(overheadNanos));
+        if (totalDroppedStatementSpans > 0) {
+            runSpan.setAttribute("dbmigrator.dropped_statement_spans", totalDroppedStatementSpans);
+        }
+        finish(runSpan);
+
+        final long start = System.nanoTime();
+
+        try {
+            final Map<String, Object> resource = new LinkedHashMap<>();
+            resource.put("service.name", "dbmigrator");
+
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+
+            Files.write(file, (OtlpJsonWriter.write(traceId, resource, spans) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOG.warn("Unable to write migration trace [file: '{}']", file, e);
+            return;
+        }
+
+        LOG.info("Wrote migration trace [file: '{}', traceId: '{}', spans: '{}', droppedStatementSpans: '{}', overhead: '{}ms', write: '{}ms']",
+                file, traceId, spans.size(), totalDroppedStatementSpans,
+                TimeUnit.NANOSECONDS.toMillis(overheadNanos), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    List<Span> getSpans() {
+        return spans;
+    }
+
+    private Span parent() {
+        if (migrationSpan != null) {
+            return migrationSpan;
+        }
+
+        return targetSpan != null ? targetSpan : runSpan;
+    }
+
+    private void finish(Span span) {
+        span.end(now());
+        spans.add(span);
+    }
+
+    private long now() {
+        return toEpochNanos(System.nanoTime());
+    }
+
+    private long toEpochNanos(long nanoTime) {
+        return epochNanos + (nanoTime - startNanoTime);
+    }
+
+    private static String randomId(int bytes) {
+        final StringBuilder id = new StringBuilder(bytes * 2);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < bytes; i++) {
+            id.append(String.format("%02x", random.nextInt(256)));
+        }
+
+        return id.toString();
+    }
+}
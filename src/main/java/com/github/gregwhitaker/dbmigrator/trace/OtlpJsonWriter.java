@@ -0,0 +1,130 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes spans as an OTLP <code>ExportTraceServiceRequest</code> in the OTLP/JSON format, which is what the
+ * OpenTelemetry Collector's <code>otlpjsonfile</code> receiver reads, one request per line.
+ *
+ * Trace and span ids are hex encoded and 64-bit integers are written as strings, as the OTLP/JSON format requires.
+ */
+public final class OtlpJsonWriter {
+    private static final String SCOPE_NAME = "com.github.gregwhitaker.dbmigrator";
+
+    private OtlpJsonWriter() {}
+
+    /**
+     * Encodes a trace as a single line of JSON.
+     *
+     * @param traceId hex encoded 16 byte trace id
+     * @param resource attributes of the process that produced the trace, such as <code>service.name</code>
+     * @param spans finished spans
+     * @return JSON without line breaks
+     */
+    public static String write(String traceId, Map<String, Object> resource, List<Span> spans) {
+        final StringBuilder json = new StringBuilder(256 + spans.size() * 256);
+
+        json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":");
+        attributes(json, resource);
+        json.append("},\"scopeSpans\":[{\"scope\":{\"name\":").append(quote(SCOPE_NAME)).append("},\"spans\":[");
+
+        for (int i = 0; i < spans.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+
+            span(json, traceId, spans.get(i));
+        }
+
+        return json.append("]}]}]}").toString();
+    }
+
+    private static void span(StringBuilder json, String traceId, Span span) {
+        json.append("{\"traceId\":").append(quote(traceId));
+        json.append(",\"spanId\":").append(quote(span.getSpanId()));
+
+        if (span.getParentSpanId() != null) {
+            json.append(",\"parentSpanId\":").append(quote(span.getParentSpanId()));
+        }
+
+        json.append(",\"name\":").append(quote(span.getName()));
+        json.append(",\"kind\":").append(span.getKind().getValue());
+        json.append(",\"startTimeUnixNano\":\"").append(span.getStartTimeUnixNano()).append('"');
+        json.append(",\"endTimeUnixNano\":\"").append(span.getEndTimeUnixNano()).append('"');
+        json.append(",\"attributes\":");
+        attributes(json, span.getAttributes());
+
+        // Status codes are 1 for ok and 2 for error
+        if (span.getErrorMessage() != null) {
+            json.append(",\"status\":{\"code\":2,\"message\":").append(quote(span.getErrorMessage())).append('}');
+        } else {
+            json.append(",\"status\":{\"code\":1}");
+        }
+
+        json.append('}');
+    }
+
+    private static void attributes(StringBuilder json, Map<String, Object> attributes) {
+        json.append('[');
+
+        boolean first = true;
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+
+            json.append("{\"key\":").append(quote(attribute.getKey())).append(",\"value\":{");
+
+            final Object value = attribute.getValue();
+            if (value instanceof Boolean) {
+                json.append("\"boolValue\":").append(value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                json.append("\"intValue\":\"").append(value).append('"');
+            } else if (value instanceof Number) {
+                json.append("\"doubleValue\":").append(((Number) value).doubleValue());
+            } else {
+                json.append("\"stringValue\":").append(quote(value.toString()));
+            }
+
+            json.append("}}");
+        }
+
+        json.append(']');
+    }
+
+    static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timed operation in a migration trace.
+ */
+public class Span {
+
+    /**
+     * Kind of span, numbered as in OTLP.
+     */
+    public enum Kind {
+        INTERNAL(1),
+        CLIENT(3);
+
+        private final int value;
+
+        Kind(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Kind kind;
+    private final long startTimeUnixNano;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private long endTimeUnixNano;
+    private String errorMessage;
+
+    Span(String spanId, String parentSpanId, String name, Kind kind, long startTimeUnixNano) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startTimeUnixNano = startTimeUnixNano;
+    }
+
+    /**
+     * Sets an attribute of the span.
+     *
+     * @param key attribute name
+     * @param value string, boolean, integer or floating point value, attributes with <code>null</code> values are not set
+     * @return this span
+     */
+    public Span setAttribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param error cause of the failure
+     */
+    public void setError(Throwable error) {
+        this.errorMessage = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+    }
+
+    void end(long endTimeUnixNano) {
+        this.endTimeUnixNano = endTimeUnixNano;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartTimeUnixNano() {
+        return startTimeUnixNano;
+    }
+
+    public long getEndTimeUnixNano() {
+        return endTimeUnixNano;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
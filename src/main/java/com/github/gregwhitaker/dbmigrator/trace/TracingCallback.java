@@ -0,0 +1,49 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import com.github.gregwhitaker.dbmigrator.jdbc.MigrationStatistics;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+
+/**
+ * Flyway callback that adds a span for each migration, and each undo of a migration, to the {@link MigrationTrace} of
+ * the current thread, and does nothing when the migration is not being traced.
+ */
+public class TracingCallback implements Callback {
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        switch (event) {
+            case BEFORE_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE:
+            case AFTER_EACH_MIGRATE_ERROR:
+            case BEFORE_EACH_UNDO:
+            case AFTER_EACH_UNDO:
+            case AFTER_EACH_UNDO_ERROR:
+                return MigrationTrace.current() != null;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        // Only reads statistics, so it is safe inside the migration's transaction
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        final MigrationTrace trace = MigrationTrace.current();
+
+        if (trace == null) {
+            return;
+        }
+
+        if (event == Event.BEFORE_EACH_MIGRATE || event == Event.BEFORE_EACH_UNDO) {
+            trace.beginMigration(context.getMigrationInfo(), MigrationStatistics.of(context), event == Event.BEFORE_EACH_UNDO);
+        } else {
+            trace.endMigration(MigrationStatistics.of(context), event == Event.AFTER_EACH_MIGRATE || event == Event.AFTER_EACH_UNDO);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import com.github.gregwhitaker.dbmigrator.jdbc.StatementListener;
+
+/**
+ * {@link StatementListener} that adds a span for each statement to the {@link MigrationTrace} of the current thread,
+ * and only listens while the thread is tracing a migration.
+ */
+public class TracingStatementListener implements StatementListener {
+
+    @Override
+    public boolean isEnabled() {
+        return MigrationTrace.current() != null;
+    }
+
+    @Override
+    public Object beforeExecute(String sql) {
+        return MigrationTrace.current();
+    }
+
+    @Override
+    public void afterExecute(Object state, String sql, long startNanoTime, long rows, Throwable error) {
+        ((MigrationTrace) state).statement(sql, startNanoTime, rows, error);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Samples the wait events of the backend applying the current migration from a separate connection, as the migrating
+ * connection cannot report what it is waiting on while it waits.
+ */
+class WaitEventSampler implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(WaitEventSampler.class);
+
+    private final Connection connection;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Integer> samples = new TreeMap<>();
+    private int pid;
+
+    /**
+     * Creates a new instance of {@link WaitEventSampler} and starts sampling.
+     *
+     * @param connection connection dedicated to sampling, closed with the sampler
+     * @param periodMillis time between samples
+     */
+    WaitEventSampler(Connection connection, long periodMillis) {
+        this.connection = connection;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "trace-wait-event-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.scheduleAtFixedRate(this::sample, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts sampling a backend, discarding the samples of the previous one.
+     *
+     * @param pid backend process id
+     */
+    synchronized void track(int pid) {
+        this.pid = pid;
+        this.samples.clear();
+    }
+
+    /**
+     * Stops sampling the current backend.
+     *
+     * @return number of samples of each wait event, formatted as <code>{type}:{event}={samples}</code>, or
+     *         <code>null</code> if the backend was never seen waiting
+     */
+    synchronized String untrack() {
+        final String result = samples.isEmpty() ? null : samples.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+
+        this.pid = 0;
+        this.samples.clear();
+
+        return result;
+    }
+
+    private synchronized void sample() {
+        if (pid == 0) {
+            return;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT wait_event_type, wait_event FROM pg_stat_activity WHERE pid = ? AND state = 'active' AND wait_event IS NOT NULL")) {
+            ps.setInt(1, pid);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    samples.merge(rs.getString(1) + ":" + rs.getString(2), 1, Integer::sum);
+                }
+            }
+        } catch (SQLException e) {
+            LOG.debug("Unable to sample wait events", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+
+        synchronized (this) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.debug("Unable to close wait event sampling connection", e);
+            }
+        }
+    }
+}
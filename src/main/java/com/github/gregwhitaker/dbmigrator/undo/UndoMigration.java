@@ -0,0 +1,29 @@
+package com.github.gregwhitaker.dbmigrator.undo;
+
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Java migration that undoes the versioned migration of the same version, named like it with a <code>U</code> prefix,
+ * such as <code>U1_0_1_20210601120000__add_vendor_table</code>.
+ *
+ * Undo classes implement this interface rather than extend Flyway's <code>BaseJavaMigration</code>, which only accepts
+ * <code>V</code> and <code>R</code> class names, so Flyway leaves them alone and only the {@link UndoMigrator} runs them.
+ */
+public interface UndoMigration {
+
+    /**
+     * Undoes the changes of the migration.
+     *
+     * @param context Flyway configuration and the connection to undo the migration with
+     * @throws Exception if the migration cannot be undone
+     */
+    void undo(Context context) throws Exception;
+
+    /**
+     * @return <code>true</code> if the undo runs in a transaction with the update of the schema history, the default;
+     *         <code>false</code> if it must run with autocommit
+     */
+    default boolean canExecuteInTransaction() {
+        return true;
+    }
+}
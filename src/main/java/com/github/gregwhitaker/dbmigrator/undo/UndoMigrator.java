@@ -0,0 +1,415 @@
+package com.github.gregwhitaker.dbmigrator.undo;
+
+import com.github.gregwhitaker.dbmigrator.MigrationException;
+import com.github.gregwhitaker.dbmigrator.data.TableInfo;
+import com.github.gregwhitaker.dbmigrator.jdbc.SchemaHistoryLock;
+import com.github.gregwhitaker.dbmigrator.sql.ScriptDirectives;
+import com.github.gregwhitaker.dbmigrator.sql.ScriptResources;
+import com.github.gregwhitaker.dbmigrator.sql.StreamingSqlMigrationExecutor;
+import com.github.gregwhitaker.dbmigrator.sql.StreamingSqlMigrationResolver;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Event;
+import org.flywaydb.core.api.callback.Statement;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.executor.MigrationExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Undoes the applied versioned migrations above a target version, newest first, by running the undo migration of each
+ * one: a <code>U</code> script, such as <code>U1_0_1_20210601120000__add_vendor_table.sql</code>, or a Java
+ * {@link UndoMigration} of the same name in a Java migration location. Each undone migration is removed from the schema
+ * history, so it is pending again and is applied by the next migration.
+ *
+ * Flyway's community edition does not run undo migrations, so they are run here the way forward migrations are run:
+ * through the instrumented datasource, with the Flyway callbacks told of each undo, and scripts streamed by a
+ * {@link StreamingSqlMigrationExecutor} with their {@link ScriptDirectives}, such as <code>Lock-Timeout</code> and
+ * <code>Retry-Attempts</code>. An undo that runs in a transaction removes the schema history entry in the same
+ * transaction. Nothing is undone unless every migration above the target has an undo migration.
+ *
+ * The undo holds Flyway's own schema history lock from choosing the migrations to undo until the last one is undone,
+ * so a concurrent migration, such as one requested from the migration server, waits for it rather than applying or
+ * skipping a version while it is being undone.
+ */
+public class UndoMigrator {
+    private static final Logger LOG = LoggerFactory.getLogger(UndoMigrator.class);
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String JAVA_UNDO_PREFIX = "U";
+    private static final String JAVA_SEPARATOR = "__";
+
+    private final Flyway flyway;
+
+    /**
+     * Creates a new instance of {@link UndoMigrator}.
+     *
+     * @param flyway Flyway instance configured for the migration
+     */
+    public UndoMigrator(Flyway flyway) {
+        this.flyway = flyway;
+    }
+
+    /**
+     * Undoes the applied migrations above a version.
+     *
+     * @param target version to undo to, which itself stays applied
+     * @return migrations that were undone, newest first
+     * @throws SQLException if the database cannot be queried
+     * @throws IOException if the undo migrations cannot be listed or read
+     * @throws MigrationException if a migration has no undo migration or cannot be undone
+     */
+    public List<MigrationInfo> undo(MigrationVersion target) throws SQLException, IOException {
+        final Configuration configuration = flyway.getConfiguration();
+
+        try (Connection conn = configuration.getDataSource().getConnection();
+             SchemaHistoryLock lock = SchemaHistoryLock.acquire(conn, configuration)) {
+            final boolean autoCommit = conn.getAutoCommit();
+
+            try {
+                return undo(conn, target);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<MigrationInfo> undo(Connection conn, MigrationVersion target) throws SQLException, IOException {
+        // Read under the lock, so no migration can be applied between choosing the migrations and undoing them
+        final List<MigrationInfo> applied = appliedAbove(flyway.info().applied(), target);
+
+        if (applied.isEmpty()) {
+            LOG.info("No applied migrations to undo [target: '{}']", target);
+            return applied;
+        }
+
+        final Map<MigrationVersion, Undo> undos = resolve(flyway.getConfiguration());
+
+        final List<String> missing = applied.stream()
+                .filter(info -> !undos.containsKey(info.getVersion()))
+                .map(info -> info.getVersion().getVersion())
+                .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            throw new MigrationException("No undo migration found for applied versions: " + String.join(", ", missing));
+        }
+
+        callback(Event.BEFORE_UNDO, conn, null);
+        try {
+            for (MigrationInfo info : applied) {
+                undo(conn, info, undos.get(info.getVersion()));
+            }
+        } catch (SQLException | RuntimeException e) {
+            callback(Event.AFTER_UNDO_ERROR, conn, null);
+            throw e;
+        }
+        callback(Event.AFTER_UNDO, conn, null);
+
+        return applied;
+    }
+
+    /**
+     * Selects the successfully applied versioned migrations above the target, in the reverse of the order they were
+     * applied in, which also undoes out of order migrations before the migrations applied ahead of them.
+     */
+    static List<MigrationInfo> appliedAbove(MigrationInfo[] applied, MigrationVersion target) {
+        final List<MigrationInfo> migrations = new ArrayList<>();
+
+        for (MigrationInfo info : applied) {
+            if (info.getVersion() == null || info.getVersion().compareTo(target) <= 0) {
+                continue;
+            }
+
+            if (info.getType() == MigrationType.BASELINE || info.getType() == MigrationType.SCHEMA) {
+                throw new MigrationException(String.format("Cannot undo past the baseline of the schema history [version: %s]",
+                        info.getVersion().getVersion()));
+            }
+
+            if (info.getState().isFailed()) {
+                throw new MigrationException(String.format("Cannot undo a failed migration, repair the schema history first [version: %s]",
+                        info.getVersion().getVersion()));
+            }
+
+            migrations.add(info);
+        }
+
+        migrations.sort(Comparator.comparing(MigrationInfo::getInstalledRank).reversed());
+
+        return migrations;
+    }
+
+    private void undo(Connection conn, MigrationInfo info, Undo undo) throws SQLException {
+        final boolean transactional = undo.executor.canExecuteInTransaction();
+        final long start = System.currentTimeMillis();
+
+        LOG.info("Undoing migration [version: '{}', description: '{}', undo: '{}', transactional: '{}']",
+                info.getVersion().getVersion(), info.getDescription(), undo.name, transactional);
+
+        conn.setAutoCommit(!transactional);
+
+        callback(Event.BEFORE_EACH_UNDO, conn, info);
+        try {
+            undo.executor.execute(new UndoContext(flyway.getConfiguration(), conn, info));
+            deleteHistory(conn, info);
+        } catch (SQLException | RuntimeException e) {
+            if (transactional) {
+                rollback(conn);
+            }
+            callback(Event.AFTER_EACH_UNDO_ERROR, conn, info);
+
+            throw new MigrationException(String.format("Error occurred while undoing migration [version: %s, undo: %s]",
+                    info.getVersion().getVersion(), undo.name), e);
+        }
+        callback(Event.AFTER_EACH_UNDO, conn, info);
+
+        if (transactional) {
+            conn.commit();
+        }
+
+        LOG.info("Undid migration [version: '{}', undo: '{}', duration: '{}ms']",
+                info.getVersion().getVersion(), undo.name, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Removes the schema history entry of an undone migration, so it is pending again.
+     */
+    private void deleteHistory(Connection conn, MigrationInfo info) throws SQLException {
+        final Configuration configuration = flyway.getConfiguration();
+        final String table = configuration.getSchemas().length > 0
+                ? TableInfo.quote(configuration.getSchemas()[0]) + "." + TableInfo.quote(configuration.getTable())
+                : TableInfo.quote(configuration.getTable());
+
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM " + table + " WHERE installed_rank = ?")) {
+            ps.setInt(1, info.getInstalledRank());
+
+            if (ps.executeUpdate() != 1) {
+                throw new MigrationException(String.format("Schema history entry of undone migration not found [version: %s]",
+                        info.getVersion().getVersion()));
+            }
+        }
+    }
+
+    private static void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOG.warn("Unable to roll back failed undo migration", e);
+        }
+    }
+
+    private void callback(Event event, Connection conn, MigrationInfo info) {
+        final UndoContext context = new UndoContext(flyway.getConfiguration(), conn, info);
+
+        for (Callback callback : flyway.getConfiguration().getCallbacks()) {
+            if (callback.supports(event, context)) {
+                callback.handle(event, context);
+            }
+        }
+    }
+
+    /**
+     * Finds the undo scripts and classes in the configured locations by the version they undo.
+     */
+    private static Map<MigrationVersion, Undo> resolve(Configuration configuration) throws IOException {
+        final Map<MigrationVersion, Undo> undos = new HashMap<>();
+        final String prefix = configuration.getUndoSqlMigrationPrefix();
+        final String separator = configuration.getSqlMigrationSeparator();
+
+        final String[] locations = Arrays.stream(configuration.getLocations())
+                .map(Location::getDescriptor)
+                .toArray(String[]::new);
+
+        for (String suffix : Arrays.asList(".sql", StreamingSqlMigrationResolver.SUFFIX)) {
+            for (Map.Entry<String, URL> script : ScriptResources.list(locations, suffix).entrySet()) {
+                final MigrationVersion version = version(fileName(script.getKey(), suffix), prefix, separator);
+
+                if (version != null) {
+                    add(undos, version, new Undo(script.getKey(), new StreamingSqlMigrationExecutor(
+                            configuration, script.getKey(), script.getValue(), directives(script.getKey(), script.getValue()))));
+                }
+            }
+        }
+
+        for (String location : locations) {
+            if (!location.startsWith(CLASSPATH_PREFIX)) {
+                continue;
+            }
+
+            final String packageName = location.substring(CLASSPATH_PREFIX.length()).replaceAll("^/+|/+$", "").replace('/', '.');
+
+            for (String path : ScriptResources.list(new String[]{ location }, CLASS_SUFFIX).keySet()) {
+                final String className = path.substring(0, path.length() - CLASS_SUFFIX.length()).replace('/', '.');
+
+                // Nested classes are part of their enclosing undo class
+                if (className.contains("$")) {
+                    continue;
+                }
+
+                final MigrationVersion version = version(fileName(path, CLASS_SUFFIX), JAVA_UNDO_PREFIX, JAVA_SEPARATOR);
+
+                if (version != null) {
+                    final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+                    add(undos, version, new Undo(qualifiedName, new JavaUndoMigrationExecutor(load(configuration, qualifiedName), qualifiedName)));
+                }
+            }
+        }
+
+        return undos;
+    }
+
+    private static void add(Map<MigrationVersion, Undo> undos, MigrationVersion version, Undo undo) {
+        final Undo existing = undos.putIfAbsent(version, undo);
+
+        if (existing != null) {
+            throw new MigrationException(String.format("Found more than one undo migration for version %s [%s, %s]",
+                    version.getVersion(), existing.name, undo.name));
+        }
+    }
+
+    private static String fileName(String path, String suffix) {
+        return path.substring(path.lastIndexOf('/') + 1, path.length() - suffix.length());
+    }
+
+    /**
+     * Parses the version of the migration an undo migration undoes from its name, such as
+     * <code>U1_0_1_20210601120000__add_vendor_table</code>.
+     *
+     * @param name script name without its suffix, or simple class name
+     * @param prefix undo migration prefix
+     * @param separator separator between the version and the description
+     * @return version or <code>null</code> if the name is not that of an undo migration
+     */
+    static MigrationVersion version(String name, String prefix, String separator) {
+        final int separatorIndex = name.indexOf(separator);
+
+        if (!name.startsWith(prefix) || separatorIndex <= prefix.length()) {
+            return null;
+        }
+
+        return MigrationVersion.fromVersion(name.substring(prefix.length(), separatorIndex));
+    }
+
+    private static ScriptDirectives directives(String script, URL url) {
+        try (Reader reader = ScriptResources.open(url)) {
+            return ScriptDirectives.parse(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MigrationException("Unable to read directives of undo script: " + script, e);
+        }
+    }
+
+    private static UndoMigration load(Configuration configuration, String className) {
+        final Class<?> type;
+        try {
+            type = Class.forName(className, true, configuration.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new MigrationException("Unable to load undo migration class: " + className, e);
+        }
+
+        if (!UndoMigration.class.isAssignableFrom(type)) {
+            throw new MigrationException(String.format("Undo migration class %s must implement %s", className, UndoMigration.class.getName()));
+        }
+
+        try {
+            return (UndoMigration) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new MigrationException("Unable to instantiate undo migration class: " + className, e);
+        }
+    }
+
+    /**
+     * Undo migration resolved from the configured locations.
+     */
+    private static class Undo {
+        private final String name;
+        private final MigrationExecutor executor;
+
+        Undo(String name, MigrationExecutor executor) {
+            this.name = name;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Runs a Java undo migration.
+     */
+    private static class JavaUndoMigrationExecutor implements MigrationExecutor {
+        private final UndoMigration migration;
+        private final String className;
+
+        JavaUndoMigrationExecutor(UndoMigration migration, String className) {
+            this.migration = migration;
+            this.className = className;
+        }
+
+        @Override
+        public void execute(org.flywaydb.core.api.executor.Context context) throws SQLException {
+            try {
+                migration.undo((UndoContext) context);
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Error occurred while running undo migration class: " + className, e);
+            }
+        }
+
+        @Override
+        public boolean canExecuteInTransaction() {
+            return migration.canExecuteInTransaction();
+        }
+    }
+
+    /**
+     * Context of an undo, given to the callbacks, the executor and the Java undo migration alike.
+     */
+    private static class UndoContext implements org.flywaydb.core.api.callback.Context,
+            org.flywaydb.core.api.executor.Context, org.flywaydb.core.api.migration.Context {
+        private final Configuration configuration;
+        private final Connection connection;
+        private final MigrationInfo migrationInfo;
+
+        UndoContext(Configuration configuration, Connection connection, MigrationInfo migrationInfo) {
+            this.configuration = configuration;
+            this.connection = connection;
+            this.migrationInfo = migrationInfo;
+        }
+
+        @Override
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public MigrationInfo getMigrationInfo() {
+            return migrationInfo;
+        }
+
+        @Override
+        public Statement getStatement() {
+            return null;
+        }
+    }
+}
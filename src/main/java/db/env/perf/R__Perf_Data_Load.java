@@ -0,0 +1,33 @@
+package db.env.perf;
+
+import com.github.gregwhitaker.dbmigrator.perf.SyntheticDataGenerator;
+import com.github.gregwhitaker.dbmigrator.perf.SyntheticDataSpec;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Loads a synthetic high-volume dataset into performance test databases.
+ *
+ * The checksum is derived from the dataset specification, so the data is regenerated whenever the
+ * <code>db.perf.*</code> system properties change and left alone otherwise.
+ */
+public class R__Perf_Data_Load extends BaseJavaMigration {
+
+    private final SyntheticDataSpec spec = SyntheticDataSpec.fromSystemProperties();
+
+    @Override
+    public Integer getChecksum() {
+        return spec.checksum();
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        // Data is loaded from several connections that each commit as they go
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        new SyntheticDataGenerator(context.getConfiguration().getDataSource(), spec).generate();
+    }
+}
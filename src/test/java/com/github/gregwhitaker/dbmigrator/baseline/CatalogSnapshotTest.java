@@ -0,0 +1,31 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class CatalogSnapshotTest {
+
+    @Test
+    public void shouldHaveNoDifferencesWhenEqual() {
+        final CatalogSnapshot replayed = snapshot("column | foo | id", "data | foo | 3 | abc");
+        final CatalogSnapshot squashed = snapshot("data | foo | 3 | abc", "column | foo | id");
+
+        assertTrue(replayed.diff(squashed).isEmpty());
+    }
+
+    @Test
+    public void shouldListMissingEntriesBeforeExtraEntries() {
+        final CatalogSnapshot replayed = snapshot("column | foo | id", "index | foo | foo_pkey");
+        final CatalogSnapshot squashed = snapshot("column | foo | id", "index | foo | foo_id_idx");
+
+        assertEquals(Arrays.asList("- index | foo | foo_pkey", "+ index | foo | foo_id_idx"), replayed.diff(squashed));
+    }
+
+    private static CatalogSnapshot snapshot(String... entries) {
+        return new CatalogSnapshot(new TreeSet<>(Arrays.asList(entries)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.gregwhitaker.dbmigrator.baseline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SquashedBaselineTest {
+
+    @Test
+    public void shouldParseVersionHeader() {
+        final String script = "-- Script: baseline.sql\n" +
+                "-- Baseline Version: 1.0.0.20210520091440\n" +
+                "\n" +
+                "CREATE TABLE foo (id BIGINT);\n";
+
+        final SquashedBaseline baseline = SquashedBaseline.parse(script);
+
+        assertEquals("1.0.0.20210520091440", baseline.getVersion());
+        assertEquals(script, baseline.getScript());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectScriptWithoutVersionHeader() {
+        SquashedBaseline.parse("CREATE TABLE foo (id BIGINT);\n");
+    }
+}
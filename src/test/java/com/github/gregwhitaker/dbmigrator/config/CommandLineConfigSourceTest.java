@@ -2,6 +2,8 @@ package com.github.gregwhitaker.dbmigrator.config;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertTrue;
 
@@ -24,6 +26,63 @@ public class CommandLineConfigSourceTest {
         assertEquals(config.getEnvironment(), "db-env");
         assertFalse(config.isCleanMigrate());
         assertFalse(config.isCleanNoMigrate());
+        assertTrue(config.isAnalyze());
+    }
+
+    @Test
+    public void shouldSkipAnalyze() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--skip-analyze"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertFalse(config.isAnalyze());
+    }
+
+    @Test
+    public void shouldSetPrewarmConfiguration() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--prewarm",
+                "--prewarm-relations", "metadata,metadata_pkey",
+                "--prewarm-timeout-seconds", "30"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertTrue(config.isPrewarm());
+        assertEquals(Arrays.asList("metadata", "metadata_pkey"), config.getPrewarmRelations());
+        assertEquals(30, config.getPrewarmTimeoutSeconds());
+    }
+
+    @Test
+    public void shouldSetCoordinateConfiguration() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--coordinate",
+                "--coordinate-timeout-seconds", "120"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertTrue(config.isCoordinate());
+        assertEquals(120, config.getCoordinateTimeoutSeconds());
+    }
+
+    @Test
+    public void shouldSetTenantConfiguration() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--tenant", "acme",
+                "--tenant-spares", "5"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertEquals("acme", config.getTenant());
+        assertEquals(5, config.getTenantSpares());
     }
 
     @Test
@@ -80,6 +139,32 @@ public class CommandLineConfigSourceTest {
         DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
     }
 
+    @Test
+    public void shouldSetPlan() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--env", "db-env",
+                "--plan"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertTrue(config.isPlan());
+        assertFalse(config.isCleanMigrate());
+        assertFalse(config.isCleanNoMigrate());
+    }
+
+    @Test(expected = Exception.class)
+    public void shouldThrowExceptionIfPlanAndCleanFlagsSupplied() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--plan",
+                "--clean-migrate"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+    }
+
     @Test(expected = MissingConfigurationException.class)
     public void shouldThrowExceptionIfJdbcUrlNotSupplied() {
         final String[] args = {
@@ -90,4 +175,50 @@ public class CommandLineConfigSourceTest {
 
         DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
     }
+
+    @Test
+    public void shouldSetDataCopyConfiguration() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--source-jdbc-url", "db-source-jdbc-url",
+                "--source-username", "db-source-username",
+                "--source-password", "db-source-password",
+                "--copy-tables", "metadata_type,metadata",
+                "--copy-threads", "2"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertEquals(config.getSourceJdbcUrl(), "db-source-jdbc-url");
+        assertEquals(config.getSourceUsername(), "db-source-username");
+        assertEquals(config.getSourcePassword(), "db-source-password");
+        assertEquals(config.getCopyTables(), Arrays.asList("metadata_type", "metadata"));
+        assertEquals(config.getCopyThreads(), 2);
+    }
+
+    @Test(expected = MissingConfigurationException.class)
+    public void shouldThrowExceptionIfCopyTablesSuppliedWithoutSourceJdbcUrl() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--copy-tables", "metadata"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+    }
+
+    @Test
+    public void shouldSetVerificationConfiguration() {
+        final String[] args = {
+                "--jdbc-url", "db-jdbc-url",
+                "--source-jdbc-url", "db-source-jdbc-url",
+                "--verify-tables", "metadata",
+                "--verify-threads", "16"
+        };
+
+        DatabaseMigratorConfig config = DatabaseMigratorConfig.get(args);
+
+        assertEquals(config.getVerifyTables(), Arrays.asList("metadata"));
+        assertEquals(config.getVerifyThreads(), 16);
+        assertTrue(config.getCopyTables().isEmpty());
+    }
 }
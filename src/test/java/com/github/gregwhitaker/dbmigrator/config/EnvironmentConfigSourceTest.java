@@ -4,6 +4,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.EnvironmentVariables;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 public class EnvironmentConfigSourceTest {
@@ -30,6 +33,72 @@ public class EnvironmentConfigSourceTest {
         assertFalse(config.isCleanNoMigrate());
     }
 
+    @Test
+    public void shouldSetMigratorConfigurationFromEnvVariables() {
+        environmentVariables.set("DB_JDBC_URL", "db-jdbc-url");
+        environmentVariables.set("DB_PLAN", "true");
+        environmentVariables.set("DB_SOURCE_JDBC_URL", "db-source-jdbc-url");
+        environmentVariables.set("DB_SOURCE_USERNAME", "db-source-username");
+        environmentVariables.set("DB_SOURCE_PASSWORD", "db-source-password");
+        environmentVariables.set("DB_COPY_TABLES", "metadata_type, metadata");
+        environmentVariables.set("DB_COPY_THREADS", "2");
+        environmentVariables.set("DB_VERIFY_TABLES", "metadata");
+        environmentVariables.set("DB_VERIFY_THREADS", "3");
+        environmentVariables.set("DB_ANALYZE", "false");
+        environmentVariables.set("DB_PREWARM", "true");
+        environmentVariables.set("DB_PREWARM_RELATIONS", "metadata,metadata_pkey");
+        environmentVariables.set("DB_PREWARM_TIMEOUT_SECONDS", "30");
+        environmentVariables.set("DB_COORDINATE", "true");
+        environmentVariables.set("DB_COORDINATE_TIMEOUT_SECONDS", "120");
+        environmentVariables.set("DB_SERVER", "true");
+        environmentVariables.set("DB_SERVER_ADDRESS", "0.0.0.0");
+        environmentVariables.set("DB_SERVER_PORT", "9090");
+        environmentVariables.set("DB_SERVER_ALLOW_CLEAN", "true");
+        environmentVariables.set("DB_TENANT", "acme");
+        environmentVariables.set("DB_TENANT_SPARES", "5");
+        environmentVariables.set("DB_TRACE_FILE", "trace.json");
+        environmentVariables.set("DB_STATS_REPORT", "stats.txt");
+        environmentVariables.set("DB_WAL_BYTES_PER_SECOND", "16777216");
+        environmentVariables.set("DB_INDEX_ADVICE", "index-advice.txt");
+        environmentVariables.set("DB_INDEX_ADVICE_SCRIPT", "V2__index_advice.sql");
+        environmentVariables.set("DB_DRIFT_TARGETS", "/tenant_%,reporting/public");
+        environmentVariables.set("DB_DRIFT_REFERENCE", "/public");
+        environmentVariables.set("DB_DRIFT_THREADS", "6");
+        environmentVariables.set("DB_UNDO_TO", "1.0.0.20210520091440");
+
+        final DatabaseMigratorConfig config = DatabaseMigratorConfig.get();
+
+        assertTrue(config.isPlan());
+        assertEquals("db-source-jdbc-url", config.getSourceJdbcUrl());
+        assertEquals("db-source-username", config.getSourceUsername());
+        assertEquals("db-source-password", config.getSourcePassword());
+        assertEquals(Arrays.asList("metadata_type", "metadata"), config.getCopyTables());
+        assertEquals(2, config.getCopyThreads());
+        assertEquals(Collections.singletonList("metadata"), config.getVerifyTables());
+        assertEquals(3, config.getVerifyThreads());
+        assertFalse(config.isAnalyze());
+        assertTrue(config.isPrewarm());
+        assertEquals(Arrays.asList("metadata", "metadata_pkey"), config.getPrewarmRelations());
+        assertEquals(30, config.getPrewarmTimeoutSeconds());
+        assertTrue(config.isCoordinate());
+        assertEquals(120, config.getCoordinateTimeoutSeconds());
+        assertTrue(config.isServer());
+        assertEquals("0.0.0.0", config.getServerAddress());
+        assertEquals(9090, config.getServerPort());
+        assertTrue(config.isServerAllowClean());
+        assertEquals("acme", config.getTenant());
+        assertEquals(5, config.getTenantSpares());
+        assertEquals("trace.json", config.getTraceFile());
+        assertEquals("stats.txt", config.getStatsReport());
+        assertEquals(16_777_216L, config.getWalBytesPerSecond());
+        assertEquals("index-advice.txt", config.getIndexAdvice());
+        assertEquals("V2__index_advice.sql", config.getIndexAdviceScript());
+        assertEquals(Arrays.asList("/tenant_%", "reporting/public"), config.getDriftTargets());
+        assertEquals("/public", config.getDriftReference());
+        assertEquals(6, config.getDriftThreads());
+        assertEquals("1.0.0.20210520091440", config.getUndoTo());
+    }
+
     @Test(expected = MissingConfigurationException.class)
     public void shouldThrowExceptionIfJdbcUrlNotSupplied() {
         environmentVariables.set("DB_USERNAME", "db-username");
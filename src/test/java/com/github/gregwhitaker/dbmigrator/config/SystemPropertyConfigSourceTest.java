@@ -6,6 +6,9 @@ import org.junit.contrib.java.lang.system.ProvideSystemProperty;
 import org.junit.contrib.java.lang.system.RestoreSystemProperties;
 import org.junit.rules.TestRule;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 public class SystemPropertyConfigSourceTest {
@@ -62,6 +65,71 @@ public class SystemPropertyConfigSourceTest {
         assertFalse(config.isCleanNoMigrate());
     }
 
+    @Test
+    public void shouldSetMigratorConfigurationFromSystemProperties() {
+        System.setProperty("db.plan", "true");
+        System.setProperty("db.source.jdbcUrl", "db-source-jdbc-url");
+        System.setProperty("db.source.username", "db-source-username");
+        System.setProperty("db.source.password", "db-source-password");
+        System.setProperty("db.copyTables", "metadata_type, metadata");
+        System.setProperty("db.copyThreads", "2");
+        System.setProperty("db.verifyTables", "metadata");
+        System.setProperty("db.verifyThreads", "3");
+        System.setProperty("db.analyze", "false");
+        System.setProperty("db.prewarm", "true");
+        System.setProperty("db.prewarmRelations", "metadata,metadata_pkey");
+        System.setProperty("db.prewarmTimeoutSeconds", "30");
+        System.setProperty("db.coordinate", "true");
+        System.setProperty("db.coordinateTimeoutSeconds", "120");
+        System.setProperty("db.server", "true");
+        System.setProperty("db.serverAddress", "0.0.0.0");
+        System.setProperty("db.serverPort", "9090");
+        System.setProperty("db.serverAllowClean", "true");
+        System.setProperty("db.tenant", "acme");
+        System.setProperty("db.tenantSpares", "5");
+        System.setProperty("db.traceFile", "trace.json");
+        System.setProperty("db.statsReport", "stats.txt");
+        System.setProperty("db.walBytesPerSecond", "16777216");
+        System.setProperty("db.indexAdvice", "index-advice.txt");
+        System.setProperty("db.indexAdviceScript", "V2__index_advice.sql");
+        System.setProperty("db.driftTargets", "/tenant_%,reporting/public");
+        System.setProperty("db.driftReference", "/public");
+        System.setProperty("db.driftThreads", "6");
+        System.setProperty("db.undoTo", "1.0.0.20210520091440");
+
+        final DatabaseMigratorConfig config = DatabaseMigratorConfig.get();
+
+        assertTrue(config.isPlan());
+        assertEquals("db-source-jdbc-url", config.getSourceJdbcUrl());
+        assertEquals("db-source-username", config.getSourceUsername());
+        assertEquals("db-source-password", config.getSourcePassword());
+        assertEquals(Arrays.asList("metadata_type", "metadata"), config.getCopyTables());
+        assertEquals(2, config.getCopyThreads());
+        assertEquals(Collections.singletonList("metadata"), config.getVerifyTables());
+        assertEquals(3, config.getVerifyThreads());
+        assertFalse(config.isAnalyze());
+        assertTrue(config.isPrewarm());
+        assertEquals(Arrays.asList("metadata", "metadata_pkey"), config.getPrewarmRelations());
+        assertEquals(30, config.getPrewarmTimeoutSeconds());
+        assertTrue(config.isCoordinate());
+        assertEquals(120, config.getCoordinateTimeoutSeconds());
+        assertTrue(config.isServer());
+        assertEquals("0.0.0.0", config.getServerAddress());
+        assertEquals(9090, config.getServerPort());
+        assertTrue(config.isServerAllowClean());
+        assertEquals("acme", config.getTenant());
+        assertEquals(5, config.getTenantSpares());
+        assertEquals("trace.json", config.getTraceFile());
+        assertEquals("stats.txt", config.getStatsReport());
+        assertEquals(16_777_216L, config.getWalBytesPerSecond());
+        assertEquals("index-advice.txt", config.getIndexAdvice());
+        assertEquals("V2__index_advice.sql", config.getIndexAdviceScript());
+        assertEquals(Arrays.asList("/tenant_%", "reporting/public"), config.getDriftTargets());
+        assertEquals("/public", config.getDriftReference());
+        assertEquals(6, config.getDriftThreads());
+        assertEquals("1.0.0.20210520091440", config.getUndoTo());
+    }
+
     @Test(expected = MissingConfigurationException.class)
     public void shouldThrowExceptionIfJdbcUrlNotSupplied() {
         System.clearProperty("db.jdbcUrl");
@@ -0,0 +1,113 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchWriterTest {
+
+    @Test
+    public void shouldExecuteBatchOnceItIsFull() throws Exception {
+        final List<String> calls = new ArrayList<>();
+
+        try (BatchWriter<Long> writer = new BatchWriter<>(connection(calls, false), "DELETE FROM metadata WHERE id = ?", 3, (ps, id) -> ps.setLong(1, id))) {
+            for (long id = 1; id <= 7; id++) {
+                writer.write(id);
+            }
+
+            // Only full batches are sent while writing, so at most one batch of items is held at a time
+            assertEquals(Arrays.asList("executeBatch:1,2,3", "executeBatch:4,5,6"), calls);
+            assertEquals(6, writer.getWritten());
+        }
+
+        assertEquals(Arrays.asList("executeBatch:1,2,3", "executeBatch:4,5,6", "executeBatch:7", "close"), calls);
+    }
+
+    @Test
+    public void shouldFlushPartialBatch() throws Exception {
+        final List<String> calls = new ArrayList<>();
+
+        try (BatchWriter<Long> writer = new BatchWriter<>(connection(calls, false), "DELETE FROM metadata WHERE id = ?", 3, (ps, id) -> ps.setLong(1, id))) {
+            writer.write(1L);
+            writer.flush();
+            writer.flush();
+
+            assertEquals(Arrays.asList("executeBatch:1"), calls);
+            assertEquals(1, writer.getWritten());
+        }
+
+        // Nothing is pending when closed, so no empty batch is sent
+        assertEquals(Arrays.asList("executeBatch:1", "close"), calls);
+    }
+
+    @Test
+    public void shouldCloseStatementWhenFinalBatchFails() throws Exception {
+        final List<String> calls = new ArrayList<>();
+        final BatchWriter<Long> writer = new BatchWriter<>(connection(calls, true), "DELETE FROM metadata WHERE id = ?", 3, (ps, id) -> ps.setLong(1, id));
+        writer.write(1L);
+
+        try {
+            writer.close();
+            fail("Expected batch failure");
+        } catch (SQLException e) {
+            assertEquals(Arrays.asList("close"), calls);
+            assertEquals(0, writer.getWritten());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchSizeOfZero() throws Exception {
+        new BatchWriter<Long>(connection(new ArrayList<>(), false), "DELETE FROM metadata WHERE id = ?", 0, (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * Creates a connection whose statements record each executed batch with the bound ids.
+     */
+    private static Connection connection(List<String> calls, boolean failBatch) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+                return statement(calls, failBatch);
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static PreparedStatement statement(List<String> calls, boolean failBatch) {
+        final Object[] bound = new Object[1];
+        final List<Object> batch = new ArrayList<>();
+
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setLong":
+                    bound[0] = args[1];
+                    return null;
+                case "addBatch":
+                    batch.add(bound[0]);
+                    return null;
+                case "executeBatch":
+                    if (failBatch) {
+                        throw new SQLException("batch failed");
+                    }
+
+                    calls.add("executeBatch:" + batch.stream().map(String::valueOf).reduce((a, b) -> a + "," + b).orElse(""));
+                    final int[] counts = new int[batch.size()];
+                    batch.clear();
+                    return counts;
+                case "close":
+                    calls.add("close");
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
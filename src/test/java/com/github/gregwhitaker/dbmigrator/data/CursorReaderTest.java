@@ -0,0 +1,256 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CursorReaderTest {
+
+    @Test
+    public void shouldMapRowsThroughCursorWithFetchSize() throws Exception {
+        final FakeConnection conn = new FakeConnection(true, 1L, 2L, 3L);
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata WHERE id > ?", 2, rs -> rs.getLong("id") * 10, 0L)) {
+            final List<Long> rows = new ArrayList<>();
+            reader.forEach(rows::add);
+
+            assertEquals(Arrays.asList(10L, 20L, 30L), rows);
+        }
+
+        assertEquals(Arrays.asList("setAutoCommit:false", "setFetchSize:2", "setObject:1:0", "executeQuery",
+                "closeResultSet", "closeStatement", "commit", "setAutoCommit:true"), conn.calls);
+    }
+
+    @Test
+    public void shouldLeaveTransactionOfConnectionNotInAutoCommitUntouched() throws Exception {
+        final FakeConnection conn = new FakeConnection(false, 1L);
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id"))) {
+            reader.iterator().next();
+        }
+
+        assertEquals(Arrays.asList("setFetchSize:" + CursorReader.DEFAULT_FETCH_SIZE, "executeQuery", "closeResultSet", "closeStatement"), conn.calls);
+    }
+
+    @Test
+    public void shouldCloseReaderWhenStreamIsClosed() throws Exception {
+        final FakeConnection conn = new FakeConnection(true, 1L, 2L);
+
+        try (Stream<Long> rows = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id")).stream()) {
+            assertEquals(Arrays.asList(1L, 2L), rows.collect(Collectors.toList()));
+        }
+
+        assertEquals(Arrays.asList("commit", "setAutoCommit:true"), conn.calls.subList(conn.calls.size() - 2, conn.calls.size()));
+    }
+
+    @Test
+    public void shouldRollBackAndRestoreAutoCommitWhenMappingFails() throws Exception {
+        final FakeConnection conn = new FakeConnection(true, 1L, 2L);
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> {
+            throw new SQLException("bad row");
+        })) {
+            reader.iterator().hasNext();
+            fail("Expected mapping failure");
+        } catch (UncheckedSQLException e) {
+            assertEquals("bad row", e.getCause().getMessage());
+        }
+
+        assertFalse(conn.calls.contains("commit"));
+        assertEquals(Arrays.asList("rollback", "setAutoCommit:true"), conn.calls.subList(conn.calls.size() - 2, conn.calls.size()));
+    }
+
+    @Test
+    public void shouldTransferRowsAndCommitWrites() throws Exception {
+        final FakeConnection conn = new FakeConnection(true, 1L, 2L, 3L);
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id"));
+             BatchWriter<Long> writer = new BatchWriter<>(conn.proxy(), "UPDATE metadata SET id = ?", 2, (ps, id) -> ps.setLong(1, id))) {
+            assertEquals(3, reader.transferTo(writer));
+            assertEquals(3, writer.getWritten());
+        }
+
+        assertEquals(Arrays.asList("executeBatch:2", "executeBatch:1"), conn.batches());
+        assertEquals(Arrays.asList("commit", "setAutoCommit:true"), conn.calls.subList(conn.calls.size() - 2, conn.calls.size()));
+    }
+
+    @Test
+    public void shouldRollBackWritesWhenTransferFails() throws Exception {
+        final FakeConnection conn = new FakeConnection(true, 1L, 2L, 3L);
+        conn.failBatch = true;
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id"))) {
+            final BatchWriter<Long> writer = new BatchWriter<>(conn.proxy(), "UPDATE metadata SET id = ?", 2, (ps, id) -> ps.setLong(1, id));
+
+            reader.transferTo(writer);
+            fail("Expected transfer failure");
+        } catch (SQLException e) {
+            assertEquals("batch failed", e.getMessage());
+        }
+
+        assertFalse(conn.calls.contains("commit"));
+        assertEquals(Arrays.asList("rollback", "setAutoCommit:true"), conn.calls.subList(conn.calls.size() - 2, conn.calls.size()));
+    }
+
+    @Test
+    public void shouldRollBackAndRestoreAutoCommitWhenQueryFails() {
+        final FakeConnection conn = new FakeConnection(true);
+        conn.failQuery = true;
+
+        try {
+            CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id"));
+            fail("Expected query failure");
+        } catch (SQLException e) {
+            assertEquals(Arrays.asList("closeStatement", "rollback", "setAutoCommit:true"), conn.calls.subList(conn.calls.size() - 3, conn.calls.size()));
+        }
+    }
+
+    @Test
+    public void shouldOnlyIterateOnce() throws Exception {
+        final FakeConnection conn = new FakeConnection(false, 1L);
+
+        try (CursorReader<Long> reader = CursorReader.open(conn.proxy(), "SELECT id FROM metadata", rs -> rs.getLong("id"))) {
+            final Iterator<Long> rows = reader.iterator();
+            assertEquals(Long.valueOf(1L), rows.next());
+            assertFalse(rows.hasNext());
+
+            try {
+                reader.iterator();
+                fail("Expected second iteration to be refused");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectFetchSizeOfZero() throws Exception {
+        final FakeConnection conn = new FakeConnection(true);
+
+        try {
+            CursorReader.open(conn.proxy(), "SELECT id FROM metadata", 0, rs -> rs.getLong("id"));
+            fail("Expected fetch size to be rejected");
+        } catch (IllegalArgumentException e) {
+            // The connection is rejected before it is touched
+            assertEquals(Collections.emptyList(), conn.calls);
+        }
+    }
+
+    /**
+     * Connection that returns a single column <code>id</code> for any query and records the calls made on it.
+     */
+    private static final class FakeConnection {
+        final List<String> calls = new ArrayList<>();
+        final List<Long> rows;
+        boolean autoCommit;
+        boolean failQuery = false;
+        boolean failBatch = false;
+
+        FakeConnection(boolean autoCommit, Long... rows) {
+            this.autoCommit = autoCommit;
+            this.rows = Arrays.asList(rows);
+        }
+
+        List<String> batches() {
+            return calls.stream()
+                    .filter(call -> call.startsWith("executeBatch"))
+                    .collect(Collectors.toList());
+        }
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "setAutoCommit":
+                        autoCommit = (Boolean) args[0];
+                        calls.add("setAutoCommit:" + args[0]);
+                        return null;
+                    case "commit":
+                    case "rollback":
+                        calls.add(method.getName());
+                        return null;
+                    case "prepareStatement":
+                        return statement((Connection) proxy);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private PreparedStatement statement(Connection conn) {
+            final int[] batch = { 0 };
+
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setFetchSize":
+                        calls.add("setFetchSize:" + args[0]);
+                        return null;
+                    case "setObject":
+                        calls.add("setObject:" + args[0] + ":" + args[1]);
+                        return null;
+                    case "setLong":
+                        return null;
+                    case "executeQuery":
+                        if (failQuery) {
+                            throw new SQLException("query failed");
+                        }
+
+                        calls.add("executeQuery");
+                        return resultSet();
+                    case "addBatch":
+                        batch[0]++;
+                        return null;
+                    case "executeBatch":
+                        if (failBatch) {
+                            throw new SQLException("batch failed");
+                        }
+
+                        calls.add("executeBatch:" + batch[0]);
+                        final int[] counts = new int[batch[0]];
+                        batch[0] = 0;
+                        return counts;
+                    case "getConnection":
+                        return conn;
+                    case "close":
+                        calls.add("closeStatement");
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private ResultSet resultSet() {
+            final int[] row = { -1 };
+
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ ResultSet.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++row[0] < rows.size();
+                    case "getLong":
+                        assertEquals("id", args[0]);
+                        return rows.get(row[0]);
+                    case "close":
+                        calls.add("closeResultSet");
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KeyRangeTest {
+
+    @Test
+    public void shouldSplitIntoChunksOfMaximumSize() {
+        final List<KeyRange> chunks = new KeyRange(1, 11).chunks(4);
+
+        assertEquals(Arrays.asList(new KeyRange(1, 5), new KeyRange(5, 9), new KeyRange(9, 11)), chunks);
+    }
+
+    @Test
+    public void shouldSplitIntoEqualParts() {
+        final List<KeyRange> parts = new KeyRange(0, 100).split(4);
+
+        assertEquals(4, parts.size());
+        assertEquals(0, parts.get(0).getLower());
+        assertEquals(100, parts.get(3).getUpper());
+        parts.forEach(part -> assertEquals(25, part.size()));
+    }
+
+    @Test
+    public void shouldNotSplitIntoMorePartsThanKeys() {
+        final List<KeyRange> parts = new KeyRange(0, 3).split(10);
+
+        assertEquals(3, parts.size());
+    }
+
+    @Test
+    public void shouldReturnNoChunksForEmptyRange() {
+        final KeyRange range = new KeyRange(5, 5);
+
+        assertTrue(range.isEmpty());
+        assertTrue(range.chunks(10).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfUpperBoundBeforeLowerBound() {
+        new KeyRange(10, 5);
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TableVerifierTest {
+
+    @Test
+    public void shouldMatchIdenticalTables() throws Exception {
+        final VerificationResult result = verifier(table(1, 1000), table(1, 1000), 1_000).verify("item");
+
+        assertTrue(result.isMatch());
+        assertEquals(Collections.emptyList(), result.getMismatches());
+        // Matching chunks are not drilled into
+        assertEquals(10, result.getChunksCompared());
+    }
+
+    @Test
+    public void shouldDrillDownOnlyIntoDifferingChunks() throws Exception {
+        final NavigableMap<Long, String> target = table(1, 1000);
+        target.put(250L, "changed");
+        target.remove(777L);
+
+        final VerificationResult result = verifier(table(1, 1000), target, 1_000).verify("item");
+
+        assertFalse(result.isMatch());
+        assertEquals(Arrays.asList("250:DIFFERENT", "777:MISSING_IN_TARGET"), mismatches(result));
+        // Ten chunks of 100 keys, and the two differing chunks split into fifteen chunks of at most 7 keys
+        assertEquals(10 + 15 + 15, result.getChunksCompared());
+    }
+
+    @Test
+    public void shouldMergeRowsMissingOnEitherSide() throws Exception {
+        final NavigableMap<Long, String> source = table(1, 1000);
+        source.remove(500L);
+        source.remove(501L);
+        final NavigableMap<Long, String> target = table(1, 1000);
+        target.remove(502L);
+        target.put(1001L, "extra");
+
+        final VerificationResult result = verifier(source, target, 1_000).verify("item");
+
+        assertEquals(Arrays.asList("500:MISSING_IN_SOURCE", "501:MISSING_IN_SOURCE", "502:MISSING_IN_TARGET", "1001:MISSING_IN_SOURCE"),
+                mismatches(result));
+    }
+
+    @Test
+    public void shouldCountEveryMismatchButReportOnlyTheMaximum() throws Exception {
+        final NavigableMap<Long, String> target = table(1, 1000);
+        Arrays.asList(10L, 20L, 30L, 40L, 50L).forEach(target::remove);
+
+        final VerificationResult result = verifier(table(1, 1000), target, 2).verify("item");
+
+        assertEquals(5, result.getMismatchCount());
+        assertEquals(2, result.getMismatches().size());
+    }
+
+    @Test
+    public void shouldVerifyEmptyTables() throws Exception {
+        final VerificationResult result = verifier(new TreeMap<>(), new TreeMap<>(), 1_000).verify("item");
+
+        assertTrue(result.isMatch());
+        assertEquals(0, result.getChunksCompared());
+    }
+
+    private static TableVerifier verifier(NavigableMap<Long, String> source, NavigableMap<Long, String> target, int maxReportedMismatches) {
+        return new TableVerifier(dataSource(source), dataSource(target), 2, 100, 10, maxReportedMismatches);
+    }
+
+    private static List<String> mismatches(VerificationResult result) {
+        return result.getMismatches().stream()
+                .map(VerificationResult.Mismatch::toString)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the row hashes of a table with the keys <code>[first, last]</code>.
+     */
+    private static NavigableMap<Long, String> table(long first, long last) {
+        final NavigableMap<Long, String> rows = new TreeMap<>();
+        for (long key = first; key <= last; key++) {
+            rows.put(key, "row " + key);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Creates a datasource that answers the catalog, key range, chunk digest and row hash queries of the verifier
+     * from the row hashes of a table keyed by <code>id</code>.
+     */
+    private static DataSource dataSource(NavigableMap<Long, String> rows) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{ DataSource.class }, (proxy, method, args) -> {
+            if ("getConnection".equals(method.getName())) {
+                return connection(rows);
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static Connection connection(NavigableMap<Long, String> rows) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement((String) args[0], rows);
+                case "getAutoCommit":
+                    return true;
+                case "setAutoCommit":
+                case "commit":
+                case "rollback":
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static PreparedStatement statement(String sql, NavigableMap<Long, String> rows) {
+        final Map<Integer, Object> params = new HashMap<>();
+
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setString":
+                case "setLong":
+                case "setObject":
+                    params.put((Integer) args[0], args[1]);
+                    return null;
+                case "setFetchSize":
+                case "close":
+                    return null;
+                case "executeQuery":
+                    return resultSet(query(sql, params, rows));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static List<Map<String, Object>> query(String sql, Map<Integer, Object> params, NavigableMap<Long, String> rows) {
+        if (sql.contains("pg_index")) {
+            return Collections.singletonList(row("quoted_table_name", "item", "key_column", "id", "key_type", "bigint"));
+        } else if (sql.contains("pg_attribute")) {
+            return Arrays.asList(row("attname", "id"), row("attname", "name"));
+        } else if (sql.contains("min_key")) {
+            return Collections.singletonList(rows.isEmpty()
+                    ? row("min_key", null, "max_key", null)
+                    : row("min_key", rows.firstKey(), "max_key", rows.lastKey()));
+        }
+
+        final NavigableMap<Long, String> range = rows.subMap((Long) params.get(1), true, (Long) params.get(2), false);
+
+        if (sql.contains("string_agg")) {
+            return Collections.singletonList(row("row_count", (long) range.size(), "digest", String.join(",", range.values())));
+        } else if (sql.contains("row_hash")) {
+            return range.entrySet().stream()
+                    .map(entry -> row("row_key", entry.getKey(), "row_hash", entry.getValue()))
+                    .collect(Collectors.toList());
+        }
+
+        throw new UnsupportedOperationException(sql);
+    }
+
+    private static Map<String, Object> row(Object... columns) {
+        final Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < columns.length; i += 2) {
+            row.put((String) columns[i], columns[i + 1]);
+        }
+
+        return row;
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        final List<Map<String, Object>> remaining = new ArrayList<>(rows);
+        final Object[] current = new Object[2];
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ ResultSet.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    current[0] = remaining.isEmpty() ? null : remaining.remove(0);
+                    return current[0] != null;
+                case "getString":
+                    current[1] = column(current[0], args[0]);
+                    return current[1];
+                case "getLong":
+                    current[1] = column(current[0], args[0]);
+                    return current[1] != null ? (Long) current[1] : 0L;
+                case "wasNull":
+                    return current[1] == null;
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object column(Object row, Object label) {
+        return ((Map<String, Object>) row).get((String) label);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.gregwhitaker.dbmigrator.data;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WalThrottleTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void shouldNotPauseWithoutCeiling() {
+        final WalThrottle throttle = new WalThrottle(0);
+
+        assertEquals(0, throttle.pause(1_000_000_000L, SECOND));
+    }
+
+    @Test
+    public void shouldPauseForTimeOfChunkAtCeiling() {
+        final WalThrottle throttle = new WalThrottle(1_000_000);
+
+        // The first 1MB chunk uses up the one second burst, then each instant 1MB chunk adds a second of waiting
+        assertEquals(0, throttle.pause(1_000_000, 10 * SECOND));
+        assertEquals(SECOND, throttle.pause(1_000_000, 10 * SECOND));
+        assertEquals(2 * SECOND, throttle.pause(1_000_000, 10 * SECOND));
+    }
+
+    @Test
+    public void shouldNotPauseChunksBelowCeiling() {
+        final WalThrottle throttle = new WalThrottle(1_000_000);
+
+        assertEquals(0, throttle.pause(500_000, 10 * SECOND));
+        assertEquals(0, throttle.pause(500_000, 10 * SECOND + SECOND));
+    }
+
+    @Test
+    public void shouldLimitBurstAfterSlowChunk() {
+        final WalThrottle throttle = new WalThrottle(1_000_000);
+
+        throttle.pause(1_000_000, 10 * SECOND);
+
+        // Ten idle seconds only earn one second of credit, so a 3MB chunk still waits two seconds
+        assertEquals(2 * SECOND, throttle.pause(3_000_000, 21 * SECOND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeCeiling() {
+        new WalThrottle(-1);
+    }
+}
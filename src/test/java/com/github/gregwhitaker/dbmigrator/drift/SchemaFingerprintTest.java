@@ -0,0 +1,90 @@
+package com.github.gregwhitaker.dbmigrator.drift;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SchemaFingerprintTest {
+
+    @Test
+    public void shouldMatchIdenticalSchema() {
+        final SchemaDrift drift = fingerprint("db2/public", "table metadata", "a", "column metadata.id", "b")
+                .diff(fingerprint("db1/public", "table metadata", "a", "column metadata.id", "b"));
+
+        assertTrue(drift.isMatch());
+        assertEquals("db2/public", drift.getTarget());
+    }
+
+    @Test
+    public void shouldReportMissingExtraAndChangedObjects() {
+        final SchemaDrift drift = fingerprint("db2/public",
+                "table metadata", "a",
+                "column metadata.hotfix", "c",
+                "function refresh(integer)", "x")
+                .diff(fingerprint("db1/public",
+                        "table metadata", "a",
+                        "index metadata_metadata_type_idx", "b",
+                        "function refresh(integer)", "y"));
+
+        assertFalse(drift.isMatch());
+        assertEquals(Collections.singletonList("index metadata_metadata_type_idx"), drift.getMissing());
+        assertEquals(Collections.singletonList("column metadata.hotfix"), drift.getExtra());
+        assertEquals(Collections.singletonList("function refresh(integer)"), drift.getChanged());
+    }
+
+    @Test
+    public void shouldPrintOnlyDriftedAndFailedSchemas() {
+        final SchemaFingerprint reference = fingerprint("db1/public", "table metadata", "a", "index metadata_pkey", "b");
+        final DriftReport report = new DriftReport(reference.getTarget(), 2, Arrays.asList(
+                fingerprint("db2/public", "table metadata", "a", "index metadata_pkey", "b").diff(reference),
+                fingerprint("db3/public", "table metadata", "a").diff(reference),
+                SchemaDrift.failed("db4", "connection refused")));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true));
+        final String printed = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+        assertFalse(report.isMatch());
+        assertEquals(1, report.getDrifted().size());
+        assertEquals(1, report.getFailed().size());
+        assertTrue(printed.startsWith("Schema drift [reference: db1/public, objects: 2, schemas: 3, drifted: 1, failed: 1]"));
+        assertFalse(printed.contains("db2/public"));
+        assertTrue(printed.contains("db3/public: 1 missing, 0 extra, 0 changed"));
+        assertTrue(printed.contains("  - index metadata_pkey"));
+        assertTrue(printed.contains("db4: failed: connection refused"));
+    }
+
+    @Test
+    public void shouldLimitObjectsPrintedPerSchema() {
+        final Map<String, String> hashes = new LinkedHashMap<>();
+        for (int i = 0; i < 25; i++) {
+            hashes.put(String.format("table t%02d", i), "a");
+        }
+
+        final SchemaFingerprint reference = new SchemaFingerprint("db1/public", hashes);
+        final DriftReport report = new DriftReport(reference.getTarget(), hashes.size(),
+                Collections.singletonList(new SchemaFingerprint("db2/public", Collections.emptyMap()).diff(reference)));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true));
+
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("  ... and 5 more"));
+    }
+
+    private static SchemaFingerprint fingerprint(String target, String... objectsAndHashes) {
+        final Map<String, String> hashes = new LinkedHashMap<>();
+        for (int i = 0; i < objectsAndHashes.length; i += 2) {
+            hashes.put(objectsAndHashes[i], objectsAndHashes[i + 1]);
+        }
+
+        return new SchemaFingerprint(target, hashes);
+    }
+}
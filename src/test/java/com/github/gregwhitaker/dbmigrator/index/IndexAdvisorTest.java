@@ -0,0 +1,121 @@
+package com.github.gregwhitaker.dbmigrator.index;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndexAdvisorTest {
+
+    @Test
+    public void shouldReportUnindexedForeignKey() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(
+                Collections.singletonList(foreignKey("metadata", "metadata_metadata_type_fkey", "metadata_type")),
+                Collections.singletonList(constraint("metadata", "metadata_pkey", "id")));
+
+        assertEquals(1, findings.size());
+        assertEquals(IndexFinding.Type.UNINDEXED_FOREIGN_KEY, findings.get(0).getType());
+        assertEquals("metadata_metadata_type_fkey", findings.get(0).getName());
+        assertEquals("CREATE INDEX CONCURRENTLY IF NOT EXISTS metadata_metadata_type_idx ON metadata (metadata_type);",
+                findings.get(0).getFix());
+    }
+
+    @Test
+    public void shouldAcceptIndexLeadingWithForeignKeyColumnsInAnyOrder() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(
+                Collections.singletonList(foreignKey("orders", "orders_customer_fkey", "tenant_id", "customer_id")),
+                Collections.singletonList(index("orders", "orders_customer_idx", 10, "customer_id", "tenant_id", "created")));
+
+        assertTrue(findings.isEmpty());
+    }
+
+    @Test
+    public void shouldNotAcceptIndexWithForeignKeyColumnsAfterLeadingColumn() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(
+                Collections.singletonList(foreignKey("orders", "orders_customer_fkey", "customer_id")),
+                Collections.singletonList(index("orders", "orders_created_customer_idx", 10, "created", "customer_id")));
+
+        assertEquals(1, findings.size());
+        assertEquals(IndexFinding.Type.UNINDEXED_FOREIGN_KEY, findings.get(0).getType());
+    }
+
+    @Test
+    public void shouldReportDuplicateIndexKeepingConstraint() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(Collections.emptyList(), Arrays.asList(
+                index("metadata_type", "metadata_type_name_idx", 10, "name"),
+                constraint("metadata_type", "metadata_type_name_key", "name")));
+
+        assertEquals(1, findings.size());
+        assertEquals(IndexFinding.Type.DUPLICATE_INDEX, findings.get(0).getType());
+        assertEquals("metadata_type_name_idx", findings.get(0).getName());
+        assertEquals("DROP INDEX CONCURRENTLY IF EXISTS metadata_type_name_idx;", findings.get(0).getFix());
+    }
+
+    @Test
+    public void shouldReportPrefixRedundantIndex() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(Collections.emptyList(), Arrays.asList(
+                index("orders", "orders_customer_idx", 10, "customer_id"),
+                index("orders", "orders_customer_created_idx", 10, "customer_id", "created")));
+
+        assertEquals(1, findings.size());
+        assertEquals(IndexFinding.Type.REDUNDANT_INDEX, findings.get(0).getType());
+        assertEquals("orders_customer_idx", findings.get(0).getName());
+    }
+
+    @Test
+    public void shouldNotReportPrefixOfPartialIndexAsRedundant() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(Collections.emptyList(), Arrays.asList(
+                index("orders", "orders_customer_idx", 10, "customer_id"),
+                new IndexAdvisor.Index("orders", "orders_open_idx", "btree", false, false,
+                        Arrays.asList("customer_id", "created"), "status = 'open'::text", 10, 8192)));
+
+        assertTrue(findings.isEmpty());
+    }
+
+    @Test
+    public void shouldReportUnusedIndexUnlessOnlySupportOfForeignKey() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(
+                Collections.singletonList(foreignKey("orders", "orders_customer_fkey", "customer_id")),
+                Arrays.asList(
+                        index("orders", "orders_customer_idx", 0, "customer_id"),
+                        index("orders", "orders_created_idx", 0, "created"),
+                        constraint("orders", "orders_pkey", "id")));
+
+        assertEquals(1, findings.size());
+        assertEquals(IndexFinding.Type.UNUSED_INDEX, findings.get(0).getType());
+        assertEquals("orders_created_idx", findings.get(0).getName());
+    }
+
+    @Test
+    public void shouldCreateOneIndexForForeignKeysWithSameColumns() {
+        final List<IndexFinding> findings = IndexAdvisor.analyze(Arrays.asList(
+                foreignKey("metadata", "metadata_type_fkey", "metadata_type"),
+                foreignKey("metadata", "metadata_type_audit_fkey", "metadata_type")), Collections.emptyList());
+
+        assertEquals(2, findings.size());
+        assertNotNull(findings.get(0).getFix());
+        assertNull(findings.get(1).getFix());
+    }
+
+    @Test
+    public void shouldNameIndexWithinIdentifierLimit() {
+        assertEquals("metadata_metadata_type_idx", IndexAdvisor.indexName("metadata", Collections.singletonList("metadata_type")));
+        assertEquals("order_line_customerid_idx", IndexAdvisor.indexName("\"Order\"", Arrays.asList("line", "\"Customer Id\"")));
+        assertEquals(63, IndexAdvisor.indexName(String.join("", Collections.nCopies(40, "t")), Collections.singletonList(String.join("", Collections.nCopies(40, "c")))).length());
+    }
+
+    private static IndexAdvisor.ForeignKey foreignKey(String table, String name, String... columns) {
+        return new IndexAdvisor.ForeignKey(table, name, "referenced", Arrays.asList(columns));
+    }
+
+    private static IndexAdvisor.Index index(String table, String name, long scans, String... columns) {
+        return new IndexAdvisor.Index(table, name, "btree", false, false, Arrays.asList(columns), null, scans, 8192);
+    }
+
+    private static IndexAdvisor.Index constraint(String table, String name, String... columns) {
+        return new IndexAdvisor.Index(table, name, "btree", true, true, Arrays.asList(columns), null, 0, 8192);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SchemaHistoryLockTest {
+
+    @Test
+    public void shouldKeyLockLikeFlyway() {
+        // "Flyway" in ASCII plus the hash of the quoted history table name
+        assertEquals(0x466C79776179L + "\"public\".\"flyway_schema_history\"".hashCode(),
+                SchemaHistoryLock.key("public", "flyway_schema_history"));
+        assertNotEquals(SchemaHistoryLock.key("public", "flyway_schema_history"),
+                SchemaHistoryLock.key("tenant", "flyway_schema_history"));
+    }
+
+    @Test
+    public void shouldLockAndUnlockHistoryOfCurrentSchema() throws Exception {
+        final List<String> calls = new ArrayList<>();
+        final Connection conn = fakeConnection(calls);
+        final long key = SchemaHistoryLock.key("public", "flyway_schema_history");
+
+        try (SchemaHistoryLock lock = SchemaHistoryLock.acquire(conn, Flyway.configure())) {
+            assertEquals(Arrays.asList("SELECT current_schema()", "SELECT pg_advisory_lock(?):" + key), calls);
+        }
+
+        assertEquals("SELECT pg_advisory_unlock(?):" + key, calls.get(calls.size() - 1));
+    }
+
+    @Test
+    public void shouldHandOutLockedConnectionWithoutClosingIt() throws Exception {
+        final List<String> calls = new ArrayList<>();
+        final Connection conn = fakeConnection(calls);
+
+        try (SchemaHistoryLock lock = SchemaHistoryLock.acquire(conn, Flyway.configure())) {
+            final Connection locked = lock.getDataSource().getConnection();
+            locked.close();
+
+            assertFalse(calls.contains("close"));
+
+            // Everything else goes to the locked connection
+            assertTrue(locked.getAutoCommit());
+            assertEquals("getAutoCommit", calls.get(calls.size() - 1));
+        }
+    }
+
+    private static Connection fakeConnection(List<String> calls) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return fakeStatement((String) args[0], calls);
+                case "getAutoCommit":
+                    calls.add("getAutoCommit");
+                    return true;
+                case "close":
+                    calls.add("close");
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static PreparedStatement fakeStatement(String sql, List<String> calls) {
+        final Object[] parameter = new Object[1];
+
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setLong":
+                    parameter[0] = args[1];
+                    return null;
+                case "execute":
+                    calls.add(sql + ":" + parameter[0]);
+                    return true;
+                case "executeQuery":
+                    calls.add(sql);
+                    return fakeResultSet("public");
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ResultSet fakeResultSet(String value) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ ResultSet.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return true;
+                case "getString":
+                    return value;
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
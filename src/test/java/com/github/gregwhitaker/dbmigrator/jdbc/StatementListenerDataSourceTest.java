@@ -0,0 +1,121 @@
+package com.github.gregwhitaker.dbmigrator.jdbc;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StatementListenerDataSourceTest {
+
+    @Test
+    public void shouldTellEachEnabledListenerOfStatements() throws Exception {
+        final RecordingListener first = new RecordingListener(true);
+        final RecordingListener second = new RecordingListener(true);
+        final DataSource dataSource = new StatementListenerDataSource(fakeDataSource(), Arrays.asList(first, second));
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE vendor SET name = ?")) {
+                ps.executeUpdate();
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM vendor");
+            }
+        }
+
+        for (RecordingListener listener : Arrays.asList(first, second)) {
+            assertEquals(Arrays.asList("UPDATE vendor SET name = ?:3", "DELETE FROM vendor:7"), listener.statements);
+        }
+    }
+
+    @Test
+    public void shouldNotWrapConnectionsWhenNoListenerIsEnabled() throws Exception {
+        final DataSource fake = fakeDataSource();
+        final DataSource dataSource = new StatementListenerDataSource(fake, Arrays.asList(new RecordingListener(false)));
+
+        assertSame(FAKE_CONNECTION, dataSource.getConnection());
+    }
+
+    @Test
+    public void shouldTellListenersOfFailedStatements() throws Exception {
+        final RecordingListener listener = new RecordingListener(true);
+        final DataSource dataSource = new StatementListenerDataSource(fakeDataSource(), Arrays.asList(listener));
+
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("FAIL");
+            fail("Expected statement to fail");
+        } catch (SQLException e) {
+            assertEquals("syntax error", e.getMessage());
+        }
+
+        assertEquals(Arrays.asList("FAIL:-1:syntax error"), listener.statements);
+    }
+
+    private static final Statement FAKE_STATEMENT = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+            new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "executeUpdate":
+                        return 3;
+                    case "execute":
+                        if ("FAIL".equals(args[0])) {
+                            throw new SQLException("syntax error");
+                        }
+                        return false;
+                    case "getUpdateCount":
+                        return 7;
+                    default:
+                        return null;
+                }
+            });
+
+    private static final Connection FAKE_CONNECTION = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class[]{ Connection.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "prepareStatement":
+                    case "createStatement":
+                        return FAKE_STATEMENT;
+                    default:
+                        return null;
+                }
+            });
+
+    private static DataSource fakeDataSource() {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{ DataSource.class },
+                (proxy, method, args) -> "getConnection".equals(method.getName()) ? FAKE_CONNECTION : null);
+    }
+
+    private static class RecordingListener implements StatementListener {
+        private final boolean enabled;
+        private final List<String> statements = new ArrayList<>();
+
+        RecordingListener(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public Object beforeExecute(String sql) {
+            return enabled ? this : null;
+        }
+
+        @Override
+        public void afterExecute(Object state, String sql, long startNanoTime, long rows, Throwable error) {
+            assertSame(this, state);
+            statements.add(sql + ":" + rows + (error != null ? ":" + error.getMessage() : ""));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.gregwhitaker.dbmigrator.perf;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SyntheticMetadataRowsTest {
+
+    private static final long[] TYPE_IDS = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+    private static final long REFERENCE_EPOCH_SECOND = LocalDateTime.of(2021, 6, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    @Test
+    public void shouldGenerateSameRowsForSameSeed() throws Exception {
+        final SyntheticDataSpec spec = spec(1_000, 7, 1.1);
+
+        assertEquals(write(spec, 0), write(spec, 0));
+        assertNotEquals(write(spec, 0), write(spec(1_000, 8, 1.1), 0));
+    }
+
+    @Test
+    public void shouldSplitRowsIntoChunks() throws Exception {
+        final SyntheticMetadataRows rows = new SyntheticMetadataRows(spec(SyntheticMetadataRows.CHUNK_ROWS + 10, 1, 1.1), TYPE_IDS, REFERENCE_EPOCH_SECOND);
+
+        assertEquals(2, rows.getChunkCount());
+        assertEquals(SyntheticMetadataRows.CHUNK_ROWS, rows.write(0, new StringWriter()));
+        assertEquals(10, rows.write(1, new StringWriter()));
+    }
+
+    @Test
+    public void shouldGenerateValidRows() throws Exception {
+        final SyntheticDataSpec spec = spec(10_000, 1, 1.1);
+        final LocalDateTime newest = LocalDateTime.ofEpochSecond(REFERENCE_EPOCH_SECOND, 0, ZoneOffset.UTC);
+        final LocalDateTime oldest = newest.minusDays(spec.getModifiedMaxAgeDays());
+
+        for (String line : write(spec, 0).split("\n")) {
+            final String[] columns = line.split("\t");
+            assertEquals(3, columns.length);
+
+            assertTrue(columns[0].matches("[a-z0-9]{1,255}"));
+            assertTrue(Arrays.stream(TYPE_IDS).anyMatch(id -> id == Long.parseLong(columns[1])));
+
+            final LocalDateTime modifiedOn = LocalDateTime.parse(columns[2]);
+            assertFalse(modifiedOn.isAfter(newest));
+            assertTrue(modifiedOn.isAfter(oldest));
+        }
+    }
+
+    @Test
+    public void shouldSkewRowsTowardsFewTypes() throws Exception {
+        final Map<String, Integer> skewed = countTypes(write(spec(10_000, 1, 1.5), 0));
+        final Map<String, Integer> uniform = countTypes(write(spec(10_000, 1, 0), 0));
+
+        final int mostSkewed = skewed.values().stream().max(Integer::compare).orElse(0);
+        final int mostUniform = uniform.values().stream().max(Integer::compare).orElse(0);
+
+        assertTrue(mostSkewed > 3_000);
+        assertTrue(mostUniform < 1_500);
+    }
+
+    private static SyntheticDataSpec spec(long rows, long seed, double typeSkew) {
+        return new SyntheticDataSpec(rows, seed, 1, TYPE_IDS.length, typeSkew, 24, 0.5, 30, 730);
+    }
+
+    private static String write(SyntheticDataSpec spec, long chunk) throws Exception {
+        final StringWriter out = new StringWriter();
+        new SyntheticMetadataRows(spec, TYPE_IDS, REFERENCE_EPOCH_SECOND).write(chunk, out);
+
+        return out.toString();
+    }
+
+    private static Map<String, Integer> countTypes(String rows) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (String line : rows.split("\n")) {
+            counts.merge(line.split("\t")[1], 1, Integer::sum);
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.gregwhitaker.dbmigrator.plan;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StatementClassifierTest {
+
+    @Test
+    public void shouldExplainDml() {
+        final StatementClassifier.Classification classification =
+                StatementClassifier.classify("UPDATE metadata SET metadata_value = 'x' WHERE metadata_type = 1");
+
+        assertTrue(classification.isExplainable());
+        assertEquals(LockLevel.ROW_EXCLUSIVE, classification.getLockLevel());
+        assertEquals("metadata", classification.getTable());
+    }
+
+    @Test
+    public void shouldClassifyIndexBuilds() {
+        StatementClassifier.Classification classification =
+                StatementClassifier.classify("CREATE INDEX idx_metadata_type ON metadata (metadata_type)");
+
+        assertFalse(classification.isExplainable());
+        assertEquals(LockLevel.SHARE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.INDEX_BUILD, classification.getWork());
+        assertEquals("metadata", classification.getTable());
+
+        classification = StatementClassifier.classify("CREATE UNIQUE INDEX CONCURRENTLY idx_metadata_value ON public.metadata (metadata_value)");
+
+        assertEquals(LockLevel.SHARE_UPDATE_EXCLUSIVE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.CONCURRENT_INDEX_BUILD, classification.getWork());
+        assertEquals("public.metadata", classification.getTable());
+    }
+
+    @Test
+    public void shouldClassifyTableRewrites() {
+        StatementClassifier.Classification classification =
+                StatementClassifier.classify("ALTER TABLE metadata ALTER COLUMN metadata_type TYPE BIGINT");
+
+        assertEquals(LockLevel.ACCESS_EXCLUSIVE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.REWRITE, classification.getWork());
+
+        classification = StatementClassifier.classify("ALTER TABLE metadata ADD COLUMN external_id UUID NOT NULL DEFAULT gen_random_uuid()");
+
+        assertEquals(StatementClassifier.Work.REWRITE, classification.getWork());
+
+        classification = StatementClassifier.classify("ALTER TABLE metadata ADD COLUMN created_on TIMESTAMP NOT NULL DEFAULT now()");
+
+        assertEquals(LockLevel.ACCESS_EXCLUSIVE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.NONE, classification.getWork());
+    }
+
+    @Test
+    public void shouldClassifyForeignKeys() {
+        StatementClassifier.Classification classification = StatementClassifier.classify(
+                "ALTER TABLE metadata ADD CONSTRAINT fk_metadata_type FOREIGN KEY (metadata_type) REFERENCES metadata_type (id)");
+
+        assertEquals(LockLevel.SHARE_ROW_EXCLUSIVE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.SCAN, classification.getWork());
+
+        classification = StatementClassifier.classify(
+                "ALTER TABLE metadata ADD CONSTRAINT fk_metadata_type FOREIGN KEY (metadata_type) REFERENCES metadata_type (id) NOT VALID");
+
+        assertEquals(StatementClassifier.Work.NONE, classification.getWork());
+
+        classification = StatementClassifier.classify("ALTER TABLE metadata VALIDATE CONSTRAINT fk_metadata_type");
+
+        assertEquals(LockLevel.SHARE_UPDATE_EXCLUSIVE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.SCAN, classification.getWork());
+    }
+
+    @Test
+    public void shouldNotEstimateNewObjects() {
+        final StatementClassifier.Classification classification = StatementClassifier.classify(
+                "CREATE TABLE metadata_archive (id BIGSERIAL PRIMARY KEY, metadata_value VARCHAR(255) NOT NULL)");
+
+        assertFalse(classification.isExplainable());
+        assertEquals(LockLevel.NONE, classification.getLockLevel());
+        assertEquals(StatementClassifier.Work.NONE, classification.getWork());
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.gregwhitaker.dbmigrator.prewarm;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class BufferPrewarmerTest {
+
+    @Test
+    public void shouldLoadTablesWithTheirIndexesLargestFirst() throws Exception {
+        final FakeDatabase db = new FakeDatabase()
+                .relation("orders", 800, "orders_pkey", "orders_customer_id_idx")
+                .relation("orders_pkey", 100)
+                .relation("orders_customer_id_idx", 300)
+                .relation("customer_summary", 500);
+
+        new BufferPrewarmer(db.dataSource(), 1, 10_000).prewarm(Arrays.asList("customer_summary", "orders"));
+
+        assertEquals(Arrays.asList("orders", "customer_summary", "orders_customer_id_idx", "orders_pkey"), db.loaded);
+    }
+
+    @Test
+    public void shouldSkipRelationsThatDoNotExistOrCannotBeResolved() throws Exception {
+        final FakeDatabase db = new FakeDatabase()
+                .relation("orders", 800)
+                .unresolvable("bad name(");
+
+        new BufferPrewarmer(db.dataSource(), 2, 10_000).prewarm(Arrays.asList("missing", "bad name(", "orders"));
+
+        assertEquals(Collections.singletonList("orders"), db.loaded);
+    }
+
+    @Test
+    public void shouldSkipRemainingRelationsWhenBudgetIsSpent() throws Exception {
+        final FakeDatabase db = new FakeDatabase()
+                .relation("orders", 800)
+                .relation("customers", 500)
+                .relation("vendors", 100)
+                .slow("orders", 10_000);
+
+        final long start = System.currentTimeMillis();
+        new BufferPrewarmer(db.dataSource(), 1, 200).prewarm(Arrays.asList("vendors", "customers", "orders"));
+
+        // The largest relation uses up the whole budget, so the loads queued behind it never start
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+        assertEquals(Collections.singletonList("orders"), db.loaded);
+        assertTrue(db.statementTimeouts.get(0) <= 200);
+    }
+
+    @Test
+    public void shouldSkipPrewarmWithoutExtension() throws Exception {
+        final FakeDatabase db = new FakeDatabase().relation("orders", 800);
+        db.extensionInstalled = false;
+
+        new BufferPrewarmer(db.dataSource(), 1, 10_000).prewarm(Collections.singletonList("orders"));
+
+        assertEquals(Collections.emptyList(), db.loaded);
+    }
+
+    /**
+     * Database that answers the queries of the prewarmer from in-memory relations and records the loaded relations.
+     */
+    private static final class FakeDatabase {
+        final Map<String, Long> sizes = new HashMap<>();
+        final Map<String, List<String>> indexes = new HashMap<>();
+        final Map<String, Long> loadMillis = new HashMap<>();
+        final List<String> unresolvable = new ArrayList<>();
+        final List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> statementTimeouts = Collections.synchronizedList(new ArrayList<>());
+        boolean extensionInstalled = true;
+
+        FakeDatabase relation(String name, long size, String... relationIndexes) {
+            sizes.put(name, size);
+            indexes.put(name, Arrays.asList(relationIndexes));
+            return this;
+        }
+
+        FakeDatabase unresolvable(String name) {
+            unresolvable.add(name);
+            return this;
+        }
+
+        FakeDatabase slow(String name, long millis) {
+            loadMillis.put(name, millis);
+            return this;
+        }
+
+        DataSource dataSource() {
+            return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class[]{ DataSource.class }, (proxy, method, args) -> {
+                if ("getConnection".equals(method.getName())) {
+                    return connection();
+                }
+
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "prepareStatement":
+                        return statement((String) args[0]);
+                    case "createStatement":
+                        return settingStatement();
+                    case "createArrayOf":
+                        return array((Object[]) args[1]);
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private PreparedStatement statement(String sql) {
+            final Map<Integer, Object> params = new HashMap<>();
+
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setString":
+                    case "setArray":
+                        params.put((Integer) args[0], args[1]);
+                        return null;
+                    case "executeQuery":
+                        return resultSet(query(sql, params));
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private List<Object> query(String sql, Map<Integer, Object> params) throws SQLException, InterruptedException {
+            if (sql.contains("pg_extension")) {
+                return extensionInstalled ? Collections.singletonList(1L) : Collections.emptyList();
+            } else if (sql.contains("pg_index")) {
+                final String name = (String) params.get(1);
+                if (unresolvable.contains(name)) {
+                    throw new SQLException("invalid name syntax");
+                }
+
+                final List<Object> relations = new ArrayList<>();
+                if (sizes.containsKey(name)) {
+                    relations.add(name);
+                    relations.addAll(indexes.get(name));
+                }
+
+                return relations;
+            } else if (sql.contains("unnest")) {
+                return Arrays.stream((Object[]) ((Array) params.get(1)).getArray())
+                        .sorted((a, b) -> Long.compare(sizes.get((String) b), sizes.get((String) a)))
+                        .collect(Collectors.toList());
+            } else if (sql.contains("pg_prewarm")) {
+                final String name = (String) params.get(1);
+                loaded.add(name);
+                Thread.sleep(loadMillis.getOrDefault(name, 0L));
+
+                return Collections.singletonList(sizes.get(name));
+            }
+
+            throw new UnsupportedOperationException(sql);
+        }
+
+        private Statement settingStatement() {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{ Statement.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "execute":
+                        final String sql = (String) args[0];
+                        if (sql.startsWith("SET statement_timeout = ")) {
+                            statementTimeouts.add(Long.parseLong(sql.substring("SET statement_timeout = ".length())));
+                        }
+                        return false;
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private static Array array(Object[] elements) {
+            return (Array) Proxy.newProxyInstance(Array.class.getClassLoader(), new Class[]{ Array.class }, (proxy, method, args) -> {
+                if ("getArray".equals(method.getName())) {
+                    return elements;
+                }
+
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private static ResultSet resultSet(List<Object> values) {
+            final int[] row = { -1 };
+
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ ResultSet.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++row[0] < values.size();
+                    case "getString":
+                    case "getLong":
+                        return values.get(row[0]);
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
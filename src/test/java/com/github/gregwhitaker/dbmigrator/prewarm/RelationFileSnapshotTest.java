@@ -0,0 +1,104 @@
+package com.github.gregwhitaker.dbmigrator.prewarm;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RelationFileSnapshotTest {
+
+    @Test
+    public void shouldFindCreatedAndRewrittenRelations() throws Exception {
+        final RelationFileSnapshot before = RelationFileSnapshot.capture(connection(
+                "metadata", 16401L,
+                "metadata_pkey", 16405L,
+                "vendor", 16410L,
+                "vendor_name_idx", 16412L));
+        final RelationFileSnapshot after = RelationFileSnapshot.capture(connection(
+                // Rewritten by an ALTER COLUMN ... TYPE, which also rebuilds its index
+                "metadata", 16501L,
+                "metadata_pkey", 16505L,
+                "vendor", 16410L,
+                // Created
+                "\"Vendor_Audit\"", 16520L));
+
+        assertEquals(new HashSet<>(Arrays.asList("metadata", "metadata_pkey", "\"Vendor_Audit\"")), after.changedSince(before));
+    }
+
+    @Test
+    public void shouldFindNothingBetweenEqualSnapshots() throws Exception {
+        final RelationFileSnapshot before = RelationFileSnapshot.capture(connection("metadata", 16401L, "vendor", 16410L));
+        final RelationFileSnapshot after = RelationFileSnapshot.capture(connection("metadata", 16401L, "vendor", 16410L));
+
+        assertEquals(Collections.emptySet(), after.changedSince(before));
+    }
+
+    @Test
+    public void shouldNotReportDroppedRelations() throws Exception {
+        final RelationFileSnapshot before = RelationFileSnapshot.capture(connection("metadata", 16401L, "vendor", 16410L));
+        final RelationFileSnapshot after = RelationFileSnapshot.capture(connection("metadata", 16401L));
+
+        assertEquals(Collections.emptySet(), after.changedSince(before));
+    }
+
+    /**
+     * Creates a connection whose catalog holds relations with the given names and file nodes.
+     */
+    private static Connection connection(Object... relations) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < relations.length; i += 2) {
+            rows.add(new Object[]{ relations[i], relations[i + 1] });
+        }
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{ Connection.class }, (proxy, method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+                return statement(rows);
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static PreparedStatement statement(List<Object[]> rows) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[]{ PreparedStatement.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    return resultSet(rows);
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ResultSet resultSet(List<Object[]> rows) {
+        final int[] row = { -1 };
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ ResultSet.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++row[0] < rows.size();
+                case "getString":
+                    assertEquals("relation_name", args[0]);
+                    return rows.get(row[0])[0];
+                case "getLong":
+                    assertEquals("relfilenode", args[0]);
+                    return rows.get(row[0])[1];
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.gregwhitaker.dbmigrator.server;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MigrationServerTest {
+
+    @Test
+    public void shouldReplaceDatabaseInJdbcUrl() {
+        assertEquals("jdbc:postgresql://localhost:5432/tenant_1",
+                MigrationServer.withDatabase("jdbc:postgresql://localhost:5432/postgres", "tenant_1"));
+        assertEquals("jdbc:postgresql://db:5432/tenant_1?ssl=true",
+                MigrationServer.withDatabase("jdbc:postgresql://db:5432/postgres?ssl=true", "tenant_1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDatabaseForNonPostgresJdbcUrl() {
+        MigrationServer.withDatabase("jdbc:h2:mem:test", "tenant_1");
+    }
+
+    @Test
+    public void shouldParseQuery() {
+        final Map<String, String> params = MigrationServer.parseQuery("database=tenant_1&env=local%20dev&clean=");
+
+        assertEquals("tenant_1", params.get("database"));
+        assertEquals("local dev", params.get("env"));
+        assertFalse(params.containsKey("clean"));
+        assertTrue(MigrationServer.parseQuery(null).isEmpty());
+    }
+
+    @Test
+    public void shouldWriteJson() {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("database", null);
+        fields.put("env", "local \"dev\"");
+        fields.put("pending", 2);
+        fields.put("upToDate", false);
+
+        assertEquals("{\"database\":null,\"env\":\"local \\\"dev\\\"\",\"pending\":2,\"upToDate\":false}",
+                MigrationServer.Response.toJson(fields));
+    }
+}
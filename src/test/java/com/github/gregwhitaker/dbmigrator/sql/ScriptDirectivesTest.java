@@ -0,0 +1,76 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScriptDirectivesTest {
+
+    @Test
+    public void shouldParseDirectivesFromHeader() throws IOException {
+        final String sql = "-- Script: V1_0_2_20210601120000__vendor_data_load.sql\n" +
+                "-- Description: Vendor Data Load\n" +
+                "-- Transaction: batch\n" +
+                "-- Lock-Timeout: 5s\n" +
+                "-- Maintenance-Work-Mem: 1GB\n" +
+                "-- Batch-Size: 1000\n" +
+                "-- Retry-Attempts: 3\n" +
+                "-- Retry-Delay: 2s\n" +
+                "\n" +
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('vendor', 1);\n" +
+                "-- Work-Mem: 1TB\n";
+
+        final ScriptDirectives directives = ScriptDirectives.parse(new StringReader(sql));
+
+        final Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("lock_timeout", "5s");
+        settings.put("maintenance_work_mem", "1GB");
+
+        assertTrue(directives.isDeclared());
+        assertEquals(ScriptDirectives.TransactionMode.BATCH, directives.getTransaction());
+        assertEquals(settings, directives.getSettings());
+        assertEquals(1000, directives.getBatchSize());
+        assertEquals(3, directives.getRetryAttempts());
+        assertEquals(2000, directives.getRetryDelayMillis());
+    }
+
+    @Test
+    public void shouldDefaultToSingleTransactionWithoutDirectives() throws IOException {
+        final String sql = "-- Script: V1_0_0_20210520091133__create_initial_schema.sql\n" +
+                "-- Description: Create Initial Schema\n" +
+                "CREATE TABLE metadata (id BIGSERIAL PRIMARY KEY);\n";
+
+        final ScriptDirectives directives = ScriptDirectives.parse(new StringReader(sql));
+
+        assertFalse(directives.isDeclared());
+        assertEquals(ScriptDirectives.TransactionMode.SINGLE, directives.getTransaction());
+        assertTrue(directives.getSettings().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidSettingValue() throws IOException {
+        ScriptDirectives.parse(new StringReader("-- Lock-Timeout: 5s; DROP TABLE metadata\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireBatchSizeInBatchMode() throws IOException {
+        ScriptDirectives.parse(new StringReader("-- Transaction: batch\n"));
+    }
+
+    @Test
+    public void shouldRetryLockTimeoutsInBatches() {
+        final BatchUpdateException batch = new BatchUpdateException("Batch entry 0 was aborted", "55P03", new int[0]);
+        batch.setNextException(new SQLException("canceling statement due to lock timeout", "55P03"));
+
+        assertTrue(StreamingSqlMigrationExecutor.isRetryable(batch));
+        assertTrue(StreamingSqlMigrationExecutor.isRetryable(new SQLException("deadlock detected", "40P01")));
+        assertFalse(StreamingSqlMigrationExecutor.isRetryable(new SQLException("syntax error", "42601")));
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SqlStatementReaderTest {
+
+    @Test
+    public void shouldSplitStatementsAndStripComments() throws IOException {
+        final String sql = "-- Script: V1_0_0_20210520091440__static_data_load.sql\n" +
+                "-- Description: Static Data Load\n" +
+                "\n" +
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue1', 2);\n" +
+                "/* block /* nested */ comment; */\n" +
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue2', 1)\n";
+
+        final List<String> statements = new ArrayList<>();
+        final List<Integer> lines = new ArrayList<>();
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql))) {
+            String statement;
+            while ((statement = reader.next()) != null) {
+                statements.add(statement);
+                lines.add(reader.getLine());
+            }
+        }
+
+        assertEquals(Arrays.asList(
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue1', 2)",
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue2', 1)"
+        ), statements);
+        assertEquals(Arrays.asList(4, 6), lines);
+    }
+
+    @Test
+    public void shouldNotSplitInsideQuotedText() throws IOException {
+        final String sql = "INSERT INTO metadata (metadata_value) VALUES ('a;b''c -- d');\n" +
+                "SELECT E'it\\'s;' AS \"odd;name\";\n" +
+                "CREATE FUNCTION touch() RETURNS trigger AS $body$ BEGIN NEW.modified_on = now(); RETURN NEW; END; $body$ LANGUAGE plpgsql;\n" +
+                "PREPARE find AS SELECT * FROM metadata WHERE id = $1;";
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql))) {
+            assertEquals("INSERT INTO metadata (metadata_value) VALUES ('a;b''c -- d')", reader.next());
+            assertEquals("SELECT E'it\\'s;' AS \"odd;name\"", reader.next());
+            assertEquals("CREATE FUNCTION touch() RETURNS trigger AS $body$ BEGIN NEW.modified_on = now(); RETURN NEW; END; $body$ LANGUAGE plpgsql", reader.next());
+            assertEquals("PREPARE find AS SELECT * FROM metadata WHERE id = $1", reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void shouldReturnNullForScriptWithoutStatements() throws IOException {
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader("-- Nothing to see here\n;\n"))) {
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void shouldReadCopyDataAfterCopyStatement() throws IOException {
+        final String sql = "COPY metadata (metadata_value, metadata_type) FROM stdin;\n" +
+                "it's;\t2\n" +
+                "$$ -- not a comment\t1\n" +
+                "\\.\n" +
+                "UPDATE metadata SET metadata_type = 3;\n";
+
+        final StringWriter rows = new StringWriter();
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql))) {
+            assertEquals("COPY metadata (metadata_value, metadata_type) FROM stdin", reader.next());
+            assertEquals(2, reader.readCopyData(rows));
+            assertEquals("UPDATE metadata SET metadata_type = 3", reader.next());
+            assertEquals(5, reader.getLine());
+            assertNull(reader.next());
+        }
+
+        assertEquals("it's;\t2\n$$ -- not a comment\t1\n", rows.toString());
+    }
+
+    @Test
+    public void shouldSkipCopyDataThatIsNotRead() throws IOException {
+        final String sql = "COPY metadata FROM STDIN;\n" +
+                "'unterminated;\n" +
+                "\\.\n" +
+                "DELETE FROM metadata;";
+
+        try (SqlStatementReader reader = new SqlStatementReader(new StringReader(sql))) {
+            assertEquals("COPY metadata FROM STDIN", reader.next());
+            assertEquals("DELETE FROM metadata", reader.next());
+            assertEquals(0, reader.readCopyData(new StringWriter()));
+            assertNull(reader.next());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.gregwhitaker.dbmigrator.sql;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.resolver.Context;
+import org.flywaydb.core.api.resolver.ResolvedMigration;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class StreamingSqlMigrationResolverTest {
+    private static final String SCRIPT = "-- Script: V1_0_1__vendor_data_load.sql\n" +
+            "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('vendor', 1);\n";
+
+    @Test
+    public void shouldChecksumCompressedScriptLikeUncompressedScript() throws IOException {
+        final Path dir = Files.createTempDirectory("dbmigrator-migration");
+        Files.write(dir.resolve("V1_0_1__vendor_data_load.sql"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        gzip(dir.resolve("V1_0_2__vendor_data_load.sql.gz"), SCRIPT);
+
+        final String[] locations = { "filesystem:" + dir };
+
+        try (Reader plain = ScriptResources.open(ScriptResources.find(locations, "V1_0_1__vendor_data_load.sql"));
+             Reader compressed = ScriptResources.open(ScriptResources.find(locations, "V1_0_2__vendor_data_load.sql.gz"))) {
+            assertEquals(StreamingSqlMigrationResolver.checksum(plain), StreamingSqlMigrationResolver.checksum(compressed));
+        }
+    }
+
+    @Test
+    public void shouldIgnoreLineTerminatorsAndByteOrderMarkInChecksum() throws IOException {
+        final int checksum = StreamingSqlMigrationResolver.checksum(new StringReader(SCRIPT));
+
+        assertEquals(checksum, StreamingSqlMigrationResolver.checksum(new StringReader(SCRIPT.replace("\n", "\r\n"))));
+        assertEquals(checksum, StreamingSqlMigrationResolver.checksum(new StringReader("\uFEFF" + SCRIPT)));
+        assertNotEquals(checksum, StreamingSqlMigrationResolver.checksum(new StringReader(SCRIPT.replace("vendor", "other"))));
+    }
+
+    @Test
+    public void shouldListCompressedScriptsInSubdirectories() throws IOException {
+        final Path dir = Files.createTempDirectory("dbmigrator-migration");
+        Files.createDirectories(dir.resolve("vendor"));
+        gzip(dir.resolve("vendor/V1_0_3__vendor_data_load.sql.gz"), SCRIPT);
+        gzip(dir.resolve("R__vendor_lookup_load.sql.gz"), SCRIPT);
+        Files.write(dir.resolve("V1_0_4__small_data_load.sql"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+
+        final Map<String, URL> scripts = ScriptResources.list(new String[]{ "filesystem:" + dir }, StreamingSqlMigrationResolver.SUFFIX);
+
+        assertEquals(Arrays.asList("R__vendor_lookup_load.sql.gz", "vendor/V1_0_3__vendor_data_load.sql.gz"),
+                Arrays.asList(scripts.keySet().toArray(new String[0])));
+        assertEquals(SCRIPT, ScriptResources.read(new String[]{ "filesystem:" + dir }, "vendor/V1_0_3__vendor_data_load.sql.gz"));
+    }
+
+    @Test
+    public void shouldFailOnUncompressedScriptWithDirectives() throws IOException {
+        final Path dir = Files.createTempDirectory("dbmigrator-migration");
+        Files.write(dir.resolve("V1_0_1__vendor_index.sql"),
+                ("-- Script: V1_0_1__vendor_index.sql\n-- Lock-Timeout: 5s\n" + SCRIPT).getBytes(StandardCharsets.UTF_8));
+
+        try {
+            resolve(dir);
+            fail("Expected uncompressed script with directives to fail resolution");
+        } catch (FlywayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("V1_0_1__vendor_index.sql"));
+        }
+    }
+
+    @Test
+    public void shouldResolveUncompressedScriptsWithoutDirectivesAndUndoScripts() throws IOException {
+        final Path dir = Files.createTempDirectory("dbmigrator-migration");
+        Files.write(dir.resolve("V1_0_1__vendor_data_load.sql"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("U1_0_1__vendor_data_load.sql"),
+                ("-- Script: U1_0_1__vendor_data_load.sql\n-- Lock-Timeout: 5s\n" + SCRIPT).getBytes(StandardCharsets.UTF_8));
+        gzip(dir.resolve("V1_0_2__vendor_index.sql.gz"), "-- Script: V1_0_2__vendor_index.sql\n-- Lock-Timeout: 5s\n" + SCRIPT);
+
+        final Collection<ResolvedMigration> migrations = resolve(dir);
+
+        assertEquals(1, migrations.size());
+        assertEquals("V1_0_2__vendor_index.sql.gz", migrations.iterator().next().getScript());
+    }
+
+    @Test
+    public void shouldReplacePlaceholdersInStatements() {
+        final StreamingSqlMigrationExecutor executor = new StreamingSqlMigrationExecutor(
+                Flyway.configure().placeholders(Collections.singletonMap("walBytesPerSecond", "1024")), "V1__test.sql.gz", null, ScriptDirectives.DEFAULT);
+
+        assertEquals("SELECT 1024, '1024'", executor.replacePlaceholders("SELECT ${walBytesPerSecond}, '${walBytesPerSecond}'"));
+        assertEquals("SELECT '$1', '${'", executor.replacePlaceholders("SELECT '$1', '${'"));
+    }
+
+    @Test(expected = FlywayException.class)
+    public void shouldFailOnPlaceholderWithoutValue() {
+        new StreamingSqlMigrationExecutor(Flyway.configure(), "V1__test.sql.gz", null, ScriptDirectives.DEFAULT)
+                .replacePlaceholders("SELECT ${missing}");
+    }
+
+    private static Collection<ResolvedMigration> resolve(Path dir) {
+        final Configuration configuration = Flyway.configure().locations("filesystem:" + dir);
+        return new StreamingSqlMigrationResolver().resolveMigrations(new Context() {
+            @Override
+            public Configuration getConfiguration() {
+                return configuration;
+            }
+        });
+    }
+
+    private static void gzip(Path file, String contents) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
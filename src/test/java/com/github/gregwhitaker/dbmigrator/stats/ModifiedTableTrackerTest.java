@@ -0,0 +1,16 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ModifiedTableTrackerTest {
+
+    @Test
+    public void shouldDetectSchemaQualifiedTableNames() {
+        assertTrue(ModifiedTableTracker.isQualified("public.metadata"));
+        assertTrue(ModifiedTableTracker.isQualified("\"Tenant\".\"Vendor_Data\""));
+        assertFalse(ModifiedTableTracker.isQualified("metadata"));
+        assertFalse(ModifiedTableTracker.isQualified("\"vendor.data\""));
+    }
+}
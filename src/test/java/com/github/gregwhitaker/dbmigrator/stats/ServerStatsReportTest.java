@@ -0,0 +1,74 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ServerStatsReportTest {
+
+    @Test
+    public void shouldAttributeChangeToMigration() {
+        final StatementStats before = new StatementStats("CREATE INDEX foo_idx ON foo (bar)", null, 1, 10.0, 0, 5, 1, 0);
+        final StatementStats after = new StatementStats("CREATE INDEX foo_idx ON foo (bar)", null, 3, 250.0, 0, 105, 11, 64);
+
+        final StatementStats change = after.since(before, "1.0.0.20210520091440");
+
+        assertEquals("1.0.0.20210520091440", change.getMigration());
+        assertEquals(2, change.getCalls());
+        assertEquals(240.0, change.getTotalMillis(), 0.001);
+        assertEquals(100, change.getSharedBlocksRead());
+        assertEquals(10, change.getSharedBlocksWritten());
+        assertEquals(64, change.getTempBlocksWritten());
+    }
+
+    @Test
+    public void shouldRankStatements() {
+        final StatementStats slow = new StatementStats("UPDATE foo SET bar = $1", "2", 1, 900.0, 1000, 10, 10, 0);
+        final StatementStats spilling = new StatementStats("CREATE INDEX foo_idx ON foo (bar)", "3", 1, 500.0, 0, 1000, 50, 200);
+        final StatementStats cheap = new StatementStats("SELECT 1", null, 1, 0.1, 1, 0, 0, 0);
+
+        final ServerStatsReport report = new ServerStatsReport(Arrays.asList("2", "3"), Arrays.asList(cheap, spilling, slow), 8192,
+                Collections.emptyMap(), Collections.emptyList(), Collections.emptyMap());
+
+        assertEquals(Arrays.asList(slow, spilling, cheap), report.getTopStatementsByTime());
+        assertEquals(Arrays.asList(spilling, slow), report.getTopStatementsByIo());
+        assertEquals(Collections.singletonList(spilling), report.getTopStatementsByTemp());
+    }
+
+    @Test
+    public void shouldReportWithoutStatements() throws Exception {
+        final Map<String, Long> walBytes = new LinkedHashMap<>();
+        walBytes.put("1", 3L * 1024 * 1024);
+        walBytes.put("-", 2048L);
+
+        final ServerStatsReport report = new ServerStatsReport(Collections.singletonList("1"), null, 8192, walBytes,
+                Collections.singletonList(new ServerStatsReport.TableActivity("public.foo", 2, 5000, 0, 100)),
+                Collections.singletonMap("checkpoints_requested", 1L));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true, StandardCharsets.UTF_8.name()));
+        final String printed = out.toString(StandardCharsets.UTF_8.name());
+
+        assertTrue(report.getTopStatementsByTime().isEmpty());
+        assertEquals(3L * 1024 * 1024 + 2048, report.getTotalWalBytes());
+        assertTrue(printed.contains("WAL: 3.0MB"));
+        assertTrue(printed.contains("statements: unavailable"));
+        assertTrue(printed.contains("public.foo"));
+        assertTrue(printed.contains("checkpoints_requested"));
+    }
+
+    @Test
+    public void shouldFormatBytes() {
+        assertEquals("512B", ServerStatsReport.formatBytes(512));
+        assertEquals("8.0kB", ServerStatsReport.formatBytes(8192));
+        assertEquals("1.5MB", ServerStatsReport.formatBytes(1024 * 1536));
+    }
+}
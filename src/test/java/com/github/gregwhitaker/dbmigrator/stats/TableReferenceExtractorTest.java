@@ -0,0 +1,59 @@
+package com.github.gregwhitaker.dbmigrator.stats;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TableReferenceExtractorTest {
+
+    @Test
+    public void shouldExtractTablesFromDataLoad() {
+        final String sql = "-- Script: V1_0_0_20210520091440__static_data_load.sql\n" +
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue1', 2);\n" +
+                "INSERT INTO metadata (metadata_value, metadata_type) VALUES ('metadataValue2', 1);\n";
+
+        assertEquals(Collections.singleton("metadata"), TableReferenceExtractor.extract(sql));
+    }
+
+    @Test
+    public void shouldExtractTablesFromDmlAndDdl() {
+        final String sql = "UPDATE metadata m SET metadata_value = 'x' WHERE m.id = 1;\n" +
+                "DELETE FROM ONLY public.metadata_type WHERE id = 3;\n" +
+                "COPY \"Vendor_Data\" (id, name) FROM STDIN;\n" +
+                "ALTER TABLE IF EXISTS metadata ADD COLUMN foo INT;\n" +
+                "CREATE INDEX CONCURRENTLY idx_metadata_type ON metadata (metadata_type);\n" +
+                "CREATE TABLE metadata_archive AS SELECT * FROM metadata;\n" +
+                "TRUNCATE TABLE staging;\n";
+
+        final Set<String> expected = new HashSet<>(Arrays.asList(
+                "public.metadata_type",
+                "\"Vendor_Data\"",
+                "staging",
+                "metadata",
+                "metadata_archive"
+        ));
+
+        assertEquals(expected, TableReferenceExtractor.extract(sql));
+    }
+
+    @Test
+    public void shouldIgnoreCommentsAndStringLiterals() {
+        final String sql = "/* INSERT INTO commented_out VALUES (1); */\n" +
+                "-- UPDATE also_commented SET x = 1;\n" +
+                "SELECT 'INSERT INTO not_a_table VALUES (1)';\n";
+
+        assertTrue(TableReferenceExtractor.extract(sql).isEmpty());
+    }
+
+    @Test
+    public void shouldNotTreatPlainCreateTableAsModification() {
+        final String sql = "CREATE TABLE metadata_type (id BIGSERIAL PRIMARY KEY, type_name VARCHAR(255) NOT NULL);";
+
+        assertTrue(TableReferenceExtractor.extract(sql).isEmpty());
+    }
+}
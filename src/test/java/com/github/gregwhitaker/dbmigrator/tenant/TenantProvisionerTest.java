@@ -0,0 +1,38 @@
+package com.github.gregwhitaker.dbmigrator.tenant;
+
+import org.junit.Test;
+
+public class TenantProvisionerTest {
+
+    @Test
+    public void shouldAcceptLowercaseIdentifiers() {
+        TenantProvisioner.validate("acme");
+        TenantProvisioner.validate("tenant_42");
+        TenantProvisioner.validate("_internal");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectQuotedIdentifiers() {
+        TenantProvisioner.validate("acme\"; DROP SCHEMA public; --");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUppercaseIdentifiers() {
+        TenantProvisioner.validate("Acme");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIdentifiersLongerThanPostgresAllows() {
+        TenantProvisioner.validate("t" + "x".repeat(63));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSpareSchemaNames() {
+        TenantProvisioner.validate(TenantProvisioner.SPARE_PREFIX + "0123456789abcdef");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSystemSchemaNames() {
+        TenantProvisioner.validate("pg_catalog");
+    }
+}
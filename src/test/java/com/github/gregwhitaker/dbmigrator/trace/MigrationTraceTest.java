@@ -0,0 +1,66 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MigrationTraceTest {
+
+    @Test
+    public void shouldBoundStatementSpans() throws Exception {
+        final Path file = Files.createTempFile("dbmigrator-trace", ".json");
+
+        try {
+            final MigrationTrace trace = new MigrationTrace(file, null);
+            trace.startTarget();
+
+            for (int i = 0; i < MigrationTrace.MAX_STATEMENT_SPANS + 5; i++) {
+                trace.statement("SELECT " + i, System.nanoTime(), 1, null);
+            }
+
+            trace.close();
+
+            final List<Span> spans = trace.getSpans();
+            final Span run = spans.get(spans.size() - 1);
+
+            // Statement spans, the target span and the run span
+            assertEquals(MigrationTrace.MAX_STATEMENT_SPANS + 2, spans.size());
+            assertEquals("dbmigrator.run", run.getName());
+            assertEquals(5, run.getAttributes().get("dbmigrator.dropped_statement_spans"));
+            assertNotNull(run.getAttributes().get("dbmigrator.trace.overhead_ms"));
+
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"resourceSpans\":"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shouldTruncateStatementText() throws Exception {
+        final Path file = Files.createTempFile("dbmigrator-trace", ".json");
+
+        try {
+            final StringBuilder sql = new StringBuilder();
+            while (sql.length() <= MigrationTrace.MAX_STATEMENT_LENGTH) {
+                sql.append("SELECT 1; ");
+            }
+
+            final MigrationTrace trace = new MigrationTrace(file, null);
+            trace.statement(sql.toString(), System.nanoTime(), -1, null);
+            trace.close();
+
+            final Span statement = trace.getSpans().get(0);
+            assertEquals(MigrationTrace.MAX_STATEMENT_LENGTH, ((String) statement.getAttributes().get("db.statement")).length());
+            assertFalse(statement.getAttributes().containsKey("dbmigrator.rows_affected"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.gregwhitaker.dbmigrator.trace;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class OtlpJsonWriterTest {
+
+    @Test
+    public void shouldWriteSpansAsOtlpJson() {
+        final Span run = new Span("0000000000000001", null, "dbmigrator.run", Span.Kind.INTERNAL, 1000L)
+                .setAttribute("dbmigrator.env", "dev")
+                .setAttribute("dbmigrator.clean", false);
+        run.end(5000L);
+
+        final Span statement = new Span("0000000000000002", "0000000000000001", "dbmigrator.statement", Span.Kind.CLIENT, 2000L)
+                .setAttribute("db.statement", "SELECT \"a\"\n")
+                .setAttribute("dbmigrator.rows_affected", 3L);
+        statement.setError(new IllegalStateException("boom"));
+        statement.end(3000L);
+
+        final String json = OtlpJsonWriter.write("0123456789abcdef0123456789abcdef",
+                Collections.singletonMap("service.name", "dbmigrator"), Arrays.asList(statement, run));
+
+        assertEquals("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\",\"value\":{\"stringValue\":\"dbmigrator\"}}]}," +
+                "\"scopeSpans\":[{\"scope\":{\"name\":\"com.github.gregwhitaker.dbmigrator\"},\"spans\":[" +
+                "{\"traceId\":\"0123456789abcdef0123456789abcdef\",\"spanId\":\"0000000000000002\",\"parentSpanId\":\"0000000000000001\"," +
+                "\"name\":\"dbmigrator.statement\",\"kind\":3,\"startTimeUnixNano\":\"2000\",\"endTimeUnixNano\":\"3000\"," +
+                "\"attributes\":[{\"key\":\"db.statement\",\"value\":{\"stringValue\":\"SELECT \\\"a\\\"\\n\"}}," +
+                "{\"key\":\"dbmigrator.rows_affected\",\"value\":{\"intValue\":\"3\"}}]," +
+                "\"status\":{\"code\":2,\"message\":\"boom\"}}," +
+                "{\"traceId\":\"0123456789abcdef0123456789abcdef\",\"spanId\":\"0000000000000001\"," +
+                "\"name\":\"dbmigrator.run\",\"kind\":1,\"startTimeUnixNano\":\"1000\",\"endTimeUnixNano\":\"5000\"," +
+                "\"attributes\":[{\"key\":\"dbmigrator.env\",\"value\":{\"stringValue\":\"dev\"}}," +
+                "{\"key\":\"dbmigrator.clean\",\"value\":{\"boolValue\":false}}]," +
+                "\"status\":{\"code\":1}}]}]}]}", json);
+    }
+
+    @Test
+    public void shouldEscapeControlCharacters() {
+        assertEquals("\"a\\tb\\u0001\\\\\"", OtlpJsonWriter.quote("a\tb\u0001\\"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.gregwhitaker.dbmigrator.undo;
+
+import com.github.gregwhitaker.dbmigrator.MigrationException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.flywaydb.core.api.MigrationType;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class UndoMigratorTest {
+
+    @Test
+    public void shouldParseVersionOfUndoMigration() {
+        assertEquals(MigrationVersion.fromVersion("1.0.1.20210601120000"),
+                UndoMigrator.version("U1_0_1_20210601120000__add_vendor_table", "U", "__"));
+        assertEquals(MigrationVersion.fromVersion("1.0.1.20210601120000"),
+                UndoMigrator.version("U1_0_1_20210601120000__Add_Vendor_Table", "U", "__"));
+    }
+
+    @Test
+    public void shouldIgnoreMigrationsThatAreNotUndoMigrations() {
+        assertNull(UndoMigrator.version("V1_0_1_20210601120000__add_vendor_table", "U", "__"));
+        assertNull(UndoMigrator.version("R__vendor_lookup_load", "U", "__"));
+        assertNull(UndoMigrator.version("U__no_version", "U", "__"));
+        assertNull(UndoMigrator.version("UndoHelper", "U", "__"));
+    }
+
+    @Test
+    public void shouldSelectMigrationsAboveTargetInReverseInstalledOrder() {
+        final MigrationInfo[] applied = {
+                migration(1, "1.0.0", MigrationType.SQL, MigrationState.SUCCESS),
+                migration(2, "1.0.1", MigrationType.SQL, MigrationState.SUCCESS),
+                migration(3, "1.0.3", MigrationType.SQL, MigrationState.SUCCESS),
+                // Applied out of order after 1.0.3
+                migration(4, "1.0.2", MigrationType.JDBC, MigrationState.SUCCESS),
+                migration(5, null, MigrationType.SQL, MigrationState.SUCCESS)
+        };
+
+        final List<MigrationInfo> undo = UndoMigrator.appliedAbove(applied, MigrationVersion.fromVersion("1.0.0"));
+
+        assertEquals(Arrays.asList(4, 3, 2), undo.stream().map(MigrationInfo::getInstalledRank).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldSelectNothingAtLatestVersion() {
+        final MigrationInfo[] applied = {
+                migration(1, "1.0.0", MigrationType.SQL, MigrationState.SUCCESS),
+                migration(2, "1.0.1", MigrationType.SQL, MigrationState.SUCCESS)
+        };
+
+        assertTrue(UndoMigrator.appliedAbove(applied, MigrationVersion.fromVersion("1.0.1")).isEmpty());
+    }
+
+    @Test
+    public void shouldRefuseToUndoPastBaseline() {
+        final MigrationInfo[] applied = {
+                migration(1, "1.0.0", MigrationType.SQL, MigrationState.SUCCESS),
+                migration(2, "1.0.1", MigrationType.BASELINE, MigrationState.SUCCESS),
+                migration(3, "1.0.2", MigrationType.SQL, MigrationState.SUCCESS)
+        };
+
+        try {
+            UndoMigrator.appliedAbove(applied, MigrationVersion.fromVersion("1.0.0"));
+            fail("Expected undo past the baseline to be refused");
+        } catch (MigrationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("baseline"));
+        }
+
+        // Undoing down to the baseline itself is allowed
+        assertEquals(1, UndoMigrator.appliedAbove(applied, MigrationVersion.fromVersion("1.0.1")).size());
+    }
+
+    @Test
+    public void shouldRefuseToUndoFailedMigration() {
+        final MigrationInfo[] applied = {
+                migration(1, "1.0.0", MigrationType.SQL, MigrationState.SUCCESS),
+                migration(2, "1.0.1", MigrationType.SQL, MigrationState.FAILED)
+        };
+
+        try {
+            UndoMigrator.appliedAbove(applied, MigrationVersion.fromVersion("1.0.0"));
+            fail("Expected undo of a failed migration to be refused");
+        } catch (MigrationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("failed"));
+        }
+    }
+
+    private static MigrationInfo migration(int installedRank, String version, MigrationType type, MigrationState state) {
+        return (MigrationInfo) Proxy.newProxyInstance(MigrationInfo.class.getClassLoader(), new Class[]{ MigrationInfo.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getInstalledRank":
+                    return installedRank;
+                case "getVersion":
+                    return version != null ? MigrationVersion.fromVersion(version) : null;
+                case "getType":
+                    return type;
+                case "getState":
+                    return state;
+                case "toString":
+                    return version;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}